@@ -0,0 +1,69 @@
+package com.iit.ticket.benchmark;
+
+import com.iit.ticket.model.Ticket;
+import com.iit.ticket.pool.JournaledTicketPool;
+import com.iit.ticket.pool.TicketPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what the write-ahead journal costs on top of an in-memory pool. Run it with several
+ * thread counts (-t): the gap narrows as threads grow because more operations share each fsync.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournaledTicketPoolBenchmark {
+
+    @Param({"RingBuffer", "ReentrantLock"})
+    public String poolType;
+
+    @Param({"false", "true"})
+    public boolean journaled;
+
+    private TicketPool pool;
+    private Path journal;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        pool = TicketPoolBenchmark.createPool(poolType, 10000);
+        if (journaled) {
+            journal = Files.createTempFile("benchmark", ".journal");
+            Files.delete(journal);
+            pool = JournaledTicketPool.open(pool, journal);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (pool instanceof JournaledTicketPool) {
+            ((JournaledTicketPool) pool).close();
+            Files.deleteIfExists(journal);
+        }
+    }
+
+    @Benchmark
+    public Ticket addThenPurchase(TicketPoolBenchmark.TicketSource source) {
+        pool.addTicket(source.ticket);
+        return pool.purchaseTicket();
+    }
+}
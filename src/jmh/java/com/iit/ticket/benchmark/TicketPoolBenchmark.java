@@ -0,0 +1,184 @@
+package com.iit.ticket.benchmark;
+
+import com.iit.ticket.model.PoolStats;
+import com.iit.ticket.model.Ticket;
+import com.iit.ticket.pool.PoolType;
+import com.iit.ticket.pool.TicketPool;
+import com.iit.ticket.util.TicketRecycler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency-percentile benchmarks for every TicketPool. The pool is half filled
+ * before each trial so both producers and consumers make progress; the contended groups use the
+ * non-blocking try operations so a benchmark can never hang on a full or empty pool. Benchmarks
+ * that add tickets run with and without a TicketRecycler; with the GC profiler on, the
+ * gc.alloc.rate.norm column shows the bytes per operation each choice costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TicketPoolBenchmark {
+
+    @Param({"Synchronized", "ReentrantLock", "BlockingQueue", "RingBuffer", "Sharded", "OffHeap", "TwoLock", "PriceOrdered", "StampedLock"})
+    public String poolType;
+
+    @Param({"100", "10000"})
+    public int capacity;
+
+    private TicketPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pool = createPool(poolType, capacity);
+        for (int i = 0; i < capacity / 2; i++) {
+            pool.addTicket(new Ticket(i, 100.0));
+        }
+    }
+
+    // Each thread adds one ticket before buying one, so the blocking calls never wait for long
+    // as long as the benchmark runs with fewer threads than half the capacity.
+    @Benchmark
+    public Ticket addThenPurchase(TicketSupply supply) {
+        pool.addTicket(supply.acquire());
+        return supply.release(pool.purchaseTicket());
+    }
+
+    @Benchmark
+    @Group("produceConsume")
+    @GroupThreads(1)
+    public boolean produce(TicketSupply supply) {
+        Ticket ticket = supply.acquire();
+        if (pool.tryAddTicket(ticket)) {
+            return true;
+        }
+        supply.release(ticket);
+        return false;
+    }
+
+    @Benchmark
+    @Group("produceConsume")
+    @GroupThreads(1)
+    public Ticket consume(TicketSupply supply) {
+        return supply.release(pool.tryPurchaseTicket());
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public Ticket write(TicketSupply supply) {
+        return tradeOnce(supply);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public PoolStats read() {
+        return pool.getStats();
+    }
+
+    @Benchmark
+    @Group("reprice")
+    @GroupThreads(3)
+    public Ticket trade(TicketSupply supply) {
+        return tradeOnce(supply);
+    }
+
+    // In-place repricing of the seats added in setUp, alongside buyers and sellers
+    @Benchmark
+    @Group("reprice")
+    @GroupThreads(1)
+    public boolean reprice(TicketSource source) {
+        source.nextId = source.nextId + 1 < capacity / 2 ? source.nextId + 1 : 0;
+        return pool.updateTicketPrice(source.nextId, 50.0);
+    }
+
+    // Dashboard-style mix: several Readers polling stats while one thread buys and sells. The
+    // buyer's latency percentiles show whether readers get in the way of purchases.
+    @Benchmark
+    @Group("readHeavy")
+    @GroupThreads(3)
+    public PoolStats monitor() {
+        return pool.getStats();
+    }
+
+    @Benchmark
+    @Group("readHeavy")
+    @GroupThreads(1)
+    public Ticket buy(TicketSupply supply) {
+        return tradeOnce(supply);
+    }
+
+    @Benchmark
+    public PoolStats pollStats() {
+        return pool.getStats();
+    }
+
+    // Sells a ticket and buys one back; a ticket the pool turns away goes straight back to the supply
+    private Ticket tradeOnce(TicketSupply supply) {
+        Ticket ticket = supply.acquire();
+        if (pool.tryAddTicket(ticket)) {
+            return supply.release(pool.tryPurchaseTicket());
+        }
+        supply.release(ticket);
+        return null;
+    }
+
+    static TicketPool createPool(String poolType, int capacity) {
+        return PoolType.fromLabel(poolType).create(capacity);
+    }
+
+    @State(Scope.Thread)
+    public static class TicketSource {
+
+        // Reusing one ticket per thread keeps allocation out of the measured path
+        final Ticket ticket = new Ticket(0, 100.0);
+        int nextId;
+    }
+
+    // Where added tickets come from: a new Ticket every time, or a recycler shared by all threads
+    // that purchased tickets are handed back to, as the simulation's producers and consumers do
+    @State(Scope.Benchmark)
+    public static class TicketSupply {
+
+        private static final int RECYCLER_CAPACITY = 1024;
+
+        @Param({"false", "true"})
+        public boolean recycling;
+
+        private TicketRecycler recycler;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            recycler = recycling ? new TicketRecycler(RECYCLER_CAPACITY) : null;
+        }
+
+        Ticket acquire() {
+            return recycler != null ? recycler.acquire(0, 100.0) : new Ticket(0, 100.0);
+        }
+
+        Ticket release(Ticket ticket) {
+            if (recycler != null) {
+                recycler.release(ticket);
+            }
+            return ticket;
+        }
+    }
+}
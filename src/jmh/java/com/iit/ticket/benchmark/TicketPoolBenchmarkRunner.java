@@ -0,0 +1,36 @@
+package com.iit.ticket.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the pool benchmarks once per thread count, since JMH takes a single thread count per run.
+ * Usage: java -jar target/benchmarks.jar [threadCounts] [benchmarkRegex], for example
+ * "1,4,16 addThenPurchase". Results for each thread count are written as JSON. The GC profiler
+ * is always on, so every result also reports allocation in bytes per operation.
+ */
+public class TicketPoolBenchmarkRunner {
+
+    private static final String DEFAULT_THREAD_COUNTS = "1,4,16";
+
+    public static void main(String[] args) throws RunnerException {
+        String threadCounts = args.length > 0 ? args[0] : DEFAULT_THREAD_COUNTS;
+        String include = args.length > 1 ? args[1] : TicketPoolBenchmark.class.getSimpleName();
+
+        for (String count : threadCounts.split(",")) {
+            int threads = Integer.parseInt(count.trim());
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("jmh-result-" + threads + "-threads.json")
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -1,37 +1,106 @@
 package com.iit.ticket;
 
 import com.iit.ticket.consumer.Consumer;
+import com.iit.ticket.consumer.StreamingConsumer;
+import com.iit.ticket.flow.TicketPublisher;
+import com.iit.ticket.metrics.LatencyHistogram;
+import com.iit.ticket.metrics.PoolMetrics;
+import com.iit.ticket.model.PoolStats;
+import com.iit.ticket.model.Ticket;
 import com.iit.ticket.pool.BlockingQueueTicketPool;
+import com.iit.ticket.pool.JournaledTicketPool;
+import com.iit.ticket.pool.OffHeapTicketPool;
+import com.iit.ticket.pool.PoolType;
+import com.iit.ticket.pool.PriceOrderedTicketPool;
 import com.iit.ticket.pool.ReentrantLockTicketPool;
+import com.iit.ticket.pool.ReservableTicketPool;
+import com.iit.ticket.pool.RingBufferTicketPool;
+import com.iit.ticket.pool.SeatSelectable;
+import com.iit.ticket.pool.ShardedTicketPool;
+import com.iit.ticket.pool.StampedLockTicketPool;
 import com.iit.ticket.pool.SynchronizedTicketPool;
 import com.iit.ticket.pool.TicketPool;
+import com.iit.ticket.pool.TicketPoolRegistry;
+import com.iit.ticket.pool.TwoLockTicketPool;
+import com.iit.ticket.producer.AdaptivePacing;
 import com.iit.ticket.producer.Producer;
 import com.iit.ticket.reader.Reader;
+import com.iit.ticket.scaling.AutoScaler;
+import com.iit.ticket.scaling.ScalingSample;
+import com.iit.ticket.scaling.ScalingTarget;
+import com.iit.ticket.scenario.ScenarioRunner;
+import com.iit.ticket.util.EventLog;
+import com.iit.ticket.util.PoolEntity;
+import com.iit.ticket.util.RateScheduler;
+import com.iit.ticket.util.TicketRecycler;
 import com.iit.ticket.writer.Writer;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Scanner;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class SimulationManager {
 
+    private static final String JOURNAL_FILE = "ticketpool.journal";
+    private static final String SNAPSHOT_FILE = "ticketpool.snapshot";
+    private static final String SCALING_SERIES_FILE = "autoscaler.csv";
+    private static final int FIRST_EVENT_ENTITY_ID = 100_000;
     private static final Scanner scanner = new Scanner(System.in);
     private static final List<Thread> threads = new CopyOnWriteArrayList<>();
     private static final List<Producer> producers = new CopyOnWriteArrayList<>();
     private static final List<Consumer> consumers = new CopyOnWriteArrayList<>();
+    private static final List<StreamingConsumer> streamingConsumers = new CopyOnWriteArrayList<>();
     private static final List<Reader> readers = new CopyOnWriteArrayList<>();
     private static final List<Writer> writers = new CopyOnWriteArrayList<>();
+    private static final List<PoolEntity> eventEntities = new CopyOnWriteArrayList<>();
     private static final AtomicBoolean isRunning = new AtomicBoolean(true);
     private static TicketPool ticketPool;
+    private static int poolCapacity;
+    private static PoolType selectedPoolType;
+    // Whether the pool under the journal and hold wrappers can sell a specific seat
+    private static boolean seatSelection;
+    private static TicketRecycler ticketRecycler;
+    private static JournaledTicketPool journal;
+    private static OffHeapTicketPool snapshotPool;
+    private static boolean useVirtualThreads;
+    private static RateScheduler rateScheduler;
+    private static TicketPublisher ticketPublisher;
+    private static AutoScaler autoScaler;
+    private static java.io.Writer scalingSeries;
+    private static volatile double scaledEntityRate;
+    private static TicketPoolRegistry eventRegistry;
+    private static RateScheduler eventScheduler;
+    private static int[] lastEventSold;
 
     public static void main(String[] args) {
+        // --scenario <file> [report] runs a scenario file without the menus
+        if (args.length > 0 && args[0].equals("--scenario")) {
+            runScenario(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         System.out.println("Welcome to Ticket Pool Simulation System");
         System.out.println("----------------------------------------");
         System.out.println("Please select a pool type:");
         System.out.println("1. Synchronized Pool");
         System.out.println("2. ReentrantLock Pool");
         System.out.println("3. BlockingQueue Pool");
+        System.out.println("4. Lock-Free Ring Buffer Pool");
+        System.out.println("5. Sharded Pool");
+        System.out.println("6. Off-Heap Primitive Pool");
+        System.out.println("7. Two-Lock Queue Pool");
+        System.out.println("8. Price-Ordered Pool");
+        System.out.println("9. StampedLock Pool");
 
         initPoolType();
 
@@ -43,21 +112,22 @@ public class SimulationManager {
     }
 
     public static void initPoolType() {
-        System.out.print("Enter Pool Type (1-3): ");
+        System.out.print("Enter Pool Type (1-9): ");
         int poolType = scanner.nextInt();
 
-        while (poolType < 1 || poolType > 3) {
-            System.out.print("Invalid choice. Please enter a number between 1 and 3: ");
+        while (poolType < 1 || poolType > 9) {
+            System.out.print("Invalid choice. Please enter a number between 1 and 9: ");
             poolType = scanner.nextInt();
         }
 
         System.out.print("Enter Pool Capacity: ");
-        int poolCapacity = scanner.nextInt();
+        poolCapacity = scanner.nextInt();
 
         while (poolCapacity <= 0) {
             System.out.print("Capacity must be greater than 0. Please enter a valid capacity: ");
             poolCapacity = scanner.nextInt();
         }
+        selectedPoolType = PoolType.values()[poolType - 1];
 
         switch (poolType) {
             case 1:
@@ -72,11 +142,159 @@ public class SimulationManager {
                 ticketPool = new BlockingQueueTicketPool(poolCapacity);
                 System.out.println("BlockingQueue Pool initialized with capacity: " + poolCapacity);
                 break;
+            case 4:
+                ticketPool = new RingBufferTicketPool(poolCapacity);
+                System.out.println("Ring Buffer Pool initialized with capacity: " + poolCapacity);
+                break;
+            case 5:
+                ticketPool = new ShardedTicketPool(poolCapacity);
+                System.out.println("Sharded Pool initialized with capacity: " + poolCapacity
+                        + " across " + ((ShardedTicketPool) ticketPool).getShardCount() + " shards");
+                break;
+            case 6:
+                snapshotPool = initOffHeapPool(poolCapacity);
+                ticketPool = snapshotPool;
+                break;
+            case 7:
+                ticketPool = new TwoLockTicketPool(poolCapacity);
+                System.out.println("Two-Lock Queue Pool initialized with capacity: " + poolCapacity);
+                break;
+            case 8:
+                ticketPool = new PriceOrderedTicketPool(poolCapacity);
+                System.out.println("Price-Ordered Pool initialized with capacity: " + poolCapacity);
+                break;
+            case 9:
+                ticketPool = new StampedLockTicketPool(poolCapacity);
+                System.out.println("StampedLock Pool initialized with capacity: " + poolCapacity);
+                break;
+        }
+
+        System.out.print("Enable ticket recycling? (1 = Yes, 0 = No): ");
+        if (scanner.nextInt() == 1) {
+            ticketRecycler = new TicketRecycler(poolCapacity);
+            System.out.println("Ticket recycling enabled: consumers return purchased tickets to producers.");
+        }
+
+        initThreadMode(poolCapacity);
+        seatSelection = ticketPool instanceof SeatSelectable;
+
+        System.out.print("Enable write-ahead journal? (1 = Yes, 0 = No): ");
+        if (scanner.nextInt() == 1) {
+            initJournal();
         }
 
+        System.out.print("Enable checkout holds? (1 = Yes, 0 = No): ");
+        if (scanner.nextInt() == 1) {
+            ticketPool = new ReservableTicketPool(ticketPool, poolCapacity);
+            System.out.println("Checkout holds enabled: reserved tickets return to the pool if not confirmed in time.");
+        }
+
+        registerMetrics();
         showMenu();
     }
 
+    // Offers to restart from the last saved snapshot instead of an empty pool
+    private static OffHeapTicketPool initOffHeapPool(int poolCapacity) {
+        if (Files.exists(Paths.get(SNAPSHOT_FILE))) {
+            System.out.print("Restore the Off-Heap Pool from " + SNAPSHOT_FILE + "? (1 = Yes, 0 = No): ");
+            if (scanner.nextInt() == 1) {
+                try {
+                    long start = System.nanoTime();
+                    OffHeapTicketPool pool = OffHeapTicketPool.restore(Paths.get(SNAPSHOT_FILE), poolCapacity);
+                    System.out.println("Restored " + pool.getAvailableTickets() + " tickets in "
+                            + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+                            + " ms into an Off-Heap Pool with capacity: " + poolCapacity);
+                    return pool;
+                } catch (IOException | IllegalArgumentException e) {
+                    System.out.println("Could not restore snapshot: " + e.getMessage() + ". Starting empty.");
+                }
+            }
+        }
+        System.out.println("Off-Heap Pool initialized with capacity: " + poolCapacity);
+        return new OffHeapTicketPool(poolCapacity);
+    }
+
+    private static void initThreadMode(int poolCapacity) {
+        System.out.println("\nSelect a thread mode:");
+        System.out.println("1. Platform Threads (one OS thread per entity)");
+        System.out.println("2. Virtual Threads (scales to 100k+ entities)");
+        System.out.println("3. Shared Rate Scheduler (a few worker threads pace every entity)");
+        System.out.print("Enter Thread Mode (1-3): ");
+        int threadMode = scanner.nextInt();
+
+        while (threadMode < 1 || threadMode > 3) {
+            System.out.print("Invalid choice. Please enter a number between 1 and 3: ");
+            threadMode = scanner.nextInt();
+        }
+
+        if (threadMode == 3) {
+            rateScheduler = new RateScheduler(Runtime.getRuntime().availableProcessors());
+            System.out.println("Entities will be paced by a shared scheduler on "
+                    + rateScheduler.getWorkerCount() + " worker threads; full or empty pools skip a turn instead of blocking.");
+            return;
+        }
+
+        useVirtualThreads = threadMode == 2;
+        if (!useVirtualThreads) {
+            System.out.println("Entities will run on platform threads.");
+            return;
+        }
+
+        // A virtual thread blocked in Object.wait() inside synchronized pins its carrier thread,
+        // so a waiting consumer per carrier is enough to stall the whole simulation.
+        if (ticketPool instanceof SynchronizedTicketPool) {
+            System.out.println("Warning: the Synchronized Pool waits inside synchronized blocks, which pins virtual threads to their carriers.");
+            System.out.print("Switch to the ReentrantLock Pool instead? (1 = Yes, 0 = No): ");
+            if (scanner.nextInt() == 1) {
+                ticketPool = new ReentrantLockTicketPool(poolCapacity);
+                System.out.println("ReentrantLock Pool initialized with capacity: " + poolCapacity);
+            }
+        }
+        System.out.println("Entities will run on virtual threads.");
+    }
+
+    // Holds wrap the journal rather than the other way round, so a hold is journaled as a sale and
+    // its return as an add; every operation is durable once it returns, so there is nothing to
+    // flush on exit.
+    private static void initJournal() {
+        if (ticketPool.getTotalTickets() > 0) {
+            System.out.println("The journal recovers into an empty pool; skipping it because the pool was restored from a snapshot.");
+            return;
+        }
+        try {
+            journal = JournaledTicketPool.open(ticketPool, Paths.get(JOURNAL_FILE));
+            ticketPool = journal;
+            System.out.println("Journal enabled at " + JOURNAL_FILE + ", recovered "
+                    + journal.getRecoveredTickets() + " tickets.");
+            if (journal.getTornRecordOffset() >= 0) {
+                System.out.println("Ignored a torn journal record at offset " + journal.getTornRecordOffset() + ".");
+            }
+        } catch (IOException | IllegalStateException e) {
+            System.out.println("Could not open journal: " + e.getMessage() + ". Continuing without it.");
+        }
+    }
+
+    private static void runScenario(String[] args) {
+        try {
+            ScenarioRunner.main(args);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Could not run scenario: " + e.getMessage());
+        } catch (InterruptedException e) {
+            EventLog.global().interrupted("scenario");
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Publishes the pool's metrics over JMX so jconsole or VisualVM can watch them live
+    private static void registerMetrics() {
+        try {
+            ObjectName name = ticketPool.getMetrics().register(ticketPool.getClass().getSimpleName());
+            System.out.println("Pool metrics published over JMX as " + name);
+        } catch (JMException e) {
+            System.out.println("Could not publish pool metrics over JMX: " + e.getMessage());
+        }
+    }
+
     public static void showMenu() {
         while (isRunning.get()) {
             System.out.println("\nTicket Pool System Menu");
@@ -86,7 +304,12 @@ public class SimulationManager {
             System.out.println("3. Reader Menu");
             System.out.println("4. Writer Menu");
             System.out.println("5. Show Ticket Pool Status");
-            System.out.println("6. Exit");
+            System.out.println("6. Save Pool Snapshot");
+            System.out.println("7. Pool Metrics");
+            System.out.println("8. Event Log Settings");
+            System.out.println("9. Auto-Scaling");
+            System.out.println("10. Multi-Event Load");
+            System.out.println("11. Exit");
 
             System.out.print("\nEnter your choice: ");
             int option = scanner.nextInt();
@@ -108,6 +331,21 @@ public class SimulationManager {
                     showPoolStatus();
                     break;
                 case 6:
+                    saveSnapshot();
+                    break;
+                case 7:
+                    metricsMenu();
+                    break;
+                case 8:
+                    eventLogMenu();
+                    break;
+                case 9:
+                    autoScalingMenu();
+                    break;
+                case 10:
+                    eventLoadMenu();
+                    break;
+                case 11:
                     exit();
                     return;
                 default:
@@ -126,7 +364,13 @@ public class SimulationManager {
             System.out.println("2. Remove Consumer");
             System.out.println("3. List Consumers");
             System.out.println("4. Set Consumer Rate");
-            System.out.println("5. Back to Main Menu");
+            System.out.println("5. Set Consumer Batch Size");
+            System.out.println("6. Add Consumers in Bulk");
+            System.out.println("7. Purchase Specific Ticket");
+            System.out.println("8. Purchase by Price");
+            System.out.println("9. Checkout with Hold");
+            System.out.println("10. Add Streaming Consumer");
+            System.out.println("11. Back to Main Menu");
 
             System.out.print("\nEnter your choice: ");
             int option = scanner.nextInt();
@@ -145,6 +389,24 @@ public class SimulationManager {
                     setConsumerRate();
                     break;
                 case 5:
+                    setConsumerBatchSize();
+                    break;
+                case 6:
+                    addConsumers();
+                    break;
+                case 7:
+                    purchaseSpecificTicket();
+                    break;
+                case 8:
+                    purchaseByPrice();
+                    break;
+                case 9:
+                    checkoutWithHold();
+                    break;
+                case 10:
+                    addStreamingConsumer();
+                    break;
+                case 11:
                     backToMain = true;
                     break;
                 default:
@@ -163,7 +425,9 @@ public class SimulationManager {
             System.out.println("2. Remove Producer");
             System.out.println("3. List Producers");
             System.out.println("4. Set Producer Rate");
-            System.out.println("5. Back to Main Menu");
+            System.out.println("5. Set Producer Batch Size");
+            System.out.println("6. Set Producer Adaptive Pacing");
+            System.out.println("7. Back to Main Menu");
 
             System.out.print("\nEnter your choice: ");
             int option = scanner.nextInt();
@@ -182,6 +446,12 @@ public class SimulationManager {
                     setProducerRate();
                     break;
                 case 5:
+                    setProducerBatchSize();
+                    break;
+                case 6:
+                    setProducerAdaptivePacing();
+                    break;
+                case 7:
                     backToMain = true;
                     break;
                 default:
@@ -277,19 +547,184 @@ public class SimulationManager {
         }
 
         System.out.print("Enter consumer rate (operations per second, 0 = default): ");
-        int rate = scanner.nextInt();
+        double rate = scanner.nextDouble();
 
         Consumer consumer = new Consumer(ticketPool, consumerId);
         consumer.setRate(rate);
+        consumer.setRecycler(ticketRecycler);
         consumers.add(consumer);
 
-        Thread thread = new Thread(consumer);
-        threads.add(thread);
-        thread.start();
+        startEntity(consumer, "Consumer-" + consumerId);
 
         System.out.println("Consumer " + consumerId + " added successfully with rate: " + rate);
     }
 
+    // Tickets are pushed as the consumer asks for them, so it needs neither a thread nor a rate
+    private static void addStreamingConsumer() {
+        System.out.print("Enter consumer ID (number): ");
+        int consumerId = scanner.nextInt();
+        System.out.print("Enter window (tickets in flight at once): ");
+        int window = scanner.nextInt();
+
+        if (window <= 0) {
+            System.out.println("Window must be greater than 0.");
+            return;
+        }
+        if (ticketPublisher == null) {
+            ticketPublisher = new TicketPublisher(ticketPool);
+        }
+        StreamingConsumer consumer = new StreamingConsumer(consumerId, window);
+        consumer.setRecycler(ticketRecycler);
+        streamingConsumers.add(consumer);
+        ticketPublisher.subscribe(consumer);
+
+        System.out.println("Streaming consumer " + consumerId + " subscribed with a window of " + window + " tickets.");
+    }
+
+    private static void addConsumers() {
+        System.out.print("Enter first consumer ID (number): ");
+        int firstId = scanner.nextInt();
+
+        System.out.print("Enter number of consumers to add: ");
+        int count = scanner.nextInt();
+
+        if (count <= 0) {
+            System.out.println("Number of consumers must be greater than 0!");
+            return;
+        }
+
+        Set<Integer> existingIds = new HashSet<>();
+        for (Consumer c : consumers) {
+            existingIds.add(Integer.parseInt(c.getName()));
+        }
+        for (int id = firstId; id < firstId + count; id++) {
+            if (existingIds.contains(id)) {
+                System.out.println("Consumer with ID " + id + " already exists!");
+                return;
+            }
+        }
+
+        if (!useVirtualThreads && rateScheduler == null && count > 1000) {
+            System.out.println("Warning: starting " + count + " platform threads; consider virtual thread mode.");
+        }
+
+        System.out.print("Enter consumer rate (operations per second, 0 = default): ");
+        double rate = scanner.nextDouble();
+
+        // Build the batch first so the copy-on-write lists are copied once, not once per consumer
+        List<Consumer> batch = new ArrayList<>(count);
+        List<Thread> batchThreads = new ArrayList<>(count);
+        for (int id = firstId; id < firstId + count; id++) {
+            Consumer consumer = new Consumer(ticketPool, id);
+            consumer.setRate(rate);
+            consumer.setRecycler(ticketRecycler);
+            batch.add(consumer);
+            if (rateScheduler == null) {
+                batchThreads.add(newThread(consumer, "Consumer-" + id));
+            }
+        }
+        consumers.addAll(batch);
+        threads.addAll(batchThreads);
+        for (Thread thread : batchThreads) {
+            thread.start();
+        }
+        if (rateScheduler != null) {
+            for (Consumer consumer : batch) {
+                rateScheduler.schedule(consumer);
+            }
+        }
+
+        System.out.println(count + " consumers added successfully (IDs " + firstId + "-" + (firstId + count - 1)
+                + ") with rate: " + rate);
+    }
+
+    private static void purchaseSpecificTicket() {
+        if (!seatSelection) {
+            System.out.println("This pool type does not support purchasing a specific ticket.");
+            return;
+        }
+
+        System.out.print("Enter ticket ID to purchase: ");
+        int ticketId = scanner.nextInt();
+
+        Ticket ticket = ((SeatSelectable) ticketPool).purchaseTicketById(ticketId);
+        if (ticket != null) {
+            System.out.println("Purchased ticket " + ticket.getTicketId() + " for " + ticket.getTicketPrice());
+        } else {
+            System.out.println("Ticket " + ticketId + " is not available.");
+        }
+    }
+
+    private static void purchaseByPrice() {
+        if (!(ticketPool instanceof PriceOrderedTicketPool)) {
+            System.out.println("Purchasing by price requires the Price-Ordered Pool.");
+            return;
+        }
+        PriceOrderedTicketPool pricedPool = (PriceOrderedTicketPool) ticketPool;
+
+        System.out.println("1. Cheapest Ticket");
+        System.out.println("2. Most Expensive Ticket");
+        System.out.println("3. Best Ticket Under Budget");
+        System.out.print("Enter your choice: ");
+        int option = scanner.nextInt();
+
+        Ticket ticket;
+        switch (option) {
+            case 1:
+                ticket = pricedPool.purchaseCheapestTicket();
+                break;
+            case 2:
+                ticket = pricedPool.purchaseMostExpensiveTicket();
+                break;
+            case 3:
+                System.out.print("Enter budget: ");
+                ticket = pricedPool.purchaseBestTicketUnder(scanner.nextDouble());
+                break;
+            default:
+                System.out.println("Invalid option!");
+                return;
+        }
+
+        if (ticket != null) {
+            System.out.println("Purchased ticket " + ticket.getTicketId() + " for " + ticket.getTicketPrice());
+        } else {
+            System.out.println("No matching ticket is available.");
+        }
+    }
+
+    private static void checkoutWithHold() {
+        if (!(ticketPool instanceof ReservableTicketPool)) {
+            System.out.println("Checkout holds are not enabled for this pool.");
+            return;
+        }
+
+        System.out.print("Enter hold time (seconds): ");
+        int holdSeconds = scanner.nextInt();
+
+        ReservableTicketPool.Hold hold = ((ReservableTicketPool) ticketPool).reserveTicket(holdSeconds, TimeUnit.SECONDS);
+        if (hold == null) {
+            System.out.println("No tickets available to hold.");
+            return;
+        }
+        System.out.println("Holding ticket " + hold.getTicket().getTicketId() + " for " + holdSeconds + " seconds.");
+
+        System.out.print("Complete payment? (1 = Confirm, 2 = Release, 0 = Abandon): ");
+        int option = scanner.nextInt();
+
+        if (option == 1) {
+            if (hold.confirm()) {
+                System.out.println("Ticket " + hold.getTicket().getTicketId() + " purchased.");
+            } else {
+                System.out.println("Hold expired before payment; the ticket went back to the pool.");
+            }
+        } else if (option == 2) {
+            hold.release();
+            System.out.println("Ticket " + hold.getTicket().getTicketId() + " released back to the pool.");
+        } else {
+            System.out.println("Checkout abandoned; the ticket returns to the pool when the hold expires.");
+        }
+    }
+
     private static void removeConsumer() {
         if (consumers.isEmpty()) {
             System.out.println("No consumers to remove!");
@@ -314,10 +749,11 @@ public class SimulationManager {
 
         if (consumerToRemove != null) {
             consumerToRemove.stop();
+            unschedule(consumerToRemove);
             consumers.remove(consumerToRemove);
 
             for (Thread t : threads) {
-                if (t.getName().contains("Consumer-" + consumerId)) {
+                if (t.getName().equals("Consumer-" + consumerId)) {
                     threadToRemove = t;
                     break;
                 }
@@ -335,17 +771,21 @@ public class SimulationManager {
     }
 
     private static void listConsumers() {
-        if (consumers.isEmpty()) {
+        if (consumers.isEmpty() && streamingConsumers.isEmpty()) {
             System.out.println("No consumers available.");
             return;
         }
 
         System.out.println("Current Consumers:");
-        System.out.println("ID\tState\tRate");
-        System.out.println("--\t-----\t----");
+        System.out.println("ID\tState\tRate\tBatch");
+        System.out.println("--\t-----\t----\t-----");
 
         for (Consumer c : consumers) {
-            System.out.println(c.getName() + "\tRunning\t" + c.getRate());
+            System.out.println(c.getName() + "\tRunning\t" + c.getRate() + "\t" + c.getBatchSize());
+        }
+        for (StreamingConsumer c : streamingConsumers) {
+            // A streaming consumer's window plays the part of its batch size
+            System.out.println(c.getName() + "\tStreaming\t-\t" + c.getWindow());
         }
     }
 
@@ -372,7 +812,7 @@ public class SimulationManager {
 
         if (consumerToModify != null) {
             System.out.print("Enter new rate (operations per second, 0 = default): ");
-            int newRate = scanner.nextInt();
+            double newRate = scanner.nextDouble();
             consumerToModify.setRate(newRate);
             System.out.println("Consumer " + consumerId + " rate updated to " + newRate);
         } else {
@@ -380,6 +820,37 @@ public class SimulationManager {
         }
     }
 
+    private static void setConsumerBatchSize() {
+        if (consumers.isEmpty()) {
+            System.out.println("No consumers available to set batch size!");
+            return;
+        }
+
+        System.out.println("Current Consumers:");
+        listConsumers();
+
+        System.out.print("Enter consumer ID to modify batch size: ");
+        int consumerId = scanner.nextInt();
+
+        Consumer consumerToModify = null;
+
+        for (Consumer c : consumers) {
+            if (Integer.parseInt(c.getName()) == consumerId) {
+                consumerToModify = c;
+                break;
+            }
+        }
+
+        if (consumerToModify != null) {
+            System.out.print("Enter new batch size (tickets per operation, 1 = single): ");
+            int newBatchSize = scanner.nextInt();
+            consumerToModify.setBatchSize(newBatchSize);
+            System.out.println("Consumer " + consumerId + " batch size updated to " + consumerToModify.getBatchSize());
+        } else {
+            System.out.println("Consumer with ID " + consumerId + " not found!");
+        }
+    }
+
     private static void addProducer() {
         System.out.print("Enter producer ID (number): ");
         int producerId = scanner.nextInt();
@@ -393,15 +864,14 @@ public class SimulationManager {
         }
 
         System.out.print("Enter producer rate (operations per second, 0 = default): ");
-        int rate = scanner.nextInt();
+        double rate = scanner.nextDouble();
 
         Producer producer = new Producer(ticketPool, producerId);
         producer.setRate(rate);
+        producer.setRecycler(ticketRecycler);
         producers.add(producer);
 
-        Thread thread = new Thread(producer, "Producer-" + producerId);
-        threads.add(thread);
-        thread.start();
+        startEntity(producer, "Producer-" + producerId);
 
         System.out.println("Producer " + producerId + " added successfully with rate: " + rate);
     }
@@ -430,6 +900,7 @@ public class SimulationManager {
 
         if (producerToRemove != null) {
             producerToRemove.stop();
+            unschedule(producerToRemove);
             producers.remove(producerToRemove);
 
             for (Thread t : threads) {
@@ -457,11 +928,15 @@ public class SimulationManager {
         }
 
         System.out.println("Current Producers:");
-        System.out.println("ID\tState\tRate");
-        System.out.println("--\t-----\t----");
+        System.out.println("ID\tState\tRate\tBatch\tPacing");
+        System.out.println("--\t-----\t----\t-----\t------");
 
         for (Producer p : producers) {
-            System.out.println(p.getName() + "\tRunning\t" + p.getRate());
+            AdaptivePacing pacing = p.getAdaptivePacing();
+            String mode = pacing == null ? "Fixed"
+                    : String.format("Adaptive %.1f-%.1f", pacing.getMinRate(), pacing.getMaxRate());
+            System.out.println(p.getName() + "\tRunning\t" + String.format("%.1f", p.getRate()) + "\t"
+                    + p.getBatchSize() + "\t" + mode);
         }
     }
 
@@ -488,7 +963,7 @@ public class SimulationManager {
 
         if (producerToModify != null) {
             System.out.print("Enter new rate (operations per second, 0 = default): ");
-            int newRate = scanner.nextInt();
+            double newRate = scanner.nextDouble();
             producerToModify.setRate(newRate);
             System.out.println("Producer " + producerId + " rate updated to " + newRate);
         } else {
@@ -496,6 +971,84 @@ public class SimulationManager {
         }
     }
 
+    private static void setProducerBatchSize() {
+        if (producers.isEmpty()) {
+            System.out.println("No producers available to set batch size!");
+            return;
+        }
+
+        System.out.println("Current Producers:");
+        listProducers();
+
+        System.out.print("Enter producer ID to modify batch size: ");
+        int producerId = scanner.nextInt();
+
+        Producer producerToModify = null;
+
+        for (Producer p : producers) {
+            if (Integer.parseInt(p.getName()) == producerId) {
+                producerToModify = p;
+                break;
+            }
+        }
+
+        if (producerToModify != null) {
+            System.out.print("Enter new batch size (tickets per operation, 1 = single): ");
+            int newBatchSize = scanner.nextInt();
+            producerToModify.setBatchSize(newBatchSize);
+            System.out.println("Producer " + producerId + " batch size updated to " + producerToModify.getBatchSize());
+        } else {
+            System.out.println("Producer with ID " + producerId + " not found!");
+        }
+    }
+
+    private static void setProducerAdaptivePacing() {
+        if (producers.isEmpty()) {
+            System.out.println("No producers available to set pacing!");
+            return;
+        }
+
+        System.out.println("Current Producers:");
+        listProducers();
+
+        System.out.print("Enter producer ID to modify pacing: ");
+        int producerId = scanner.nextInt();
+
+        Producer producerToModify = null;
+
+        for (Producer p : producers) {
+            if (Integer.parseInt(p.getName()) == producerId) {
+                producerToModify = p;
+                break;
+            }
+        }
+
+        if (producerToModify == null) {
+            System.out.println("Producer with ID " + producerId + " not found!");
+            return;
+        }
+
+        System.out.print("Enter minimum rate (operations per second, 0 = back to fixed rate): ");
+        double minRate = scanner.nextDouble();
+        if (minRate <= 0) {
+            producerToModify.setAdaptivePacing(null);
+            System.out.println("Producer " + producerId + " back to a fixed rate of "
+                    + String.format("%.1f", producerToModify.getRate()));
+            return;
+        }
+        System.out.print("Enter maximum rate (operations per second): ");
+        double maxRate = scanner.nextDouble();
+        try {
+            producerToModify.setAdaptivePacing(new AdaptivePacing(poolCapacity, minRate, Math.max(minRate, maxRate)));
+            System.out.println("Producer " + producerId + " now adapts between " + minRate + " and "
+                    + Math.max(minRate, maxRate) + " to keep the pool "
+                    + Math.round(AdaptivePacing.DEFAULT_LOW_OCCUPANCY * 100) + "-"
+                    + Math.round(AdaptivePacing.DEFAULT_HIGH_OCCUPANCY * 100) + "% full");
+        } catch (IllegalArgumentException e) {
+            System.out.println("Could not set adaptive pacing: " + e.getMessage());
+        }
+    }
+
     private static void addReader() {
         System.out.print("Enter reader ID (number): ");
         int readerId = scanner.nextInt();
@@ -509,15 +1062,13 @@ public class SimulationManager {
         }
 
         System.out.print("Enter reader rate (operations per second, 0 = default): ");
-        int rate = scanner.nextInt();
+        double rate = scanner.nextDouble();
 
         Reader reader = new Reader(ticketPool, readerId);
         reader.setRate(rate);
         readers.add(reader);
 
-        Thread thread = new Thread(reader, "Reader-" + readerId);
-        threads.add(thread);
-        thread.start();
+        startEntity(reader, "Reader-" + readerId);
 
         System.out.println("Reader " + readerId + " added successfully with rate: " + rate);
     }
@@ -546,6 +1097,7 @@ public class SimulationManager {
 
         if (readerToRemove != null) {
             readerToRemove.stop();
+            unschedule(readerToRemove);
             readers.remove(readerToRemove);
 
             for (Thread t : threads) {
@@ -604,7 +1156,7 @@ public class SimulationManager {
 
         if (readerToModify != null) {
             System.out.print("Enter new rate (operations per second, 0 = default): ");
-            int newRate = scanner.nextInt();
+            double newRate = scanner.nextDouble();
             readerToModify.setRate(newRate);
             System.out.println("Reader " + readerId + " rate updated to " + newRate);
         } else {
@@ -625,15 +1177,13 @@ public class SimulationManager {
         }
 
         System.out.print("Enter writer rate (operations per second, 0 = default): ");
-        int rate = scanner.nextInt();
+        double rate = scanner.nextDouble();
 
         Writer writer = new Writer(ticketPool, writerId);
         writer.setRate(rate);
         writers.add(writer);
 
-        Thread thread = new Thread(writer, "Writer-" + writerId);
-        threads.add(thread);
-        thread.start();
+        startEntity(writer, "Writer-" + writerId);
 
         System.out.println("Writer " + writerId + " added successfully with rate: " + rate);
     }
@@ -662,6 +1212,7 @@ public class SimulationManager {
 
         if (writerToRemove != null) {
             writerToRemove.stop();
+            unschedule(writerToRemove);
             writers.remove(writerToRemove);
 
             for (Thread t : threads) {
@@ -689,11 +1240,11 @@ public class SimulationManager {
         }
 
         System.out.println("Current Writers:");
-        System.out.println("ID\tState\tRate");
-        System.out.println("--\t-----\t----");
+        System.out.println("ID\tState\tRate\tRepriced");
+        System.out.println("--\t-----\t----\t--------");
 
         for (Writer w : writers) {
-            System.out.println(w.getName() + "\tRunning\t" + w.getRate());
+            System.out.println(w.getName() + "\tRunning\t" + w.getRate() + "\t" + w.getUpdatedTickets());
         }
     }
 
@@ -720,7 +1271,7 @@ public class SimulationManager {
 
         if (writerToModify != null) {
             System.out.print("Enter new rate (operations per second, 0 = default): ");
-            int newRate = scanner.nextInt();
+            double newRate = scanner.nextDouble();
             writerToModify.setRate(newRate);
             System.out.println("Writer " + writerId + " rate updated to " + newRate);
         } else {
@@ -728,26 +1279,559 @@ public class SimulationManager {
         }
     }
 
+    private static void startEntity(PoolEntity entity, String name) {
+        if (rateScheduler != null) {
+            rateScheduler.schedule(entity);
+            return;
+        }
+        Thread thread = newThread(entity, name);
+        threads.add(thread);
+        thread.start();
+    }
+
+    // A stopped entity stays queued until its next token is due, so the scheduler is told directly
+    private static void unschedule(PoolEntity entity) {
+        if (rateScheduler != null) {
+            rateScheduler.unschedule(entity);
+        }
+    }
+
+    private static Thread newThread(Runnable entity, String name) {
+        if (useVirtualThreads) {
+            return Thread.ofVirtual().name(name).unstarted(entity);
+        }
+        return new Thread(entity, name);
+    }
+
     private static void showPoolStatus() {
         System.out.println("\nTicket Pool Status");
         System.out.println("-----------------");
-        System.out.println("Available Tickets: " + ticketPool.getAvailableTickets());
-        System.out.println("Sold Tickets: " + ticketPool.getSoldTickets());
-        System.out.println("Total Tickets Created: " + ticketPool.getTotalTickets());
+        PoolStats stats = ticketPool.getStats();
+        System.out.println("Available Tickets: " + stats.getAvailableTickets());
+        System.out.println("Sold Tickets: " + stats.getSoldTickets());
+        System.out.println("Total Tickets Created: " + stats.getTotalTickets());
+        if (ticketPool instanceof ReservableTicketPool) {
+            System.out.println("Held Tickets: " + stats.getHeldTickets());
+        }
         System.out.println("\nActive Entities:");
         System.out.println("Producers: " + producers.size());
         System.out.println("Consumers: " + consumers.size());
         System.out.println("Readers: " + readers.size());
         System.out.println("Writers: " + writers.size());
+        if (rateScheduler != null) {
+            System.out.println("Thread Mode: Scheduled (" + rateScheduler.getWorkerCount() + " workers)");
+            System.out.println("Scheduled Entities: " + rateScheduler.getScheduledEntities());
+            System.out.println("Steps Executed: " + rateScheduler.getExecutedSteps());
+        } else {
+            System.out.println("Thread Mode: " + (useVirtualThreads ? "Virtual" : "Platform"));
+        }
+
+        if (journal != null) {
+            System.out.println("\nJournal:");
+            System.out.println("Records Written: " + journal.getJournaledRecords());
+            System.out.println("Group Commits: " + journal.getGroupCommits());
+        }
+
+        if (ticketRecycler != null) {
+            System.out.println("\nTicket Recycling:");
+            System.out.println("Tickets Allocated: " + ticketRecycler.getAllocatedTickets());
+            System.out.println("Tickets Reused: " + ticketRecycler.getReusedTickets());
+            System.out.println("Free List Size: " + ticketRecycler.getFreeTickets());
+        }
 
         System.out.println("\nPress Enter to continue...");
         scanner.nextLine();
         scanner.nextLine();
     }
 
+    private static void saveSnapshot() {
+        if (snapshotPool == null) {
+            System.out.println("Snapshots are only supported by the Off-Heap Pool.");
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            int saved = snapshotPool.snapshot(Paths.get(SNAPSHOT_FILE));
+            System.out.println("Saved " + saved + " tickets to " + SNAPSHOT_FILE + " in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        } catch (IOException e) {
+            System.out.println("Could not save snapshot: " + e.getMessage());
+        }
+    }
+
+    private static void metricsMenu() {
+        PoolMetrics metrics = ticketPool.getMetrics();
+        boolean backToMain = false;
+
+        while (!backToMain) {
+            System.out.println("\nPool Metrics (latencies in microseconds)");
+            System.out.println("----------------------------------------");
+            System.out.println("Timing 1 in " + metrics.getSamplingInterval() + " calls");
+            printLatency("Add", metrics.getAddCount(), metrics.getAddLatency().snapshot());
+            printLatency("Purchase", metrics.getPurchaseCount(), metrics.getPurchaseLatency().snapshot());
+            printWaits("Waits on a full pool", metrics.getFullWaits().snapshot());
+            printWaits("Waits on an empty pool", metrics.getEmptyWaits().snapshot());
+            System.out.println("Lock Contentions: " + metrics.getLockContentions());
+            if (rateScheduler != null) {
+                System.out.println("Scheduled entities use the non-blocking operations, which are not timed.");
+            }
+            System.out.println("1. Refresh");
+            System.out.println("2. Reset Metrics");
+            System.out.println("3. Set Sampling Interval");
+            System.out.println("4. Back to Main Menu");
+
+            System.out.print("\nEnter your choice: ");
+            int option = scanner.nextInt();
+
+            switch (option) {
+                case 1:
+                    break;
+                case 2:
+                    metrics.reset();
+                    System.out.println("Metrics reset.");
+                    break;
+                case 3:
+                    System.out.print("Time one call in how many (1 = every call): ");
+                    int interval = scanner.nextInt();
+                    if (interval <= 0) {
+                        System.out.println("Invalid interval!");
+                        break;
+                    }
+                    metrics.setSamplingInterval(interval);
+                    break;
+                case 4:
+                    backToMain = true;
+                    break;
+                default:
+                    System.out.println("Invalid option! Please try again.");
+            }
+        }
+    }
+
+    private static void printLatency(String operation, long calls, LatencyHistogram.Snapshot snapshot) {
+        System.out.printf("%s: %d calls (%d timed), p50 %.1f, p99 %.1f, p99.9 %.1f, max %.1f%n", operation,
+                calls, snapshot.getCount(), snapshot.getValueAtPercentile(50) / 1000.0,
+                snapshot.getValueAtPercentile(99) / 1000.0, snapshot.getValueAtPercentile(99.9) / 1000.0,
+                snapshot.getMaxNanos() / 1000.0);
+    }
+
+    private static void printWaits(String label, LatencyHistogram.Snapshot snapshot) {
+        System.out.printf("%s: %d, total %d ms, p99 %.1f%n", label, snapshot.getCount(),
+                TimeUnit.NANOSECONDS.toMillis(snapshot.getTotalNanos()), snapshot.getValueAtPercentile(99) / 1000.0);
+    }
+
+    private static void eventLogMenu() {
+        EventLog eventLog = EventLog.global();
+        boolean backToMain = false;
+
+        while (!backToMain) {
+            System.out.println("\nEvent Log Settings");
+            System.out.println("------------------");
+            System.out.println("Verbosity: " + eventLog.getLevel() + ", when full: " + eventLog.getOverflowPolicy());
+            System.out.println("Events Published: " + eventLog.getPublishedEvents()
+                    + ", Dropped: " + eventLog.getDroppedEvents());
+            System.out.println("1. Set Verbosity");
+            System.out.println("2. Set Overflow Policy");
+            System.out.println("3. Back to Main Menu");
+
+            System.out.print("\nEnter your choice: ");
+            int option = scanner.nextInt();
+
+            switch (option) {
+                case 1:
+                    System.out.println("1. Off");
+                    System.out.println("2. Warnings (interrupted pool operations)");
+                    System.out.println("3. Info (plus stopped entities)");
+                    System.out.println("4. Debug (plus every purchase)");
+                    System.out.print("Enter verbosity (1-4): ");
+                    int level = scanner.nextInt();
+                    if (level < 1 || level > 4) {
+                        System.out.println("Invalid verbosity!");
+                        break;
+                    }
+                    eventLog.setLevel(EventLog.Level.values()[level - 1]);
+                    System.out.println("Verbosity set to " + eventLog.getLevel());
+                    break;
+                case 2:
+                    System.out.print("When the log is full (1 = Drop events, 2 = Make publishers wait): ");
+                    int policy = scanner.nextInt();
+                    if (policy < 1 || policy > 2) {
+                        System.out.println("Invalid policy!");
+                        break;
+                    }
+                    eventLog.setOverflowPolicy(EventLog.OverflowPolicy.values()[policy - 1]);
+                    System.out.println("Overflow policy set to " + eventLog.getOverflowPolicy());
+                    break;
+                case 3:
+                    backToMain = true;
+                    break;
+                default:
+                    System.out.println("Invalid option! Please try again.");
+            }
+        }
+    }
+
+    private static void autoScalingMenu() {
+        boolean backToMain = false;
+
+        while (!backToMain) {
+            System.out.println("\nAuto-Scaling");
+            System.out.println("------------");
+            if (autoScaler != null && autoScaler.isRunning()) {
+                double target = autoScaler.getTargetRate();
+                System.out.println("Running, " + (target > 0 ? "target " + target + " sales/s" : "looking for the knee")
+                        + ", producers " + producers.size() + ", consumers " + consumers.size());
+                printCeiling("Producer", autoScaler.getProducerCeiling());
+                printCeiling("Consumer", autoScaler.getConsumerCeiling());
+            } else {
+                System.out.println("Stopped");
+            }
+            System.out.println("1. Start Auto-Scaling");
+            System.out.println("2. Stop Auto-Scaling");
+            System.out.println("3. Show Recent Decisions");
+            System.out.println("4. Back to Main Menu");
+
+            System.out.print("\nEnter your choice: ");
+            int option = scanner.nextInt();
+
+            switch (option) {
+                case 1:
+                    startAutoScaling();
+                    break;
+                case 2:
+                    stopAutoScaling();
+                    break;
+                case 3:
+                    showScalingDecisions();
+                    break;
+                case 4:
+                    backToMain = true;
+                    break;
+                default:
+                    System.out.println("Invalid option! Please try again.");
+            }
+        }
+    }
+
+    private static void printCeiling(String kind, int ceiling) {
+        if (ceiling != Integer.MAX_VALUE) {
+            System.out.println(kind + " knee found: more than " + ceiling + " did not help");
+        }
+    }
+
+    private static void startAutoScaling() {
+        if (autoScaler != null && autoScaler.isRunning()) {
+            System.out.println("Auto-scaling is already running!");
+            return;
+        }
+
+        System.out.print("Enter target sales rate (purchases per second, 0 = find the knee): ");
+        double targetRate = scanner.nextDouble();
+        System.out.print("Enter rate for entities it starts (operations per second, 0 = default): ");
+        scaledEntityRate = scanner.nextDouble();
+        System.out.print("Enter maximum producers: ");
+        int maxProducers = scanner.nextInt();
+        System.out.print("Enter maximum consumers: ");
+        int maxConsumers = scanner.nextInt();
+        System.out.print("Enter decision interval (milliseconds): ");
+        long intervalMillis = scanner.nextLong();
+
+        AutoScaler scaler = new AutoScaler(ticketPool, poolCapacity, new ManagedEntities());
+        try {
+            scaler.setTargetRate(targetRate);
+            scaler.setLimits(maxProducers, maxConsumers);
+            scaler.setIntervalMillis(intervalMillis);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Could not start auto-scaling: " + e.getMessage());
+            return;
+        }
+        try {
+            scalingSeries = Files.newBufferedWriter(Paths.get(SCALING_SERIES_FILE));
+            scaler.setSeries(scalingSeries);
+            System.out.println("Writing decisions to " + SCALING_SERIES_FILE);
+        } catch (IOException e) {
+            System.out.println("Could not open " + SCALING_SERIES_FILE + ": " + e.getMessage() + ". Continuing without it.");
+        }
+        autoScaler = scaler;
+        scaler.start();
+        System.out.println("Auto-scaling started.");
+    }
+
+    private static void stopAutoScaling() {
+        if (autoScaler == null || !autoScaler.isRunning()) {
+            System.out.println("Auto-scaling is not running!");
+            return;
+        }
+        try {
+            autoScaler.stop();
+        } catch (InterruptedException e) {
+            EventLog.global().interrupted("stopAutoScaling");
+            Thread.currentThread().interrupt();
+        }
+        if (scalingSeries != null) {
+            try {
+                scalingSeries.close();
+            } catch (IOException e) {
+                System.out.println("Could not close " + SCALING_SERIES_FILE + ": " + e.getMessage());
+            }
+            scalingSeries = null;
+        }
+        System.out.println("Auto-scaling stopped; entities it started keep running.");
+    }
+
+    private static void showScalingDecisions() {
+        if (autoScaler == null) {
+            System.out.println("Auto-scaling has not been started.");
+            return;
+        }
+        List<ScalingSample> history = autoScaler.getHistory();
+        if (history.isEmpty()) {
+            System.out.println("No decisions yet.");
+            return;
+        }
+        for (ScalingSample sample : history.subList(Math.max(0, history.size() - 20), history.size())) {
+            System.out.println(sample);
+        }
+    }
+
+    // Many events, each its own pool, sold by entities that all share one scheduler's workers
+    private static void eventLoadMenu() {
+        boolean backToMain = false;
+
+        while (!backToMain) {
+            System.out.println("\nMulti-Event Load");
+            System.out.println("----------------");
+            if (eventRegistry != null) {
+                System.out.println("Running: " + eventRegistry.size() + " events, " + eventEntities.size()
+                        + " entities on " + eventScheduler.getWorkerCount() + " workers");
+            } else {
+                System.out.println("Stopped");
+            }
+            System.out.println("1. Start Event Load");
+            System.out.println("2. Show Event Summary");
+            System.out.println("3. Stop Event Load");
+            System.out.println("4. Back to Main Menu");
+
+            System.out.print("\nEnter your choice: ");
+            int option = scanner.nextInt();
+
+            switch (option) {
+                case 1:
+                    startEventLoad();
+                    break;
+                case 2:
+                    showEventSummary();
+                    break;
+                case 3:
+                    stopEventLoad();
+                    break;
+                case 4:
+                    backToMain = true;
+                    break;
+                default:
+                    System.out.println("Invalid option! Please try again.");
+            }
+        }
+    }
+
+    private static void startEventLoad() {
+        if (eventRegistry != null) {
+            System.out.println("An event load is already running!");
+            return;
+        }
+
+        System.out.print("Enter number of events: ");
+        int events = scanner.nextInt();
+        System.out.print("Enter capacity per event: ");
+        int capacity = scanner.nextInt();
+        System.out.print("Enter producers per event: ");
+        int eventProducers = scanner.nextInt();
+        System.out.print("Enter consumers per event: ");
+        int eventConsumers = scanner.nextInt();
+        System.out.print("Enter consumers spread across all events: ");
+        int spreadConsumers = scanner.nextInt();
+        System.out.print("Enter rate per entity (operations per second): ");
+        double rate = scanner.nextDouble();
+        System.out.print("Enter scheduler worker threads: ");
+        int workers = scanner.nextInt();
+
+        if (events <= 0 || capacity <= 0 || workers <= 0 || rate <= 0
+                || eventProducers < 0 || eventConsumers < 0 || spreadConsumers < 0) {
+            System.out.println("Events, capacity, rate and workers must be greater than 0, entity counts at least 0.");
+            return;
+        }
+
+        // Pools are created up front, while idle, so their footprint can be measured on its own
+        TicketPoolRegistry registry = new TicketPoolRegistry(selectedPoolType, capacity);
+        long before = usedHeap();
+        for (int event = 0; event < events; event++) {
+            registry.pool(event);
+        }
+        long footprint = Math.max(0, usedHeap() - before) / events;
+        System.out.println(events + " idle " + selectedPoolType.getLabel() + " pools take about "
+                + footprint + " bytes each on the heap.");
+
+        RateScheduler scheduler = new RateScheduler(workers);
+        int id = FIRST_EVENT_ENTITY_ID;
+        for (int event = 0; event < events; event++) {
+            TicketPool pool = registry.pool(event);
+            for (int i = 0; i < eventProducers; i++) {
+                scheduleEventEntity(scheduler, new Producer(pool, id++), rate);
+            }
+            for (int i = 0; i < eventConsumers; i++) {
+                scheduleEventEntity(scheduler, new Consumer(pool, id++), rate);
+            }
+        }
+        TicketPool spread = registry.spreadRange(0, events);
+        for (int i = 0; i < spreadConsumers; i++) {
+            scheduleEventEntity(scheduler, new Consumer(spread, id++), rate);
+        }
+
+        eventRegistry = registry;
+        eventScheduler = scheduler;
+        lastEventSold = new int[events];
+        System.out.println("Started " + eventEntities.size() + " entities across " + events + " events on "
+                + workers + " scheduler workers.");
+    }
+
+    private static void scheduleEventEntity(RateScheduler scheduler, PoolEntity entity, double rate) {
+        entity.setRate(rate);
+        eventEntities.add(entity);
+        scheduler.schedule(entity);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // An event that sold nothing since the last summary is counted as starved
+    private static void showEventSummary() {
+        if (eventRegistry == null) {
+            System.out.println("No event load is running.");
+            return;
+        }
+        int events = lastEventSold.length;
+        int[] sold = new int[events];
+        int starved = 0;
+        for (int event = 0; event < events; event++) {
+            TicketPool pool = eventRegistry.get(event);
+            sold[event] = pool == null ? 0 : pool.getSoldTickets();
+            if (sold[event] == lastEventSold[event]) {
+                starved++;
+            }
+        }
+        lastEventSold = sold.clone();
+        Arrays.sort(sold);
+
+        PoolStats stats = eventRegistry.getStats();
+        System.out.println("Events: " + events + ", available " + stats.getAvailableTickets()
+                + ", sold " + stats.getSoldTickets() + ", added " + stats.getTotalTickets());
+        System.out.println("Sold per event: min " + sold[0] + ", median " + sold[events / 2]
+                + ", max " + sold[events - 1]);
+        System.out.println("Events with no sales since the last summary: " + starved);
+        System.out.println("Scheduler steps: " + eventScheduler.getExecutedSteps());
+    }
+
+    private static void stopEventLoad() {
+        if (eventRegistry == null) {
+            System.out.println("No event load is running!");
+            return;
+        }
+        for (PoolEntity entity : eventEntities) {
+            entity.stop();
+        }
+        eventScheduler.shutdown();
+        eventEntities.clear();
+        eventRegistry = null;
+        eventScheduler = null;
+        lastEventSold = null;
+        System.out.println("Event load stopped.");
+    }
+
+    // Lets the auto-scaler start and stop entities the same way the menus do
+    private static final class ManagedEntities implements ScalingTarget {
+
+        @Override
+        public int getProducers() {
+            return producers.size();
+        }
+
+        @Override
+        public int getConsumers() {
+            return consumers.size();
+        }
+
+        @Override
+        public void addProducer() {
+            int producerId = nextId(producers);
+            Producer producer = new Producer(ticketPool, producerId);
+            producer.setRate(scaledEntityRate);
+            producer.setRecycler(ticketRecycler);
+            producers.add(producer);
+            startEntity(producer, "Producer-" + producerId);
+        }
+
+        @Override
+        public void removeProducer() {
+            Producer producer = producers.get(producers.size() - 1);
+            producers.remove(producer);
+            stopEntity(producer, "Producer-" + producer.getName());
+        }
+
+        @Override
+        public void addConsumer() {
+            int consumerId = nextId(consumers);
+            Consumer consumer = new Consumer(ticketPool, consumerId);
+            consumer.setRate(scaledEntityRate);
+            consumer.setRecycler(ticketRecycler);
+            consumers.add(consumer);
+            startEntity(consumer, "Consumer-" + consumerId);
+        }
+
+        @Override
+        public void removeConsumer() {
+            Consumer consumer = consumers.get(consumers.size() - 1);
+            consumers.remove(consumer);
+            stopEntity(consumer, "Consumer-" + consumer.getName());
+        }
+
+        private static int nextId(List<? extends PoolEntity> entities) {
+            int max = 0;
+            for (PoolEntity entity : entities) {
+                max = Math.max(max, Integer.parseInt(entity.getName()));
+            }
+            return max + 1;
+        }
+    }
+
+    // Interrupts the entity's thread too, if it has one, so a call blocked on the pool returns
+    private static void stopEntity(PoolEntity entity, String threadName) {
+        entity.stop();
+        unschedule(entity);
+        for (Thread t : threads) {
+            if (t.getName().equals(threadName)) {
+                t.interrupt();
+                threads.remove(t);
+                break;
+            }
+        }
+    }
+
     private static void exit() {
         System.out.println("Exiting Ticket Pool System...");
+        if (autoScaler != null && autoScaler.isRunning()) {
+            stopAutoScaling();
+        }
+        if (eventRegistry != null) {
+            stopEventLoad();
+        }
         stopAllEntities();
+        if (rateScheduler != null) {
+            rateScheduler.shutdown();
+        }
+        EventLog.global().flush();
         isRunning.set(false);
     }
 
@@ -762,6 +1846,13 @@ public class SimulationManager {
             c.stop();
         }
 
+        for (StreamingConsumer c : streamingConsumers) {
+            c.stop();
+        }
+        if (ticketPublisher != null) {
+            ticketPublisher.close();
+        }
+
         // Stop all readers
         for (Reader r : readers) {
             r.stop();
@@ -779,7 +1870,9 @@ public class SimulationManager {
 
         producers.clear();
         consumers.clear();
+        streamingConsumers.clear();
         readers.clear();
+        writers.clear();
         threads.clear();
     }
 
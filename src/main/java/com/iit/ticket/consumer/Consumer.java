@@ -2,13 +2,19 @@ package com.iit.ticket.consumer;
 
 import com.iit.ticket.model.Ticket;
 import com.iit.ticket.pool.TicketPool;
+import com.iit.ticket.util.EventLog;
 import com.iit.ticket.util.PoolEntity;
+import com.iit.ticket.util.TicketRecycler;
+import com.iit.ticket.util.TokenBucket;
 
 public class Consumer implements PoolEntity {
 
     private final TicketPool ticketPool;
     private final int consumerId;
-    private int rate;
+    private final TokenBucket pacer = new TokenBucket(0);
+    private volatile double rate;
+    private volatile int batchSize = 1;
+    private volatile TicketRecycler recycler;
     private volatile boolean running;
 
     public Consumer(TicketPool ticketPool, int consumerId) {
@@ -21,29 +27,74 @@ public class Consumer implements PoolEntity {
     public void run() {
         try {
             while (this.running) {
-                Ticket ticket = ticketPool.purchaseTicket();
-                if (ticket != null) {
-                    System.out.println(consumerId + " Consumer has purchase the ticket " + ticket.getTicketId());
-                }
-                if (rate > 0) {
-                    Thread.sleep(1000 / rate);
+                pacer.acquire();
+                if (batchSize > 1) {
+                    for (Ticket ticket : ticketPool.purchaseTickets(batchSize)) {
+                        purchased(ticket);
+                    }
                 } else {
-                    Thread.sleep(1000);
+                    Ticket ticket = ticketPool.purchaseTicket();
+                    if (ticket != null) {
+                        purchased(ticket);
+                    }
                 }
             }
         } catch (InterruptedException e) {
-            System.out.println("Consumer " + consumerId + " thread interrupted");
+            EventLog.global().entityInterrupted("Consumer", consumerId);
+        }
+    }
+
+    // An empty pool ends the batch instead of waiting; the token is spent either way
+    @Override
+    public boolean step() {
+        if (!this.running) {
+            return false;
+        }
+        int size = batchSize;
+        for (int i = 0; i < size; i++) {
+            Ticket ticket = ticketPool.tryPurchaseTicket();
+            if (ticket == null) {
+                break;
+            }
+            purchased(ticket);
+        }
+        return this.running;
+    }
+
+    private void purchased(Ticket ticket) {
+        EventLog.global().purchase(consumerId, ticket.getTicketId());
+        TicketRecycler ticketRecycler = this.recycler;
+        if (ticketRecycler != null) {
+            ticketRecycler.release(ticket);
         }
     }
 
     @Override
-    public int getRate() {
+    public double getRate() {
         return this.rate;
     }
 
     @Override
-    public void setRate(int rate) {
+    public void setRate(double rate) {
         this.rate = rate;
+        pacer.setRate(rate);
+    }
+
+    @Override
+    public TokenBucket getPacer() {
+        return this.pacer;
+    }
+
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public void setRecycler(TicketRecycler recycler) {
+        this.recycler = recycler;
     }
 
     @Override
@@ -0,0 +1,84 @@
+package com.iit.ticket.consumer;
+
+import com.iit.ticket.model.Ticket;
+import com.iit.ticket.util.EventLog;
+import com.iit.ticket.util.TicketRecycler;
+
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A consumer that is handed tickets instead of polling for them. It keeps up to a window of
+ * purchases outstanding and asks for one more as each ticket is fulfilled, so it never holds
+ * more than it can process and no thread sits waiting on an empty pool.
+ */
+public class StreamingConsumer implements Flow.Subscriber<Ticket> {
+
+    private final int consumerId;
+    private final int window;
+    private final LongAdder purchasedTickets = new LongAdder();
+    private volatile Flow.Subscription subscription;
+    private volatile TicketRecycler recycler;
+
+    public StreamingConsumer(int consumerId, int window) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("Window must be greater than 0");
+        }
+        this.consumerId = consumerId;
+        this.window = window;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (this.subscription != null) {
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        subscription.request(window);
+    }
+
+    @Override
+    public void onNext(Ticket ticket) {
+        EventLog.global().purchase(consumerId, ticket.getTicketId());
+        purchasedTickets.increment();
+        TicketRecycler ticketRecycler = this.recycler;
+        if (ticketRecycler != null) {
+            ticketRecycler.release(ticket);
+        }
+        subscription.request(1);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        EventLog.global().warn("Streaming consumer " + consumerId + " failed: " + throwable);
+    }
+
+    // The publisher closing is a normal shutdown, nothing to report
+    @Override
+    public void onComplete() {
+    }
+
+    public void setRecycler(TicketRecycler recycler) {
+        this.recycler = recycler;
+    }
+
+    public long getPurchasedTickets() {
+        return purchasedTickets.sum();
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public String getName() {
+        return consumerId + "";
+    }
+
+    public void stop() {
+        Flow.Subscription current = subscription;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+}
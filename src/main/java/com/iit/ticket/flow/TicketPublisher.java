@@ -0,0 +1,247 @@
+package com.iit.ticket.flow;
+
+import com.iit.ticket.model.Ticket;
+import com.iit.ticket.pool.TicketPool;
+import com.iit.ticket.util.EventLog;
+import com.iit.ticket.util.TimingWheel;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publishes the tickets of a pool to {@link Flow.Subscriber}s, each subscriber purchasing only as
+ * many as it has requested. Tickets stay in the pool until there is demand for them, so the pool's
+ * capacity is the only buffer. Delivery runs as short tasks on an executor and never waits: when
+ * the pool is empty, a subscription retries on a timing wheel with a growing delay, and wakes at
+ * once when a feeder from {@link #feeder} or a call to {@link #ticketsAdded} reports new tickets.
+ */
+public class TicketPublisher implements Flow.Publisher<Ticket> {
+
+    private static final long DEFAULT_TICK_MILLIS = 2;
+    private static final long MAX_RETRY_MILLIS = 32;
+    // Deliveries per task before handing the executor thread back, so one subscriber cannot hog it
+    private static final int MAX_DELIVERIES_PER_RUN = 64;
+
+    private final TicketPool pool;
+    private final Executor executor;
+    private final TimingWheel timingWheel;
+    private final boolean ownsTimingWheel;
+    private final Set<TicketSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final Set<TicketSubscriber> feeders = ConcurrentHashMap.newKeySet();
+    private final LongAdder deliveredTickets = new LongAdder();
+    private volatile boolean closed;
+
+    public TicketPublisher(TicketPool pool) {
+        this(pool, ForkJoinPool.commonPool());
+    }
+
+    public TicketPublisher(TicketPool pool, Executor executor) {
+        this(pool, executor, new TimingWheel(DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS), true);
+    }
+
+    public TicketPublisher(TicketPool pool, Executor executor, TimingWheel timingWheel) {
+        this(pool, executor, timingWheel, false);
+    }
+
+    private TicketPublisher(TicketPool pool, Executor executor, TimingWheel timingWheel, boolean ownsTimingWheel) {
+        this.pool = pool;
+        this.executor = executor;
+        this.timingWheel = timingWheel;
+        this.ownsTimingWheel = ownsTimingWheel;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Ticket> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        TicketSubscription subscription = new TicketSubscription(subscriber);
+        subscriptions.add(subscription);
+        if (closed) {
+            subscription.complete();
+        }
+        subscription.signal();
+    }
+
+    // A subscriber that adds what it receives to this publisher's pool and wakes its subscriptions
+    public TicketSubscriber feeder(int window) {
+        TicketSubscriber feeder = new TicketSubscriber(pool, window, timingWheel, this::ticketsAdded);
+        feeders.add(feeder);
+        return feeder;
+    }
+
+    // Call after adding tickets to the pool directly, so waiting subscriptions need not wait for a retry
+    public void ticketsAdded() {
+        for (TicketSubscription subscription : subscriptions) {
+            if (subscription.demand.get() > 0) {
+                subscription.signal();
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    public long getDeliveredTickets() {
+        return deliveredTickets.sum();
+    }
+
+    // Completes every subscriber; tickets still in the pool stay there
+    public void close() {
+        closed = true;
+        for (TicketSubscription subscription : subscriptions) {
+            subscription.complete();
+            subscription.signal();
+        }
+        if (ownsTimingWheel) {
+            timingWheel.stop();
+        }
+    }
+
+    private void spaceFreed() {
+        for (TicketSubscriber feeder : feeders) {
+            if (feeder.getPendingTickets() > 0) {
+                feeder.spaceFreed();
+            }
+        }
+    }
+
+    // Signals are serialized by the work-in-progress count, so only one task delivers at a time
+    private final class TicketSubscription implements Flow.Subscription, Runnable {
+
+        private final Flow.Subscriber<? super Ticket> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger workInProgress = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile boolean completing;
+        private volatile Throwable error;
+        private volatile TimingWheel.Timeout retry;
+        // Only touched by run()
+        private boolean subscribed;
+        private long retryMillis;
+
+        TicketSubscription(Flow.Subscriber<? super Ticket> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("Requested " + n + " tickets; demand must be positive");
+            } else {
+                demand.accumulateAndGet(n, (current, added) -> {
+                    long sum = current + added;
+                    return sum < 0 ? Long.MAX_VALUE : sum;
+                });
+            }
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+            TimingWheel.Timeout pending = retry;
+            if (pending != null) {
+                pending.cancel();
+            }
+        }
+
+        void complete() {
+            completing = true;
+        }
+
+        void signal() {
+            if (workInProgress.getAndIncrement() == 0) {
+                execute();
+            }
+        }
+
+        private void execute() {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                cancel();
+                EventLog.global().warn("Ticket delivery rejected by its executor: " + e.getMessage());
+            }
+        }
+
+        @Override
+        public void run() {
+            if (!subscribed) {
+                subscribed = true;
+                if (!call(() -> subscriber.onSubscribe(this))) {
+                    return;
+                }
+            }
+            int missed = 1;
+            int delivered = 0;
+            do {
+                while (!cancelled) {
+                    Throwable failure = error;
+                    if (failure != null) {
+                        cancel();
+                        call(() -> subscriber.onError(failure));
+                        return;
+                    }
+                    if (completing) {
+                        cancel();
+                        call(subscriber::onComplete);
+                        return;
+                    }
+                    if (demand.get() == 0) {
+                        break;
+                    }
+                    if (delivered == MAX_DELIVERIES_PER_RUN) {
+                        // Keeps the work-in-progress count, so the resubmitted task carries on from here
+                        execute();
+                        return;
+                    }
+                    Ticket ticket = pool.tryPurchaseTicket();
+                    if (ticket == null) {
+                        scheduleRetry();
+                        break;
+                    }
+                    retryMillis = 0;
+                    demand.decrementAndGet();
+                    deliveredTickets.increment();
+                    delivered++;
+                    if (!call(() -> subscriber.onNext(ticket))) {
+                        return;
+                    }
+                    spaceFreed();
+                }
+                missed = workInProgress.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void scheduleRetry() {
+            TimingWheel.Timeout pending = retry;
+            if (pending != null && !pending.isExpired()) {
+                return;
+            }
+            retryMillis = Math.min(MAX_RETRY_MILLIS, Math.max(DEFAULT_TICK_MILLIS, retryMillis * 2));
+            retry = timingWheel.schedule(this::signal, retryMillis, TimeUnit.MILLISECONDS);
+        }
+
+        // A subscriber that throws has broken the contract, so its subscription is dropped
+        private boolean call(Runnable signal) {
+            try {
+                signal.run();
+                return true;
+            } catch (RuntimeException e) {
+                cancel();
+                EventLog.global().warn("Ticket subscriber failed and was unsubscribed: " + e);
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.iit.ticket.flow;
+
+import com.iit.ticket.model.Ticket;
+import com.iit.ticket.pool.TicketPool;
+import com.iit.ticket.util.EventLog;
+import com.iit.ticket.util.TimingWheel;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adds the tickets it receives to a pool, asking upstream for at most a window of tickets beyond
+ * what the pool has taken. A ticket that finds the pool full is held back rather than waited on,
+ * and more are only requested once held tickets get in, so at most a window of them is ever held.
+ * Held tickets are retried on a timing wheel, or sooner when the publisher of the pool reports that
+ * tickets were sold. Use {@link TicketPublisher#feeder} to get one wired to a publisher.
+ */
+public class TicketSubscriber implements Flow.Subscriber<Ticket> {
+
+    private static final long RETRY_MILLIS = 10;
+
+    private final TicketPool pool;
+    private final int window;
+    private final TimingWheel timingWheel;
+    private final Runnable onAdded;
+    private final ArrayDeque<Ticket> pendingTickets = new ArrayDeque<>();
+    private final LongAdder addedTickets = new LongAdder();
+    private Flow.Subscription subscription;
+    private TimingWheel.Timeout retry;
+    private volatile int pending;
+    private volatile boolean completed;
+
+    public TicketSubscriber(TicketPool pool, int window, TimingWheel timingWheel) {
+        this(pool, window, timingWheel, () -> { });
+    }
+
+    TicketSubscriber(TicketPool pool, int window, TimingWheel timingWheel, Runnable onAdded) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("Window must be greater than 0");
+        }
+        this.pool = pool;
+        this.window = window;
+        this.timingWheel = timingWheel;
+        this.onAdded = onAdded;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        synchronized (this) {
+            if (this.subscription != null) {
+                subscription.cancel();
+                return;
+            }
+            this.subscription = subscription;
+        }
+        subscription.request(window);
+    }
+
+    @Override
+    public void onNext(Ticket ticket) {
+        synchronized (this) {
+            pendingTickets.addLast(ticket);
+            pending = pendingTickets.size();
+        }
+        flush();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        EventLog.global().warn("Ticket feed failed: " + throwable);
+        completed = true;
+    }
+
+    @Override
+    public void onComplete() {
+        completed = true;
+    }
+
+    // Stops asking for tickets; held ones still go into the pool as room frees up
+    public void cancel() {
+        Flow.Subscription current;
+        synchronized (this) {
+            current = subscription;
+        }
+        if (current != null) {
+            current.cancel();
+        }
+        completed = true;
+    }
+
+    public long getAddedTickets() {
+        return addedTickets.sum();
+    }
+
+    // Tickets received but not yet in the pool because it was full
+    public int getPendingTickets() {
+        return pending;
+    }
+
+    // True once upstream has finished, failed or been cancelled
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    void spaceFreed() {
+        flush();
+    }
+
+    // Requests happen outside the lock, since upstream may deliver the next ticket from inside request()
+    private void flush() {
+        int added = 0;
+        Flow.Subscription current;
+        synchronized (this) {
+            while (!pendingTickets.isEmpty() && pool.tryAddTicket(pendingTickets.peekFirst())) {
+                pendingTickets.removeFirst();
+                added++;
+            }
+            pending = pendingTickets.size();
+            if (!pendingTickets.isEmpty() && (retry == null || retry.isExpired())) {
+                retry = timingWheel.schedule(this::flush, RETRY_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            current = subscription;
+        }
+        if (added > 0) {
+            addedTickets.add(added);
+            onAdded.run();
+            if (!completed) {
+                current.request(added);
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.iit.ticket.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Log-linear latency histogram in the style of HdrHistogram: values below 128 ns get a bucket each,
+ * and every power of two above that is split into 64 equal sub-buckets, so any recorded value is
+ * reported to within 1.6% across the whole range from 1 ns to about 9 hours. Recording is a few
+ * shifts and one atomic increment on a stripe picked by thread id, so threads rarely share a
+ * cache line; reading merges the stripes. A stripe is 20 KB and is only allocated by the first
+ * thread to record into it, so the histograms of a pool that is never used cost next to nothing.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_SHIFT = 38;
+    private static final int BUCKETS = (MAX_SHIFT + 2) * SUB_BUCKETS;
+    private static final long MAX_VALUE = (2L * SUB_BUCKETS << MAX_SHIFT) - 1;
+
+    private final AtomicReferenceArray<AtomicLongArray> stripes;
+    private final int stripeMask;
+    private final LongAdder totalNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        int stripeCount = Integer.highestOneBit(Math.min(8, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        this.stripes = new AtomicReferenceArray<>(stripeCount);
+        this.stripeMask = stripeCount - 1;
+    }
+
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        stripe((int) Thread.currentThread().threadId() & stripeMask).incrementAndGet(indexOf(value));
+        totalNanos.add(value);
+    }
+
+    private AtomicLongArray stripe(int index) {
+        AtomicLongArray stripe = stripes.get(index);
+        if (stripe == null) {
+            stripes.compareAndSet(index, null, new AtomicLongArray(BUCKETS));
+            stripe = stripes.get(index);
+        }
+        return stripe;
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int s = 0; s < stripes.length(); s++) {
+            AtomicLongArray stripe = stripes.get(s);
+            for (int i = 0; stripe != null && i < BUCKETS; i++) {
+                counts[i] += stripe.get(i);
+            }
+        }
+        return new Snapshot(counts, totalNanos.sum());
+    }
+
+    // Adds every value recorded into the other histogram to this one
+    public void add(LatencyHistogram other) {
+        for (int s = 0; s < other.stripes.length(); s++) {
+            AtomicLongArray stripe = other.stripes.get(s);
+            for (int i = 0; stripe != null && i < BUCKETS; i++) {
+                long count = stripe.get(i);
+                if (count != 0) {
+                    stripe(0).addAndGet(i, count);
+                }
+            }
+        }
+        totalNanos.add(other.totalNanos.sum());
+    }
+
+    public void reset() {
+        for (int s = 0; s < stripes.length(); s++) {
+            AtomicLongArray stripe = stripes.get(s);
+            for (int i = 0; stripe != null && i < BUCKETS; i++) {
+                stripe.set(i, 0);
+            }
+        }
+        totalNanos.reset();
+    }
+
+    static int indexOf(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    // The largest value that falls in the bucket, so reported percentiles never understate
+    static long highestValueAt(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long subBucket = index - ((long) shift << SUB_BUCKET_BITS);
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long totalNanos;
+
+        private Snapshot(long[] counts, long totalNanos) {
+            this.counts = counts;
+            long sum = 0;
+            for (long c : counts) {
+                sum += c;
+            }
+            this.count = sum;
+            this.totalNanos = totalNanos;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public double getMeanNanos() {
+            return count == 0 ? 0 : (double) totalNanos / count;
+        }
+
+        // percentile is 0-100, e.g. 99.9
+        public long getValueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return highestValueAt(i);
+                }
+            }
+            return getMaxNanos();
+        }
+
+        public long getMaxNanos() {
+            for (int i = counts.length - 1; i >= 0; i--) {
+                if (counts[i] != 0) {
+                    return highestValueAt(i);
+                }
+            }
+            return 0;
+        }
+    }
+}
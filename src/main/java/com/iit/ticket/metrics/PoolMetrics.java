@@ -0,0 +1,302 @@
+package com.iit.ticket.metrics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Latency and contention figures for one pool. Pools record how long each addTicket and
+ * purchaseTicket took end to end, how long callers waited because the pool was full or empty,
+ * and how often a lock was already held when they tried to take it. Comparing the three tells
+ * whether slow sales come from an empty pool, a full one, or fighting over the lock.
+ *
+ * Reading the clock costs about as much as an uncontended add, so by default only one call in
+ * eight is timed, picked at random; calls are still all counted, and waits and contentions, which
+ * only happen on slow paths, are always recorded. A sampling interval of 1 times every call.
+ */
+public class PoolMetrics implements PoolMetricsMBean {
+
+    private static final double NANOS_PER_MICRO = 1_000.0;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final int DEFAULT_SAMPLING_INTERVAL = 8;
+    private static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+    private final LatencyHistogram addLatency = new LatencyHistogram();
+    private final LatencyHistogram purchaseLatency = new LatencyHistogram();
+    private final LatencyHistogram fullWaits = new LatencyHistogram();
+    private final LatencyHistogram emptyWaits = new LatencyHistogram();
+    private final LongAdder lockContentions = new LongAdder();
+    private final LongAdder addCalls = new LongAdder();
+    private final LongAdder purchaseCalls = new LongAdder();
+    private volatile int samplingInterval = DEFAULT_SAMPLING_INTERVAL;
+
+    // Start of an add or purchase: the current time if this call is sampled, otherwise a marker
+    public long startTimer() {
+        int interval = samplingInterval;
+        if (interval == 1 || ThreadLocalRandom.current().nextInt(interval) == 0) {
+            return System.nanoTime();
+        }
+        return NOT_SAMPLED;
+    }
+
+    public void recordAdd(long startNanos) {
+        addCalls.increment();
+        if (startNanos != NOT_SAMPLED) {
+            addLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    public void recordPurchase(long startNanos) {
+        purchaseCalls.increment();
+        if (startNanos != NOT_SAMPLED) {
+            purchaseLatency.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    public void recordFullWait(long startNanos) {
+        fullWaits.record(System.nanoTime() - startNanos);
+    }
+
+    public void recordEmptyWait(long startNanos) {
+        emptyWaits.record(System.nanoTime() - startNanos);
+    }
+
+    public void lockContended() {
+        lockContentions.increment();
+    }
+
+    // Takes the lock, counting a contention if another thread holds it
+    public void acquire(Lock lock) {
+        if (!lock.tryLock()) {
+            lockContentions.increment();
+            lock.lock();
+        }
+    }
+
+    public LatencyHistogram getAddLatency() {
+        return addLatency;
+    }
+
+    public LatencyHistogram getPurchaseLatency() {
+        return purchaseLatency;
+    }
+
+    public LatencyHistogram getFullWaits() {
+        return fullWaits;
+    }
+
+    public LatencyHistogram getEmptyWaits() {
+        return emptyWaits;
+    }
+
+    // Registers this object with the platform MBean server under com.iit.ticket:type=TicketPool
+    public ObjectName register(String poolName) throws JMException {
+        ObjectName name = new ObjectName("com.iit.ticket:type=TicketPool,name=" + ObjectName.quote(poolName));
+        if (ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        }
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        return name;
+    }
+
+    @Override
+    public int getSamplingInterval() {
+        return samplingInterval;
+    }
+
+    @Override
+    public void setSamplingInterval(int samplingInterval) {
+        if (samplingInterval <= 0) {
+            throw new IllegalArgumentException("Sampling interval must be greater than 0");
+        }
+        this.samplingInterval = samplingInterval;
+    }
+
+    @Override
+    public long getAddCount() {
+        return addCalls.sum();
+    }
+
+    @Override
+    public double getAddP50Micros() {
+        return getAddLatency().snapshot().getValueAtPercentile(50) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getAddP99Micros() {
+        return getAddLatency().snapshot().getValueAtPercentile(99) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getAddP999Micros() {
+        return getAddLatency().snapshot().getValueAtPercentile(99.9) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getAddMaxMicros() {
+        return getAddLatency().snapshot().getMaxNanos() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getPurchaseCount() {
+        return purchaseCalls.sum();
+    }
+
+    @Override
+    public double getPurchaseP50Micros() {
+        return getPurchaseLatency().snapshot().getValueAtPercentile(50) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getPurchaseP99Micros() {
+        return getPurchaseLatency().snapshot().getValueAtPercentile(99) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getPurchaseP999Micros() {
+        return getPurchaseLatency().snapshot().getValueAtPercentile(99.9) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getPurchaseMaxMicros() {
+        return getPurchaseLatency().snapshot().getMaxNanos() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getFullWaitCount() {
+        return getFullWaits().snapshot().getCount();
+    }
+
+    @Override
+    public double getFullWaitTotalMillis() {
+        return getFullWaits().snapshot().getTotalNanos() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getFullWaitP99Micros() {
+        return getFullWaits().snapshot().getValueAtPercentile(99) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getEmptyWaitCount() {
+        return getEmptyWaits().snapshot().getCount();
+    }
+
+    @Override
+    public double getEmptyWaitTotalMillis() {
+        return getEmptyWaits().snapshot().getTotalNanos() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getEmptyWaitP99Micros() {
+        return getEmptyWaits().snapshot().getValueAtPercentile(99) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getLockContentions() {
+        return lockContentions.sum();
+    }
+
+    // A live sum of other pools' metrics, for views that spread their calls over several pools
+    public static PoolMetrics aggregate(Supplier<? extends Collection<PoolMetrics>> sources) {
+        return new Aggregate(sources);
+    }
+
+    @Override
+    public void reset() {
+        addLatency.reset();
+        purchaseLatency.reset();
+        fullWaits.reset();
+        emptyWaits.reset();
+        lockContentions.reset();
+        addCalls.reset();
+        purchaseCalls.reset();
+    }
+
+    // Every read merges the sources afresh; nothing is ever recorded into the aggregate itself
+    private static final class Aggregate extends PoolMetrics {
+
+        private final Supplier<? extends Collection<PoolMetrics>> sources;
+
+        Aggregate(Supplier<? extends Collection<PoolMetrics>> sources) {
+            this.sources = sources;
+        }
+
+        private LatencyHistogram merge(Function<PoolMetrics, LatencyHistogram> histogram) {
+            LatencyHistogram merged = new LatencyHistogram();
+            for (PoolMetrics source : sources.get()) {
+                merged.add(histogram.apply(source));
+            }
+            return merged;
+        }
+
+        @Override
+        public LatencyHistogram getAddLatency() {
+            return merge(PoolMetrics::getAddLatency);
+        }
+
+        @Override
+        public LatencyHistogram getPurchaseLatency() {
+            return merge(PoolMetrics::getPurchaseLatency);
+        }
+
+        @Override
+        public LatencyHistogram getFullWaits() {
+            return merge(PoolMetrics::getFullWaits);
+        }
+
+        @Override
+        public LatencyHistogram getEmptyWaits() {
+            return merge(PoolMetrics::getEmptyWaits);
+        }
+
+        @Override
+        public long getAddCount() {
+            long count = 0;
+            for (PoolMetrics source : sources.get()) {
+                count += source.getAddCount();
+            }
+            return count;
+        }
+
+        @Override
+        public long getPurchaseCount() {
+            long count = 0;
+            for (PoolMetrics source : sources.get()) {
+                count += source.getPurchaseCount();
+            }
+            return count;
+        }
+
+        @Override
+        public long getLockContentions() {
+            long count = 0;
+            for (PoolMetrics source : sources.get()) {
+                count += source.getLockContentions();
+            }
+            return count;
+        }
+
+        // Sources that appear afterwards still start from the default interval
+        @Override
+        public void setSamplingInterval(int samplingInterval) {
+            super.setSamplingInterval(samplingInterval);
+            for (PoolMetrics source : sources.get()) {
+                source.setSamplingInterval(samplingInterval);
+            }
+        }
+
+        @Override
+        public void reset() {
+            for (PoolMetrics source : sources.get()) {
+                source.reset();
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.iit.ticket.metrics;
+
+// JMX view of PoolMetrics; latencies are in microseconds, total wait times in milliseconds
+public interface PoolMetricsMBean {
+
+    int getSamplingInterval();
+
+    void setSamplingInterval(int samplingInterval);
+
+    long getAddCount();
+
+    double getAddP50Micros();
+
+    double getAddP99Micros();
+
+    double getAddP999Micros();
+
+    double getAddMaxMicros();
+
+    long getPurchaseCount();
+
+    double getPurchaseP50Micros();
+
+    double getPurchaseP99Micros();
+
+    double getPurchaseP999Micros();
+
+    double getPurchaseMaxMicros();
+
+    long getFullWaitCount();
+
+    double getFullWaitTotalMillis();
+
+    double getFullWaitP99Micros();
+
+    long getEmptyWaitCount();
+
+    double getEmptyWaitTotalMillis();
+
+    double getEmptyWaitP99Micros();
+
+    long getLockContentions();
+
+    void reset();
+
+}
@@ -0,0 +1,46 @@
+package com.iit.ticket.model;
+
+public class PoolStats {
+
+    private final int availableTickets;
+    private final int soldTickets;
+    private final int totalTickets;
+    private final int heldTickets;
+
+    public PoolStats(int availableTickets, int soldTickets, int totalTickets) {
+        this(availableTickets, soldTickets, totalTickets, 0);
+    }
+
+    public PoolStats(int availableTickets, int soldTickets, int totalTickets, int heldTickets) {
+        this.availableTickets = availableTickets;
+        this.soldTickets = soldTickets;
+        this.totalTickets = totalTickets;
+        this.heldTickets = heldTickets;
+    }
+
+    public int getAvailableTickets() {
+        return availableTickets;
+    }
+
+    public int getSoldTickets() {
+        return soldTickets;
+    }
+
+    public int getTotalTickets() {
+        return totalTickets;
+    }
+
+    public int getHeldTickets() {
+        return heldTickets;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolStats{" +
+                "availableTickets=" + availableTickets +
+                ", soldTickets=" + soldTickets +
+                ", totalTickets=" + totalTickets +
+                ", heldTickets=" + heldTickets +
+                '}';
+    }
+}
@@ -1,9 +1,32 @@
 package com.iit.ticket.model;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleUnaryOperator;
+
 public class Ticket {
 
+    private static final VarHandle TICKET_PRICE;
+    private static final VarHandle ISSUE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            TICKET_PRICE = lookup.findVarHandle(Ticket.class, "ticketPrice", double.class);
+            ISSUE = lookup.findVarHandle(Ticket.class, "issue", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private int ticketId;
-    private double ticketPrice;
+    // Volatile so a price changed while the ticket sits in a pool is seen by whoever buys it
+    private volatile double ticketPrice;
+    // Raised by two on every reissue; odd while a reissue or a guarded reprice is in progress
+    private volatile int issue;
+    // The pool holding the ticket, for pools that cannot otherwise tell a ticket is still theirs
+    private volatile Object holder;
 
     public Ticket() {
     }
@@ -29,6 +52,61 @@ public class Ticket {
         this.ticketPrice = ticketPrice;
     }
 
+    public Object getHolder() {
+        return holder;
+    }
+
+    public void setHolder(Object holder) {
+        this.holder = holder;
+    }
+
+    // Applies the repricer atomically, retrying if another writer changed the price in between
+    public double updateTicketPrice(DoubleUnaryOperator repricer) {
+        while (true) {
+            double current = ticketPrice;
+            double updated = repricer.applyAsDouble(current);
+            if (TICKET_PRICE.compareAndSet(this, current, updated)) {
+                return updated;
+            }
+        }
+    }
+
+    // For pools that reprice without holding off buyers: applies the repricer only if the check,
+    // run while reissue() is held off, still finds the ticket queued under the id or filter it was
+    // matched by. Without that, a ticket bought and recycled after being matched could have an
+    // unrelated seat's price overwritten. Returns whether the price was updated.
+    public boolean updateTicketPriceIf(BooleanSupplier check, DoubleUnaryOperator repricer) {
+        while (true) {
+            int current = issue;
+            if ((current & 1) == 0 && ISSUE.compareAndSet(this, current, current + 1)) {
+                try {
+                    if (!check.getAsBoolean()) {
+                        return false;
+                    }
+                    updateTicketPrice(repricer);
+                    return true;
+                } finally {
+                    issue = current;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    // Gives a recycled ticket a new seat and price, waiting out any guarded reprice of its old one
+    public void reissue(int ticketId, double ticketPrice) {
+        while (true) {
+            int current = issue;
+            if ((current & 1) == 0 && ISSUE.compareAndSet(this, current, current + 1)) {
+                this.ticketId = ticketId;
+                this.ticketPrice = ticketPrice;
+                issue = current + 2;
+                return;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
     @Override
     public String toString() {
         return "Ticket{" +
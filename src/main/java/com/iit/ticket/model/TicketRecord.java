@@ -0,0 +1,40 @@
+package com.iit.ticket.model;
+
+/**
+ * Reusable holder for a ticket read from primitive storage, so purchases do not have to allocate
+ * a {@link Ticket} per call. Prices are kept as whole cents.
+ */
+public class TicketRecord {
+
+    private int ticketId;
+    private long priceCents;
+
+    public int getTicketId() {
+        return ticketId;
+    }
+
+    public long getPriceCents() {
+        return priceCents;
+    }
+
+    public double getTicketPrice() {
+        return priceCents / 100.0;
+    }
+
+    public void set(int ticketId, long priceCents) {
+        this.ticketId = ticketId;
+        this.priceCents = priceCents;
+    }
+
+    public Ticket toTicket() {
+        return new Ticket(ticketId, getTicketPrice());
+    }
+
+    @Override
+    public String toString() {
+        return "TicketRecord{" +
+                "ticketId=" + ticketId +
+                ", priceCents=" + priceCents +
+                '}';
+    }
+}
@@ -1,16 +1,36 @@
 package com.iit.ticket.pool;
 
+import com.iit.ticket.metrics.PoolMetrics;
+import com.iit.ticket.model.PoolStats;
 import com.iit.ticket.model.Ticket;
+import com.iit.ticket.util.EventLog;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Predicate;
 
+/**
+ * Pool backed by a bounded LinkedBlockingQueue. A ticket is counted only once the queue has taken
+ * it, so producers parked on a full queue are never reported as stock; a buyer can take a ticket
+ * and count the sale just before its producer counts the add, which the counters' snapshot allows
+ * for.
+ *
+ * The queue cannot say whether a ticket its iterator handed out is still queued, so tickets are
+ * marked as held by this pool while they are in it, and repricing checks the mark while the ticket
+ * holds off reissue; otherwise a ticket bought and recycled mid-scan could be repriced as a seat
+ * it no longer is.
+ */
 public class BlockingQueueTicketPool implements TicketPool {
 
     private final BlockingQueue<Ticket> queue;
     private final int maxNumberOfTickets;
-    private int soldTickets;
-    private int totalTickets;
+    private final TicketCounters counters = new TicketCounters();
+    private final PoolMetrics metrics = new PoolMetrics();
 
     public BlockingQueueTicketPool(int maxNumberOfTickets) {
         this.maxNumberOfTickets = maxNumberOfTickets;
@@ -19,31 +39,201 @@ public class BlockingQueueTicketPool implements TicketPool {
 
     @Override
     public void addTicket(Ticket ticket) {
-        boolean offer = queue.offer(ticket);
-        if (offer) totalTickets++;
+        long start = metrics.startTimer();
+        try {
+            put(ticket);
+            counters.ticketsAdded(1);
+        } catch (InterruptedException e) {
+            EventLog.global().interrupted("addTicket");
+            Thread.currentThread().interrupt();
+        } finally {
+            metrics.recordAdd(start);
+        }
     }
 
     @Override
     public Ticket purchaseTicket() {
+        long start = metrics.startTimer();
+        try {
+            Ticket ticket = released(take());
+            counters.ticketsSold(1);
+            return ticket;
+        } catch (InterruptedException e) {
+            EventLog.global().interrupted("purchaseTicket");
+            Thread.currentThread().interrupt();
+        } finally {
+            metrics.recordPurchase(start);
+        }
+        return null;
+    }
+
+    @Override
+    public boolean tryAddTicket(Ticket ticket) {
+        ticket.setHolder(this);
+        boolean offer = queue.offer(ticket);
+        if (offer) {
+            counters.ticketsAdded(1);
+        } else {
+            ticket.setHolder(null);
+        }
+        return offer;
+    }
+
+    @Override
+    public boolean tryAddTicket(Ticket ticket, long timeout, TimeUnit unit) throws InterruptedException {
+        ticket.setHolder(this);
+        boolean offer = false;
+        try {
+            offer = queue.offer(ticket, timeout, unit);
+        } finally {
+            if (offer) {
+                counters.ticketsAdded(1);
+            } else {
+                ticket.setHolder(null);
+            }
+        }
+        return offer;
+    }
+
+    @Override
+    public Ticket tryPurchaseTicket() {
         Ticket ticket = queue.poll();
         if (ticket != null) {
-            soldTickets++;
+            released(ticket);
+            counters.ticketsSold(1);
+        }
+        return ticket;
+    }
+
+    @Override
+    public Ticket tryPurchaseTicket(long timeout, TimeUnit unit) throws InterruptedException {
+        Ticket ticket = queue.poll(timeout, unit);
+        if (ticket != null) {
+            released(ticket);
+            counters.ticketsSold(1);
         }
         return ticket;
     }
 
     @Override
-    public synchronized int getAvailableTickets() {
-        return queue.size();
+    public int addTickets(Collection<Ticket> tickets) {
+        int added = 0;
+        try {
+            for (Ticket ticket : tickets) {
+                put(ticket);
+                counters.ticketsAdded(1);
+                added++;
+            }
+        } catch (InterruptedException e) {
+            EventLog.global().interrupted("addTickets");
+            Thread.currentThread().interrupt();
+        }
+        return added;
+    }
+
+    @Override
+    public List<Ticket> purchaseTickets(int maxTickets) {
+        List<Ticket> tickets = new ArrayList<>();
+        if (maxTickets <= 0) {
+            return tickets;
+        }
+        try {
+            tickets.add(take());
+        } catch (InterruptedException e) {
+            EventLog.global().interrupted("purchaseTickets");
+            Thread.currentThread().interrupt();
+            return tickets;
+        }
+        queue.drainTo(tickets, maxTickets - 1);
+        for (Ticket ticket : tickets) {
+            released(ticket);
+        }
+        counters.ticketsSold(tickets.size());
+        return tickets;
+    }
+
+    // The queue's iterator only locks one step at a time, so buyers and producers keep moving
+    // during the scan; a ticket bought while it is being repriced may leave with either price.
+    @Override
+    public boolean updateTicketPrice(int ticketId, double newPrice) {
+        for (Ticket ticket : queue) {
+            if (ticket.getTicketId() == ticketId && ticket.updateTicketPriceIf(
+                    () -> ticket.getHolder() == this && ticket.getTicketId() == ticketId, price -> newPrice)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int updateTicketPrices(Predicate<Ticket> filter, DoubleUnaryOperator repricer) {
+        int updated = 0;
+        for (Ticket ticket : queue) {
+            if (ticket.updateTicketPriceIf(() -> ticket.getHolder() == this && filter.test(ticket), repricer)) {
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    @Override
+    public int getAvailableTickets() {
+        return counters.getAvailableTickets();
+    }
+
+    @Override
+    public int getSoldTickets() {
+        return counters.getSoldTickets();
     }
 
     @Override
-    public synchronized int getSoldTickets() {
-        return soldTickets;
+    public int getTotalTickets() {
+        return counters.getTotalTickets();
     }
 
     @Override
-    public synchronized int getTotalTickets() {
-        return totalTickets;
+    public PoolStats getStats() {
+        return counters.snapshot();
+    }
+
+    @Override
+    public PoolMetrics getMetrics() {
+        return metrics;
+    }
+
+    // The queue hides its locks, so only the time spent blocked on a full or empty queue is
+    // measured: the non-blocking attempt comes first and the wait is timed only if it fails
+    private void put(Ticket ticket) throws InterruptedException {
+        ticket.setHolder(this);
+        if (!queue.offer(ticket)) {
+            long waitStart = System.nanoTime();
+            try {
+                queue.put(ticket);
+            } catch (InterruptedException e) {
+                ticket.setHolder(null);
+                throw e;
+            } finally {
+                metrics.recordFullWait(waitStart);
+            }
+        }
+    }
+
+    // Cleared before the buyer gets the ticket, so before it can be recycled
+    private Ticket released(Ticket ticket) {
+        ticket.setHolder(null);
+        return ticket;
+    }
+
+    private Ticket take() throws InterruptedException {
+        Ticket ticket = queue.poll();
+        if (ticket == null) {
+            long waitStart = System.nanoTime();
+            try {
+                ticket = queue.take();
+            } finally {
+                metrics.recordEmptyWait(waitStart);
+            }
+        }
+        return ticket;
     }
 }
@@ -0,0 +1,177 @@
+package com.iit.ticket.pool;
+
+import com.iit.ticket.model.Ticket;
+
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Predicate;
+
+/**
+ * FIFO ticket queue with an int-keyed index, so a specific ticket can be removed in O(1) instead
+ * of by scanning. The index is an open-addressing table from ticketId to the oldest queued node
+ * with that id; later duplicates are chained behind it in arrival order. Not thread-safe: pools
+ * guard it with the same lock as the rest of their state, which keeps the index and the queue
+ * order consistent with each other.
+ */
+final class IndexedTicketQueue {
+
+    private static final int INITIAL_TABLE_SIZE = 16;
+
+    private final Node sentinel = new Node(null);
+    private int size;
+
+    private int[] keys = new int[INITIAL_TABLE_SIZE];
+    private Node[] values = new Node[INITIAL_TABLE_SIZE];
+    private int mask = INITIAL_TABLE_SIZE - 1;
+    private int indexed;
+
+    IndexedTicketQueue() {
+        sentinel.prev = sentinel;
+        sentinel.next = sentinel;
+    }
+
+    boolean offer(Ticket ticket) {
+        Node node = new Node(ticket);
+        node.prev = sentinel.prev;
+        node.next = sentinel;
+        sentinel.prev.next = node;
+        sentinel.prev = node;
+        size++;
+
+        int slot = find(node.ticketId);
+        Node first = values[slot];
+        if (first == null) {
+            node.lastSameId = node;
+            keys[slot] = node.ticketId;
+            values[slot] = node;
+            if (++indexed * 2 > keys.length) {
+                resize();
+            }
+        } else {
+            first.lastSameId.nextSameId = node;
+            first.lastSameId = node;
+        }
+        return true;
+    }
+
+    Ticket poll() {
+        if (size == 0) {
+            return null;
+        }
+        return unlink(sentinel.next);
+    }
+
+    Ticket remove(int ticketId) {
+        Node first = values[find(ticketId)];
+        return first == null ? null : unlink(first);
+    }
+
+    // The oldest queued ticket with the given id, left in place
+    Ticket peek(int ticketId) {
+        Node first = values[find(ticketId)];
+        return first == null ? null : first.ticket;
+    }
+
+    int updatePrices(Predicate<Ticket> filter, DoubleUnaryOperator repricer) {
+        int updated = 0;
+        for (Node node = sentinel.next; node != sentinel; node = node.next) {
+            if (filter.test(node.ticket)) {
+                node.ticket.updateTicketPrice(repricer);
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Both FIFO polls and removals by id always take the oldest node for its id, which is the one
+    // the index points at, so the duplicate chain only ever loses its head.
+    private Ticket unlink(Node node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        size--;
+
+        int slot = find(node.ticketId);
+        Node successor = node.nextSameId;
+        if (successor == null) {
+            deleteSlot(slot);
+        } else {
+            successor.lastSameId = node.lastSameId;
+            values[slot] = successor;
+        }
+
+        Ticket ticket = node.ticket;
+        node.ticket = null;
+        node.prev = null;
+        node.next = null;
+        node.nextSameId = null;
+        node.lastSameId = null;
+        return ticket;
+    }
+
+    private int find(int ticketId) {
+        int slot = hash(ticketId) & mask;
+        while (values[slot] != null && keys[slot] != ticketId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Backward-shift deletion keeps probe sequences intact without tombstones
+    private void deleteSlot(int slot) {
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (values[next] != null) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[hole] = null;
+        indexed--;
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        Node[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new Node[oldValues.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int hash(int ticketId) {
+        int h = ticketId * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Node {
+
+        private final int ticketId;
+        private Ticket ticket;
+        private Node prev;
+        private Node next;
+        private Node nextSameId;
+        private Node lastSameId;
+
+        Node(Ticket ticket) {
+            this.ticket = ticket;
+            this.ticketId = ticket == null ? 0 : ticket.getTicketId();
+        }
+    }
+}
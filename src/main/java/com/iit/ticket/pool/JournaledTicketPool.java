@@ -0,0 +1,627 @@
+package com.iit.ticket.pool;
+
+import com.iit.ticket.metrics.PoolMetrics;
+import com.iit.ticket.model.PoolStats;
+import com.iit.ticket.model.Ticket;
+import com.iit.ticket.util.EventLog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Predicate;
+import java.util.zip.CRC32C;
+
+/**
+ * Write-ahead journal around any pool. Every add, purchase and price change is appended to a file
+ * as a fixed-size, CRC-checked record, and no operation returns before its record is on disk. The
+ * fsync cost is shared by group commit: appends only copy into a buffer under a short lock, and
+ * the first waiter to find no flush in progress writes and forces everything buffered so far on
+ * behalf of all of them, so under contention many operations ride on a single fsync.
+ *
+ * Adds are journaled before the ticket becomes visible and purchases after it is taken, so a
+ * purchase record can never precede the add of the same ticket. {@link #open} replays the journal
+ * into an empty pool, stopping at the first torn or corrupt record, then compacts it down to the
+ * surviving inventory so restart time does not grow with history.
+ */
+public class JournaledTicketPool implements TicketPool, SeatSelectable, AutoCloseable {
+
+    private static final int MAGIC = 0x54504A31; // "TPJ1"
+    private static final int HEADER_SIZE = 4;
+    static final int RECORD_SIZE = 17; // type, ticketId, price, crc
+
+    private static final byte ADD = 1;
+    private static final byte PURCHASE = 2;
+    private static final byte PRICE = 3;
+    private static final byte ADD_ABORTED = 4;
+    private static final byte SOLD_BEFORE = 5;
+
+    private static final int INITIAL_BUFFER_RECORDS = 1024;
+    private static final int REPLAY_CHUNK_RECORDS = 4096;
+    private static final int PREALLOCATE_BYTES = 1 << 20;
+    private static final long ADD_WAIT_SECONDS = 1;
+
+    private final TicketPool delegate;
+    private final FileChannel channel;
+    private final int recoveredTickets;
+    private final int soldBefore;
+    private final long tornRecordOffset;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushed = lock.newCondition();
+    private final CRC32C crc = new CRC32C();
+    private ByteBuffer pending = ByteBuffer.allocateDirect(INITIAL_BUFFER_RECORDS * RECORD_SIZE);
+    private ByteBuffer flushing = ByteBuffer.allocateDirect(INITIAL_BUFFER_RECORDS * RECORD_SIZE);
+    private long appendedPosition;
+    private long durablePosition;
+    private boolean flushInProgress;
+    private boolean closed;
+    private IOException failure;
+    // Only touched by the flushing leader
+    private long writePosition;
+    private long allocatedSize;
+
+    private final LongAdder journaledRecords = new LongAdder();
+    private final LongAdder groupCommits = new LongAdder();
+    private final PoolMetrics metrics = new PoolMetrics();
+
+    private JournaledTicketPool(TicketPool delegate, FileChannel channel, int recoveredTickets, int soldBefore,
+                                long tornRecordOffset) throws IOException {
+        this.delegate = delegate;
+        this.channel = channel;
+        this.writePosition = channel.size();
+        this.allocatedSize = writePosition;
+        this.recoveredTickets = recoveredTickets;
+        this.soldBefore = soldBefore;
+        this.tornRecordOffset = tornRecordOffset;
+    }
+
+    // Rebuilds the pool from the journal at the given path (creating it if absent) and keeps
+    // journaling to it. The pool passed in must be empty.
+    public static JournaledTicketPool open(TicketPool delegate, Path journal) throws IOException {
+        Recovery recovery = new Recovery();
+        if (Files.exists(journal)) {
+            recovery.replay(journal);
+        }
+        for (Ticket ticket : recovery.inventory.values()) {
+            if (!delegate.tryAddTicket(ticket)) {
+                throw new IllegalStateException("Journal holds " + recovery.inventory.size()
+                        + " tickets, more than the pool can take");
+            }
+        }
+
+        // Compact to a fresh file holding only the surviving state, then swap it in atomically
+        Path compacted = journal.resolveSibling(journal.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + (recovery.inventory.size() + 1) * RECORD_SIZE);
+            CRC32C checksum = new CRC32C();
+            buffer.putInt(MAGIC);
+            encode(buffer, checksum, SOLD_BEFORE, recovery.sold, 0);
+            for (Ticket ticket : recovery.inventory.values()) {
+                encode(buffer, checksum, ADD, ticket.getTicketId(), ticket.getTicketPrice());
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+        Files.move(compacted, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE);
+        return new JournaledTicketPool(delegate, channel, recovery.inventory.size(), recovery.sold,
+                recovery.tornOffset);
+    }
+
+    // Tickets restored into the pool by open()
+    public int getRecoveredTickets() {
+        return recoveredTickets;
+    }
+
+    // Offset of the torn or corrupt record open() stopped at and discarded, or -1 if the journal was intact
+    public long getTornRecordOffset() {
+        return tornRecordOffset;
+    }
+
+    public long getJournaledRecords() {
+        return journaledRecords.sum();
+    }
+
+    // Number of fsyncs; records / commits is the average group size
+    public long getGroupCommits() {
+        return groupCommits.sum();
+    }
+
+    @Override
+    public void addTicket(Ticket ticket) {
+        long start = metrics.startTimer();
+        commit(append(ADD, ticket.getTicketId(), ticket.getTicketPrice()));
+        try {
+            if (!delegate.tryAddTicket(ticket)) {
+                awaitAdd(ticket);
+            }
+        } catch (InterruptedException e) {
+            EventLog.global().interrupted("addTicket");
+            Thread.currentThread().interrupt();
+            commit(append(ADD_ABORTED, ticket.getTicketId(), ticket.getTicketPrice()));
+        } finally {
+            metrics.recordAdd(start);
+        }
+    }
+
+    @Override
+    public Ticket purchaseTicket() {
+        long start = metrics.startTimer();
+        try {
+            Ticket ticket = delegate.tryPurchaseTicket();
+            if (ticket == null) {
+                long waitStart = System.nanoTime();
+                try {
+                    ticket = delegate.purchaseTicket();
+                } finally {
+                    metrics.recordEmptyWait(waitStart);
+                }
+            }
+            return purchased(ticket);
+        } finally {
+            metrics.recordPurchase(start);
+        }
+    }
+
+    @Override
+    public boolean tryAddTicket(Ticket ticket) {
+        commit(append(ADD, ticket.getTicketId(), ticket.getTicketPrice()));
+        if (!delegate.tryAddTicket(ticket)) {
+            commit(append(ADD_ABORTED, ticket.getTicketId(), ticket.getTicketPrice()));
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean tryAddTicket(Ticket ticket, long timeout, TimeUnit unit) throws InterruptedException {
+        commit(append(ADD, ticket.getTicketId(), ticket.getTicketPrice()));
+        boolean added = false;
+        try {
+            added = delegate.tryAddTicket(ticket, timeout, unit);
+        } finally {
+            if (!added) {
+                commit(append(ADD_ABORTED, ticket.getTicketId(), ticket.getTicketPrice()));
+            }
+        }
+        return added;
+    }
+
+    @Override
+    public Ticket tryPurchaseTicket() {
+        return purchased(delegate.tryPurchaseTicket());
+    }
+
+    @Override
+    public Ticket tryPurchaseTicket(long timeout, TimeUnit unit) throws InterruptedException {
+        return purchased(delegate.tryPurchaseTicket(timeout, unit));
+    }
+
+    @Override
+    public int addTickets(Collection<Ticket> tickets) {
+        if (tickets.isEmpty()) {
+            return 0;
+        }
+        List<Ticket> batch = new ArrayList<>(tickets);
+        long position = 0;
+        for (Ticket ticket : batch) {
+            position = append(ADD, ticket.getTicketId(), ticket.getTicketPrice());
+        }
+        commit(position);
+
+        int added = 0;
+        try {
+            for (Ticket ticket : batch) {
+                if (!delegate.tryAddTicket(ticket)) {
+                    awaitAdd(ticket);
+                }
+                added++;
+            }
+        } catch (InterruptedException e) {
+            EventLog.global().interrupted("addTickets");
+            Thread.currentThread().interrupt();
+            for (int i = added; i < batch.size(); i++) {
+                position = append(ADD_ABORTED, batch.get(i).getTicketId(), batch.get(i).getTicketPrice());
+            }
+            commit(position);
+        }
+        return added;
+    }
+
+    @Override
+    public List<Ticket> purchaseTickets(int maxTickets) {
+        List<Ticket> tickets = delegate.purchaseTickets(maxTickets);
+        if (!tickets.isEmpty()) {
+            long position = 0;
+            for (Ticket ticket : tickets) {
+                position = append(PURCHASE, ticket.getTicketId(), ticket.getTicketPrice());
+            }
+            commit(position);
+        }
+        return tickets;
+    }
+
+    // A pool that cannot pick out a seat has none to sell
+    @Override
+    public Ticket purchaseTicketById(int ticketId) {
+        if (!(delegate instanceof SeatSelectable)) {
+            return null;
+        }
+        return purchased(((SeatSelectable) delegate).purchaseTicketById(ticketId));
+    }
+
+    // Journaled first, like an add: replay applies it to the same oldest ticket with that id, and
+    // finds nothing to change if the pool had no such ticket either
+    @Override
+    public boolean updateTicketPrice(int ticketId, double newPrice) {
+        commit(append(PRICE, ticketId, newPrice));
+        return delegate.updateTicketPrice(ticketId, newPrice);
+    }
+
+    // The new prices are only known once the pool has applied them, so these are journaled after
+    @Override
+    public int updateTicketPrices(Predicate<Ticket> filter, DoubleUnaryOperator repricer) {
+        List<Ticket> matched = new ArrayList<>();
+        int updated = delegate.updateTicketPrices(ticket -> {
+            if (!filter.test(ticket)) {
+                return false;
+            }
+            matched.add(ticket);
+            return true;
+        }, repricer);
+        if (!matched.isEmpty()) {
+            long position = 0;
+            for (Ticket ticket : matched) {
+                position = append(PRICE, ticket.getTicketId(), ticket.getTicketPrice());
+            }
+            commit(position);
+        }
+        return updated;
+    }
+
+    @Override
+    public int getAvailableTickets() {
+        return delegate.getAvailableTickets();
+    }
+
+    @Override
+    public int getSoldTickets() {
+        return soldBefore + delegate.getSoldTickets();
+    }
+
+    @Override
+    public int getTotalTickets() {
+        return soldBefore + delegate.getTotalTickets();
+    }
+
+    @Override
+    public int getHeldTickets() {
+        return delegate.getHeldTickets();
+    }
+
+    @Override
+    public PoolStats getStats() {
+        PoolStats stats = delegate.getStats();
+        return new PoolStats(stats.getAvailableTickets(), soldBefore + stats.getSoldTickets(),
+                soldBefore + stats.getTotalTickets(), stats.getHeldTickets());
+    }
+
+    // Latencies include the fsync; contentions are counted on the journal lock
+    @Override
+    public PoolMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Flushes anything still buffered and closes the file; the pool itself stays usable in memory
+    @Override
+    public void close() {
+        metrics.acquire(lock);
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+        commit(appendedPosition());
+        try {
+            channel.truncate(writePosition);
+            channel.force(true);
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // A timed add tells us whether an interrupted add made it in, which addTicket cannot
+    private void awaitAdd(Ticket ticket) throws InterruptedException {
+        long waitStart = System.nanoTime();
+        try {
+            while (!delegate.tryAddTicket(ticket, ADD_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                // keep waiting for space, like a blocking add
+            }
+        } finally {
+            metrics.recordFullWait(waitStart);
+        }
+    }
+
+    private Ticket purchased(Ticket ticket) {
+        if (ticket != null) {
+            commit(append(PURCHASE, ticket.getTicketId(), ticket.getTicketPrice()));
+        }
+        return ticket;
+    }
+
+    // Buffers one record and returns the journal position a commit must reach to cover it
+    private long append(byte type, int ticketId, double price) {
+        metrics.acquire(lock);
+        try {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            if (pending.remaining() < RECORD_SIZE) {
+                ByteBuffer grown = ByteBuffer.allocateDirect(pending.capacity() * 2);
+                pending.flip();
+                grown.put(pending);
+                pending = grown;
+            }
+            encode(pending, crc, type, ticketId, price);
+            appendedPosition += RECORD_SIZE;
+            return appendedPosition;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long appendedPosition() {
+        metrics.acquire(lock);
+        try {
+            return appendedPosition;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Returns once everything up to the position is durable. Whoever finds no flush running
+    // becomes the leader and writes out the whole buffer, including records of threads that are
+    // still waiting; they wake up to find their position already covered.
+    private void commit(long position) {
+        metrics.acquire(lock);
+        try {
+            while (durablePosition < position) {
+                if (failure != null) {
+                    throw new UncheckedIOException("Journal write failed", failure);
+                }
+                if (flushInProgress) {
+                    flushed.awaitUninterruptibly();
+                    continue;
+                }
+                flushInProgress = true;
+                ByteBuffer batch = pending;
+                pending = flushing;
+                flushing = batch;
+                long target = appendedPosition;
+                lock.unlock();
+                IOException error = null;
+                try {
+                    batch.flip();
+                    preallocate(writePosition + batch.remaining());
+                    while (batch.hasRemaining()) {
+                        writePosition += channel.write(batch, writePosition);
+                    }
+                    channel.force(false);
+                } catch (IOException e) {
+                    error = e;
+                } finally {
+                    batch.clear();
+                    metrics.acquire(lock);
+                }
+                flushInProgress = false;
+                if (error != null) {
+                    failure = error;
+                } else {
+                    journaledRecords.add((target - durablePosition) / RECORD_SIZE);
+                    groupCommits.increment();
+                    durablePosition = target;
+                }
+                flushed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Grows the file ahead of the writes in zero-filled chunks. Appending within the allocated
+    // size lets force(false) skip the file-size metadata update it would otherwise need on every
+    // commit; recovery stops at the zeros because they fail the record checksum.
+    private void preallocate(long required) throws IOException {
+        if (required <= allocatedSize) {
+            return;
+        }
+        ByteBuffer zeros = ByteBuffer.allocateDirect(PREALLOCATE_BYTES);
+        long target = required + PREALLOCATE_BYTES;
+        while (allocatedSize < target) {
+            zeros.clear();
+            allocatedSize += channel.write(zeros, allocatedSize);
+        }
+        channel.force(true);
+    }
+
+    private static void encode(ByteBuffer buffer, CRC32C checksum, byte type, int ticketId, double price) {
+        buffer.put(type).putInt(ticketId).putDouble(price);
+        checksum.reset();
+        checksum.update(buffer.duplicate().position(buffer.position() - (RECORD_SIZE - 4)).limit(buffer.position()));
+        buffer.putInt((int) checksum.getValue());
+    }
+
+    /**
+     * Replays a journal into an in-memory inventory in the order it was written. Tickets that share
+     * an id are told apart by price where possible, otherwise the oldest one wins, which is also
+     * the one the id-indexed pools hand out.
+     */
+    private static final class Recovery {
+
+        private final Map<Long, Ticket> inventory = new LinkedHashMap<>();
+        private final Map<Integer, ArrayDeque<Long>> sequencesById = new HashMap<>();
+        private long nextSequence;
+        private int sold;
+        private long tornOffset = -1;
+
+        // Reads the journal a chunk at a time, so its size is bounded by the disk rather than the heap
+        void replay(Path journal) throws IOException {
+            try (FileChannel in = FileChannel.open(journal, StandardOpenOption.READ)) {
+                long size = in.size();
+                ByteBuffer buffer = ByteBuffer.allocate(REPLAY_CHUNK_RECORDS * RECORD_SIZE);
+                long position = fill(in, buffer, 0);
+                if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+                    throw new IOException(journal + " is not a ticket journal");
+                }
+
+                CRC32C checksum = new CRC32C();
+                long valid = HEADER_SIZE;
+                boolean intact = true;
+                while (intact) {
+                    while (buffer.remaining() >= RECORD_SIZE) {
+                        int start = buffer.position();
+                        checksum.reset();
+                        checksum.update(buffer.duplicate().limit(start + RECORD_SIZE - 4));
+                        byte type = buffer.get();
+                        int ticketId = buffer.getInt();
+                        double price = buffer.getDouble();
+                        if (buffer.getInt() != (int) checksum.getValue()) {
+                            buffer.position(start);
+                            intact = false;
+                            break;
+                        }
+                        apply(type, ticketId, price);
+                        valid += RECORD_SIZE;
+                    }
+                    if (intact) {
+                        // Keeps a partial record at the front of the window for the next read
+                        buffer.compact();
+                        long read = fill(in, buffer, position);
+                        if (read == 0) {
+                            break;
+                        }
+                        position += read;
+                    }
+                }
+
+                // Whatever follows is either preallocated zeros or a write torn by a crash; the
+                // compacted file written by open() leaves it behind either way
+                while (true) {
+                    while (buffer.hasRemaining()) {
+                        if (buffer.get() != 0 && tornOffset < 0) {
+                            tornOffset = valid;
+                        }
+                    }
+                    buffer.clear();
+                    long read = fill(in, buffer, position);
+                    if (read == 0) {
+                        break;
+                    }
+                    position += read;
+                }
+                // Compaction replaces the file with what was replayed, so a short read must not get that far
+                if (position < size) {
+                    throw new IOException("Read only " + position + " of " + size + " bytes of " + journal);
+                }
+            }
+        }
+
+        // Reads from the given file offset until the buffer is full or the file ends, then flips it
+        private static long fill(FileChannel in, ByteBuffer buffer, long offset) throws IOException {
+            long read = 0;
+            while (buffer.hasRemaining()) {
+                int count = in.read(buffer, offset + read);
+                if (count < 0) {
+                    break;
+                }
+                read += count;
+            }
+            buffer.flip();
+            return read;
+        }
+
+        private void apply(byte type, int ticketId, double price) {
+            switch (type) {
+                case ADD: {
+                    long sequence = nextSequence++;
+                    inventory.put(sequence, new Ticket(ticketId, price));
+                    sequencesById.computeIfAbsent(ticketId, id -> new ArrayDeque<>()).addLast(sequence);
+                    break;
+                }
+                case PURCHASE:
+                    if (remove(ticketId, price, false)) {
+                        sold++;
+                    }
+                    break;
+                case ADD_ABORTED:
+                    remove(ticketId, price, true);
+                    break;
+                case PRICE: {
+                    ArrayDeque<Long> sequences = sequencesById.get(ticketId);
+                    if (sequences != null) {
+                        inventory.get(sequences.peekFirst()).setTicketPrice(price);
+                    }
+                    break;
+                }
+                case SOLD_BEFORE:
+                    sold += ticketId;
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown journal record type " + type);
+            }
+        }
+
+        // An aborted add undoes the newest matching add; a purchase takes the oldest match
+        private boolean remove(int ticketId, double price, boolean newest) {
+            ArrayDeque<Long> sequences = sequencesById.get(ticketId);
+            if (sequences == null) {
+                return false;
+            }
+            Iterator<Long> iterator = newest ? sequences.descendingIterator() : sequences.iterator();
+            Long match = null;
+            while (iterator.hasNext()) {
+                Long sequence = iterator.next();
+                if (Double.compare(inventory.get(sequence).getTicketPrice(), price) == 0) {
+                    match = sequence;
+                    iterator.remove();
+                    break;
+                }
+            }
+            if (match == null) {
+                match = newest ? sequences.pollLast() : sequences.pollFirst();
+            }
+            if (sequences.isEmpty()) {
+                sequencesById.remove(ticketId);
+            }
+            inventory.remove(match);
+            return true;
+        }
+    }
+}
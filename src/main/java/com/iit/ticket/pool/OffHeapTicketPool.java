@@ -0,0 +1,675 @@
+package com.iit.ticket.pool;
+
+import com.iit.ticket.metrics.PoolMetrics;
+import com.iit.ticket.model.PoolStats;
+import com.iit.ticket.model.Ticket;
+import com.iit.ticket.model.TicketRecord;
+import com.iit.ticket.util.EventLog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Predicate;
+
+/**
+ * Stores tickets as packed (int id, long price in cents) records in a direct ByteBuffer ring
+ * instead of as Ticket objects in list nodes, so a large inventory costs 12 bytes per seat off the
+ * heap and two ints per seat of id index on it. The primitive add/purchase methods never
+ * allocate; the Ticket-based methods convert at the boundary.
+ *
+ * A ticket bought by id leaves a hole in the ring, marked by a price no ticket can have, which the
+ * head and tail step over. The span from head to tail therefore covers holes as well as tickets,
+ * and once it reaches the capacity while seats are still free the tickets are slid back together.
+ *
+ * The same packed records double as the snapshot format: {@link #snapshot} writes the inventory
+ * and counters to a memory-mapped file and {@link #restore} copies them back in one bulk transfer.
+ */
+public class OffHeapTicketPool implements TicketPool, SeatSelectable {
+
+    private static final int RECORD_SIZE = Integer.BYTES + Long.BYTES;
+    private static final int SNAPSHOT_MAGIC = 0x54505331; // "TPS1"
+    private static final int SNAPSHOT_HEADER_SIZE = 24; // magic, records, sold, total
+    private static final int SNAPSHOT_CHUNK_RECORDS = 1 << 16;
+    private static final long HOLE = Long.MIN_VALUE;
+
+    private final ByteBuffer records;
+    private final int maxNumberOfTickets;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition queueEmpty = lock.newCondition();
+    private final Condition queueFull = lock.newCondition();
+    private final TicketCounters counters = new TicketCounters();
+    private final PoolMetrics metrics = new PoolMetrics();
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private final SlotIndex index;
+    private int head;
+    // Tickets in the pool, and records from head to tail including holes; the head is never a hole
+    private int count;
+    private int span;
+    // Number of records the head has ever passed, so snapshot positions survive the ring wrapping
+    private long headSequence;
+    private Snapshot snapshot;
+
+    public OffHeapTicketPool(int maxNumberOfTickets) {
+        if (maxNumberOfTickets <= 0 || maxNumberOfTickets > Integer.MAX_VALUE / RECORD_SIZE) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + Integer.MAX_VALUE / RECORD_SIZE);
+        }
+        this.maxNumberOfTickets = maxNumberOfTickets;
+        this.records = ByteBuffer.allocateDirect(maxNumberOfTickets * RECORD_SIZE).order(ByteOrder.nativeOrder());
+        this.index = new SlotIndex(maxNumberOfTickets);
+    }
+
+    // Builds a pool from a file written by snapshot(), copying the records in a single bulk transfer
+    public static OffHeapTicketPool restore(Path file, int maxNumberOfTickets) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < SNAPSHOT_HEADER_SIZE) {
+                throw new IOException(file + " is not a pool snapshot");
+            }
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            in.order(ByteOrder.nativeOrder());
+            int magic = in.getInt(0);
+            if (magic != SNAPSHOT_MAGIC) {
+                throw new IOException(file + (magic == Integer.reverseBytes(SNAPSHOT_MAGIC)
+                        ? " was written on a machine with a different byte order" : " is not a pool snapshot"));
+            }
+            int saved = in.getInt(4);
+            if (size != SNAPSHOT_HEADER_SIZE + (long) saved * RECORD_SIZE) {
+                throw new IOException(file + " is truncated");
+            }
+            if (saved > maxNumberOfTickets) {
+                throw new IllegalArgumentException("Snapshot holds " + saved + " records, more than the capacity of " + maxNumberOfTickets);
+            }
+
+            OffHeapTicketPool pool = new OffHeapTicketPool(maxNumberOfTickets);
+            pool.records.put(0, in, SNAPSHOT_HEADER_SIZE, saved * RECORD_SIZE);
+            pool.span = saved;
+            for (int slot = 0; slot < saved; slot++) {
+                if (!pool.isHole(slot)) {
+                    pool.index.add(pool.records.getInt(slot * RECORD_SIZE), slot);
+                    pool.count++;
+                }
+            }
+            pool.counters.ticketsAdded((int) in.getLong(16));
+            pool.counters.ticketsSold((int) in.getLong(8));
+            return pool;
+        }
+    }
+
+    // Writes the inventory and counters as of one instant to the given file and returns the number
+    // of tickets saved. Sales only pause to map the file and, afterwards, for short chunk copies;
+    // a producer about to overwrite a slot the copy has not reached yet saves it first.
+    public int snapshot(Path file) throws IOException {
+        snapshotLock.lock();
+        try {
+            Path partial = file.resolveSibling(file.getFileName() + ".tmp");
+            Snapshot current;
+            try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                metrics.acquire(lock);
+                try {
+                    // Holes are saved as they are, so positions in the file match the ring
+                    MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                            SNAPSHOT_HEADER_SIZE + (long) span * RECORD_SIZE);
+                    out.order(ByteOrder.nativeOrder());
+                    PoolStats stats = counters.snapshot();
+                    out.putInt(0, SNAPSHOT_MAGIC)
+                            .putInt(4, span)
+                            .putLong(8, stats.getSoldTickets())
+                            .putLong(16, stats.getTotalTickets());
+                    current = new Snapshot(out, headSequence, span, count);
+                    snapshot = current;
+                } finally {
+                    lock.unlock();
+                }
+
+                try {
+                    while (!copyChunk(current)) {
+                        Thread.yield();
+                    }
+                } finally {
+                    metrics.acquire(lock);
+                    try {
+                        snapshot = null;
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+                current.out.force();
+            }
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return current.tickets;
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    public void addTicket(int ticketId, long priceCents) {
+        long start = metrics.startTimer();
+        try {
+            metrics.acquire(lock);
+            try {
+                if (count == maxNumberOfTickets) {
+                    long waitStart = System.nanoTime();
+                    try {
+                        while (count == maxNumberOfTickets) {
+                            queueFull.await();
+                        }
+                    } finally {
+                        metrics.recordFullWait(waitStart);
+                    }
+                }
+                enqueue(ticketId, priceCents);
+                queueEmpty.signal();
+            } catch (InterruptedException e) {
+                EventLog.global().interrupted("addTicket");
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            metrics.recordAdd(start);
+        }
+    }
+
+    public boolean tryAddTicket(int ticketId, long priceCents) {
+        metrics.acquire(lock);
+        try {
+            if (count == maxNumberOfTickets) {
+                return false;
+            }
+            enqueue(ticketId, priceCents);
+            queueEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean purchaseTicket(TicketRecord record) {
+        long start = metrics.startTimer();
+        try {
+            metrics.acquire(lock);
+            try {
+                if (count == 0) {
+                    long waitStart = System.nanoTime();
+                    try {
+                        while (count == 0) {
+                            queueEmpty.await();
+                        }
+                    } finally {
+                        metrics.recordEmptyWait(waitStart);
+                    }
+                }
+                dequeueInto(record);
+                queueFull.signal();
+                return true;
+            } catch (InterruptedException e) {
+                EventLog.global().interrupted("purchaseTicket");
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+            return false;
+        } finally {
+            metrics.recordPurchase(start);
+        }
+    }
+
+    public boolean tryPurchaseTicket(TicketRecord record) {
+        metrics.acquire(lock);
+        try {
+            if (count == 0) {
+                return false;
+            }
+            dequeueInto(record);
+            queueFull.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void addTicket(Ticket ticket) {
+        addTicket(ticket.getTicketId(), toCents(ticket.getTicketPrice()));
+    }
+
+    @Override
+    public Ticket purchaseTicket() {
+        long start = metrics.startTimer();
+        try {
+            metrics.acquire(lock);
+            try {
+                if (count == 0) {
+                    long waitStart = System.nanoTime();
+                    try {
+                        while (count == 0) {
+                            queueEmpty.await();
+                        }
+                    } finally {
+                        metrics.recordEmptyWait(waitStart);
+                    }
+                }
+                Ticket ticket = dequeue();
+                queueFull.signal();
+                return ticket;
+            } catch (InterruptedException e) {
+                EventLog.global().interrupted("purchaseTicket");
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+            return null;
+        } finally {
+            metrics.recordPurchase(start);
+        }
+    }
+
+    @Override
+    public boolean tryAddTicket(Ticket ticket) {
+        return tryAddTicket(ticket.getTicketId(), toCents(ticket.getTicketPrice()));
+    }
+
+    @Override
+    public boolean tryAddTicket(Ticket ticket, long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count == maxNumberOfTickets) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = queueFull.awaitNanos(nanos);
+            }
+            enqueue(ticket.getTicketId(), toCents(ticket.getTicketPrice()));
+            queueEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Ticket tryPurchaseTicket() {
+        metrics.acquire(lock);
+        try {
+            if (count == 0) {
+                return null;
+            }
+            Ticket ticket = dequeue();
+            queueFull.signal();
+            return ticket;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Ticket tryPurchaseTicket(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = queueEmpty.awaitNanos(nanos);
+            }
+            Ticket ticket = dequeue();
+            queueFull.signal();
+            return ticket;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int addTickets(Collection<Ticket> tickets) {
+        int added = 0;
+        Iterator<Ticket> iterator = tickets.iterator();
+        metrics.acquire(lock);
+        try {
+            while (iterator.hasNext()) {
+                if (count == maxNumberOfTickets) {
+                    long waitStart = System.nanoTime();
+                    try {
+                        while (count == maxNumberOfTickets) {
+                            queueFull.await();
+                        }
+                    } finally {
+                        metrics.recordFullWait(waitStart);
+                    }
+                }
+                while (iterator.hasNext() && count < maxNumberOfTickets) {
+                    Ticket ticket = iterator.next();
+                    enqueue(ticket.getTicketId(), toCents(ticket.getTicketPrice()));
+                    added++;
+                }
+                queueEmpty.signalAll();
+            }
+        } catch (InterruptedException e) {
+            EventLog.global().interrupted("addTickets");
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+        return added;
+    }
+
+    @Override
+    public List<Ticket> purchaseTickets(int maxTickets) {
+        if (maxTickets <= 0) {
+            return Collections.emptyList();
+        }
+        metrics.acquire(lock);
+        try {
+            if (count == 0) {
+                long waitStart = System.nanoTime();
+                try {
+                    while (count == 0) {
+                        queueEmpty.await();
+                    }
+                } finally {
+                    metrics.recordEmptyWait(waitStart);
+                }
+            }
+            List<Ticket> tickets = new ArrayList<>(Math.min(maxTickets, count));
+            while (tickets.size() < maxTickets && count > 0) {
+                tickets.add(dequeue());
+            }
+            queueFull.signalAll();
+            return tickets;
+        } catch (InterruptedException e) {
+            EventLog.global().interrupted("purchaseTickets");
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Ticket purchaseTicketById(int ticketId) {
+        metrics.acquire(lock);
+        try {
+            int slot = index.first(ticketId);
+            if (slot < 0) {
+                return null;
+            }
+            int offset = slot * RECORD_SIZE;
+            Ticket ticket = new Ticket(ticketId, records.getLong(offset + Integer.BYTES) / 100.0);
+            if (slot == head) {
+                advanceHead();
+            } else {
+                removeAt(slot);
+            }
+            queueFull.signal();
+            return ticket;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Rewrites the packed price where it lies, found through the id index
+    @Override
+    public boolean updateTicketPrice(int ticketId, double newPrice) {
+        metrics.acquire(lock);
+        try {
+            int slot = index.first(ticketId);
+            if (slot < 0) {
+                return false;
+            }
+            overwritePrice(positionOf(slot), toCents(newPrice));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Like the other Ticket-based methods this converts at the boundary, one Ticket per record
+    @Override
+    public int updateTicketPrices(Predicate<Ticket> filter, DoubleUnaryOperator repricer) {
+        metrics.acquire(lock);
+        try {
+            int updated = 0;
+            for (int i = 0; i < span; i++) {
+                int offset = offsetOf(i);
+                if (records.getLong(offset + Integer.BYTES) == HOLE) {
+                    continue;
+                }
+                Ticket ticket = new Ticket(records.getInt(offset), records.getLong(offset + Integer.BYTES) / 100.0);
+                if (filter.test(ticket)) {
+                    overwritePrice(i, toCents(ticket.updateTicketPrice(repricer)));
+                    updated++;
+                }
+            }
+            return updated;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getAvailableTickets() {
+        return counters.getAvailableTickets();
+    }
+
+    @Override
+    public int getSoldTickets() {
+        return counters.getSoldTickets();
+    }
+
+    @Override
+    public int getTotalTickets() {
+        return counters.getTotalTickets();
+    }
+
+    @Override
+    public PoolStats getStats() {
+        return counters.snapshot();
+    }
+
+    @Override
+    public PoolMetrics getMetrics() {
+        return metrics;
+    }
+
+    private void enqueue(int ticketId, long priceCents) {
+        if (span == maxNumberOfTickets) {
+            compact();
+        }
+        int tail = head + span;
+        if (tail >= maxNumberOfTickets) {
+            tail -= maxNumberOfTickets;
+        }
+        if (snapshot != null) {
+            snapshot.preserve(headSequence + span - maxNumberOfTickets);
+        }
+        int offset = tail * RECORD_SIZE;
+        records.putInt(offset, ticketId);
+        records.putLong(offset + Integer.BYTES, priceCents);
+        index.add(ticketId, tail);
+        count++;
+        span++;
+        counters.ticketsAdded(1);
+    }
+
+    private Ticket dequeue() {
+        int offset = advanceHead();
+        return new Ticket(records.getInt(offset), records.getLong(offset + Integer.BYTES) / 100.0);
+    }
+
+    private void dequeueInto(TicketRecord record) {
+        int offset = advanceHead();
+        record.set(records.getInt(offset), records.getLong(offset + Integer.BYTES));
+    }
+
+    // The returned record stays intact until the next enqueue, as trimming only reads prices
+    private int advanceHead() {
+        int offset = head * RECORD_SIZE;
+        index.remove(head);
+        stepHead();
+        count--;
+        counters.ticketsSold(1);
+        trimHoles();
+        return offset;
+    }
+
+    private void stepHead() {
+        head = head + 1 == maxNumberOfTickets ? 0 : head + 1;
+        headSequence++;
+        span--;
+    }
+
+    // Sells the ticket in a slot behind the head by turning it into a hole
+    private void removeAt(int slot) {
+        index.remove(slot);
+        if (snapshot != null) {
+            snapshot.preserve(headSequence + positionOf(slot));
+        }
+        records.putLong(slot * RECORD_SIZE + Integer.BYTES, HOLE);
+        count--;
+        counters.ticketsSold(1);
+        trimHoles();
+    }
+
+    // Keeps both ends of the span on a ticket. Holes were saved by any snapshot before they were
+    // made, so stepping over them needs no preserving.
+    private void trimHoles() {
+        while (span > 0 && isHole(head)) {
+            stepHead();
+        }
+        while (span > 0 && records.getLong(offsetOf(span - 1) + Integer.BYTES) == HOLE) {
+            span--;
+        }
+    }
+
+    // Slides the tickets toward the head over the holes between them, in order, and re-indexes
+    // them. Any snapshot in progress is finished first, since this rewrites slots it may not have
+    // copied yet.
+    private void compact() {
+        if (snapshot != null) {
+            snapshot.preserve(headSequence + span - 1);
+        }
+        index.clear();
+        int kept = 0;
+        for (int i = 0; i < span; i++) {
+            int from = offsetOf(i);
+            long priceCents = records.getLong(from + Integer.BYTES);
+            if (priceCents == HOLE) {
+                continue;
+            }
+            int ticketId = records.getInt(from);
+            int to = offsetOf(kept);
+            if (to != from) {
+                records.putInt(to, ticketId);
+                records.putLong(to + Integer.BYTES, priceCents);
+            }
+            index.add(ticketId, to / RECORD_SIZE);
+            kept++;
+        }
+        span = kept;
+    }
+
+    private boolean isHole(int slot) {
+        return records.getLong(slot * RECORD_SIZE + Integer.BYTES) == HOLE;
+    }
+
+    // Byte offset of the i-th queued ticket
+    private int offsetOf(int i) {
+        int slot = head + i;
+        if (slot >= maxNumberOfTickets) {
+            slot -= maxNumberOfTickets;
+        }
+        return slot * RECORD_SIZE;
+    }
+
+    // Inverse of offsetOf: how far behind the head a slot is
+    private int positionOf(int slot) {
+        int i = slot - head;
+        return i < 0 ? i + maxNumberOfTickets : i;
+    }
+
+    private void overwritePrice(int i, long priceCents) {
+        if (snapshot != null) {
+            snapshot.preserve(headSequence + i);
+        }
+        records.putLong(offsetOf(i) + Integer.BYTES, priceCents);
+    }
+
+    // Copies the next chunk of an in-progress snapshot; returns true once it is complete
+    private boolean copyChunk(Snapshot current) {
+        metrics.acquire(lock);
+        try {
+            long remaining = current.end - current.copiedUpTo;
+            if (remaining > 0) {
+                current.copy((int) Math.min(remaining, SNAPSHOT_CHUNK_RECORDS));
+            }
+            return current.copiedUpTo == current.end;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static long toCents(double price) {
+        return Math.round(price * 100);
+    }
+
+    /**
+     * Progress of a snapshot, guarded by the pool lock. Tickets are identified by their absolute
+     * position in the queue: the snapshot covers [start, end), everything before copiedUpTo is
+     * already in the file, and everything after it is still untouched in the ring.
+     */
+    private final class Snapshot {
+
+        private final MappedByteBuffer out;
+        private final long start;
+        private final long end;
+        private final int tickets;
+        private long copiedUpTo;
+
+        Snapshot(MappedByteBuffer out, long start, int records, int tickets) {
+            this.out = out;
+            this.start = start;
+            this.end = start + records;
+            this.tickets = tickets;
+            this.copiedUpTo = start;
+        }
+
+        // Called before the slot of the given position is overwritten: by a producer reusing it,
+        // which always hits the next position the copy would take, or by an in-place price update,
+        // which may pull the copy forward further.
+        void preserve(long position) {
+            if (position >= copiedUpTo && position < end) {
+                copy((int) (position - copiedUpTo + 1));
+            }
+        }
+
+        void copy(int records) {
+            int slot = (int) (copiedUpTo % maxNumberOfTickets);
+            int fileOffset = SNAPSHOT_HEADER_SIZE + (int) (copiedUpTo - start) * RECORD_SIZE;
+            int firstPart = Math.min(records, maxNumberOfTickets - slot);
+            out.put(fileOffset, OffHeapTicketPool.this.records, slot * RECORD_SIZE, firstPart * RECORD_SIZE);
+            if (firstPart < records) {
+                out.put(fileOffset + firstPart * RECORD_SIZE, OffHeapTicketPool.this.records, 0,
+                        (records - firstPart) * RECORD_SIZE);
+            }
+            copiedUpTo += records;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.iit.ticket.pool;
+
+import java.util.function.IntFunction;
+
+/**
+ * The pool implementations by the short names used in benchmarks and scenario files, so every
+ * tool that sweeps across pools builds them the same way.
+ */
+public enum PoolType {
+
+    SYNCHRONIZED("Synchronized", SynchronizedTicketPool::new),
+    REENTRANT_LOCK("ReentrantLock", ReentrantLockTicketPool::new),
+    BLOCKING_QUEUE("BlockingQueue", BlockingQueueTicketPool::new),
+    RING_BUFFER("RingBuffer", RingBufferTicketPool::new),
+    SHARDED("Sharded", ShardedTicketPool::new),
+    OFF_HEAP("OffHeap", OffHeapTicketPool::new),
+    TWO_LOCK("TwoLock", TwoLockTicketPool::new),
+    PRICE_ORDERED("PriceOrdered", PriceOrderedTicketPool::new),
+    STAMPED_LOCK("StampedLock", StampedLockTicketPool::new);
+
+    private final String label;
+    private final IntFunction<TicketPool> factory;
+
+    PoolType(String label, IntFunction<TicketPool> factory) {
+        this.label = label;
+        this.factory = factory;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public TicketPool create(int capacity) {
+        return factory.apply(capacity);
+    }
+
+    public static PoolType fromLabel(String label) {
+        for (PoolType type : values()) {
+            if (type.label.equalsIgnoreCase(label)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown pool type: " + label);
+    }
+}
@@ -0,0 +1,354 @@
+package com.iit.ticket.pool;
+
+import com.iit.ticket.metrics.PoolMetrics;
+import com.iit.ticket.model.PoolStats;
+import com.iit.ticket.model.Ticket;
+import com.iit.ticket.util.EventLog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Predicate;
+
+/**
+ * Keeps the inventory sorted by price in a concurrent skip list, so buyers can take the cheapest,
+ * the most expensive, or the best ticket within a budget in O(log n) without draining the pool.
+ * Tickets with the same price leave in arrival order. Capacity and blocking are handled by two
+ * semaphores: a buyer must hold an "available" permit before removing anything, which guarantees
+ * the skip list still has a ticket for every permit holder.
+ *
+ * A second skip list orders the same tickets by id and arrival, mapping each to the entry that
+ * currently stands for it in the price order, so a specific ticket is also found in O(log n).
+ * Removing an entry from the price order is what claims it; the id order is tidied up afterwards.
+ */
+public class PriceOrderedTicketPool implements TicketPool, SeatSelectable {
+
+    private final ConcurrentSkipListSet<Entry> tickets = new ConcurrentSkipListSet<>();
+    private final ConcurrentSkipListMap<Entry, Entry> byId = new ConcurrentSkipListMap<>(Entry.BY_ID);
+    private final Semaphore freeSlots;
+    private final Semaphore availableTickets = new Semaphore(0);
+    private final AtomicLong sequence = new AtomicLong();
+    private final TicketCounters counters = new TicketCounters();
+    private final PoolMetrics metrics = new PoolMetrics();
+
+    public PriceOrderedTicketPool(int maxNumberOfTickets) {
+        if (maxNumberOfTickets <= 0) {
+            throw new IllegalArgumentException("Capacity must be greater than 0");
+        }
+        this.freeSlots = new Semaphore(maxNumberOfTickets);
+    }
+
+    @Override
+    public void addTicket(Ticket ticket) {
+        long start = metrics.startTimer();
+        try {
+            acquireSlot();
+            insert(ticket);
+        } catch (InterruptedException e) {
+            EventLog.global().interrupted("addTicket");
+            Thread.currentThread().interrupt();
+        } finally {
+            metrics.recordAdd(start);
+        }
+    }
+
+    @Override
+    public Ticket purchaseTicket() {
+        long start = metrics.startTimer();
+        try {
+            acquireTicket();
+            return take(tickets.pollFirst());
+        } catch (InterruptedException e) {
+            EventLog.global().interrupted("purchaseTicket");
+            Thread.currentThread().interrupt();
+        } finally {
+            metrics.recordPurchase(start);
+        }
+        return null;
+    }
+
+    @Override
+    public boolean tryAddTicket(Ticket ticket) {
+        if (!freeSlots.tryAcquire()) {
+            return false;
+        }
+        insert(ticket);
+        return true;
+    }
+
+    @Override
+    public boolean tryAddTicket(Ticket ticket, long timeout, TimeUnit unit) throws InterruptedException {
+        if (!freeSlots.tryAcquire(timeout, unit)) {
+            return false;
+        }
+        insert(ticket);
+        return true;
+    }
+
+    @Override
+    public Ticket tryPurchaseTicket() {
+        return purchaseCheapestTicket();
+    }
+
+    @Override
+    public Ticket tryPurchaseTicket(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!availableTickets.tryAcquire(timeout, unit)) {
+            return null;
+        }
+        return take(tickets.pollFirst());
+    }
+
+    @Override
+    public int addTickets(Collection<Ticket> tickets) {
+        int added = 0;
+        for (Ticket ticket : tickets) {
+            try {
+                acquireSlot();
+            } catch (InterruptedException e) {
+                EventLog.global().interrupted("addTickets");
+                Thread.currentThread().interrupt();
+                break;
+            }
+            insert(ticket);
+            added++;
+        }
+        return added;
+    }
+
+    @Override
+    public List<Ticket> purchaseTickets(int maxTickets) {
+        if (maxTickets <= 0) {
+            return Collections.emptyList();
+        }
+        try {
+            acquireTicket();
+        } catch (InterruptedException e) {
+            EventLog.global().interrupted("purchaseTickets");
+            Thread.currentThread().interrupt();
+            return Collections.emptyList();
+        }
+        int permits = 1;
+        while (permits < maxTickets && availableTickets.tryAcquire()) {
+            permits++;
+        }
+        List<Ticket> purchased = new ArrayList<>(permits);
+        for (int i = 0; i < permits; i++) {
+            purchased.add(take(tickets.pollFirst()));
+        }
+        return purchased;
+    }
+
+    public Ticket purchaseCheapestTicket() {
+        if (!availableTickets.tryAcquire()) {
+            return null;
+        }
+        return take(tickets.pollFirst());
+    }
+
+    public Ticket purchaseMostExpensiveTicket() {
+        if (!availableTickets.tryAcquire()) {
+            return null;
+        }
+        return take(tickets.pollLast());
+    }
+
+    // Buys the most expensive ticket that still fits the budget, or returns null if none does
+    public Ticket purchaseBestTicketUnder(double budget) {
+        if (!availableTickets.tryAcquire()) {
+            return null;
+        }
+        Entry limit = new Entry(budget, Long.MAX_VALUE, 0, null);
+        while (true) {
+            Entry best = tickets.floor(limit);
+            if (best == null) {
+                availableTickets.release();
+                return null;
+            }
+            // Another buyer may have taken it between floor() and remove(); look again
+            if (tickets.remove(best)) {
+                return take(best);
+            }
+        }
+    }
+
+    @Override
+    public Ticket purchaseTicketById(int ticketId) {
+        if (!availableTickets.tryAcquire()) {
+            return null;
+        }
+        Entry key = new Entry(0, Long.MIN_VALUE, ticketId, null);
+        while (true) {
+            Map.Entry<Entry, Entry> found = byId.ceilingEntry(key);
+            if (found == null || found.getKey().ticketId != ticketId) {
+                availableTickets.release();
+                return null;
+            }
+            Entry entry = found.getValue();
+            if (tickets.remove(entry)) {
+                return take(entry);
+            }
+            // Another buyer got it and is about to unindex it, or it is moving to a new price;
+            // either way its index entry changes shortly
+            key = found.getKey();
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public boolean updateTicketPrice(int ticketId, double newPrice) {
+        Entry key = new Entry(0, Long.MIN_VALUE, ticketId, null);
+        while (true) {
+            Map.Entry<Entry, Entry> found = byId.ceilingEntry(key);
+            if (found == null || found.getKey().ticketId != ticketId) {
+                return false;
+            }
+            if (reprice(found.getValue(), price -> newPrice)) {
+                return true;
+            }
+            // Bought or repriced by someone else since the lookup; look at the same ticket again
+            key = found.getKey();
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public int updateTicketPrices(Predicate<Ticket> filter, DoubleUnaryOperator repricer) {
+        // Collect first: a repriced entry moves and could otherwise be visited twice
+        List<Entry> matches = new ArrayList<>();
+        for (Entry entry : tickets) {
+            if (filter.test(entry.ticket)) {
+                matches.add(entry);
+            }
+        }
+        int updated = 0;
+        for (Entry entry : matches) {
+            if (reprice(entry, repricer)) {
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    @Override
+    public int getAvailableTickets() {
+        return counters.getAvailableTickets();
+    }
+
+    @Override
+    public int getSoldTickets() {
+        return counters.getSoldTickets();
+    }
+
+    @Override
+    public int getTotalTickets() {
+        return counters.getTotalTickets();
+    }
+
+    @Override
+    public PoolStats getStats() {
+        return counters.snapshot();
+    }
+
+    @Override
+    public PoolMetrics getMetrics() {
+        return metrics;
+    }
+
+    // The skip list takes no locks, so the only waits worth timing are on the two semaphores
+    private void acquireSlot() throws InterruptedException {
+        if (!freeSlots.tryAcquire()) {
+            long waitStart = System.nanoTime();
+            try {
+                freeSlots.acquire();
+            } finally {
+                metrics.recordFullWait(waitStart);
+            }
+        }
+    }
+
+    private void acquireTicket() throws InterruptedException {
+        if (!availableTickets.tryAcquire()) {
+            long waitStart = System.nanoTime();
+            try {
+                availableTickets.acquire();
+            } finally {
+                metrics.recordEmptyWait(waitStart);
+            }
+        }
+    }
+
+    private void insert(Ticket ticket) {
+        counters.ticketsAdded(1);
+        Entry entry = new Entry(ticket.getTicketPrice(), sequence.getAndIncrement(), ticket.getTicketId(), ticket);
+        byId.put(entry, entry);
+        tickets.add(entry);
+        availableTickets.release();
+    }
+
+    // A new price means a new place in the ordering, so the entry is taken out and put back under
+    // the same sequence. Holding an "available" permit meanwhile keeps the invariant that every
+    // buyer with a permit finds a ticket. Returns false if a buyer got the entry first.
+    private boolean reprice(Entry entry, DoubleUnaryOperator repricer) {
+        while (!availableTickets.tryAcquire()) {
+            // Every permit is with a buyer about to take a ticket; wait for one to be left over
+            if (!tickets.contains(entry)) {
+                return false;
+            }
+            Thread.onSpinWait();
+        }
+        try {
+            if (!tickets.remove(entry)) {
+                return false;
+            }
+            double price = entry.ticket.updateTicketPrice(repricer);
+            Entry repriced = new Entry(price, entry.sequence, entry.ticketId, entry.ticket);
+            byId.replace(entry, repriced);
+            tickets.add(repriced);
+            return true;
+        } finally {
+            availableTickets.release();
+        }
+    }
+
+    private Ticket take(Entry entry) {
+        byId.remove(entry);
+        counters.ticketsSold(1);
+        freeSlots.release();
+        return entry.ticket;
+    }
+
+    // The price is copied on insert so a ticket repriced while pooled cannot corrupt the ordering
+    private static final class Entry implements Comparable<Entry> {
+
+        // Oldest first for each id; the sequence survives a reprice, so both entries map alike
+        static final Comparator<Entry> BY_ID = Comparator.<Entry>comparingInt(entry -> entry.ticketId)
+                .thenComparingLong(entry -> entry.sequence);
+
+        private final double price;
+        private final long sequence;
+        private final int ticketId;
+        private final Ticket ticket;
+
+        Entry(double price, long sequence, int ticketId, Ticket ticket) {
+            this.price = price;
+            this.sequence = sequence;
+            this.ticketId = ticketId;
+            this.ticket = ticket;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byPrice = Double.compare(price, other.price);
+            return byPrice != 0 ? byPrice : Long.compare(sequence, other.sequence);
+        }
+    }
+}
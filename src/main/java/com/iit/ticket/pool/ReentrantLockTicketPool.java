@@ -1,21 +1,30 @@
 package com.iit.ticket.pool;
 
+import com.iit.ticket.metrics.PoolMetrics;
+import com.iit.ticket.model.PoolStats;
 import com.iit.ticket.model.Ticket;
+import com.iit.ticket.util.EventLog;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Predicate;
 
-public class ReentrantLockTicketPool implements TicketPool {
+public class ReentrantLockTicketPool implements TicketPool, SeatSelectable {
 
-    private final Queue<Ticket> queue = new LinkedList<>();
+    private final IndexedTicketQueue queue = new IndexedTicketQueue();
     private final ReentrantLock lock = new ReentrantLock();
     Condition queueEmpty = lock.newCondition();
     Condition queueFull = lock.newCondition();
     private int maxNumberOfTickets = 0;
-    private int soldTickets;
-    private int totalTickets;
+    private final TicketCounters counters = new TicketCounters();
+    private final PoolMetrics metrics = new PoolMetrics();
 
     public ReentrantLockTicketPool(int maxNumberOfTickets) {
         this.maxNumberOfTickets = maxNumberOfTickets;
@@ -23,71 +32,266 @@ public class ReentrantLockTicketPool implements TicketPool {
 
     @Override
     public void addTicket(Ticket ticket) {
+        long start = metrics.startTimer();
         try {
-            lock.lock();
-            while (queue.size() == maxNumberOfTickets) {
-                queueFull.await();
+            metrics.acquire(lock);
+            if (queue.size() == maxNumberOfTickets) {
+                long waitStart = System.nanoTime();
+                try {
+                    while (queue.size() == maxNumberOfTickets) {
+                        queueFull.await();
+                    }
+                } finally {
+                    metrics.recordFullWait(waitStart);
+                }
             }
             boolean offer = queue.offer(ticket);
             if (offer) {
-                totalTickets++;
+                counters.ticketsAdded(1);
                 queueEmpty.signalAll();
             }
         } catch (InterruptedException e) {
-            System.out.println("interrupted (addTicket)");
+            EventLog.global().interrupted("addTicket");
+            Thread.currentThread().interrupt();
         } finally {
             lock.unlock();
+            metrics.recordAdd(start);
         }
     }
 
     @Override
     public Ticket purchaseTicket() {
+        long start = metrics.startTimer();
         try {
-            lock.lock();
-            while (queue.isEmpty()) {
-                queueEmpty.await();
+            metrics.acquire(lock);
+            if (queue.isEmpty()) {
+                long waitStart = System.nanoTime();
+                try {
+                    while (queue.isEmpty()) {
+                        queueEmpty.await();
+                    }
+                } finally {
+                    metrics.recordEmptyWait(waitStart);
+                }
             }
             Ticket ticket = queue.poll();
             if (ticket != null) {
-                soldTickets++;
+                counters.ticketsSold(1);
                 queueFull.signalAll();
             }
             return ticket;
         } catch (InterruptedException e) {
-            System.out.println("interrupted (purchaseTicket)");
+            EventLog.global().interrupted("purchaseTicket");
+            Thread.currentThread().interrupt();
         } finally {
             lock.unlock();
+            metrics.recordPurchase(start);
         }
         return null;
     }
 
     @Override
-    public int getAvailableTickets() {
+    public boolean tryAddTicket(Ticket ticket) {
         try {
-            lock.lock();
-            return queue.size();
+            metrics.acquire(lock);
+            if (queue.size() == maxNumberOfTickets) {
+                return false;
+            }
+            queue.offer(ticket);
+            counters.ticketsAdded(1);
+            queueEmpty.signalAll();
+            return true;
         } finally {
             lock.unlock();
         }
     }
 
     @Override
-    public int getSoldTickets() {
+    public boolean tryAddTicket(Ticket ticket, long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
         try {
-            lock.lock();
-            return soldTickets;
+            while (queue.size() == maxNumberOfTickets) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = queueFull.awaitNanos(nanos);
+            }
+            queue.offer(ticket);
+            counters.ticketsAdded(1);
+            queueEmpty.signalAll();
+            return true;
         } finally {
             lock.unlock();
         }
     }
 
     @Override
-    public int getTotalTickets() {
+    public Ticket tryPurchaseTicket() {
         try {
-            lock.lock();
-            return totalTickets;
+            metrics.acquire(lock);
+            Ticket ticket = queue.poll();
+            if (ticket != null) {
+                counters.ticketsSold(1);
+                queueFull.signalAll();
+            }
+            return ticket;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Ticket tryPurchaseTicket(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (queue.isEmpty()) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = queueEmpty.awaitNanos(nanos);
+            }
+            Ticket ticket = queue.poll();
+            counters.ticketsSold(1);
+            queueFull.signalAll();
+            return ticket;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int addTickets(Collection<Ticket> tickets) {
+        int added = 0;
+        Iterator<Ticket> iterator = tickets.iterator();
+        try {
+            metrics.acquire(lock);
+            while (iterator.hasNext()) {
+                if (queue.size() == maxNumberOfTickets) {
+                    long waitStart = System.nanoTime();
+                    try {
+                        while (queue.size() == maxNumberOfTickets) {
+                            queueFull.await();
+                        }
+                    } finally {
+                        metrics.recordFullWait(waitStart);
+                    }
+                }
+                int batch = 0;
+                while (iterator.hasNext() && queue.size() < maxNumberOfTickets) {
+                    queue.offer(iterator.next());
+                    batch++;
+                }
+                added += batch;
+                counters.ticketsAdded(batch);
+                queueEmpty.signalAll();
+            }
+        } catch (InterruptedException e) {
+            EventLog.global().interrupted("addTickets");
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+        return added;
+    }
+
+    @Override
+    public List<Ticket> purchaseTickets(int maxTickets) {
+        if (maxTickets <= 0) {
+            return Collections.emptyList();
+        }
+        try {
+            metrics.acquire(lock);
+            if (queue.isEmpty()) {
+                long waitStart = System.nanoTime();
+                try {
+                    while (queue.isEmpty()) {
+                        queueEmpty.await();
+                    }
+                } finally {
+                    metrics.recordEmptyWait(waitStart);
+                }
+            }
+            List<Ticket> tickets = new ArrayList<>(Math.min(maxTickets, queue.size()));
+            while (tickets.size() < maxTickets && !queue.isEmpty()) {
+                tickets.add(queue.poll());
+            }
+            counters.ticketsSold(tickets.size());
+            queueFull.signalAll();
+            return tickets;
+        } catch (InterruptedException e) {
+            EventLog.global().interrupted("purchaseTickets");
+            Thread.currentThread().interrupt();
         } finally {
             lock.unlock();
         }
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Ticket purchaseTicketById(int ticketId) {
+        try {
+            metrics.acquire(lock);
+            Ticket ticket = queue.remove(ticketId);
+            if (ticket != null) {
+                counters.ticketsSold(1);
+                queueFull.signalAll();
+            }
+            return ticket;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The index finds the seat in O(1), so the lock is held no longer than for a purchase
+    @Override
+    public boolean updateTicketPrice(int ticketId, double newPrice) {
+        metrics.acquire(lock);
+        try {
+            Ticket ticket = queue.peek(ticketId);
+            if (ticket == null) {
+                return false;
+            }
+            ticket.setTicketPrice(newPrice);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int updateTicketPrices(Predicate<Ticket> filter, DoubleUnaryOperator repricer) {
+        metrics.acquire(lock);
+        try {
+            return queue.updatePrices(filter, repricer);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getAvailableTickets() {
+        return counters.getAvailableTickets();
+    }
+
+    @Override
+    public int getSoldTickets() {
+        return counters.getSoldTickets();
+    }
+
+    @Override
+    public int getTotalTickets() {
+        return counters.getTotalTickets();
+    }
+
+    @Override
+    public PoolStats getStats() {
+        return counters.snapshot();
+    }
+
+    @Override
+    public PoolMetrics getMetrics() {
+        return metrics;
     }
 }
@@ -0,0 +1,394 @@
+package com.iit.ticket.pool;
+
+import com.iit.ticket.metrics.PoolMetrics;
+import com.iit.ticket.model.PoolStats;
+import com.iit.ticket.model.Ticket;
+import com.iit.ticket.util.EventLog;
+import com.iit.ticket.util.TimingWheel;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Predicate;
+
+/**
+ * Adds two-phase checkout to any pool. A reserved ticket is taken out of the underlying pool and
+ * held for a time-to-live; the buyer then confirms it (a final sale) or releases it, and holds
+ * that are neither confirmed nor released in time are returned by a shared timing wheel. Each
+ * hold settles exactly once: confirm, release and expiry race on a single CAS.
+ *
+ * A held ticket keeps its seat: adds go through a semaphore sized to the pool's capacity whose
+ * permits are only returned by sales and confirmations, so producers can never fill the slot of a
+ * held ticket and a returned ticket always fits back in.
+ *
+ * The underlying pool counts a held ticket as sold and a returned ticket as newly added, so the
+ * reported figures subtract both back out: sold = sold - held - returned, and
+ * total = total - returned.
+ */
+public class ReservableTicketPool implements TicketPool, SeatSelectable {
+
+    private static final long DEFAULT_TICK_MILLIS = 10;
+    private static final long RETURN_RETRY_MILLIS = 50;
+    private static final int SNAPSHOT_ATTEMPTS = 8;
+
+    private final TicketPool delegate;
+    private final TimingWheel timingWheel;
+    private final boolean ownsTimingWheel;
+    private final Semaphore freeSlots;
+    private final LongAdder heldTickets = new LongAdder();
+    private final LongAdder returnedTickets = new LongAdder();
+    // Lets getStats() detect a hold or return that changed the underlying pool mid-read
+    private final AtomicInteger updatesInFlight = new AtomicInteger();
+    private final AtomicLong updateVersion = new AtomicLong();
+    private final PoolMetrics metrics = new PoolMetrics();
+
+    public ReservableTicketPool(TicketPool delegate, int maxNumberOfTickets) {
+        this(delegate, maxNumberOfTickets, new TimingWheel(DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS), true);
+    }
+
+    public ReservableTicketPool(TicketPool delegate, int maxNumberOfTickets, TimingWheel timingWheel) {
+        this(delegate, maxNumberOfTickets, timingWheel, false);
+    }
+
+    private ReservableTicketPool(TicketPool delegate, int maxNumberOfTickets, TimingWheel timingWheel,
+                                 boolean ownsTimingWheel) {
+        if (maxNumberOfTickets <= 0) {
+            throw new IllegalArgumentException("Capacity must be greater than 0");
+        }
+        this.delegate = delegate;
+        this.timingWheel = timingWheel;
+        this.ownsTimingWheel = ownsTimingWheel;
+        // Tickets already in the pool occupy their slots too
+        this.freeSlots = new Semaphore(Math.max(0, maxNumberOfTickets - delegate.getAvailableTickets()));
+    }
+
+    // Holds the next available ticket, or returns null without waiting if the pool is empty
+    public Hold reserveTicket(long ttl, TimeUnit unit) {
+        updatesInFlight.incrementAndGet();
+        Ticket ticket;
+        try {
+            ticket = delegate.tryPurchaseTicket();
+            if (ticket != null) {
+                heldTickets.increment();
+            }
+        } finally {
+            updateVersion.incrementAndGet();
+            updatesInFlight.decrementAndGet();
+        }
+        return ticket == null ? null : hold(ticket, ttl, unit);
+    }
+
+    // Holds a specific seat; returns null if the seat is not in the pool or the underlying pool
+    // cannot pick out a seat
+    public Hold reserveTicketById(int ticketId, long ttl, TimeUnit unit) {
+        updatesInFlight.incrementAndGet();
+        Ticket ticket;
+        try {
+            ticket = purchaseFromDelegate(ticketId);
+            if (ticket != null) {
+                heldTickets.increment();
+            }
+        } finally {
+            updateVersion.incrementAndGet();
+            updatesInFlight.decrementAndGet();
+        }
+        return ticket == null ? null : hold(ticket, ttl, unit);
+    }
+
+    public void shutdown() {
+        if (ownsTimingWheel) {
+            timingWheel.stop();
+        }
+    }
+
+    @Override
+    public void addTicket(Ticket ticket) {
+        long start = metrics.startTimer();
+        try {
+            acquireSlot();
+            if (!addToDelegate(ticket)) {
+                EventLog.global().warn("Underlying pool refused a ticket although a slot was free");
+            }
+        } catch (InterruptedException e) {
+            EventLog.global().interrupted("addTicket");
+            Thread.currentThread().interrupt();
+        } finally {
+            metrics.recordAdd(start);
+        }
+    }
+
+    @Override
+    public Ticket purchaseTicket() {
+        long start = metrics.startTimer();
+        try {
+            Ticket ticket = delegate.tryPurchaseTicket();
+            if (ticket == null) {
+                long waitStart = System.nanoTime();
+                try {
+                    ticket = delegate.purchaseTicket();
+                } finally {
+                    metrics.recordEmptyWait(waitStart);
+                }
+            }
+            return sold(ticket);
+        } finally {
+            metrics.recordPurchase(start);
+        }
+    }
+
+    @Override
+    public boolean tryAddTicket(Ticket ticket) {
+        return freeSlots.tryAcquire() && addToDelegate(ticket);
+    }
+
+    @Override
+    public boolean tryAddTicket(Ticket ticket, long timeout, TimeUnit unit) throws InterruptedException {
+        return freeSlots.tryAcquire(timeout, unit) && addToDelegate(ticket);
+    }
+
+    @Override
+    public Ticket tryPurchaseTicket() {
+        return sold(delegate.tryPurchaseTicket());
+    }
+
+    @Override
+    public Ticket tryPurchaseTicket(long timeout, TimeUnit unit) throws InterruptedException {
+        return sold(delegate.tryPurchaseTicket(timeout, unit));
+    }
+
+    @Override
+    public int addTickets(Collection<Ticket> tickets) {
+        int added = 0;
+        Iterator<Ticket> iterator = tickets.iterator();
+        while (iterator.hasNext()) {
+            try {
+                acquireSlot();
+            } catch (InterruptedException e) {
+                EventLog.global().interrupted("addTickets");
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (!addToDelegate(iterator.next())) {
+                break;
+            }
+            added++;
+        }
+        return added;
+    }
+
+    @Override
+    public List<Ticket> purchaseTickets(int maxTickets) {
+        List<Ticket> tickets = delegate.purchaseTickets(maxTickets);
+        freeSlots.release(tickets.size());
+        return tickets;
+    }
+
+    @Override
+    public Ticket purchaseTicketById(int ticketId) {
+        return sold(purchaseFromDelegate(ticketId));
+    }
+
+    private Ticket purchaseFromDelegate(int ticketId) {
+        if (!(delegate instanceof SeatSelectable)) {
+            return null;
+        }
+        return ((SeatSelectable) delegate).purchaseTicketById(ticketId);
+    }
+
+    // Held tickets are out of the underlying pool, so they keep the price they were reserved at
+    @Override
+    public boolean updateTicketPrice(int ticketId, double newPrice) {
+        return delegate.updateTicketPrice(ticketId, newPrice);
+    }
+
+    @Override
+    public int updateTicketPrices(Predicate<Ticket> filter, DoubleUnaryOperator repricer) {
+        return delegate.updateTicketPrices(filter, repricer);
+    }
+
+    // Waits for a seat kept by a hold count as full-pool waits; lock contention is the underlying pool's
+    @Override
+    public PoolMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public int getAvailableTickets() {
+        return delegate.getAvailableTickets();
+    }
+
+    @Override
+    public int getSoldTickets() {
+        return getStats().getSoldTickets();
+    }
+
+    @Override
+    public int getTotalTickets() {
+        return getStats().getTotalTickets();
+    }
+
+    @Override
+    public int getHeldTickets() {
+        return (int) heldTickets.sum();
+    }
+
+    @Override
+    public PoolStats getStats() {
+        // Our counters are read before the underlying pool's: a hold taken in between then shows
+        // up as an extra sale rather than driving the sold figure negative.
+        long held = heldTickets.sum();
+        long returned = returnedTickets.sum();
+        PoolStats stats = delegate.getStats();
+        for (int attempt = 0; attempt < SNAPSHOT_ATTEMPTS; attempt++) {
+            long version = updateVersion.get();
+            if (updatesInFlight.get() != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            held = heldTickets.sum();
+            returned = returnedTickets.sum();
+            stats = delegate.getStats();
+            if (updatesInFlight.get() == 0 && updateVersion.get() == version) {
+                break;
+            }
+        }
+        int sold = (int) Math.max(0, stats.getSoldTickets() - held - returned);
+        int total = (int) Math.max(0, stats.getTotalTickets() - returned);
+        return new PoolStats(stats.getAvailableTickets(), sold, total, (int) held);
+    }
+
+    // The slot already guarantees room, so the underlying pool is never waited on; a ticket it
+    // still refuses gives the slot back and is not counted
+    private boolean addToDelegate(Ticket ticket) {
+        if (delegate.tryAddTicket(ticket)) {
+            return true;
+        }
+        freeSlots.release();
+        return false;
+    }
+
+    private void acquireSlot() throws InterruptedException {
+        if (!freeSlots.tryAcquire()) {
+            long waitStart = System.nanoTime();
+            try {
+                freeSlots.acquire();
+            } finally {
+                metrics.recordFullWait(waitStart);
+            }
+        }
+    }
+
+    private Ticket sold(Ticket ticket) {
+        if (ticket != null) {
+            freeSlots.release();
+        }
+        return ticket;
+    }
+
+    private Hold hold(Ticket ticket, long ttl, TimeUnit unit) {
+        Hold hold = new Hold(ticket);
+        hold.expiry = timingWheel.schedule(hold::expire, ttl, unit);
+        return hold;
+    }
+
+    // Runs on the caller's thread for release() and on the wheel thread for expiry, so it must
+    // not block. The held slot guarantees room; the retry only covers a delegate that still
+    // refuses the ticket, such as a sharded pool whose free space is briefly in another shard.
+    private void returnTicket(Ticket ticket) {
+        boolean returned;
+        updatesInFlight.incrementAndGet();
+        try {
+            returned = delegate.tryAddTicket(ticket);
+            if (returned) {
+                heldTickets.decrement();
+                returnedTickets.increment();
+            }
+        } finally {
+            updateVersion.incrementAndGet();
+            updatesInFlight.decrementAndGet();
+        }
+        if (!returned) {
+            timingWheel.schedule(() -> returnTicket(ticket), RETURN_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void confirmTicket() {
+        updatesInFlight.incrementAndGet();
+        try {
+            heldTickets.decrement();
+            freeSlots.release();
+        } finally {
+            updateVersion.incrementAndGet();
+            updatesInFlight.decrementAndGet();
+        }
+    }
+
+    public final class Hold {
+
+        private static final int ACTIVE = 0;
+        private static final int CONFIRMED = 1;
+        private static final int RELEASED = 2;
+        private static final int EXPIRED = 3;
+        private static final String[] STATE_NAMES = {"ACTIVE", "CONFIRMED", "RELEASED", "EXPIRED"};
+
+        private final Ticket ticket;
+        private final AtomicInteger state = new AtomicInteger(ACTIVE);
+        private volatile TimingWheel.Timeout expiry;
+
+        private Hold(Ticket ticket) {
+            this.ticket = ticket;
+        }
+
+        public Ticket getTicket() {
+            return ticket;
+        }
+
+        public boolean isActive() {
+            return state.get() == ACTIVE;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        // Completes the sale; returns false if the hold already expired or was released
+        public boolean confirm() {
+            if (!state.compareAndSet(ACTIVE, CONFIRMED)) {
+                return false;
+            }
+            expiry.cancel();
+            confirmTicket();
+            return true;
+        }
+
+        // Gives the ticket back to the pool; returns false if the hold was already settled
+        public boolean release() {
+            if (!state.compareAndSet(ACTIVE, RELEASED)) {
+                return false;
+            }
+            expiry.cancel();
+            returnTicket(ticket);
+            return true;
+        }
+
+        private void expire() {
+            if (state.compareAndSet(ACTIVE, EXPIRED)) {
+                returnTicket(ticket);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Hold{" +
+                    "ticket=" + ticket +
+                    ", state=" + STATE_NAMES[state.get()] +
+                    '}';
+        }
+    }
+}
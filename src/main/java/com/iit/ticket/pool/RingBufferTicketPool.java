@@ -0,0 +1,372 @@
+package com.iit.ticket.pool;
+
+import com.iit.ticket.metrics.PoolMetrics;
+import com.iit.ticket.model.PoolStats;
+import com.iit.ticket.model.Ticket;
+import com.iit.ticket.util.EventLog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Predicate;
+
+/**
+ * Lock-free bounded multi-producer/multi-consumer ring. Every slot carries a sequence number
+ * that tells producers and consumers whether it is free or filled for the current lap, and the
+ * head/tail positions are claimed with CAS, so adding and buying never take a lock. Only a thread
+ * that has to wait does: after a short spin it parks on a condition, and an add or purchase
+ * signals it only when the waiter count says someone is parked, which the waiter re-checks the
+ * ring after raising.
+ */
+public class RingBufferTicketPool implements TicketPool {
+
+    private static final int SPIN_LIMIT = 64;
+    private static final int YIELD_LIMIT = 128;
+
+    private final AtomicReferenceArray<Ticket> slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final int maxNumberOfTickets;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final TicketCounters counters = new TicketCounters();
+    private final PoolMetrics metrics = new PoolMetrics();
+    private final ReentrantLock waitLock = new ReentrantLock();
+    private final Condition notEmpty = waitLock.newCondition();
+    private final Condition notFull = waitLock.newCondition();
+    private final AtomicInteger emptyWaiters = new AtomicInteger();
+    private final AtomicInteger fullWaiters = new AtomicInteger();
+
+    public RingBufferTicketPool(int maxNumberOfTickets) {
+        if (maxNumberOfTickets <= 0) {
+            throw new IllegalArgumentException("Capacity must be greater than 0");
+        }
+        this.maxNumberOfTickets = maxNumberOfTickets;
+        // At least two slots: in a one-slot ring "free for the next lap" and "filled" are the same
+        // sequence, so a producer could overwrite the slot while a consumer is still reading it
+        int size = Math.max(2, Integer.highestOneBit(maxNumberOfTickets));
+        if (size < maxNumberOfTickets) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    @Override
+    public void addTicket(Ticket ticket) {
+        long start = metrics.startTimer();
+        if (!offer(ticket)) {
+            awaitOffer(ticket, "addTicket");
+        }
+        metrics.recordAdd(start);
+    }
+
+    @Override
+    public Ticket purchaseTicket() {
+        long start = metrics.startTimer();
+        Ticket ticket = poll();
+        if (ticket == null) {
+            ticket = awaitPoll();
+        }
+        metrics.recordPurchase(start);
+        return ticket;
+    }
+
+    @Override
+    public boolean tryAddTicket(Ticket ticket) {
+        return offer(ticket);
+    }
+
+    @Override
+    public boolean tryAddTicket(Ticket ticket, long timeout, TimeUnit unit) throws InterruptedException {
+        return offer(ticket) || awaitOffer(ticket, unit.toNanos(timeout));
+    }
+
+    @Override
+    public Ticket tryPurchaseTicket() {
+        return poll();
+    }
+
+    @Override
+    public Ticket tryPurchaseTicket(long timeout, TimeUnit unit) throws InterruptedException {
+        Ticket ticket = poll();
+        return ticket != null ? ticket : awaitPoll(unit.toNanos(timeout));
+    }
+
+    @Override
+    public int addTickets(Collection<Ticket> tickets) {
+        int added = 0;
+        for (Ticket ticket : tickets) {
+            if (!offer(ticket) && !awaitOffer(ticket, "addTickets")) {
+                return added;
+            }
+            added++;
+        }
+        return added;
+    }
+
+    @Override
+    public List<Ticket> purchaseTickets(int maxTickets) {
+        if (maxTickets <= 0) {
+            return Collections.emptyList();
+        }
+        Ticket first = poll();
+        if (first == null && (first = awaitPoll()) == null) {
+            return Collections.emptyList();
+        }
+        List<Ticket> tickets = new ArrayList<>(Math.min(maxTickets, 16));
+        tickets.add(first);
+        Ticket ticket;
+        while (tickets.size() < maxTickets && (ticket = poll()) != null) {
+            tickets.add(ticket);
+        }
+        return tickets;
+    }
+
+    // A match is repriced only if it is still in its slot once the ticket holds off reissue, since
+    // by then it may have been bought and recycled as another seat
+    @Override
+    public boolean updateTicketPrice(int ticketId, double newPrice) {
+        for (long position = head.get(), end = tail.get(); position < end; position++) {
+            long at = position;
+            Ticket ticket = ticketAt(at);
+            if (ticket != null && ticket.getTicketId() == ticketId && ticket.updateTicketPriceIf(
+                    () -> ticketAt(at) == ticket && ticket.getTicketId() == ticketId, price -> newPrice)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int updateTicketPrices(Predicate<Ticket> filter, DoubleUnaryOperator repricer) {
+        int updated = 0;
+        for (long position = head.get(), end = tail.get(); position < end; position++) {
+            long at = position;
+            Ticket ticket = ticketAt(at);
+            if (ticket != null && ticket.updateTicketPriceIf(() -> ticketAt(at) == ticket && filter.test(ticket), repricer)) {
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    @Override
+    public int getAvailableTickets() {
+        return counters.getAvailableTickets();
+    }
+
+    @Override
+    public int getSoldTickets() {
+        return counters.getSoldTickets();
+    }
+
+    @Override
+    public int getTotalTickets() {
+        return counters.getTotalTickets();
+    }
+
+    @Override
+    public PoolStats getStats() {
+        return counters.snapshot();
+    }
+
+    @Override
+    public PoolMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Waits until there is room; the whole wait counts as a full-pool wait
+    private boolean awaitOffer(Ticket ticket, String operation) {
+        long waitStart = System.nanoTime();
+        try {
+            return awaitOffer(ticket, Long.MAX_VALUE);
+        } catch (InterruptedException e) {
+            EventLog.global().interrupted(operation);
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            metrics.recordFullWait(waitStart);
+        }
+    }
+
+    private Ticket awaitPoll() {
+        long waitStart = System.nanoTime();
+        try {
+            return awaitPoll(Long.MAX_VALUE);
+        } catch (InterruptedException e) {
+            EventLog.global().interrupted("purchaseTicket");
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            metrics.recordEmptyWait(waitStart);
+        }
+    }
+
+    // Spins and yields for a while, since room often frees up within microseconds, then parks
+    private boolean awaitOffer(Ticket ticket, long timeoutNanos) throws InterruptedException {
+        long start = System.nanoTime();
+        for (int attempt = 0; attempt < YIELD_LIMIT; attempt++) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (System.nanoTime() - start >= timeoutNanos) {
+                return false;
+            }
+            backoff(attempt);
+            if (offer(ticket)) {
+                return true;
+            }
+        }
+        long nanos = timeoutNanos - (System.nanoTime() - start);
+        waitLock.lockInterruptibly();
+        fullWaiters.incrementAndGet();
+        boolean added = false;
+        try {
+            while (!(added = offer(ticket))) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            fullWaiters.decrementAndGet();
+            // A signal this thread took but did not use goes to the next waiter
+            if (!added) {
+                notFull.signal();
+            }
+            waitLock.unlock();
+        }
+    }
+
+    private Ticket awaitPoll(long timeoutNanos) throws InterruptedException {
+        long start = System.nanoTime();
+        Ticket ticket;
+        for (int attempt = 0; attempt < YIELD_LIMIT; attempt++) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (System.nanoTime() - start >= timeoutNanos) {
+                return null;
+            }
+            backoff(attempt);
+            if ((ticket = poll()) != null) {
+                return ticket;
+            }
+        }
+        long nanos = timeoutNanos - (System.nanoTime() - start);
+        waitLock.lockInterruptibly();
+        emptyWaiters.incrementAndGet();
+        ticket = null;
+        try {
+            while ((ticket = poll()) == null) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return ticket;
+        } finally {
+            emptyWaiters.decrementAndGet();
+            if (ticket == null) {
+                notEmpty.signal();
+            }
+            waitLock.unlock();
+        }
+    }
+
+    private void signal(Condition condition) {
+        waitLock.lock();
+        try {
+            condition.signal();
+        } finally {
+            waitLock.unlock();
+        }
+    }
+
+    // A failed CAS means another thread claimed the same position first, which is this ring's
+    // counterpart of finding a lock held, so it is counted as a contention
+    private boolean offer(Ticket ticket) {
+        while (true) {
+            long position = tail.get();
+            // The ring may be larger than the requested capacity, so bound the occupancy explicitly.
+            if (position - head.get() >= maxNumberOfTickets) {
+                return false;
+            }
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.lazySet(index, ticket);
+                    counters.ticketsAdded(1);
+                    sequences.set(index, position + 1);
+                    if (emptyWaiters.get() > 0) {
+                        signal(notEmpty);
+                    }
+                    return true;
+                }
+                metrics.lockContended();
+            } else if (difference < 0) {
+                return false;
+            }
+        }
+    }
+
+    private Ticket poll() {
+        while (true) {
+            long position = head.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    Ticket ticket = slots.get(index);
+                    slots.lazySet(index, null);
+                    counters.ticketsSold(1);
+                    sequences.set(index, position + mask + 1);
+                    if (fullWaiters.get() > 0) {
+                        signal(notFull);
+                    }
+                    return ticket;
+                }
+                metrics.lockContended();
+            } else if (difference < 0) {
+                return null;
+            }
+        }
+    }
+
+    // Lock-free read of the ticket queued at a position, or null if it has not been published yet
+    // or has already been bought. A buyer that claims it right after the check can still leave
+    // with it while it is being repriced, in which case it leaves with either price; it cannot be
+    // reissued until the reprice is done, as the buyer only returns it after moving the sequence on.
+    private Ticket ticketAt(long position) {
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        Ticket ticket = slots.get(index);
+        return sequences.get(index) == position + 1 ? ticket : null;
+    }
+
+    private static void backoff(int attempt) {
+        if (attempt < SPIN_LIMIT) {
+            Thread.onSpinWait();
+        } else {
+            Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.iit.ticket.pool;
+
+import com.iit.ticket.model.Ticket;
+
+/**
+ * A pool that can sell a specific seat instead of only the next ticket in its own order. The
+ * blocking queue and the lock-free ring cannot take a ticket out of the middle without a scan, so
+ * they do not implement it; callers check with instanceof before offering seat selection.
+ */
+public interface SeatSelectable {
+
+    // Buys the given seat without waiting; returns null if no ticket with that id is in the pool
+    Ticket purchaseTicketById(int ticketId);
+}
@@ -0,0 +1,493 @@
+package com.iit.ticket.pool;
+
+import com.iit.ticket.metrics.PoolMetrics;
+import com.iit.ticket.model.PoolStats;
+import com.iit.ticket.model.Ticket;
+import com.iit.ticket.util.EventLog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Predicate;
+
+/**
+ * Splits the inventory across independent shards (one per core by default). A thread adds to and
+ * purchases from its home shard and only visits the neighbouring shards when the home shard is
+ * full or empty. Threads that find every shard full or empty park on a shared slow-path lock,
+ * which the fast path only touches when somebody is actually waiting.
+ */
+public class ShardedTicketPool implements TicketPool, SeatSelectable {
+
+    private final Shard[] shards;
+    private final ReentrantLock waitLock = new ReentrantLock();
+    private final Condition notEmpty = waitLock.newCondition();
+    private final Condition notFull = waitLock.newCondition();
+    private final AtomicInteger waitingConsumers = new AtomicInteger();
+    private final AtomicInteger waitingProducers = new AtomicInteger();
+    private final TicketCounters counters = new TicketCounters();
+    private final PoolMetrics metrics = new PoolMetrics();
+
+    public ShardedTicketPool(int maxNumberOfTickets) {
+        this(maxNumberOfTickets, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ShardedTicketPool(int maxNumberOfTickets, int shardCount) {
+        if (maxNumberOfTickets <= 0 || shardCount <= 0) {
+            throw new IllegalArgumentException("Capacity and shard count must be greater than 0");
+        }
+        int count = Math.min(shardCount, maxNumberOfTickets);
+        shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard(maxNumberOfTickets / count + (i < maxNumberOfTickets % count ? 1 : 0), counters, metrics);
+        }
+    }
+
+    @Override
+    public void addTicket(Ticket ticket) {
+        long start = metrics.startTimer();
+        try {
+            if (tryOffer(ticket)) {
+                signalNotEmpty(1);
+                return;
+            }
+            long waitStart = System.nanoTime();
+            metrics.acquire(waitLock);
+            waitingProducers.incrementAndGet();
+            try {
+                while (!tryOffer(ticket)) {
+                    notFull.await();
+                }
+                if (waitingConsumers.get() > 0) {
+                    notEmpty.signal();
+                }
+            } catch (InterruptedException e) {
+                EventLog.global().interrupted("addTicket");
+                Thread.currentThread().interrupt();
+            } finally {
+                waitingProducers.decrementAndGet();
+                waitLock.unlock();
+                metrics.recordFullWait(waitStart);
+            }
+        } finally {
+            metrics.recordAdd(start);
+        }
+    }
+
+    @Override
+    public Ticket purchaseTicket() {
+        long start = metrics.startTimer();
+        try {
+            Ticket ticket = tryPoll();
+            if (ticket != null) {
+                signalNotFull(1);
+                return ticket;
+            }
+            long waitStart = System.nanoTime();
+            metrics.acquire(waitLock);
+            waitingConsumers.incrementAndGet();
+            try {
+                while ((ticket = tryPoll()) == null) {
+                    notEmpty.await();
+                }
+                if (waitingProducers.get() > 0) {
+                    notFull.signal();
+                }
+                return ticket;
+            } catch (InterruptedException e) {
+                EventLog.global().interrupted("purchaseTicket");
+                Thread.currentThread().interrupt();
+            } finally {
+                waitingConsumers.decrementAndGet();
+                waitLock.unlock();
+                metrics.recordEmptyWait(waitStart);
+            }
+            return null;
+        } finally {
+            metrics.recordPurchase(start);
+        }
+    }
+
+    @Override
+    public boolean tryAddTicket(Ticket ticket) {
+        if (tryOffer(ticket)) {
+            signalNotEmpty(1);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean tryAddTicket(Ticket ticket, long timeout, TimeUnit unit) throws InterruptedException {
+        if (tryAddTicket(ticket)) {
+            return true;
+        }
+        long nanos = unit.toNanos(timeout);
+        waitLock.lockInterruptibly();
+        waitingProducers.incrementAndGet();
+        try {
+            while (!tryOffer(ticket)) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            if (waitingConsumers.get() > 0) {
+                notEmpty.signal();
+            }
+            return true;
+        } finally {
+            waitingProducers.decrementAndGet();
+            waitLock.unlock();
+        }
+    }
+
+    @Override
+    public Ticket tryPurchaseTicket() {
+        Ticket ticket = tryPoll();
+        if (ticket != null) {
+            signalNotFull(1);
+        }
+        return ticket;
+    }
+
+    @Override
+    public Ticket tryPurchaseTicket(long timeout, TimeUnit unit) throws InterruptedException {
+        Ticket ticket = tryPurchaseTicket();
+        if (ticket != null) {
+            return ticket;
+        }
+        long nanos = unit.toNanos(timeout);
+        waitLock.lockInterruptibly();
+        waitingConsumers.incrementAndGet();
+        try {
+            while ((ticket = tryPoll()) == null) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            if (waitingProducers.get() > 0) {
+                notFull.signal();
+            }
+            return ticket;
+        } finally {
+            waitingConsumers.decrementAndGet();
+            waitLock.unlock();
+        }
+    }
+
+    @Override
+    public int addTickets(Collection<Ticket> tickets) {
+        Iterator<Ticket> iterator = tickets.iterator();
+        int added = offerAll(iterator);
+        if (!iterator.hasNext()) {
+            signalNotEmpty(added);
+            return added;
+        }
+        long waitStart = System.nanoTime();
+        metrics.acquire(waitLock);
+        waitingProducers.incrementAndGet();
+        try {
+            while (true) {
+                added += offerAll(iterator);
+                if (added > 0 && waitingConsumers.get() > 0) {
+                    notEmpty.signalAll();
+                }
+                if (!iterator.hasNext()) {
+                    break;
+                }
+                notFull.await();
+            }
+        } catch (InterruptedException e) {
+            EventLog.global().interrupted("addTickets");
+            Thread.currentThread().interrupt();
+        } finally {
+            waitingProducers.decrementAndGet();
+            waitLock.unlock();
+            metrics.recordFullWait(waitStart);
+        }
+        return added;
+    }
+
+    @Override
+    public List<Ticket> purchaseTickets(int maxTickets) {
+        if (maxTickets <= 0) {
+            return Collections.emptyList();
+        }
+        List<Ticket> tickets = new ArrayList<>(Math.min(maxTickets, 16));
+        if (pollAll(tickets, maxTickets) > 0) {
+            signalNotFull(tickets.size());
+            return tickets;
+        }
+        long waitStart = System.nanoTime();
+        metrics.acquire(waitLock);
+        waitingConsumers.incrementAndGet();
+        try {
+            while (pollAll(tickets, maxTickets) == 0) {
+                notEmpty.await();
+            }
+            if (waitingProducers.get() > 0) {
+                notFull.signalAll();
+            }
+        } catch (InterruptedException e) {
+            EventLog.global().interrupted("purchaseTickets");
+            Thread.currentThread().interrupt();
+        } finally {
+            waitingConsumers.decrementAndGet();
+            waitLock.unlock();
+            metrics.recordEmptyWait(waitStart);
+        }
+        return tickets;
+    }
+
+    @Override
+    public Ticket purchaseTicketById(int ticketId) {
+        int home = homeShard();
+        for (int i = 0; i < shards.length; i++) {
+            Ticket ticket = shards[(home + i) % shards.length].remove(ticketId);
+            if (ticket != null) {
+                signalNotFull(1);
+                return ticket;
+            }
+        }
+        return null;
+    }
+
+    // Only one shard is locked at a time, so repricing never holds up buyers in the other shards
+    @Override
+    public boolean updateTicketPrice(int ticketId, double newPrice) {
+        int home = homeShard();
+        for (int i = 0; i < shards.length; i++) {
+            if (shards[(home + i) % shards.length].updatePrice(ticketId, newPrice)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int updateTicketPrices(Predicate<Ticket> filter, DoubleUnaryOperator repricer) {
+        int updated = 0;
+        for (Shard shard : shards) {
+            updated += shard.updatePrices(filter, repricer);
+        }
+        return updated;
+    }
+
+    @Override
+    public int getAvailableTickets() {
+        return counters.getAvailableTickets();
+    }
+
+    @Override
+    public int getSoldTickets() {
+        return counters.getSoldTickets();
+    }
+
+    @Override
+    public int getTotalTickets() {
+        return counters.getTotalTickets();
+    }
+
+    @Override
+    public PoolStats getStats() {
+        return counters.snapshot();
+    }
+
+    @Override
+    public PoolMetrics getMetrics() {
+        return metrics;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    private boolean tryOffer(Ticket ticket) {
+        int home = homeShard();
+        for (int i = 0; i < shards.length; i++) {
+            if (shards[(home + i) % shards.length].offer(ticket)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Ticket tryPoll() {
+        int home = homeShard();
+        for (int i = 0; i < shards.length; i++) {
+            Ticket ticket = shards[(home + i) % shards.length].poll();
+            if (ticket != null) {
+                return ticket;
+            }
+        }
+        return null;
+    }
+
+    private int offerAll(Iterator<Ticket> iterator) {
+        int home = homeShard();
+        int added = 0;
+        for (int i = 0; i < shards.length && iterator.hasNext(); i++) {
+            added += shards[(home + i) % shards.length].offerAll(iterator);
+        }
+        return added;
+    }
+
+    private int pollAll(List<Ticket> tickets, int maxTickets) {
+        int home = homeShard();
+        int polled = 0;
+        for (int i = 0; i < shards.length && tickets.size() < maxTickets; i++) {
+            polled += shards[(home + i) % shards.length].pollAll(tickets, maxTickets);
+        }
+        return polled;
+    }
+
+    private int homeShard() {
+        return (int) (Thread.currentThread().threadId() % shards.length);
+    }
+
+    private void signalNotEmpty(int added) {
+        if (added > 0 && waitingConsumers.get() > 0) {
+            metrics.acquire(waitLock);
+            try {
+                if (added == 1) {
+                    notEmpty.signal();
+                } else {
+                    notEmpty.signalAll();
+                }
+            } finally {
+                waitLock.unlock();
+            }
+        }
+    }
+
+    private void signalNotFull(int removed) {
+        if (removed > 0 && waitingProducers.get() > 0) {
+            metrics.acquire(waitLock);
+            try {
+                if (removed == 1) {
+                    notFull.signal();
+                } else {
+                    notFull.signalAll();
+                }
+            } finally {
+                waitLock.unlock();
+            }
+        }
+    }
+
+    private static final class Shard {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final IndexedTicketQueue queue = new IndexedTicketQueue();
+        private final int maxNumberOfTickets;
+        private final TicketCounters counters;
+        private final PoolMetrics metrics;
+
+        Shard(int maxNumberOfTickets, TicketCounters counters, PoolMetrics metrics) {
+            this.maxNumberOfTickets = maxNumberOfTickets;
+            this.counters = counters;
+            this.metrics = metrics;
+        }
+
+        boolean offer(Ticket ticket) {
+            metrics.acquire(lock);
+            try {
+                if (queue.size() >= maxNumberOfTickets) {
+                    return false;
+                }
+                queue.offer(ticket);
+                counters.ticketsAdded(1);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int offerAll(Iterator<Ticket> iterator) {
+            metrics.acquire(lock);
+            try {
+                int added = 0;
+                while (iterator.hasNext() && queue.size() < maxNumberOfTickets) {
+                    queue.offer(iterator.next());
+                    added++;
+                }
+                counters.ticketsAdded(added);
+                return added;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int pollAll(List<Ticket> tickets, int maxTickets) {
+            metrics.acquire(lock);
+            try {
+                int polled = 0;
+                while (tickets.size() < maxTickets && !queue.isEmpty()) {
+                    tickets.add(queue.poll());
+                    polled++;
+                }
+                counters.ticketsSold(polled);
+                return polled;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Ticket remove(int ticketId) {
+            metrics.acquire(lock);
+            try {
+                Ticket ticket = queue.remove(ticketId);
+                if (ticket != null) {
+                    counters.ticketsSold(1);
+                }
+                return ticket;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean updatePrice(int ticketId, double newPrice) {
+            metrics.acquire(lock);
+            try {
+                Ticket ticket = queue.peek(ticketId);
+                if (ticket == null) {
+                    return false;
+                }
+                ticket.setTicketPrice(newPrice);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int updatePrices(Predicate<Ticket> filter, DoubleUnaryOperator repricer) {
+            metrics.acquire(lock);
+            try {
+                return queue.updatePrices(filter, repricer);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Ticket poll() {
+            metrics.acquire(lock);
+            try {
+                Ticket ticket = queue.poll();
+                if (ticket != null) {
+                    counters.ticketsSold(1);
+                }
+                return ticket;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
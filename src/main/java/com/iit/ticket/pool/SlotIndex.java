@@ -0,0 +1,131 @@
+package com.iit.ticket.pool;
+
+import java.util.Arrays;
+
+/**
+ * Ticket id index for the array-backed pools: maps each id to the ring slots holding it, oldest
+ * first, so a specific ticket is found in O(1) instead of by scanning the ring. Like
+ * IndexedTicketQueue it is an open-addressing table from id to the first and last slot of a
+ * chain, but the chain links are ints in a per-slot array, so indexing a ticket never allocates
+ * once the table has grown to the number of distinct ids. Not thread-safe: pools guard it with
+ * the lock that guards their ring.
+ */
+final class SlotIndex {
+
+    private static final int INITIAL_TABLE_SIZE = 16;
+    private static final int NONE = -1;
+
+    // Per ring slot: the id it was indexed under and the next slot with the same id
+    private final int[] slotIds;
+    private final int[] nextSlots;
+
+    private int[] keys = new int[INITIAL_TABLE_SIZE];
+    private int[] firstSlots = newTable(INITIAL_TABLE_SIZE);
+    private int[] lastSlots = new int[INITIAL_TABLE_SIZE];
+    private int mask = INITIAL_TABLE_SIZE - 1;
+    private int indexed;
+
+    SlotIndex(int slots) {
+        this.slotIds = new int[slots];
+        this.nextSlots = new int[slots];
+    }
+
+    void add(int ticketId, int slot) {
+        slotIds[slot] = ticketId;
+        nextSlots[slot] = NONE;
+        int entry = find(ticketId);
+        if (firstSlots[entry] == NONE) {
+            keys[entry] = ticketId;
+            firstSlots[entry] = slot;
+            lastSlots[entry] = slot;
+            if (++indexed * 2 > keys.length) {
+                resize();
+            }
+        } else {
+            nextSlots[lastSlots[entry]] = slot;
+            lastSlots[entry] = slot;
+        }
+    }
+
+    // The oldest slot holding the given id, or -1
+    int first(int ticketId) {
+        return firstSlots[find(ticketId)];
+    }
+
+    // Unindexes a slot. Both FIFO purchases and purchases by id take the oldest ticket for its id,
+    // so the slot is always the head of its chain.
+    void remove(int slot) {
+        int entry = find(slotIds[slot]);
+        int next = nextSlots[slot];
+        if (next == NONE) {
+            deleteEntry(entry);
+        } else {
+            firstSlots[entry] = next;
+        }
+    }
+
+    // The id a slot was indexed under, for pools that move tickets between slots and re-index them
+    int idAt(int slot) {
+        return slotIds[slot];
+    }
+
+    void clear() {
+        Arrays.fill(firstSlots, NONE);
+        indexed = 0;
+    }
+
+    private int find(int ticketId) {
+        int entry = hash(ticketId) & mask;
+        while (firstSlots[entry] != NONE && keys[entry] != ticketId) {
+            entry = (entry + 1) & mask;
+        }
+        return entry;
+    }
+
+    // Backward-shift deletion keeps probe sequences intact without tombstones
+    private void deleteEntry(int entry) {
+        int hole = entry;
+        int next = (hole + 1) & mask;
+        while (firstSlots[next] != NONE) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                firstSlots[hole] = firstSlots[next];
+                lastSlots[hole] = lastSlots[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        firstSlots[hole] = NONE;
+        indexed--;
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        int[] oldFirstSlots = firstSlots;
+        int[] oldLastSlots = lastSlots;
+        keys = new int[oldKeys.length * 2];
+        firstSlots = newTable(oldKeys.length * 2);
+        lastSlots = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldFirstSlots[i] != NONE) {
+                int entry = find(oldKeys[i]);
+                keys[entry] = oldKeys[i];
+                firstSlots[entry] = oldFirstSlots[i];
+                lastSlots[entry] = oldLastSlots[i];
+            }
+        }
+    }
+
+    private static int[] newTable(int size) {
+        int[] table = new int[size];
+        Arrays.fill(table, NONE);
+        return table;
+    }
+
+    private static int hash(int ticketId) {
+        int h = ticketId * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,275 @@
+package com.iit.ticket.pool;
+
+import com.iit.ticket.metrics.PoolMetrics;
+import com.iit.ticket.model.PoolStats;
+import com.iit.ticket.model.Ticket;
+import com.iit.ticket.util.EventLog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Predicate;
+
+/**
+ * Routes every call to the pools of a fixed set of events. Only adds create an event's pool
+ * through the registry; purchases, seat lookups and repricing skip events that have none, since
+ * they have nothing to sell. A single try probes a window of a few events from a random one, so
+ * its cost does not grow with the number of events. Blocking adds and purchases move the window
+ * on until every event has been tried, and only then wait; the wait is a short timed one on a
+ * random event, after which the events are swept again, so a caller is never stuck on one
+ * sold-out event while another has stock. Counters and metrics add up the events' own.
+ */
+final class SpreadTicketPool implements TicketPool, SeatSelectable {
+
+    private static final long WAIT_MILLIS = 10;
+    private static final int PROBES = 8;
+
+    private final TicketPoolRegistry registry;
+    private final int[] eventIds;
+    private final PoolMetrics metrics = PoolMetrics.aggregate(this::eventMetrics);
+
+    SpreadTicketPool(TicketPoolRegistry registry, int[] eventIds) {
+        this.registry = registry;
+        this.eventIds = eventIds;
+    }
+
+    private int randomEvent() {
+        return ThreadLocalRandom.current().nextInt(eventIds.length);
+    }
+
+    // The pool of a random event, or null if it has not been created yet
+    private TicketPool existing() {
+        return registry.get(eventIds[randomEvent()]);
+    }
+
+    // The index of the window after the one starting at from
+    private int nextWindow(int from) {
+        return (from + PROBES) % eventIds.length;
+    }
+
+    private Ticket poll(int from) {
+        for (int i = 0, probes = Math.min(PROBES, eventIds.length); i < probes; i++) {
+            TicketPool pool = registry.get(eventIds[(from + i) % eventIds.length]);
+            if (pool != null) {
+                Ticket ticket = pool.tryPurchaseTicket();
+                if (ticket != null) {
+                    return ticket;
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean offer(int from, Ticket ticket) {
+        for (int i = 0, probes = Math.min(PROBES, eventIds.length); i < probes; i++) {
+            if (registry.pool(eventIds[(from + i) % eventIds.length]).tryAddTicket(ticket)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Sweeps every event once, a window at a time
+    private Ticket pollAll(int from) {
+        for (int probed = 0; probed < eventIds.length; probed += PROBES, from = nextWindow(from)) {
+            Ticket ticket = poll(from);
+            if (ticket != null) {
+                return ticket;
+            }
+        }
+        return null;
+    }
+
+    private boolean offerAll(int from, Ticket ticket) {
+        for (int probed = 0; probed < eventIds.length; probed += PROBES, from = nextWindow(from)) {
+            if (offer(from, ticket)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void addTicket(Ticket ticket) {
+        try {
+            tryAddTicket(ticket, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            EventLog.global().interrupted("addTicket");
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public Ticket purchaseTicket() {
+        try {
+            return tryPurchaseTicket(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            EventLog.global().interrupted("purchaseTicket");
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    @Override
+    public boolean tryAddTicket(Ticket ticket) {
+        return offer(randomEvent(), ticket);
+    }
+
+    @Override
+    public boolean tryAddTicket(Ticket ticket, long timeout, TimeUnit unit) throws InterruptedException {
+        long start = System.nanoTime();
+        long timeoutNanos = unit.toNanos(timeout);
+        while (!offerAll(randomEvent(), ticket)) {
+            long remaining = timeoutNanos - (System.nanoTime() - start);
+            if (remaining <= 0) {
+                return false;
+            }
+            long wait = Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(WAIT_MILLIS));
+            if (registry.pool(eventIds[randomEvent()]).tryAddTicket(ticket, wait, TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Ticket tryPurchaseTicket() {
+        return poll(randomEvent());
+    }
+
+    @Override
+    public Ticket tryPurchaseTicket(long timeout, TimeUnit unit) throws InterruptedException {
+        long start = System.nanoTime();
+        long timeoutNanos = unit.toNanos(timeout);
+        Ticket ticket;
+        while ((ticket = pollAll(randomEvent())) == null) {
+            long remaining = timeoutNanos - (System.nanoTime() - start);
+            if (remaining <= 0) {
+                return null;
+            }
+            long wait = Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(WAIT_MILLIS));
+            TicketPool pool = existing();
+            if (pool == null) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } else if ((ticket = pool.tryPurchaseTicket(wait, TimeUnit.NANOSECONDS)) != null) {
+                return ticket;
+            }
+        }
+        return ticket;
+    }
+
+    @Override
+    public int addTickets(Collection<Ticket> tickets) {
+        int added = 0;
+        for (Ticket ticket : tickets) {
+            if (!offer(randomEvent(), ticket)) {
+                addTicket(ticket);
+                if (Thread.currentThread().isInterrupted()) {
+                    return added;
+                }
+            }
+            added++;
+        }
+        return added;
+    }
+
+    // Waits for the first ticket like purchaseTicket(), then takes whatever any event has left
+    @Override
+    public List<Ticket> purchaseTickets(int maxTickets) {
+        if (maxTickets <= 0) {
+            return Collections.emptyList();
+        }
+        Ticket first = purchaseTicket();
+        if (first == null) {
+            return Collections.emptyList();
+        }
+        List<Ticket> tickets = new ArrayList<>(Math.min(maxTickets, 16));
+        tickets.add(first);
+        Ticket ticket;
+        while (tickets.size() < maxTickets && (ticket = pollAll(randomEvent())) != null) {
+            tickets.add(ticket);
+        }
+        return tickets;
+    }
+
+    // Ticket ids are only unique within an event, so a seat is looked for in one event
+    @Override
+    public Ticket purchaseTicketById(int ticketId) {
+        TicketPool pool = existing();
+        if (!(pool instanceof SeatSelectable)) {
+            return null;
+        }
+        return ((SeatSelectable) pool).purchaseTicketById(ticketId);
+    }
+
+    @Override
+    public boolean updateTicketPrice(int ticketId, double newPrice) {
+        TicketPool pool = existing();
+        return pool != null && pool.updateTicketPrice(ticketId, newPrice);
+    }
+
+    @Override
+    public int updateTicketPrices(Predicate<Ticket> filter, DoubleUnaryOperator repricer) {
+        int updated = 0;
+        for (int eventId : eventIds) {
+            TicketPool pool = registry.get(eventId);
+            if (pool != null) {
+                updated += pool.updateTicketPrices(filter, repricer);
+            }
+        }
+        return updated;
+    }
+
+    @Override
+    public int getAvailableTickets() {
+        return getStats().getAvailableTickets();
+    }
+
+    @Override
+    public int getSoldTickets() {
+        return getStats().getSoldTickets();
+    }
+
+    @Override
+    public int getTotalTickets() {
+        return getStats().getTotalTickets();
+    }
+
+    @Override
+    public PoolStats getStats() {
+        int available = 0;
+        int sold = 0;
+        int total = 0;
+        for (int eventId : eventIds) {
+            TicketPool pool = registry.get(eventId);
+            if (pool != null) {
+                PoolStats stats = pool.getStats();
+                available += stats.getAvailableTickets();
+                sold += stats.getSoldTickets();
+                total += stats.getTotalTickets();
+            }
+        }
+        return new PoolStats(available, sold, total);
+    }
+
+    // The events' metrics summed on every read, including calls other entities made on them directly
+    @Override
+    public PoolMetrics getMetrics() {
+        return metrics;
+    }
+
+    private List<PoolMetrics> eventMetrics() {
+        List<PoolMetrics> sources = new ArrayList<>(eventIds.length);
+        for (int eventId : eventIds) {
+            TicketPool pool = registry.get(eventId);
+            if (pool != null) {
+                sources.add(pool.getMetrics());
+            }
+        }
+        return sources;
+    }
+}
@@ -0,0 +1,468 @@
+package com.iit.ticket.pool;
+
+import com.iit.ticket.metrics.PoolMetrics;
+import com.iit.ticket.model.PoolStats;
+import com.iit.ticket.model.Ticket;
+import com.iit.ticket.util.EventLog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Predicate;
+
+/**
+ * Array-backed FIFO pool guarded by a StampedLock, built for read-heavy mixes. Adds and purchases
+ * take the write lock only for the few stores that move the ring; every read-only call (counts,
+ * stats and browsing) first reads optimistically without writing to shared memory and only falls
+ * back to the read lock if a writer got in meanwhile, so dashboards never block buyers. Capacity
+ * and blocking are handled by two semaphores outside the lock, as in PriceOrderedTicketPool.
+ *
+ * A SlotIndex maps ticket ids to ring slots, so a specific seat is found without a scan. Buying
+ * one out of the middle leaves a hole that FIFO purchases skip; the ring is compacted in place
+ * only when a new ticket would otherwise run into its own head.
+ */
+public class StampedLockTicketPool implements TicketPool, SeatSelectable {
+
+    private final StampedLock lock = new StampedLock();
+    private final Semaphore freeSlots;
+    private final Semaphore availableTickets = new Semaphore(0);
+    private final Ticket[] tickets;
+    private final SlotIndex index;
+    private final int maxNumberOfTickets;
+    // Guarded by the write lock; read optimistically. span counts the slots from head to the tail,
+    // holes included, and count only the tickets in them; the slot at head is never a hole.
+    private int head;
+    private int span;
+    private int count;
+    private int soldTickets;
+    private int totalTickets;
+    private final PoolMetrics metrics = new PoolMetrics();
+
+    public StampedLockTicketPool(int maxNumberOfTickets) {
+        if (maxNumberOfTickets <= 0) {
+            throw new IllegalArgumentException("Capacity must be greater than 0");
+        }
+        this.maxNumberOfTickets = maxNumberOfTickets;
+        this.tickets = new Ticket[maxNumberOfTickets];
+        this.index = new SlotIndex(maxNumberOfTickets);
+        this.freeSlots = new Semaphore(maxNumberOfTickets);
+    }
+
+    @Override
+    public void addTicket(Ticket ticket) {
+        long start = metrics.startTimer();
+        try {
+            acquireSlot();
+            insert(ticket);
+        } catch (InterruptedException e) {
+            EventLog.global().interrupted("addTicket");
+            Thread.currentThread().interrupt();
+        } finally {
+            metrics.recordAdd(start);
+        }
+    }
+
+    @Override
+    public Ticket purchaseTicket() {
+        long start = metrics.startTimer();
+        try {
+            acquireTicket();
+            return take();
+        } catch (InterruptedException e) {
+            EventLog.global().interrupted("purchaseTicket");
+            Thread.currentThread().interrupt();
+        } finally {
+            metrics.recordPurchase(start);
+        }
+        return null;
+    }
+
+    @Override
+    public boolean tryAddTicket(Ticket ticket) {
+        if (!freeSlots.tryAcquire()) {
+            return false;
+        }
+        insert(ticket);
+        return true;
+    }
+
+    @Override
+    public boolean tryAddTicket(Ticket ticket, long timeout, TimeUnit unit) throws InterruptedException {
+        if (!freeSlots.tryAcquire(timeout, unit)) {
+            return false;
+        }
+        insert(ticket);
+        return true;
+    }
+
+    @Override
+    public Ticket tryPurchaseTicket() {
+        if (!availableTickets.tryAcquire()) {
+            return null;
+        }
+        return take();
+    }
+
+    @Override
+    public Ticket tryPurchaseTicket(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!availableTickets.tryAcquire(timeout, unit)) {
+            return null;
+        }
+        return take();
+    }
+
+    // Waits for one free slot, then adds as many more as are free right now under a single write lock
+    @Override
+    public int addTickets(Collection<Ticket> tickets) {
+        int added = 0;
+        int remaining = tickets.size();
+        Iterator<Ticket> iterator = tickets.iterator();
+        while (remaining > 0) {
+            try {
+                acquireSlot();
+            } catch (InterruptedException e) {
+                EventLog.global().interrupted("addTickets");
+                Thread.currentThread().interrupt();
+                break;
+            }
+            int permits = 1;
+            while (permits < remaining && freeSlots.tryAcquire()) {
+                permits++;
+            }
+            long stamp = writeLock();
+            try {
+                for (int i = 0; i < permits; i++) {
+                    enqueue(iterator.next());
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            availableTickets.release(permits);
+            added += permits;
+            remaining -= permits;
+        }
+        return added;
+    }
+
+    @Override
+    public List<Ticket> purchaseTickets(int maxTickets) {
+        if (maxTickets <= 0) {
+            return Collections.emptyList();
+        }
+        try {
+            acquireTicket();
+        } catch (InterruptedException e) {
+            EventLog.global().interrupted("purchaseTickets");
+            Thread.currentThread().interrupt();
+            return Collections.emptyList();
+        }
+        int permits = 1;
+        while (permits < maxTickets && availableTickets.tryAcquire()) {
+            permits++;
+        }
+        List<Ticket> purchased = new ArrayList<>(permits);
+        long stamp = writeLock();
+        try {
+            for (int i = 0; i < permits; i++) {
+                purchased.add(dequeue());
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        freeSlots.release(permits);
+        return purchased;
+    }
+
+    // Takes an available-ticket permit like any buyer, so it returns null rather than wait if every
+    // ticket left is already promised to one
+    @Override
+    public Ticket purchaseTicketById(int ticketId) {
+        if (!availableTickets.tryAcquire()) {
+            return null;
+        }
+        Ticket ticket;
+        long stamp = writeLock();
+        try {
+            ticket = removeById(ticketId);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        if (ticket == null) {
+            availableTickets.release();
+            return null;
+        }
+        freeSlots.release();
+        return ticket;
+    }
+
+    // A new price does not move a ticket in the ring, and Ticket updates its price atomically,
+    // so repricing only needs to keep the ring and the index still: the read lock lets writers
+    // run side by side, and a single ticket is found through the index rather than a scan.
+    @Override
+    public boolean updateTicketPrice(int ticketId, double newPrice) {
+        long stamp = lock.readLock();
+        try {
+            int slot = index.first(ticketId);
+            if (slot < 0) {
+                return false;
+            }
+            tickets[slot].updateTicketPrice(price -> newPrice);
+            return true;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public int updateTicketPrices(Predicate<Ticket> filter, DoubleUnaryOperator repricer) {
+        long stamp = lock.readLock();
+        try {
+            int updated = 0;
+            for (int i = 0; i < span; i++) {
+                Ticket ticket = tickets[(head + i) % maxNumberOfTickets];
+                if (ticket != null && filter.test(ticket)) {
+                    ticket.updateTicketPrice(repricer);
+                    updated++;
+                }
+            }
+            return updated;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Returns up to maxTickets of the tickets on sale, oldest first, without taking any of them
+    public List<Ticket> browseTickets(int maxTickets) {
+        if (maxTickets <= 0) {
+            return Collections.emptyList();
+        }
+        long stamp = lock.tryOptimisticRead();
+        Ticket[] view = copyTickets(maxTickets);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                view = copyTickets(maxTickets);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return Arrays.asList(view);
+    }
+
+    @Override
+    public int getAvailableTickets() {
+        long stamp = lock.tryOptimisticRead();
+        int available = count;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                available = count;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return available;
+    }
+
+    @Override
+    public int getSoldTickets() {
+        long stamp = lock.tryOptimisticRead();
+        int sold = soldTickets;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                sold = soldTickets;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return sold;
+    }
+
+    @Override
+    public int getTotalTickets() {
+        long stamp = lock.tryOptimisticRead();
+        int total = totalTickets;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                total = totalTickets;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return total;
+    }
+
+    // All three figures come from the same instant, so available + sold == total always holds
+    @Override
+    public PoolStats getStats() {
+        long stamp = lock.tryOptimisticRead();
+        int available = count;
+        int sold = soldTickets;
+        int total = totalTickets;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                available = count;
+                sold = soldTickets;
+                total = totalTickets;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return new PoolStats(available, sold, total);
+    }
+
+    @Override
+    public PoolMetrics getMetrics() {
+        return metrics;
+    }
+
+    private void acquireSlot() throws InterruptedException {
+        if (!freeSlots.tryAcquire()) {
+            long waitStart = System.nanoTime();
+            try {
+                freeSlots.acquire();
+            } finally {
+                metrics.recordFullWait(waitStart);
+            }
+        }
+    }
+
+    private void acquireTicket() throws InterruptedException {
+        if (!availableTickets.tryAcquire()) {
+            long waitStart = System.nanoTime();
+            try {
+                availableTickets.acquire();
+            } finally {
+                metrics.recordEmptyWait(waitStart);
+            }
+        }
+    }
+
+    // Counts a contention whenever the write lock is already held or being read
+    private long writeLock() {
+        long stamp = lock.tryWriteLock();
+        if (stamp == 0L) {
+            metrics.lockContended();
+            stamp = lock.writeLock();
+        }
+        return stamp;
+    }
+
+    private void insert(Ticket ticket) {
+        long stamp = writeLock();
+        try {
+            enqueue(ticket);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        availableTickets.release();
+    }
+
+    private Ticket take() {
+        Ticket ticket;
+        long stamp = writeLock();
+        try {
+            ticket = dequeue();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        freeSlots.release();
+        return ticket;
+    }
+
+    // Callers hold the write lock and a free-slot permit, so there is room once holes are closed
+    private void enqueue(Ticket ticket) {
+        if (span == maxNumberOfTickets) {
+            compact();
+        }
+        int slot = (head + span) % maxNumberOfTickets;
+        tickets[slot] = ticket;
+        index.add(ticket.getTicketId(), slot);
+        span++;
+        count++;
+        totalTickets++;
+    }
+
+    // Callers hold the write lock and an available-ticket permit
+    private Ticket dequeue() {
+        Ticket ticket = tickets[head];
+        tickets[head] = null;
+        index.remove(head);
+        head = (head + 1) % maxNumberOfTickets;
+        span--;
+        count--;
+        soldTickets++;
+        trimHoles();
+        return ticket;
+    }
+
+    // Callers hold the write lock and an available-ticket permit
+    private Ticket removeById(int ticketId) {
+        int slot = index.first(ticketId);
+        if (slot < 0) {
+            return null;
+        }
+        Ticket ticket = tickets[slot];
+        tickets[slot] = null;
+        index.remove(slot);
+        count--;
+        soldTickets++;
+        trimHoles();
+        return ticket;
+    }
+
+    // Drops holes from both ends of the ring, so only holes between tickets are left
+    private void trimHoles() {
+        while (span > 0 && tickets[head] == null) {
+            head = (head + 1) % maxNumberOfTickets;
+            span--;
+        }
+        while (span > 0 && tickets[(head + span - 1) % maxNumberOfTickets] == null) {
+            span--;
+        }
+    }
+
+    // Slides every ticket toward the head over the holes, keeping their order, and re-indexes them
+    private void compact() {
+        index.clear();
+        int moved = 0;
+        for (int i = 0; i < span; i++) {
+            int from = (head + i) % maxNumberOfTickets;
+            Ticket ticket = tickets[from];
+            if (ticket != null) {
+                int to = (head + moved) % maxNumberOfTickets;
+                tickets[from] = null;
+                tickets[to] = ticket;
+                index.add(index.idAt(from), to);
+                moved++;
+            }
+        }
+        span = moved;
+    }
+
+    // An optimistic pass may see a torn head and span; both are clamped so every index stays in
+    // bounds, and validate() then throws the copy away
+    private Ticket[] copyTickets(int maxTickets) {
+        int start = Math.floorMod(head, maxNumberOfTickets);
+        int slots = Math.max(0, Math.min(span, maxNumberOfTickets));
+        Ticket[] view = new Ticket[Math.max(0, Math.min(Math.min(count, maxTickets), maxNumberOfTickets))];
+        int size = 0;
+        for (int i = 0; i < slots && size < view.length; i++) {
+            Ticket ticket = tickets[(start + i) % maxNumberOfTickets];
+            if (ticket != null) {
+                view[size++] = ticket;
+            }
+        }
+        return size == view.length ? view : Arrays.copyOf(view, size);
+    }
+}
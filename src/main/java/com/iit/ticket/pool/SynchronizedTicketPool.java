@@ -1,66 +1,254 @@
 package com.iit.ticket.pool;
 
+import com.iit.ticket.metrics.PoolMetrics;
+import com.iit.ticket.model.PoolStats;
 import com.iit.ticket.model.Ticket;
+import com.iit.ticket.util.EventLog;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Predicate;
 
-public class SynchronizedTicketPool implements TicketPool {
+public class SynchronizedTicketPool implements TicketPool, SeatSelectable {
 
-    private final Queue<Ticket> queue = new LinkedList<>();
+    private final IndexedTicketQueue queue = new IndexedTicketQueue();
     private int maxNumberOfTickets = 0;
-    private int soldTickets;
-    private int totalTickets;
+    private final TicketCounters counters = new TicketCounters();
+    private final PoolMetrics metrics = new PoolMetrics();
 
     public SynchronizedTicketPool(int maxNumberOfTickets) {
         this.maxNumberOfTickets = maxNumberOfTickets;
     }
 
+    // The clock starts before the monitor is entered, so time spent blocked on it is counted
     @Override
-    public synchronized void addTicket(Ticket ticket) {
+    public void addTicket(Ticket ticket) {
+        long start = metrics.startTimer();
+        try {
+            synchronized (this) {
+                if (queue.size() >= maxNumberOfTickets) {
+                    long waitStart = System.nanoTime();
+                    try {
+                        while (queue.size() >= maxNumberOfTickets) {
+                            wait();
+                        }
+                    } catch (InterruptedException e) {
+                        EventLog.global().interrupted("addTicket");
+                        Thread.currentThread().interrupt();
+                        return;
+                    } finally {
+                        metrics.recordFullWait(waitStart);
+                    }
+                }
+                boolean offer = queue.offer(ticket);
+                if (offer) {
+                    counters.ticketsAdded(1);
+                    notifyAll();
+                }
+            }
+        } finally {
+            metrics.recordAdd(start);
+        }
+    }
+
+    @Override
+    public Ticket purchaseTicket() {
+        long start = metrics.startTimer();
+        try {
+            synchronized (this) {
+                if (queue.isEmpty()) {
+                    long waitStart = System.nanoTime();
+                    try {
+                        while (queue.isEmpty()) {
+                            wait();
+                        }
+                    } catch (InterruptedException e) {
+                        EventLog.global().interrupted("purchaseTicket");
+                        Thread.currentThread().interrupt();
+                        return null;
+                    } finally {
+                        metrics.recordEmptyWait(waitStart);
+                    }
+                }
+                Ticket ticket = queue.poll();
+                if (ticket != null) {
+                    counters.ticketsSold(1);
+                    notifyAll();
+                }
+                return ticket;
+            }
+        } finally {
+            metrics.recordPurchase(start);
+        }
+    }
+
+    @Override
+    public synchronized boolean tryAddTicket(Ticket ticket) {
+        if (queue.size() >= maxNumberOfTickets) {
+            return false;
+        }
+        queue.offer(ticket);
+        counters.ticketsAdded(1);
+        notifyAll();
+        return true;
+    }
+
+    @Override
+    public synchronized boolean tryAddTicket(Ticket ticket, long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        long deadline = System.nanoTime() + remaining;
         while (queue.size() >= maxNumberOfTickets) {
-            try {
-                wait();
-            } catch (InterruptedException e) {
-                System.out.println("interrupted (addTicket)");
+            if (remaining <= 0) {
+                return false;
             }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            remaining = deadline - System.nanoTime();
         }
-        boolean offer = queue.offer(ticket);
-        if (offer) {
-            totalTickets++;
+        queue.offer(ticket);
+        counters.ticketsAdded(1);
+        notifyAll();
+        return true;
+    }
+
+    @Override
+    public synchronized Ticket tryPurchaseTicket() {
+        Ticket ticket = queue.poll();
+        if (ticket != null) {
+            counters.ticketsSold(1);
             notifyAll();
         }
+        return ticket;
     }
 
     @Override
-    public synchronized Ticket purchaseTicket() {
+    public synchronized Ticket tryPurchaseTicket(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        long deadline = System.nanoTime() + remaining;
         while (queue.isEmpty()) {
+            if (remaining <= 0) {
+                return null;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            remaining = deadline - System.nanoTime();
+        }
+        Ticket ticket = queue.poll();
+        counters.ticketsSold(1);
+        notifyAll();
+        return ticket;
+    }
+
+    @Override
+    public synchronized int addTickets(Collection<Ticket> tickets) {
+        int added = 0;
+        Iterator<Ticket> iterator = tickets.iterator();
+        while (iterator.hasNext()) {
+            if (queue.size() >= maxNumberOfTickets) {
+                long waitStart = System.nanoTime();
+                try {
+                    while (queue.size() >= maxNumberOfTickets) {
+                        wait();
+                    }
+                } catch (InterruptedException e) {
+                    EventLog.global().interrupted("addTickets");
+                    Thread.currentThread().interrupt();
+                    return added;
+                } finally {
+                    metrics.recordFullWait(waitStart);
+                }
+            }
+            int batch = 0;
+            while (iterator.hasNext() && queue.size() < maxNumberOfTickets) {
+                queue.offer(iterator.next());
+                batch++;
+            }
+            added += batch;
+            counters.ticketsAdded(batch);
+            notifyAll();
+        }
+        return added;
+    }
+
+    @Override
+    public synchronized List<Ticket> purchaseTickets(int maxTickets) {
+        if (maxTickets <= 0) {
+            return Collections.emptyList();
+        }
+        if (queue.isEmpty()) {
+            long waitStart = System.nanoTime();
             try {
-                wait();
+                while (queue.isEmpty()) {
+                    wait();
+                }
             } catch (InterruptedException e) {
-                System.out.println("interrupted (purchaseTicket)");
+                EventLog.global().interrupted("purchaseTickets");
+                Thread.currentThread().interrupt();
+                return Collections.emptyList();
+            } finally {
+                metrics.recordEmptyWait(waitStart);
             }
         }
-        Ticket ticket = queue.poll();
+        List<Ticket> tickets = new ArrayList<>(Math.min(maxTickets, queue.size()));
+        while (tickets.size() < maxTickets && !queue.isEmpty()) {
+            tickets.add(queue.poll());
+        }
+        counters.ticketsSold(tickets.size());
+        notifyAll();
+        return tickets;
+    }
+
+    @Override
+    public synchronized Ticket purchaseTicketById(int ticketId) {
+        Ticket ticket = queue.remove(ticketId);
         if (ticket != null) {
-            soldTickets++;
+            counters.ticketsSold(1);
             notifyAll();
         }
         return ticket;
     }
 
+    // The index finds the seat in O(1), so the lock is held no longer than for a purchase
+    @Override
+    public synchronized boolean updateTicketPrice(int ticketId, double newPrice) {
+        Ticket ticket = queue.peek(ticketId);
+        if (ticket == null) {
+            return false;
+        }
+        ticket.setTicketPrice(newPrice);
+        return true;
+    }
+
+    @Override
+    public synchronized int updateTicketPrices(Predicate<Ticket> filter, DoubleUnaryOperator repricer) {
+        return queue.updatePrices(filter, repricer);
+    }
+
+    @Override
+    public int getAvailableTickets() {
+        return counters.getAvailableTickets();
+    }
+
+    @Override
+    public int getSoldTickets() {
+        return counters.getSoldTickets();
+    }
+
     @Override
-    public synchronized int getAvailableTickets() {
-        return queue.size();
+    public int getTotalTickets() {
+        return counters.getTotalTickets();
     }
 
     @Override
-    public synchronized int getSoldTickets() {
-        return this.soldTickets;
+    public PoolStats getStats() {
+        return counters.snapshot();
     }
 
     @Override
-    public synchronized int getTotalTickets() {
-        return this.totalTickets;
+    public PoolMetrics getMetrics() {
+        return metrics;
     }
 }
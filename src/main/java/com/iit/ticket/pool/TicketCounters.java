@@ -0,0 +1,55 @@
+package com.iit.ticket.pool;
+
+import com.iit.ticket.model.PoolStats;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Striped sold/total counters shared by the pool implementations. The sold count only ever grows,
+ * which lets {@link #snapshot()} produce a consistent view without taking the pool lock: if it is
+ * unchanged on both sides of reading the total, the three numbers all held at the same instant.
+ */
+final class TicketCounters {
+
+    private static final int SNAPSHOT_ATTEMPTS = 8;
+
+    private final LongAdder soldTickets = new LongAdder();
+    private final LongAdder totalTickets = new LongAdder();
+
+    void ticketsAdded(int count) {
+        totalTickets.add(count);
+    }
+
+    void ticketsSold(int count) {
+        soldTickets.add(count);
+    }
+
+    int getSoldTickets() {
+        return (int) soldTickets.sum();
+    }
+
+    int getTotalTickets() {
+        return (int) totalTickets.sum();
+    }
+
+    int getAvailableTickets() {
+        return snapshot().getAvailableTickets();
+    }
+
+    PoolStats snapshot() {
+        long sold = soldTickets.sum();
+        long total = totalTickets.sum();
+        for (int attempt = 0; attempt < SNAPSHOT_ATTEMPTS; attempt++) {
+            long soldAfter = soldTickets.sum();
+            if (soldAfter == sold) {
+                break;
+            }
+            sold = soldAfter;
+            total = totalTickets.sum();
+        }
+        // Most pools count a ticket into the total before it can be sold, so re-reading the total
+        // after the sold count can only over-report availability. The blocking queue counts an add
+        // after the queue accepts it, so a sale can briefly run ahead; the total never reads lower.
+        return new PoolStats((int) Math.max(0, total - sold), (int) sold, (int) Math.max(total, sold));
+    }
+}
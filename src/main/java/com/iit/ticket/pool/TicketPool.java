@@ -1,17 +1,54 @@
 package com.iit.ticket.pool;
 
+import com.iit.ticket.metrics.PoolMetrics;
+import com.iit.ticket.model.PoolStats;
 import com.iit.ticket.model.Ticket;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Predicate;
+
 public interface TicketPool {
 
     void addTicket(Ticket ticket);
 
     Ticket purchaseTicket();
 
+    boolean tryAddTicket(Ticket ticket);
+
+    boolean tryAddTicket(Ticket ticket, long timeout, TimeUnit unit) throws InterruptedException;
+
+    Ticket tryPurchaseTicket();
+
+    Ticket tryPurchaseTicket(long timeout, TimeUnit unit) throws InterruptedException;
+
+    int addTickets(Collection<Ticket> tickets);
+
+    List<Ticket> purchaseTickets(int maxTickets);
+
+    // Reprices the oldest pooled ticket with the given id in place, without selling it or moving it
+    // in the queue; returns false if no ticket with that id is in the pool
+    boolean updateTicketPrice(int ticketId, double newPrice);
+
+    // Reprices every pooled ticket the filter accepts; returns how many were updated
+    int updateTicketPrices(Predicate<Ticket> filter, DoubleUnaryOperator repricer);
+
     int getAvailableTickets();
 
     int getSoldTickets();
 
     int getTotalTickets();
 
+    // Tickets reserved by a checkout but neither confirmed nor returned yet
+    default int getHeldTickets() {
+        return 0;
+    }
+
+    PoolStats getStats();
+
+    // Latency, wait and lock contention figures for addTicket and purchaseTicket
+    PoolMetrics getMetrics();
+
 }
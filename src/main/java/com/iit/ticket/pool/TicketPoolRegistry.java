@@ -0,0 +1,98 @@
+package com.iit.ticket.pool;
+
+import com.iit.ticket.model.PoolStats;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * One independent ticket pool per event, keyed by event id and created the first time the event is
+ * used, so thousands of events can be on sale at once. Entities either hold the pool of a single
+ * event or sell across many through {@link #spread} or {@link #spreadRange}. An event's pool
+ * allocates its metrics on first use, and the list and skip-list pools only grow with the tickets
+ * they hold, so events that are mostly idle stay small; the ring buffer, stamped lock and off-heap
+ * pools reserve their full capacity up front.
+ */
+public class TicketPoolRegistry {
+
+    private final IntFunction<TicketPool> factory;
+    private final ConcurrentHashMap<Integer, TicketPool> pools = new ConcurrentHashMap<>();
+
+    public TicketPoolRegistry(PoolType poolType, int capacity) {
+        this(eventId -> poolType.create(capacity));
+    }
+
+    // The factory is given the event id, so events can differ in size or pool type
+    public TicketPoolRegistry(IntFunction<TicketPool> factory) {
+        this.factory = factory;
+    }
+
+    public TicketPool pool(int eventId) {
+        TicketPool pool = pools.get(eventId);
+        if (pool == null) {
+            pool = pools.computeIfAbsent(eventId, factory::apply);
+        }
+        return pool;
+    }
+
+    // The event's pool if it has been used, without creating one
+    public TicketPool get(int eventId) {
+        return pools.get(eventId);
+    }
+
+    // Closes an event; entities still holding its pool keep working on it, unseen by the registry
+    public TicketPool remove(int eventId) {
+        return pools.remove(eventId);
+    }
+
+    public int size() {
+        return pools.size();
+    }
+
+    public Set<Integer> getEventIds() {
+        return pools.keySet();
+    }
+
+    // A view that sends each operation to one of the given events, chosen at random. Only its adds
+    // create pools, so buying through it leaves events nobody has stocked uncreated.
+    public TicketPool spread(int... eventIds) {
+        if (eventIds.length == 0) {
+            throw new IllegalArgumentException("Need at least one event to spread across");
+        }
+        return new SpreadTicketPool(this, eventIds.clone());
+    }
+
+    // Spreads across events firstEventId to firstEventId + eventCount - 1
+    public TicketPool spreadRange(int firstEventId, int eventCount) {
+        int[] eventIds = new int[eventCount];
+        for (int i = 0; i < eventCount; i++) {
+            eventIds[i] = firstEventId + i;
+        }
+        return spread(eventIds);
+    }
+
+    // Totals over every event created so far
+    public PoolStats getStats() {
+        int available = 0;
+        int sold = 0;
+        int total = 0;
+        for (TicketPool pool : pools.values()) {
+            PoolStats stats = pool.getStats();
+            available += stats.getAvailableTickets();
+            sold += stats.getSoldTickets();
+            total += stats.getTotalTickets();
+        }
+        return new PoolStats(available, sold, total);
+    }
+
+    public Map<Integer, PoolStats> getEventStats() {
+        Map<Integer, PoolStats> stats = new TreeMap<>();
+        for (Map.Entry<Integer, TicketPool> entry : pools.entrySet()) {
+            stats.put(entry.getKey(), entry.getValue().getStats());
+        }
+        return stats;
+    }
+}
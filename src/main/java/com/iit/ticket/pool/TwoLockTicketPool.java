@@ -0,0 +1,612 @@
+package com.iit.ticket.pool;
+
+import com.iit.ticket.metrics.PoolMetrics;
+import com.iit.ticket.model.PoolStats;
+import com.iit.ticket.model.Ticket;
+import com.iit.ticket.util.EventLog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Predicate;
+
+/**
+ * Linked queue with one lock for the tail (adds) and another for the head (purchases), so
+ * producers and consumers never contend with each other. The shared occupancy lives in an
+ * atomic count. Waiters are woken one at a time: each thread that still sees room (or tickets)
+ * after its own operation signals the next waiter, instead of every operation waking everyone.
+ *
+ * Seats are found through an index from ticket id to the oldest node with that id, guarded by the
+ * put lock. Purchases only hold the take lock, so the node they take stays indexed with its ticket
+ * cleared; as such nodes are always at the front of their id's chain, they are dropped the next
+ * time that chain is used or the index is rehashed. A purchase by id holds both locks, which lets
+ * it unlink its node from the middle of the list.
+ */
+public class TwoLockTicketPool implements TicketPool, SeatSelectable {
+
+    private static final int INITIAL_INDEX_SIZE = 16;
+
+    private final int maxNumberOfTickets;
+    private final AtomicInteger count = new AtomicInteger();
+    private final ReentrantLock putLock = new ReentrantLock();
+    private final Condition queueFull = putLock.newCondition();
+    private final ReentrantLock takeLock = new ReentrantLock();
+    private final Condition queueEmpty = takeLock.newCondition();
+    private final TicketCounters counters = new TicketCounters();
+    private final PoolMetrics metrics = new PoolMetrics();
+    // head is a sentinel guarded by takeLock, last is guarded by putLock
+    private Node head = new Node(null);
+    private Node last = head;
+    // Ticket id index, guarded by putLock
+    private int[] keys = new int[INITIAL_INDEX_SIZE];
+    private Node[] values = new Node[INITIAL_INDEX_SIZE];
+    private int mask = INITIAL_INDEX_SIZE - 1;
+    private int indexed;
+
+    public TwoLockTicketPool(int maxNumberOfTickets) {
+        if (maxNumberOfTickets <= 0) {
+            throw new IllegalArgumentException("Capacity must be greater than 0");
+        }
+        this.maxNumberOfTickets = maxNumberOfTickets;
+    }
+
+    @Override
+    public void addTicket(Ticket ticket) {
+        long start = metrics.startTimer();
+        try {
+            int c;
+            metrics.acquire(putLock);
+            try {
+                if (count.get() == maxNumberOfTickets) {
+                    long waitStart = System.nanoTime();
+                    try {
+                        while (count.get() == maxNumberOfTickets) {
+                            queueFull.await();
+                        }
+                    } finally {
+                        metrics.recordFullWait(waitStart);
+                    }
+                }
+                enqueue(ticket);
+                c = count.getAndIncrement();
+                if (c + 1 < maxNumberOfTickets) {
+                    queueFull.signal();
+                }
+            } catch (InterruptedException e) {
+                EventLog.global().interrupted("addTicket");
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                putLock.unlock();
+            }
+            if (c == 0) {
+                signalNotEmpty();
+            }
+        } finally {
+            metrics.recordAdd(start);
+        }
+    }
+
+    @Override
+    public Ticket purchaseTicket() {
+        long start = metrics.startTimer();
+        try {
+            Ticket ticket;
+            int c;
+            metrics.acquire(takeLock);
+            try {
+                if (count.get() == 0) {
+                    long waitStart = System.nanoTime();
+                    try {
+                        while (count.get() == 0) {
+                            queueEmpty.await();
+                        }
+                    } finally {
+                        metrics.recordEmptyWait(waitStart);
+                    }
+                }
+                ticket = dequeue();
+                c = count.getAndDecrement();
+                if (c > 1) {
+                    queueEmpty.signal();
+                }
+            } catch (InterruptedException e) {
+                EventLog.global().interrupted("purchaseTicket");
+                Thread.currentThread().interrupt();
+                return null;
+            } finally {
+                takeLock.unlock();
+            }
+            if (c == maxNumberOfTickets) {
+                signalNotFull();
+            }
+            return ticket;
+        } finally {
+            metrics.recordPurchase(start);
+        }
+    }
+
+    @Override
+    public boolean tryAddTicket(Ticket ticket) {
+        if (count.get() == maxNumberOfTickets) {
+            return false;
+        }
+        int c = -1;
+        metrics.acquire(putLock);
+        try {
+            if (count.get() < maxNumberOfTickets) {
+                enqueue(ticket);
+                c = count.getAndIncrement();
+                if (c + 1 < maxNumberOfTickets) {
+                    queueFull.signal();
+                }
+            }
+        } finally {
+            putLock.unlock();
+        }
+        if (c == 0) {
+            signalNotEmpty();
+        }
+        return c >= 0;
+    }
+
+    @Override
+    public boolean tryAddTicket(Ticket ticket, long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        int c;
+        putLock.lockInterruptibly();
+        try {
+            while (count.get() == maxNumberOfTickets) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = queueFull.awaitNanos(nanos);
+            }
+            enqueue(ticket);
+            c = count.getAndIncrement();
+            if (c + 1 < maxNumberOfTickets) {
+                queueFull.signal();
+            }
+        } finally {
+            putLock.unlock();
+        }
+        if (c == 0) {
+            signalNotEmpty();
+        }
+        return true;
+    }
+
+    @Override
+    public Ticket tryPurchaseTicket() {
+        if (count.get() == 0) {
+            return null;
+        }
+        Ticket ticket = null;
+        int c = -1;
+        metrics.acquire(takeLock);
+        try {
+            if (count.get() > 0) {
+                ticket = dequeue();
+                c = count.getAndDecrement();
+                if (c > 1) {
+                    queueEmpty.signal();
+                }
+            }
+        } finally {
+            takeLock.unlock();
+        }
+        if (c == maxNumberOfTickets) {
+            signalNotFull();
+        }
+        return ticket;
+    }
+
+    @Override
+    public Ticket tryPurchaseTicket(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        Ticket ticket;
+        int c;
+        takeLock.lockInterruptibly();
+        try {
+            while (count.get() == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = queueEmpty.awaitNanos(nanos);
+            }
+            ticket = dequeue();
+            c = count.getAndDecrement();
+            if (c > 1) {
+                queueEmpty.signal();
+            }
+        } finally {
+            takeLock.unlock();
+        }
+        if (c == maxNumberOfTickets) {
+            signalNotFull();
+        }
+        return ticket;
+    }
+
+    @Override
+    public int addTickets(Collection<Ticket> tickets) {
+        int added = 0;
+        Iterator<Ticket> iterator = tickets.iterator();
+        metrics.acquire(putLock);
+        try {
+            while (iterator.hasNext()) {
+                if (count.get() == maxNumberOfTickets) {
+                    long waitStart = System.nanoTime();
+                    try {
+                        while (count.get() == maxNumberOfTickets) {
+                            queueFull.await();
+                        }
+                    } finally {
+                        metrics.recordFullWait(waitStart);
+                    }
+                }
+                int room = maxNumberOfTickets - count.get();
+                int batch = 0;
+                while (iterator.hasNext() && batch < room) {
+                    enqueue(iterator.next());
+                    batch++;
+                }
+                added += batch;
+                int c = count.getAndAdd(batch);
+                if (c + batch < maxNumberOfTickets) {
+                    queueFull.signal();
+                }
+                // Consumers must be woken before this thread waits for room again. Taking the
+                // take lock while holding the put lock is safe because no path does the reverse.
+                if (c == 0) {
+                    signalNotEmpty();
+                }
+            }
+        } catch (InterruptedException e) {
+            EventLog.global().interrupted("addTickets");
+            Thread.currentThread().interrupt();
+        } finally {
+            putLock.unlock();
+        }
+        return added;
+    }
+
+    @Override
+    public List<Ticket> purchaseTickets(int maxTickets) {
+        if (maxTickets <= 0) {
+            return Collections.emptyList();
+        }
+        List<Ticket> tickets;
+        int c;
+        metrics.acquire(takeLock);
+        try {
+            if (count.get() == 0) {
+                long waitStart = System.nanoTime();
+                try {
+                    while (count.get() == 0) {
+                        queueEmpty.await();
+                    }
+                } finally {
+                    metrics.recordEmptyWait(waitStart);
+                }
+            }
+            int batch = Math.min(maxTickets, count.get());
+            tickets = new ArrayList<>(batch);
+            for (int i = 0; i < batch; i++) {
+                tickets.add(dequeue());
+            }
+            c = count.getAndAdd(-batch);
+            if (c > batch) {
+                queueEmpty.signal();
+            }
+        } catch (InterruptedException e) {
+            EventLog.global().interrupted("purchaseTickets");
+            Thread.currentThread().interrupt();
+            return Collections.emptyList();
+        } finally {
+            takeLock.unlock();
+        }
+        if (c == maxNumberOfTickets) {
+            signalNotFull();
+        }
+        return tickets;
+    }
+
+    @Override
+    public Ticket purchaseTicketById(int ticketId) {
+        Ticket ticket;
+        fullyLock();
+        try {
+            Node node = removeFromIndex(ticketId);
+            if (node == null) {
+                return null;
+            }
+            unlink(node);
+            ticket = node.ticket;
+            node.ticket = null;
+            counters.ticketsSold(1);
+            if (count.getAndDecrement() == maxNumberOfTickets) {
+                queueFull.signal();
+            }
+        } finally {
+            fullyUnlock();
+        }
+        return ticket;
+    }
+
+    // A single ticket is looked up in the index, which takes both locks but only for a few probes
+    @Override
+    public boolean updateTicketPrice(int ticketId, double newPrice) {
+        fullyLock();
+        try {
+            Node node = firstInIndex(ticketId);
+            if (node == null) {
+                return false;
+            }
+            node.ticket.setTicketPrice(newPrice);
+            return true;
+        } finally {
+            fullyUnlock();
+        }
+    }
+
+    // Scans only take the take lock, which keeps the head still while producers carry on
+    // appending. The count is raised after a node is linked, so the first count nodes are safely
+    // published and nothing beyond them is visited.
+    @Override
+    public int updateTicketPrices(Predicate<Ticket> filter, DoubleUnaryOperator repricer) {
+        metrics.acquire(takeLock);
+        try {
+            int updated = 0;
+            Node node = head;
+            for (int i = count.get(); i > 0; i--) {
+                node = node.next;
+                if (filter.test(node.ticket)) {
+                    node.ticket.updateTicketPrice(repricer);
+                    updated++;
+                }
+            }
+            return updated;
+        } finally {
+            takeLock.unlock();
+        }
+    }
+
+    @Override
+    public int getAvailableTickets() {
+        return counters.getAvailableTickets();
+    }
+
+    @Override
+    public int getSoldTickets() {
+        return counters.getSoldTickets();
+    }
+
+    @Override
+    public int getTotalTickets() {
+        return counters.getTotalTickets();
+    }
+
+    @Override
+    public PoolStats getStats() {
+        return counters.snapshot();
+    }
+
+    @Override
+    public PoolMetrics getMetrics() {
+        return metrics;
+    }
+
+    private void enqueue(Ticket ticket) {
+        // Count the ticket before linking it so a buyer can never be seen ahead of the total
+        counters.ticketsAdded(1);
+        Node node = new Node(ticket);
+        node.prev = last;
+        addToIndex(node);
+        last = last.next = node;
+    }
+
+    private Ticket dequeue() {
+        Node first = head.next;
+        head.next = head;
+        head = first;
+        Ticket ticket = first.ticket;
+        first.ticket = null;
+        counters.ticketsSold(1);
+        return ticket;
+    }
+
+    // Both locks in the same order as addTickets takes them, so no path can take them the other way
+    private void fullyLock() {
+        metrics.acquire(putLock);
+        metrics.acquire(takeLock);
+    }
+
+    private void fullyUnlock() {
+        takeLock.unlock();
+        putLock.unlock();
+    }
+
+    // Callers hold both locks. A node's prev is set when it is linked and only changed here, so it
+    // is either a node still queued or, once everything before it has been bought, the sentinel.
+    private void unlink(Node node) {
+        Node prev = node.prev;
+        prev.next = node.next;
+        if (node.next != null) {
+            node.next.prev = prev;
+        } else {
+            last = prev;
+        }
+        node.next = null;
+        node.prev = null;
+    }
+
+    // Callers hold putLock
+    private void addToIndex(Node node) {
+        int slot = find(node.ticketId);
+        Node first = firstUnsold(values[slot]);
+        if (first == null) {
+            if (values[slot] != null) {
+                deleteSlot(slot);
+                slot = find(node.ticketId);
+            }
+            node.lastSameId = node;
+            keys[slot] = node.ticketId;
+            values[slot] = node;
+            if (++indexed * 2 > keys.length) {
+                rehash();
+            }
+        } else {
+            values[slot] = first;
+            first.lastSameId.nextSameId = node;
+            first.lastSameId = node;
+        }
+    }
+
+    // Callers of this and removeFromIndex hold both locks, so no purchase can clear a ticket while
+    // the chain is walked
+    private Node firstInIndex(int ticketId) {
+        int slot = find(ticketId);
+        Node first = firstUnsold(values[slot]);
+        if (first == null) {
+            if (values[slot] != null) {
+                deleteSlot(slot);
+            }
+            return null;
+        }
+        values[slot] = first;
+        return first;
+    }
+
+    private Node removeFromIndex(int ticketId) {
+        Node first = firstInIndex(ticketId);
+        if (first == null) {
+            return null;
+        }
+        int slot = find(ticketId);
+        Node successor = first.nextSameId;
+        if (successor == null) {
+            deleteSlot(slot);
+        } else {
+            successor.lastSameId = first.lastSameId;
+            values[slot] = successor;
+        }
+        first.nextSameId = null;
+        first.lastSameId = null;
+        return first;
+    }
+
+    // Skips the sold nodes at the front of a chain. Without the take lock a ticket bought just now
+    // may still be seen, which only leaves its node to be dropped next time.
+    private static Node firstUnsold(Node first) {
+        Node node = first;
+        while (node != null && node.ticket == null) {
+            node = node.nextSameId;
+        }
+        if (node != null && node != first) {
+            node.lastSameId = first.lastSameId;
+        }
+        return node;
+    }
+
+    private int find(int ticketId) {
+        int slot = hash(ticketId) & mask;
+        while (values[slot] != null && keys[slot] != ticketId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Backward-shift deletion keeps probe sequences intact without tombstones
+    private void deleteSlot(int slot) {
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (values[next] != null) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[hole] = null;
+        indexed--;
+    }
+
+    // Drops the ids whose tickets have all been bought before deciding whether to grow, and leaves
+    // the table at most a quarter full so the next rehash is as far off as the table is large
+    private void rehash() {
+        int[] oldKeys = keys;
+        Node[] oldValues = values;
+        int live = 0;
+        for (int i = 0; i < oldValues.length; i++) {
+            oldValues[i] = firstUnsold(oldValues[i]);
+            if (oldValues[i] != null) {
+                live++;
+            }
+        }
+        int size = oldKeys.length;
+        while (live * 4 > size) {
+            size *= 2;
+        }
+        keys = new int[size];
+        values = new Node[size];
+        mask = size - 1;
+        indexed = live;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int hash(int ticketId) {
+        int h = ticketId * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void signalNotEmpty() {
+        metrics.acquire(takeLock);
+        try {
+            queueEmpty.signal();
+        } finally {
+            takeLock.unlock();
+        }
+    }
+
+    private void signalNotFull() {
+        metrics.acquire(putLock);
+        try {
+            queueFull.signal();
+        } finally {
+            putLock.unlock();
+        }
+    }
+
+    private static final class Node {
+
+        private final int ticketId;
+        // Cleared once the ticket is bought
+        private Ticket ticket;
+        private Node next;
+        private Node prev;
+        // Chain of nodes with the same id in arrival order; lastSameId is kept on the chain's head
+        private Node nextSameId;
+        private Node lastSameId;
+
+        Node(Ticket ticket) {
+            this.ticket = ticket;
+            this.ticketId = ticket == null ? 0 : ticket.getTicketId();
+        }
+    }
+}
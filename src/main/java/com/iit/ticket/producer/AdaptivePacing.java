@@ -0,0 +1,118 @@
+package com.iit.ticket.producer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AIMD rate control for a producer. Once per control period the rate either climbs by a fixed
+ * step, while the pool sits below its target occupancy band, or is cut by a factor if anything
+ * during the period showed congestion: the pool above the band, an add that had to wait for
+ * space, or a non-blocking add that was turned away. Producers settle at the rate consumers
+ * actually buy at, so they wait in their pacer rather than parking on a full pool or dropping
+ * tickets.
+ */
+public class AdaptivePacing {
+
+    public static final double DEFAULT_LOW_OCCUPANCY = 0.25;
+    public static final double DEFAULT_HIGH_OCCUPANCY = 0.75;
+    public static final double DEFAULT_DECREASE_FACTOR = 0.5;
+
+    private static final long PERIOD_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+    // Longer than an uncontended add ever takes, so only a real wait for space counts
+    private static final long WAIT_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final int capacity;
+    private final double minRate;
+    private final double maxRate;
+    private double lowOccupancy = DEFAULT_LOW_OCCUPANCY;
+    private double highOccupancy = DEFAULT_HIGH_OCCUPANCY;
+    private double increaseStep;
+    private double decreaseFactor = DEFAULT_DECREASE_FACTOR;
+
+    private double rate;
+    private long periodStartNanos = System.nanoTime();
+    private boolean congested;
+    private long decreases;
+
+    public AdaptivePacing(int capacity, double minRate, double maxRate) {
+        if (capacity <= 0 || minRate <= 0 || maxRate < minRate) {
+            throw new IllegalArgumentException("Need capacity > 0 and 0 < minRate <= maxRate");
+        }
+        this.capacity = capacity;
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        // By default the whole range is climbed in about a hundred periods, two seconds
+        this.increaseStep = Math.max(1, (maxRate - minRate) / 100);
+        this.rate = minRate;
+    }
+
+    public synchronized void setTargetOccupancy(double low, double high) {
+        if (low < 0 || high > 1 || low >= high) {
+            throw new IllegalArgumentException("Need 0 <= low < high <= 1");
+        }
+        this.lowOccupancy = low;
+        this.highOccupancy = high;
+    }
+
+    public synchronized void setIncreaseStep(double increaseStep) {
+        if (increaseStep <= 0) {
+            throw new IllegalArgumentException("Increase step must be greater than 0");
+        }
+        this.increaseStep = increaseStep;
+    }
+
+    public synchronized void setDecreaseFactor(double decreaseFactor) {
+        if (decreaseFactor <= 0 || decreaseFactor >= 1) {
+            throw new IllegalArgumentException("Decrease factor must be between 0 and 1");
+        }
+        this.decreaseFactor = decreaseFactor;
+    }
+
+    // Restarts control from the given rate, kept within the limits
+    public synchronized double reset(double startRate) {
+        rate = Math.max(minRate, Math.min(maxRate, startRate));
+        periodStartNanos = System.nanoTime();
+        congested = false;
+        return rate;
+    }
+
+    // Feeds one add attempt; returns true when the period closed with a new rate
+    public synchronized boolean update(long nowNanos, long waitNanos, boolean accepted, int availableTickets) {
+        double occupancy = (double) availableTickets / capacity;
+        if (!accepted || waitNanos > WAIT_THRESHOLD_NANOS || occupancy > highOccupancy) {
+            congested = true;
+        }
+        if (nowNanos - periodStartNanos < PERIOD_NANOS) {
+            return false;
+        }
+        periodStartNanos = nowNanos;
+        double next = rate;
+        if (congested) {
+            next = Math.max(minRate, rate * decreaseFactor);
+            decreases++;
+        } else if (occupancy < lowOccupancy) {
+            next = Math.min(maxRate, rate + increaseStep);
+        }
+        congested = false;
+        if (next == rate) {
+            return false;
+        }
+        rate = next;
+        return true;
+    }
+
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    public double getMinRate() {
+        return minRate;
+    }
+
+    public double getMaxRate() {
+        return maxRate;
+    }
+
+    public synchronized long getDecreases() {
+        return decreases;
+    }
+}
@@ -2,16 +2,24 @@ package com.iit.ticket.producer;
 
 import com.iit.ticket.model.Ticket;
 import com.iit.ticket.pool.TicketPool;
+import com.iit.ticket.util.EventLog;
 import com.iit.ticket.util.PoolEntity;
+import com.iit.ticket.util.TicketRecycler;
+import com.iit.ticket.util.TokenBucket;
 
-import java.util.Random;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class Producer implements PoolEntity {
 
     private final TicketPool ticketPool;
     private final int id;
-    Random random = new Random();
-    private int rate;
+    private final TokenBucket pacer = new TokenBucket(0);
+    private volatile double rate;
+    private volatile int batchSize = 1;
+    private volatile TicketRecycler recycler;
+    private volatile AdaptivePacing adaptivePacing;
     private volatile boolean running;
 
     public Producer(TicketPool ticketPool, int id) {
@@ -22,31 +30,125 @@ public class Producer implements PoolEntity {
 
     @Override
     public void run() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Ticket> batch = new ArrayList<>();
         try {
             while (running) {
-                Ticket ticket = new Ticket(random.nextInt(1000), random.nextDouble(5000.00f));
-                ticketPool.addTicket(ticket);
-//                UtilMethods.debug("Ticket Producer "+ id + " added a Ticket. No: " + ticket.getTicketId());
-                if (rate > 0) {
-                    Thread.sleep(1000 / rate);
+                pacer.acquire();
+                AdaptivePacing pacing = this.adaptivePacing;
+                long start = pacing != null ? System.nanoTime() : 0;
+                if (batchSize > 1) {
+                    batch.clear();
+                    for (int i = 0; i < batchSize; i++) {
+                        batch.add(createTicket(random));
+                    }
+                    ticketPool.addTickets(batch);
                 } else {
-                    Thread.sleep(1000);
+                    Ticket ticket = createTicket(random);
+                    ticketPool.addTicket(ticket);
+                }
+                if (pacing != null) {
+                    adapt(pacing, System.nanoTime() - start, true);
                 }
+//                UtilMethods.debug("Ticket Producer "+ id + " added a Ticket. No: " + ticket.getTicketId());
             }
         } catch (InterruptedException e) {
-            System.out.println("Producer " + id + " thread interrupted");
+            EventLog.global().entityInterrupted("Producer", id);
         }
 
     }
 
+    // A full pool turns the rest of the batch away instead of waiting; the token is spent either way
     @Override
-    public int getRate() {
+    public boolean step() {
+        if (!running) {
+            return false;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int size = batchSize;
+        boolean accepted = true;
+        for (int i = 0; i < size && accepted; i++) {
+            Ticket ticket = createTicket(random);
+            accepted = ticketPool.tryAddTicket(ticket);
+            if (!accepted) {
+                release(ticket);
+            }
+        }
+        AdaptivePacing pacing = this.adaptivePacing;
+        if (pacing != null) {
+            adapt(pacing, 0, accepted);
+        }
+        return running;
+    }
+
+    // Lets the adaptive pacing see how the last add went and moves the pacer to its new rate
+    private void adapt(AdaptivePacing pacing, long waitNanos, boolean accepted) {
+        if (pacing.update(System.nanoTime(), waitNanos, accepted, ticketPool.getAvailableTickets())) {
+            applyRate(pacing.getRate());
+        }
+    }
+
+    private Ticket createTicket(ThreadLocalRandom random) {
+        int ticketId = random.nextInt(1000);
+        double ticketPrice = random.nextDouble(5000.00);
+        TicketRecycler ticketRecycler = this.recycler;
+        if (ticketRecycler != null) {
+            return ticketRecycler.acquire(ticketId, ticketPrice);
+        }
+        return new Ticket(ticketId, ticketPrice);
+    }
+
+    private void release(Ticket ticket) {
+        TicketRecycler ticketRecycler = this.recycler;
+        if (ticketRecycler != null) {
+            ticketRecycler.release(ticket);
+        }
+    }
+
+    @Override
+    public double getRate() {
         return this.rate;
     }
 
+    // With adaptive pacing on, the rate is where control restarts from
     @Override
-    public void setRate(int rate) {
+    public void setRate(double rate) {
+        AdaptivePacing pacing = this.adaptivePacing;
+        applyRate(pacing != null ? pacing.reset(rate) : rate);
+    }
+
+    private void applyRate(double rate) {
         this.rate = rate;
+        pacer.setRate(rate);
+    }
+
+    public AdaptivePacing getAdaptivePacing() {
+        return this.adaptivePacing;
+    }
+
+    // null goes back to the fixed rate, which stays where adaptation left it
+    public void setAdaptivePacing(AdaptivePacing adaptivePacing) {
+        this.adaptivePacing = adaptivePacing;
+        if (adaptivePacing != null) {
+            applyRate(adaptivePacing.reset(rate));
+        }
+    }
+
+    @Override
+    public TokenBucket getPacer() {
+        return this.pacer;
+    }
+
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public void setRecycler(TicketRecycler recycler) {
+        this.recycler = recycler;
     }
 
     @Override
@@ -1,14 +1,19 @@
 package com.iit.ticket.reader;
 
+import com.iit.ticket.model.PoolStats;
 import com.iit.ticket.pool.TicketPool;
+import com.iit.ticket.util.EventLog;
 import com.iit.ticket.util.PoolEntity;
+import com.iit.ticket.util.TokenBucket;
 
 public class Reader implements PoolEntity {
 
     private final TicketPool ticketPool;
     private final int readerId;
-    private int rate;
+    private final TokenBucket pacer = new TokenBucket(0);
+    private volatile double rate;
     private volatile boolean running;
+    private volatile long reads;
 
     public Reader(TicketPool ticketPool, int readerId) {
         this.ticketPool = ticketPool;
@@ -20,41 +25,58 @@ public class Reader implements PoolEntity {
     public void run() {
         try {
             while (running) {
-                StringBuilder builder = new StringBuilder();
-                builder.append("Reader ")
-                        .append(readerId)
-                        .append(" - Total Number of Tickets ")
-                        .append(ticketPool.getTotalTickets())
-                        .append("\n")
-                        .append("Reader ")
-                        .append(readerId)
-                        .append(" - Total Number of Available Tickets ")
-                        .append(ticketPool.getAvailableTickets())
-                        .append("\n")
-                        .append("Reader ")
-                        .append(readerId)
-                        .append(" - Total Number of Sold Tickets ")
-                        .append(ticketPool.getSoldTickets());
-//                UtilMethods.debug(builder.toString());
-                if (rate > 0) {
-                    Thread.sleep(1000 / rate);
-                } else {
-                    Thread.sleep(1000);
-                }
+                pacer.acquire();
+                step();
             }
         } catch (InterruptedException e) {
-            System.out.println("Reader " + readerId + " interrupted.");
+            EventLog.global().entityInterrupted("Reader", readerId);
         }
     }
 
     @Override
-    public int getRate() {
+    public boolean step() {
+        if (!running) {
+            return false;
+        }
+        PoolStats stats = ticketPool.getStats();
+        StringBuilder builder = new StringBuilder();
+        builder.append("Reader ")
+                .append(readerId)
+                .append(" - Total Number of Tickets ")
+                .append(stats.getTotalTickets())
+                .append("\n")
+                .append("Reader ")
+                .append(readerId)
+                .append(" - Total Number of Available Tickets ")
+                .append(stats.getAvailableTickets())
+                .append("\n")
+                .append("Reader ")
+                .append(readerId)
+                .append(" - Total Number of Sold Tickets ")
+                .append(stats.getSoldTickets());
+//        UtilMethods.debug(builder.toString());
+        reads++;
+        return running;
+    }
+
+    public long getReads() {
+        return this.reads;
+    }
+
+    @Override
+    public double getRate() {
         return this.rate;
     }
 
     @Override
-    public void setRate(int rate) {
+    public void setRate(double rate) {
         this.rate = rate;
+        pacer.setRate(rate);
+    }
+
+    @Override
+    public TokenBucket getPacer() {
+        return this.pacer;
     }
 
     @Override
@@ -0,0 +1,326 @@
+package com.iit.ticket.scaling;
+
+import com.iit.ticket.metrics.PoolMetrics;
+import com.iit.ticket.model.PoolStats;
+import com.iit.ticket.pool.TicketPool;
+import com.iit.ticket.util.EventLog;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Grows and shrinks the producers and consumers of a pool to hit a sales target, one entity per
+ * interval. Sales below target add a producer when the pool runs nearly empty or consumers spend
+ * most of their time waiting for tickets, and a consumer otherwise; sales above target remove a
+ * consumer, and a pool backing up on target removes a producer. Every add is judged over the next
+ * interval: if sales fell, or what the new entity drives (tickets added for a producer, sales the
+ * producers can sustain for a consumer) rose by less than half of one entity's share, the add is
+ * undone and that entity count becomes a ceiling, which is how the knee shows up. A ceiling only
+ * holds until the other side grows. A target of 0 means no target at all, so the scaler keeps
+ * adding until it finds the knee.
+ *
+ * Each interval is recorded as a {@link ScalingSample}, kept in memory and optionally written as
+ * CSV so the decisions and their effect can be plotted over time.
+ */
+public class AutoScaler {
+
+    public enum Action { NONE, ADD_PRODUCER, REMOVE_PRODUCER, ADD_CONSUMER, REMOVE_CONSUMER }
+
+    private static final int HISTORY_LIMIT = 10_000;
+    // A waiting share above this means the other side of the pool is the bottleneck
+    private static final double WAIT_SHARE_LIMIT = 0.5;
+
+    private final TicketPool pool;
+    private final int capacity;
+    private final ScalingTarget target;
+    private final Deque<ScalingSample> history = new ArrayDeque<>();
+    private volatile double targetRate;
+    private volatile long intervalMillis = 1000;
+    private volatile double tolerance = 0.05;
+    private volatile double lowOccupancy = 0.1;
+    private volatile double highOccupancy = 0.9;
+    private volatile int maxProducers = 64;
+    private volatile int maxConsumers = 64;
+    private volatile Writer series;
+    private volatile boolean running;
+    private Thread thread;
+
+    // Only touched by evaluate()
+    private long startNanos;
+    private long lastNanos;
+    private PoolStats lastStats;
+    private long lastEmptyWaitNanos;
+    private long lastFullWaitNanos;
+    private Action pendingAction = Action.NONE;
+    private double salesBeforeAction;
+    private double addsBeforeAction;
+    private int producerCeiling = Integer.MAX_VALUE;
+    private int consumerCeiling = Integer.MAX_VALUE;
+
+    public AutoScaler(TicketPool pool, int capacity, ScalingTarget target) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be greater than 0");
+        }
+        this.pool = pool;
+        this.capacity = capacity;
+        this.target = target;
+    }
+
+    // Purchases per second to aim for; 0 searches for the knee instead
+    public void setTargetRate(double targetRate) {
+        this.targetRate = Math.max(0, targetRate);
+        synchronized (this) {
+            producerCeiling = Integer.MAX_VALUE;
+            consumerCeiling = Integer.MAX_VALUE;
+        }
+    }
+
+    public double getTargetRate() {
+        return targetRate;
+    }
+
+    public void setIntervalMillis(long intervalMillis) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("Interval must be greater than 0");
+        }
+        this.intervalMillis = intervalMillis;
+    }
+
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    public void setTargetOccupancy(double low, double high) {
+        if (low < 0 || high > 1 || low >= high) {
+            throw new IllegalArgumentException("Need 0 <= low < high <= 1");
+        }
+        this.lowOccupancy = low;
+        this.highOccupancy = high;
+    }
+
+    public void setLimits(int maxProducers, int maxConsumers) {
+        if (maxProducers < 1 || maxConsumers < 1) {
+            throw new IllegalArgumentException("Limits must be at least 1");
+        }
+        this.maxProducers = maxProducers;
+        this.maxConsumers = maxConsumers;
+    }
+
+    // Every sample is also written to this as a CSV line; the caller owns and closes it
+    public void setSeries(Writer series) throws IOException {
+        if (series != null) {
+            series.write(ScalingSample.CSV_HEADER + System.lineSeparator());
+            series.flush();
+        }
+        this.series = series;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        startNanos = System.nanoTime();
+        lastNanos = startNanos;
+        lastStats = pool.getStats();
+        lastEmptyWaitNanos = pool.getMetrics().getEmptyWaits().snapshot().getTotalNanos();
+        lastFullWaitNanos = pool.getMetrics().getFullWaits().snapshot().getTotalNanos();
+        pendingAction = Action.NONE;
+        running = true;
+        thread = new Thread(this::run, "AutoScaler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() throws InterruptedException {
+        Thread scaler;
+        synchronized (this) {
+            running = false;
+            scaler = thread;
+            thread = null;
+        }
+        if (scaler != null) {
+            scaler.interrupt();
+            scaler.join();
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public synchronized int getProducerCeiling() {
+        return producerCeiling;
+    }
+
+    public synchronized int getConsumerCeiling() {
+        return consumerCeiling;
+    }
+
+    public List<ScalingSample> getHistory() {
+        synchronized (history) {
+            return new ArrayList<>(history);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Thread.sleep(intervalMillis);
+            } catch (InterruptedException e) {
+                // stop() interrupts the sleep; the loop condition decides whether to exit
+                continue;
+            }
+            try {
+                evaluate();
+            } catch (RuntimeException e) {
+                EventLog.global().warn("Auto-scaling step failed: " + e);
+            }
+        }
+    }
+
+    private synchronized void evaluate() {
+        if (!running) {
+            return;
+        }
+        long now = System.nanoTime();
+        PoolStats stats = pool.getStats();
+        PoolMetrics metrics = pool.getMetrics();
+        long emptyWaitNanos = metrics.getEmptyWaits().snapshot().getTotalNanos();
+        long fullWaitNanos = metrics.getFullWaits().snapshot().getTotalNanos();
+        double seconds = (now - lastNanos) / 1e9;
+        int producers = target.getProducers();
+        int consumers = target.getConsumers();
+
+        // A metrics reset in between makes the wait deltas negative; count them as no waiting
+        double soldRate = Math.max(0, stats.getSoldTickets() - lastStats.getSoldTickets()) / seconds;
+        double addRate = Math.max(0, stats.getTotalTickets() - lastStats.getTotalTickets()) / seconds;
+        double occupancy = (double) stats.getAvailableTickets() / capacity;
+        double consumerWait = waitShare(emptyWaitNanos - lastEmptyWaitNanos, seconds, consumers);
+        double producerWait = waitShare(fullWaitNanos - lastFullWaitNanos, seconds, producers);
+        lastNanos = now;
+        lastStats = stats;
+        lastEmptyWaitNanos = emptyWaitNanos;
+        lastFullWaitNanos = fullWaitNanos;
+
+        Action action = Action.NONE;
+        String reason = "";
+        double effect = Double.NaN;
+        if (pendingAction != Action.NONE) {
+            effect = soldRate - salesBeforeAction;
+            // Sales drawn from stock the producers cannot replace do not count for a consumer
+            if (pendingAction == Action.ADD_CONSUMER) {
+                reason = judgeAdd("consumer", consumers, soldRate, Math.min(soldRate, addRate),
+                        Math.min(salesBeforeAction, addsBeforeAction));
+                if (!reason.isEmpty()) {
+                    action = Action.REMOVE_CONSUMER;
+                    consumerCeiling = consumers - 1;
+                } else {
+                    producerCeiling = Integer.MAX_VALUE;
+                }
+            } else if (pendingAction == Action.ADD_PRODUCER) {
+                reason = judgeAdd("producer", producers, soldRate, addRate, addsBeforeAction);
+                if (!reason.isEmpty()) {
+                    action = Action.REMOVE_PRODUCER;
+                    producerCeiling = producers - 1;
+                } else {
+                    consumerCeiling = Integer.MAX_VALUE;
+                }
+            }
+        }
+        if (action == Action.NONE) {
+            double goal = targetRate > 0 ? targetRate : Double.POSITIVE_INFINITY;
+            if (soldRate < goal * (1 - tolerance)) {
+                String shortfall = targetRate > 0
+                        ? String.format(Locale.ROOT, "sales %.1f/s below target %.1f/s", soldRate, targetRate)
+                        : String.format(Locale.ROOT, "sales %.1f/s, looking for the knee", soldRate);
+                if (occupancy < lowOccupancy || consumerWait > WAIT_SHARE_LIMIT) {
+                    if (producers < Math.min(maxProducers, producerCeiling)) {
+                        action = Action.ADD_PRODUCER;
+                        reason = shortfall + ", pool running dry";
+                    } else {
+                        reason = shortfall + ", at " + producers + " producers, the most that helps";
+                    }
+                } else if (consumers < Math.min(maxConsumers, consumerCeiling)) {
+                    action = Action.ADD_CONSUMER;
+                    reason = shortfall + ", tickets waiting";
+                } else {
+                    reason = shortfall + ", at " + consumers + " consumers, the most that helps";
+                }
+            } else if (targetRate > 0 && soldRate > targetRate * (1 + tolerance) && consumers > 1) {
+                action = Action.REMOVE_CONSUMER;
+                reason = String.format(Locale.ROOT, "sales %.1f/s above target %.1f/s", soldRate, targetRate);
+            } else if (occupancy > highOccupancy && producers > 1) {
+                action = Action.REMOVE_PRODUCER;
+                reason = String.format(Locale.ROOT, "pool %.0f%% full, producers waiting %.0f%% of the time",
+                        occupancy * 100, producerWait * 100);
+            }
+        }
+
+        switch (action) {
+            case ADD_PRODUCER:
+                target.addProducer();
+                break;
+            case REMOVE_PRODUCER:
+                target.removeProducer();
+                break;
+            case ADD_CONSUMER:
+                target.addConsumer();
+                break;
+            case REMOVE_CONSUMER:
+                target.removeConsumer();
+                break;
+            default:
+                break;
+        }
+        pendingAction = action;
+        salesBeforeAction = soldRate;
+        addsBeforeAction = addRate;
+
+        record(new ScalingSample((now - startNanos) / 1e9, producers, consumers, stats.getAvailableTickets(),
+                occupancy, addRate, soldRate, consumerWait, producerWait, action, effect, reason));
+    }
+
+    // Returns why the last add should be undone, or an empty string if it paid off
+    private String judgeAdd(String kind, int count, double soldRate, double driven, double drivenBefore) {
+        if (soldRate < salesBeforeAction * (1 - tolerance)) {
+            return String.format(Locale.ROOT, "knee: sales fell from %.1f/s to %.1f/s at %d %ss",
+                    salesBeforeAction, soldRate, count, kind);
+        }
+        double share = drivenBefore / Math.max(1, count - 1);
+        if (driven - drivenBefore < share / 2) {
+            return String.format(Locale.ROOT, "knee: %s %d added only %.1f/s", kind, count, driven - drivenBefore);
+        }
+        return "";
+    }
+
+    private void record(ScalingSample sample) {
+        synchronized (history) {
+            if (history.size() == HISTORY_LIMIT) {
+                history.removeFirst();
+            }
+            history.addLast(sample);
+        }
+        Writer out = series;
+        if (out != null) {
+            try {
+                out.write(sample.toCsv() + System.lineSeparator());
+                out.flush();
+            } catch (IOException e) {
+                EventLog.global().warn("Could not write auto-scaling series: " + e.getMessage());
+                series = null;
+            }
+        }
+    }
+
+    private static double waitShare(long waitNanos, double seconds, int entities) {
+        if (entities == 0 || waitNanos <= 0) {
+            return 0;
+        }
+        return Math.min(1, waitNanos / (seconds * 1e9 * entities));
+    }
+}
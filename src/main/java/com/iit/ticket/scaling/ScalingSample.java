@@ -0,0 +1,107 @@
+package com.iit.ticket.scaling;
+
+import java.util.Locale;
+
+// One row of the auto-scaler's time series: what the pool did over an interval and what was decided
+public final class ScalingSample {
+
+    public static final String CSV_HEADER = "seconds,producers,consumers,available,occupancy,addsPerSecond,"
+            + "soldPerSecond,consumerWaitShare,producerWaitShare,action,effectPerSecond,reason";
+
+    private final double seconds;
+    private final int producers;
+    private final int consumers;
+    private final int available;
+    private final double occupancy;
+    private final double addsPerSecond;
+    private final double soldPerSecond;
+    private final double consumerWaitShare;
+    private final double producerWaitShare;
+    private final AutoScaler.Action action;
+    private final double effect;
+    private final String reason;
+
+    ScalingSample(double seconds, int producers, int consumers, int available, double occupancy,
+                  double addsPerSecond, double soldPerSecond, double consumerWaitShare, double producerWaitShare,
+                  AutoScaler.Action action, double effect, String reason) {
+        this.seconds = seconds;
+        this.producers = producers;
+        this.consumers = consumers;
+        this.available = available;
+        this.occupancy = occupancy;
+        this.addsPerSecond = addsPerSecond;
+        this.soldPerSecond = soldPerSecond;
+        this.consumerWaitShare = consumerWaitShare;
+        this.producerWaitShare = producerWaitShare;
+        this.action = action;
+        this.effect = effect;
+        this.reason = reason;
+    }
+
+    // Seconds since the auto-scaler started, at the end of the interval
+    public double getSeconds() {
+        return seconds;
+    }
+
+    // Entity counts during the interval, before this sample's action
+    public int getProducers() {
+        return producers;
+    }
+
+    public int getConsumers() {
+        return consumers;
+    }
+
+    public int getAvailable() {
+        return available;
+    }
+
+    public double getOccupancy() {
+        return occupancy;
+    }
+
+    public double getAddsPerSecond() {
+        return addsPerSecond;
+    }
+
+    public double getSoldPerSecond() {
+        return soldPerSecond;
+    }
+
+    // Share of the consumers' time spent waiting on an empty pool, 0 to 1
+    public double getConsumerWaitShare() {
+        return consumerWaitShare;
+    }
+
+    // Share of the producers' time spent waiting on a full pool, 0 to 1
+    public double getProducerWaitShare() {
+        return producerWaitShare;
+    }
+
+    public AutoScaler.Action getAction() {
+        return action;
+    }
+
+    // Change in sales since the previous interval's action, NaN when there was none
+    public double getEffect() {
+        return effect;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public String toCsv() {
+        return String.format(Locale.ROOT, "%.3f,%d,%d,%d,%.3f,%.1f,%.1f,%.3f,%.3f,%s,%s,\"%s\"",
+                seconds, producers, consumers, available, occupancy, addsPerSecond, soldPerSecond,
+                consumerWaitShare, producerWaitShare, action,
+                Double.isNaN(effect) ? "" : String.format(Locale.ROOT, "%.1f", effect), reason.replace('"', '\''));
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%7.1fs  P=%-3d C=%-3d avail=%-6d sold/s=%-9.1f cWait=%.2f pWait=%.2f  %-15s %s",
+                seconds, producers, consumers, available, soldPerSecond, consumerWaitShare, producerWaitShare,
+                action, reason);
+    }
+}
@@ -0,0 +1,17 @@
+package com.iit.ticket.scaling;
+
+// The entities an AutoScaler may grow and shrink; removals take the most recently added one
+public interface ScalingTarget {
+
+    int getProducers();
+
+    int getConsumers();
+
+    void addProducer();
+
+    void removeProducer();
+
+    void addConsumer();
+
+    void removeConsumer();
+}
@@ -0,0 +1,64 @@
+package com.iit.ticket.scenario;
+
+import com.iit.ticket.consumer.Consumer;
+import com.iit.ticket.pool.TicketPool;
+import com.iit.ticket.producer.Producer;
+import com.iit.ticket.reader.Reader;
+import com.iit.ticket.util.PoolEntity;
+import com.iit.ticket.writer.Writer;
+
+// The four entity types a scenario can run, with the keys that configure them in a phase
+public enum EntityKind {
+
+    PRODUCER("producers", "producerRate", "Producer"),
+    CONSUMER("consumers", "consumerRate", "Consumer"),
+    READER("readers", "readerRate", "Reader"),
+    WRITER("writers", "writerRate", "Writer");
+
+    private final String countKey;
+    private final String rateKey;
+    private final String threadPrefix;
+
+    EntityKind(String countKey, String rateKey, String threadPrefix) {
+        this.countKey = countKey;
+        this.rateKey = rateKey;
+        this.threadPrefix = threadPrefix;
+    }
+
+    public String getCountKey() {
+        return countKey;
+    }
+
+    public String getRateKey() {
+        return rateKey;
+    }
+
+    public String getThreadName(int id) {
+        return threadPrefix + "-" + id;
+    }
+
+    public PoolEntity create(TicketPool pool, int id) {
+        switch (this) {
+            case PRODUCER:
+                return new Producer(pool, id);
+            case CONSUMER:
+                return new Consumer(pool, id);
+            case READER:
+                return new Reader(pool, id);
+            default:
+                return new Writer(pool, id);
+        }
+    }
+
+    // Reads and price updates done by an entity so far; adds and sales are counted by the pool
+    public long getOperations(PoolEntity entity) {
+        switch (this) {
+            case READER:
+                return ((Reader) entity).getReads();
+            case WRITER:
+                return ((Writer) entity).getUpdatedTickets();
+            default:
+                return 0;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.iit.ticket.scenario;
+
+import com.iit.ticket.pool.PoolType;
+import com.iit.ticket.util.EventLog;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * A repeatable load run, read from a properties file. Properties files have no trailing comments,
+ * so notes go on lines of their own. Example:
+ *
+ * <pre>
+ * name=nightly
+ * # all, or a list such as ReentrantLock,StampedLock
+ * pools=all
+ * capacity=1000
+ * # platform, virtual or scheduled
+ * threadMode=platform
+ * # time one add/purchase in this many
+ * samplingInterval=8
+ * logLevel=OFF
+ * phases=warmup,steady
+ * warmup.duration=5s
+ * # new entities are started evenly over this time
+ * warmup.rampUp=2s
+ * warmup.producers=4
+ * warmup.producerRate=1000
+ * warmup.consumers=4
+ * warmup.consumerRate=1000
+ * # anything not set carries over from the previous phase
+ * steady.duration=30s
+ * steady.consumers=8
+ * </pre>
+ *
+ * The pools are those of {@link PoolType}. The journaled and reservable pools wrap one of those
+ * rather than standing alone and need a journal file or a timer thread per instance, so they are
+ * not part of {@code all} and cannot be named here.
+ *
+ * Each phase sets how many entities of each kind run and at what rate; a phase with fewer
+ * entities than the last stops the surplus at its start.
+ */
+public class Scenario {
+
+    public enum ThreadMode { PLATFORM, VIRTUAL, SCHEDULED }
+
+    private final String name;
+    private final List<PoolType> pools;
+    private final int capacity;
+    private final ThreadMode threadMode;
+    private final int samplingInterval;
+    private final EventLog.Level logLevel;
+    private final List<Phase> phases;
+
+    private Scenario(Properties properties) {
+        this.name = properties.getProperty("name", "scenario");
+        this.pools = parsePools(properties.getProperty("pools", "all"));
+        this.capacity = parseInt(properties, "capacity", 1000);
+        this.threadMode = parseEnum(ThreadMode.class, properties.getProperty("threadMode", "platform"));
+        this.samplingInterval = parseInt(properties, "samplingInterval", 8);
+        this.logLevel = parseEnum(EventLog.Level.class, properties.getProperty("logLevel", "OFF"));
+        if (capacity <= 0 || samplingInterval <= 0) {
+            throw new IllegalArgumentException("capacity and samplingInterval must be greater than 0");
+        }
+
+        String phaseNames = properties.getProperty("phases");
+        if (phaseNames == null || phaseNames.isBlank()) {
+            throw new IllegalArgumentException("A scenario needs at least one phase");
+        }
+        List<Phase> parsed = new ArrayList<>();
+        Phase previous = null;
+        for (String phaseName : phaseNames.split(",")) {
+            previous = new Phase(phaseName.trim(), properties, previous);
+            parsed.add(previous);
+        }
+        this.phases = Collections.unmodifiableList(parsed);
+    }
+
+    public static Scenario load(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file)) {
+            return load(reader);
+        }
+    }
+
+    public static Scenario load(Reader reader) throws IOException {
+        Properties properties = new Properties();
+        properties.load(reader);
+        return new Scenario(properties);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<PoolType> getPools() {
+        return pools;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public ThreadMode getThreadMode() {
+        return threadMode;
+    }
+
+    public int getSamplingInterval() {
+        return samplingInterval;
+    }
+
+    public EventLog.Level getLogLevel() {
+        return logLevel;
+    }
+
+    public List<Phase> getPhases() {
+        return phases;
+    }
+
+    private static List<PoolType> parsePools(String value) {
+        if (value.trim().equalsIgnoreCase("all")) {
+            return List.of(PoolType.values());
+        }
+        List<PoolType> pools = new ArrayList<>();
+        for (String label : value.split(",")) {
+            pools.add(PoolType.fromLabel(label.trim()));
+        }
+        return Collections.unmodifiableList(pools);
+    }
+
+    private static int parseInt(Properties properties, String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value) {
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown " + type.getSimpleName() + ": " + value.trim());
+        }
+    }
+
+    // Accepts 250ms, 5s or 2m; a bare number is seconds
+    static long parseMillis(String value) {
+        String text = value.trim().toLowerCase(Locale.ROOT);
+        if (text.endsWith("ms")) {
+            return Long.parseLong(text.substring(0, text.length() - 2).trim());
+        }
+        if (text.endsWith("s")) {
+            return Math.round(Double.parseDouble(text.substring(0, text.length() - 1).trim()) * 1000);
+        }
+        if (text.endsWith("m")) {
+            return Math.round(Double.parseDouble(text.substring(0, text.length() - 1).trim()) * 60_000);
+        }
+        return Math.round(Double.parseDouble(text) * 1000);
+    }
+
+    public static final class Phase {
+
+        private final String name;
+        private final long durationMillis;
+        private final long rampUpMillis;
+        private final Map<EntityKind, Integer> counts = new EnumMap<>(EntityKind.class);
+        private final Map<EntityKind, Double> rates = new EnumMap<>(EntityKind.class);
+
+        private Phase(String name, Properties properties, Phase previous) {
+            this.name = name;
+            String duration = properties.getProperty(name + ".duration");
+            if (duration == null) {
+                throw new IllegalArgumentException("Phase " + name + " has no duration");
+            }
+            this.durationMillis = parseMillis(duration);
+            this.rampUpMillis = Math.min(durationMillis, parseMillis(properties.getProperty(name + ".rampUp", "0")));
+            for (EntityKind kind : EntityKind.values()) {
+                String count = properties.getProperty(name + "." + kind.getCountKey());
+                String rate = properties.getProperty(name + "." + kind.getRateKey());
+                counts.put(kind, count != null ? Integer.parseInt(count.trim()) : previous != null ? previous.getCount(kind) : 0);
+                rates.put(kind, rate != null ? Double.parseDouble(rate.trim()) : previous != null ? previous.getRate(kind) : 0);
+                if (counts.get(kind) < 0) {
+                    throw new IllegalArgumentException("Phase " + name + " has a negative " + kind.getCountKey() + " count");
+                }
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public long getRampUpMillis() {
+            return rampUpMillis;
+        }
+
+        public int getCount(EntityKind kind) {
+            return counts.get(kind);
+        }
+
+        // 0 leaves the entity at its default rate, as in the interactive menus
+        public double getRate(EntityKind kind) {
+            return rates.get(kind);
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.iit.ticket.scenario;
+
+import com.iit.ticket.metrics.LatencyHistogram;
+import com.iit.ticket.metrics.PoolMetrics;
+import com.iit.ticket.model.PoolStats;
+import com.iit.ticket.pool.PoolType;
+import com.iit.ticket.pool.TicketPool;
+import com.iit.ticket.util.EventLog;
+import com.iit.ticket.util.PoolEntity;
+import com.iit.ticket.util.RateScheduler;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a {@link Scenario} without any menus: for each pool in the scenario it builds a fresh pool,
+ * walks through the phases starting, re-rating and stopping entities, and measures every phase
+ * separately. The result is a JSON report with throughput, add/purchase latency percentiles,
+ * wait and contention figures per phase, and the final counters of each pool. In scheduled mode
+ * the entities only use the non-blocking pool operations, so the latency and wait sections stay
+ * empty and throughput is the figure to compare.
+ *
+ * Usage: {@code java com.iit.ticket.scenario.ScenarioRunner <scenario.properties> [report.json]};
+ * the report goes to standard output when no file is given, and progress to standard error.
+ */
+public class ScenarioRunner {
+
+    private static final long STOP_TIMEOUT_MILLIS = 5_000;
+
+    private final Scenario scenario;
+    private final PrintStream progress;
+
+    public ScenarioRunner(Scenario scenario, PrintStream progress) {
+        this.scenario = scenario;
+        this.progress = progress;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: ScenarioRunner <scenario.properties> [report.json]");
+            return;
+        }
+        Scenario scenario = Scenario.load(Paths.get(args[0]));
+        String report = new ScenarioRunner(scenario, System.err).run();
+        if (args.length == 2) {
+            Files.writeString(Paths.get(args[1]), report, StandardCharsets.UTF_8);
+            System.err.println("Report written to " + args[1]);
+        } else {
+            System.out.print(report);
+        }
+    }
+
+    // Runs every pool of the scenario in turn and returns the report
+    public String run() throws InterruptedException {
+        EventLog eventLog = EventLog.global();
+        EventLog.Level previousLevel = eventLog.getLevel();
+        eventLog.setLevel(scenario.getLogLevel());
+        try {
+            StringBuilder report = new StringBuilder();
+            report.append("{\"scenario\":").append(quote(scenario.getName()))
+                    .append(",\"threadMode\":").append(quote(scenario.getThreadMode().name().toLowerCase(Locale.ROOT)))
+                    .append(",\"capacity\":").append(scenario.getCapacity())
+                    .append(",\"samplingInterval\":").append(scenario.getSamplingInterval())
+                    .append(",\"processors\":").append(Runtime.getRuntime().availableProcessors())
+                    .append(",\"javaVersion\":").append(quote(System.getProperty("java.version")))
+                    .append(",\"runs\":[");
+            List<PoolType> pools = scenario.getPools();
+            for (int i = 0; i < pools.size(); i++) {
+                report.append(i == 0 ? "\n" : ",\n");
+                new PoolRun(pools.get(i)).run(report);
+            }
+            report.append("\n]}\n");
+            return report.toString();
+        } finally {
+            eventLog.flush();
+            eventLog.setLevel(previousLevel);
+        }
+    }
+
+    private final class PoolRun {
+
+        private final PoolType poolType;
+        private final TicketPool pool;
+        private final RateScheduler scheduler;
+        private final Map<EntityKind, List<PoolEntity>> entities = new EnumMap<>(EntityKind.class);
+        private final Map<PoolEntity, Thread> threads = new IdentityHashMap<>();
+        // Reads and price updates of entities already stopped, so phase totals survive removals
+        private final Map<EntityKind, Long> retiredOperations = new EnumMap<>(EntityKind.class);
+        private int nextId = 1;
+
+        PoolRun(PoolType poolType) {
+            this.poolType = poolType;
+            this.pool = poolType.create(scenario.getCapacity());
+            this.pool.getMetrics().setSamplingInterval(scenario.getSamplingInterval());
+            this.scheduler = scenario.getThreadMode() == Scenario.ThreadMode.SCHEDULED
+                    ? new RateScheduler(Runtime.getRuntime().availableProcessors()) : null;
+            for (EntityKind kind : EntityKind.values()) {
+                entities.put(kind, new ArrayList<>());
+                retiredOperations.put(kind, 0L);
+            }
+        }
+
+        void run(StringBuilder report) throws InterruptedException {
+            report.append("{\"pool\":").append(quote(poolType.getLabel())).append(",\"phases\":[");
+            try {
+                List<Scenario.Phase> phases = scenario.getPhases();
+                for (int i = 0; i < phases.size(); i++) {
+                    progress.println("Running " + poolType.getLabel() + ", phase " + phases.get(i).getName());
+                    report.append(i == 0 ? "\n" : ",\n");
+                    runPhase(phases.get(i), report);
+                }
+            } finally {
+                stopAll();
+            }
+            PoolStats stats = pool.getStats();
+            report.append("\n],\"final\":{\"available\":").append(stats.getAvailableTickets())
+                    .append(",\"sold\":").append(stats.getSoldTickets())
+                    .append(",\"total\":").append(stats.getTotalTickets())
+                    .append("}}");
+        }
+
+        private void runPhase(Scenario.Phase phase, StringBuilder report) throws InterruptedException {
+            PoolMetrics metrics = pool.getMetrics();
+            metrics.reset();
+            PoolStats before = pool.getStats();
+            long readsBefore = operations(EntityKind.READER);
+            long updatesBefore = operations(EntityKind.WRITER);
+            long start = System.nanoTime();
+
+            // Surplus entities stop and rates change at once; new entities start spread over the ramp-up
+            List<Launch> launches = new ArrayList<>();
+            for (EntityKind kind : EntityKind.values()) {
+                List<PoolEntity> running = entities.get(kind);
+                while (running.size() > phase.getCount(kind)) {
+                    stop(kind, running.remove(running.size() - 1));
+                }
+                for (PoolEntity entity : running) {
+                    entity.setRate(phase.getRate(kind));
+                }
+                int missing = phase.getCount(kind) - running.size();
+                for (int i = 0; i < missing; i++) {
+                    long offset = TimeUnit.MILLISECONDS.toNanos(phase.getRampUpMillis()) * i / missing;
+                    launches.add(new Launch(start + offset, kind));
+                }
+            }
+            launches.sort(Comparator.comparingLong(launch -> launch.atNanos));
+            for (Launch launch : launches) {
+                sleepUntil(launch.atNanos);
+                launch(launch.kind, phase.getRate(launch.kind));
+            }
+            sleepUntil(start + TimeUnit.MILLISECONDS.toNanos(phase.getDurationMillis()));
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+            PoolStats after = pool.getStats();
+            report.append("{\"phase\":").append(quote(phase.getName()))
+                    .append(",\"seconds\":").append(number(seconds));
+            for (EntityKind kind : EntityKind.values()) {
+                report.append(",\"").append(kind.getCountKey()).append("\":").append(entities.get(kind).size());
+            }
+            report.append(",\"addsPerSecond\":").append(number((after.getTotalTickets() - before.getTotalTickets()) / seconds))
+                    .append(",\"purchasesPerSecond\":").append(number((after.getSoldTickets() - before.getSoldTickets()) / seconds))
+                    .append(",\"readsPerSecond\":").append(number((operations(EntityKind.READER) - readsBefore) / seconds))
+                    .append(",\"priceUpdatesPerSecond\":").append(number((operations(EntityKind.WRITER) - updatesBefore) / seconds));
+            appendLatency(report, "add", metrics.getAddCount(), metrics.getAddLatency().snapshot());
+            appendLatency(report, "purchase", metrics.getPurchaseCount(), metrics.getPurchaseLatency().snapshot());
+            appendWaits(report, "fullWaits", metrics.getFullWaits().snapshot());
+            appendWaits(report, "emptyWaits", metrics.getEmptyWaits().snapshot());
+            report.append(",\"lockContentions\":").append(metrics.getLockContentions())
+                    .append(",\"available\":").append(after.getAvailableTickets())
+                    .append("}");
+        }
+
+        private void launch(EntityKind kind, double rate) {
+            int id = nextId++;
+            PoolEntity entity = kind.create(pool, id);
+            entity.setRate(rate);
+            entities.get(kind).add(entity);
+            if (scheduler != null) {
+                scheduler.schedule(entity);
+                return;
+            }
+            Thread thread = scenario.getThreadMode() == Scenario.ThreadMode.VIRTUAL
+                    ? Thread.ofVirtual().name(kind.getThreadName(id)).unstarted(entity)
+                    : new Thread(entity, kind.getThreadName(id));
+            thread.setDaemon(true);
+            threads.put(entity, thread);
+            thread.start();
+        }
+
+        // An entity blocked on a full or empty pool only notices stop() once interrupted, and a
+        // scheduled one only once its next token is due unless it is unscheduled
+        private void stop(EntityKind kind, PoolEntity entity) {
+            entity.stop();
+            if (scheduler != null) {
+                scheduler.unschedule(entity);
+            }
+            Thread thread = threads.remove(entity);
+            if (thread != null) {
+                thread.interrupt();
+            }
+            retiredOperations.merge(kind, kind.getOperations(entity), Long::sum);
+        }
+
+        private void stopAll() throws InterruptedException {
+            List<Thread> stopped = new ArrayList<>(threads.values());
+            for (EntityKind kind : EntityKind.values()) {
+                List<PoolEntity> running = entities.get(kind);
+                while (!running.isEmpty()) {
+                    stop(kind, running.remove(running.size() - 1));
+                }
+            }
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STOP_TIMEOUT_MILLIS);
+            for (Thread thread : stopped) {
+                thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            }
+            if (scheduler != null) {
+                scheduler.shutdown();
+            }
+        }
+
+        private long operations(EntityKind kind) {
+            long total = retiredOperations.get(kind);
+            for (PoolEntity entity : entities.get(kind)) {
+                total += kind.getOperations(entity);
+            }
+            return total;
+        }
+    }
+
+    private static final class Launch {
+
+        private final long atNanos;
+        private final EntityKind kind;
+
+        Launch(long atNanos, EntityKind kind) {
+            this.atNanos = atNanos;
+            this.kind = kind;
+        }
+    }
+
+    private static void sleepUntil(long deadlineNanos) throws InterruptedException {
+        long remaining = deadlineNanos - System.nanoTime();
+        if (remaining > 0) {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        }
+    }
+
+    private static void appendLatency(StringBuilder report, String key, long calls, LatencyHistogram.Snapshot snapshot) {
+        report.append(",\"").append(key).append("\":{\"calls\":").append(calls)
+                .append(",\"timed\":").append(snapshot.getCount())
+                .append(",\"p50Micros\":").append(micros(snapshot.getValueAtPercentile(50)))
+                .append(",\"p99Micros\":").append(micros(snapshot.getValueAtPercentile(99)))
+                .append(",\"p999Micros\":").append(micros(snapshot.getValueAtPercentile(99.9)))
+                .append(",\"maxMicros\":").append(micros(snapshot.getMaxNanos()))
+                .append("}");
+    }
+
+    private static void appendWaits(StringBuilder report, String key, LatencyHistogram.Snapshot snapshot) {
+        report.append(",\"").append(key).append("\":{\"count\":").append(snapshot.getCount())
+                .append(",\"totalMillis\":").append(number(snapshot.getTotalNanos() / 1e6))
+                .append(",\"p99Micros\":").append(micros(snapshot.getValueAtPercentile(99)))
+                .append("}");
+    }
+
+    private static String micros(long nanos) {
+        return number(nanos / 1e3);
+    }
+
+    private static String number(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
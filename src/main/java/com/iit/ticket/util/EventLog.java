@@ -0,0 +1,210 @@
+package com.iit.ticket.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Asynchronous event log that keeps formatting and console output off the purchase path.
+ * Publishers claim a slot in a preallocated ring with one CAS, fill in a fixed layout (event type,
+ * entity id, value and a constant string) and publish it with a release store; nothing is
+ * formatted or allocated on their side. A single daemon thread drains the ring in order, formats
+ * whole batches and hands each batch to the sink in one write. When the ring is full, events are
+ * either dropped and counted (the default) or the publisher waits for space.
+ */
+public class EventLog {
+
+    public enum Level { OFF, WARN, INFO, DEBUG }
+
+    public enum OverflowPolicy { DROP, BLOCK }
+
+    private static final int DEFAULT_CAPACITY = 1 << 13;
+    private static final int MAX_BATCH_CHARS = 1 << 14;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private static final int PURCHASE = 0;
+    private static final int INTERRUPTED = 1;
+    private static final int ENTITY_INTERRUPTED = 2;
+    private static final int MESSAGE = 3;
+
+    private static final EventLog GLOBAL = new EventLog(DEFAULT_CAPACITY, text -> System.out.print(text));
+
+    private final int mask;
+    private final AtomicLongArray published;
+    private final int[] types;
+    private final int[] entityIds;
+    private final int[] values;
+    private final String[] texts;
+    private final AtomicLong claimSequence = new AtomicLong();
+    private final LongAdder droppedEvents = new LongAdder();
+    private final Consumer<String> sink;
+    private final Thread writer;
+    private volatile long readSequence;
+    private volatile long writtenSequence;
+    private volatile Level level = Level.DEBUG;
+    private volatile OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+    public EventLog(int capacity, Consumer<String> sink) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        this.mask = capacity - 1;
+        this.published = new AtomicLongArray(capacity);
+        this.types = new int[capacity];
+        this.entityIds = new int[capacity];
+        this.values = new int[capacity];
+        this.texts = new String[capacity];
+        this.sink = sink;
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+        this.writer = new Thread(this::drain, "EventLog");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // The log shared by the pools and entities; writes to whatever System.out is at the time
+    public static EventLog global() {
+        return GLOBAL;
+    }
+
+    public void purchase(int consumerId, int ticketId) {
+        if (level.compareTo(Level.DEBUG) >= 0) {
+            publish(PURCHASE, consumerId, ticketId, null);
+        }
+    }
+
+    // A blocking pool operation that gave up because its thread was interrupted
+    public void interrupted(String operation) {
+        if (level.compareTo(Level.WARN) >= 0) {
+            publish(INTERRUPTED, 0, 0, operation);
+        }
+    }
+
+    public void entityInterrupted(String entityType, int entityId) {
+        if (level.compareTo(Level.INFO) >= 0) {
+            publish(ENTITY_INTERRUPTED, entityId, 0, entityType);
+        }
+    }
+
+    // For rare failures only: the caller builds the message, so this one does allocate
+    public void warn(String message) {
+        if (level.compareTo(Level.WARN) >= 0) {
+            publish(MESSAGE, 0, 0, message);
+        }
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public void setLevel(Level level) {
+        this.level = level;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public long getPublishedEvents() {
+        return claimSequence.get();
+    }
+
+    public long getDroppedEvents() {
+        return droppedEvents.sum();
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    // Waits until everything published before the call has been handed to the sink
+    public void flush() {
+        long target = claimSequence.get();
+        while (writtenSequence < target) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+        }
+    }
+
+    private void publish(int type, int entityId, int value, String text) {
+        long sequence;
+        while (true) {
+            sequence = claimSequence.get();
+            if (sequence - readSequence > mask) {
+                if (overflowPolicy == OverflowPolicy.DROP) {
+                    droppedEvents.increment();
+                    return;
+                }
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+            } else if (claimSequence.compareAndSet(sequence, sequence + 1)) {
+                break;
+            }
+        }
+        int slot = (int) (sequence & mask);
+        types[slot] = type;
+        entityIds[slot] = entityId;
+        values[slot] = value;
+        texts[slot] = text;
+        published.set(slot, sequence);
+    }
+
+    private void drain() {
+        StringBuilder batch = new StringBuilder(MAX_BATCH_CHARS);
+        long next = 0;
+        long reportedDrops = 0;
+        while (true) {
+            int slot = (int) (next & mask);
+            if (published.get(slot) == next && batch.length() < MAX_BATCH_CHARS) {
+                format(slot, batch);
+                texts[slot] = null;
+                next++;
+                readSequence = next;
+                continue;
+            }
+            long drops = droppedEvents.sum();
+            if (drops != reportedDrops) {
+                batch.append("Event log full: ").append(drops - reportedDrops).append(" events dropped\n");
+                reportedDrops = drops;
+            }
+            if (batch.length() > 0) {
+                try {
+                    sink.accept(batch.toString());
+                } catch (RuntimeException e) {
+                    // A failing sink loses this batch but must not stop the log
+                }
+                batch.setLength(0);
+            }
+            writtenSequence = next;
+            if (published.get(slot) != next) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private void format(int slot, StringBuilder batch) {
+        switch (types[slot]) {
+            case PURCHASE:
+                batch.append(entityIds[slot]).append(" Consumer has purchase the ticket ").append(values[slot]);
+                break;
+            case INTERRUPTED:
+                batch.append("interrupted (").append(texts[slot]).append(')');
+                break;
+            case ENTITY_INTERRUPTED:
+                batch.append(texts[slot]).append(' ').append(entityIds[slot]).append(" thread interrupted");
+                break;
+            default:
+                batch.append(texts[slot]);
+                break;
+        }
+        batch.append('\n');
+    }
+}
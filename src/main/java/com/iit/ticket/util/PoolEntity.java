@@ -2,12 +2,18 @@ package com.iit.ticket.util;
 
 public interface PoolEntity extends Runnable {
 
-    int getRate();
+    // Operations per second; fractions are allowed and 0 means the default of one a second
+    double getRate();
 
-    void setRate(int rate);
+    void setRate(double rate);
 
     String getName();
 
     void stop();
 
+    // One operation that never blocks, for the shared RateScheduler; returns false once stopped
+    boolean step();
+
+    TokenBucket getPacer();
+
 }
@@ -0,0 +1,170 @@
+package com.iit.ticket.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Paces any number of entities from a small, fixed pool of worker threads. Each entity waits in a
+ * delay queue until its token bucket holds a whole token; the worker that takes it runs one step
+ * per available token (a bounded batch, so fast entities cannot starve slow ones) and puts it back
+ * due at its next token. Changing an entity's rate moves it in the queue at once. Steps run on
+ * the shared workers and must not block; an entity that returns false from step() is dropped.
+ * A stopped entity is only noticed on its next turn, which at a low rate can be a long way off, so
+ * callers that stop one should unschedule() it to drop it at once.
+ */
+public class RateScheduler {
+
+    private static final int MAX_STEPS_PER_TURN = 64;
+
+    private final DelayQueue<Registration> queue = new DelayQueue<>();
+    private final ConcurrentHashMap<PoolEntity, Registration> registrations = new ConcurrentHashMap<>();
+    private final Thread[] workers;
+    private final LongAdder executedSteps = new LongAdder();
+    private final LongAdder scheduledEntities = new LongAdder();
+    private volatile boolean running = true;
+
+    public RateScheduler(int workerCount) {
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("Worker count must be greater than 0");
+        }
+        this.workers = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Thread(this::work, "RateScheduler-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    public void schedule(PoolEntity entity) {
+        Registration registration = new Registration(entity);
+        entity.getPacer().setRateListener(registration::reschedule);
+        registrations.put(entity, registration);
+        scheduledEntities.increment();
+        synchronized (registration) {
+            registration.enqueue();
+        }
+    }
+
+    // Takes the entity out of the queue now; one that a worker is running is dropped when its turn ends
+    public boolean unschedule(PoolEntity entity) {
+        Registration registration = registrations.get(entity);
+        return registration != null && registration.cancel();
+    }
+
+    public void shutdown() {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    public int getWorkerCount() {
+        return workers.length;
+    }
+
+    public long getScheduledEntities() {
+        return scheduledEntities.sum();
+    }
+
+    public long getExecutedSteps() {
+        return executedSteps.sum();
+    }
+
+    private void work() {
+        while (running) {
+            Registration registration;
+            try {
+                registration = queue.take();
+            } catch (InterruptedException e) {
+                // shutdown() interrupts the wait; the loop condition decides whether to exit
+                continue;
+            }
+            registration.runTurn();
+        }
+    }
+
+    private final class Registration implements Delayed {
+
+        private final PoolEntity entity;
+        private final TokenBucket pacer;
+        // Guarded by this; only changed while the registration is out of the queue
+        private long dueNanos;
+        private boolean queued;
+        private boolean cancelled;
+
+        Registration(PoolEntity entity) {
+            this.entity = entity;
+            this.pacer = entity.getPacer();
+        }
+
+        void runTurn() {
+            synchronized (this) {
+                queued = false;
+            }
+            int steps = pacer.tryAcquire(MAX_STEPS_PER_TURN, System.nanoTime());
+            boolean active = true;
+            for (int i = 0; i < steps && active; i++) {
+                try {
+                    active = entity.step();
+                } catch (RuntimeException e) {
+                    EventLog.global().warn("Entity " + entity.getName() + " step failed: " + e);
+                }
+                executedSteps.increment();
+            }
+            synchronized (this) {
+                if (active && !cancelled) {
+                    enqueue();
+                    return;
+                }
+            }
+            drop();
+        }
+
+        // Whoever holds the registration out of the queue drops it: this call or the running worker
+        synchronized boolean cancel() {
+            if (cancelled) {
+                return false;
+            }
+            cancelled = true;
+            if (queued && queue.remove(this)) {
+                queued = false;
+                drop();
+            }
+            return true;
+        }
+
+        private void drop() {
+            pacer.setRateListener(null);
+            registrations.remove(entity, this);
+            scheduledEntities.decrement();
+        }
+
+        // A registration that is being run is put back by its worker, which sees the new rate then
+        synchronized void reschedule() {
+            if (queued && queue.remove(this)) {
+                enqueue();
+            }
+        }
+
+        // Caller holds the lock
+        void enqueue() {
+            long now = System.nanoTime();
+            dueNanos = now + pacer.nanosUntilToken(now);
+            queued = true;
+            queue.add(this);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueNanos, ((Registration) other).dueNanos);
+        }
+    }
+}
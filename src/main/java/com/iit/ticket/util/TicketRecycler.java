@@ -0,0 +1,52 @@
+package com.iit.ticket.util;
+
+import com.iit.ticket.model.Ticket;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded free list of Ticket instances. Consumers release tickets once they are done with them
+ * and producers acquire them again instead of allocating, so a steady-state simulation on an
+ * array-backed pool produces no garbage. The list is array-backed, so releasing and acquiring do
+ * not allocate either; tickets released while the list is full are left to the collector.
+ */
+public class TicketRecycler {
+
+    private final ArrayBlockingQueue<Ticket> freeTickets;
+    private final LongAdder allocatedTickets = new LongAdder();
+    private final LongAdder reusedTickets = new LongAdder();
+
+    public TicketRecycler(int capacity) {
+        this.freeTickets = new ArrayBlockingQueue<>(capacity);
+    }
+
+    public Ticket acquire(int ticketId, double ticketPrice) {
+        Ticket ticket = freeTickets.poll();
+        if (ticket == null) {
+            allocatedTickets.increment();
+            return new Ticket(ticketId, ticketPrice);
+        }
+        reusedTickets.increment();
+        ticket.reissue(ticketId, ticketPrice);
+        return ticket;
+    }
+
+    public void release(Ticket ticket) {
+        if (ticket != null) {
+            freeTickets.offer(ticket);
+        }
+    }
+
+    public int getFreeTickets() {
+        return freeTickets.size();
+    }
+
+    public long getAllocatedTickets() {
+        return allocatedTickets.sum();
+    }
+
+    public long getReusedTickets() {
+        return reusedTickets.sum();
+    }
+}
@@ -0,0 +1,163 @@
+package com.iit.ticket.util;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hierarchical timing wheel that runs any number of timeouts on one daemon thread. Level 0 has one
+ * slot per tick; each higher level has slots as wide as the whole level below it, and its slots
+ * are cascaded down as the lower level wraps. Scheduling and cancelling are O(1) and never touch
+ * the wheels directly: new timeouts go through a queue the ticker drains, and cancelled ones are
+ * simply skipped when their slot comes due. Tasks run on the ticker thread and must not block.
+ */
+public class TimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final Timeout[][] wheels = new Timeout[LEVELS][SLOTS];
+    private final ConcurrentLinkedQueue<Timeout> incoming = new ConcurrentLinkedQueue<>();
+    private final Thread ticker;
+    private volatile boolean running = true;
+    private long currentTick;
+
+    public TimingWheel(long tickDuration, TimeUnit unit) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("Tick duration must be greater than 0");
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.startNanos = System.nanoTime();
+        this.ticker = new Thread(this::run, "TimingWheel");
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        Timeout timeout = new Timeout(task, System.nanoTime() + unit.toNanos(delay));
+        incoming.add(timeout);
+        return timeout;
+    }
+
+    public void stop() {
+        running = false;
+        ticker.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            long elapsedTicks = (System.nanoTime() - startNanos) / tickNanos;
+            while (currentTick < elapsedTicks) {
+                currentTick++;
+                drainIncoming();
+                cascade();
+                expire(0, (int) (currentTick & SLOT_MASK));
+            }
+            long sleepNanos = startNanos + (currentTick + 1) * tickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    // stop() interrupts the sleep; the loop condition decides whether to exit
+                }
+            }
+        }
+    }
+
+    private void drainIncoming() {
+        Timeout timeout;
+        while ((timeout = incoming.poll()) != null) {
+            if (timeout.state.get() == Timeout.PENDING) {
+                place(timeout);
+            }
+        }
+    }
+
+    private void place(Timeout timeout) {
+        long deadlineTick = Math.max(currentTick, (timeout.deadlineNanos - startNanos + tickNanos - 1) / tickNanos);
+        long remaining = deadlineTick - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && remaining >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        // Beyond the top level's range, park in the furthest slot and re-place on every cascade
+        long maxRemaining = (1L << (SLOT_BITS * (level + 1))) - 1;
+        if (remaining > maxRemaining) {
+            deadlineTick = currentTick + maxRemaining;
+        }
+        if (remaining == 0) {
+            // Already due: expire in the current level-0 slot, which is processed right after
+            deadlineTick = currentTick;
+        }
+        int slot = (int) ((deadlineTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        timeout.next = wheels[level][slot];
+        wheels[level][slot] = timeout;
+    }
+
+    // When a level wraps to slot 0, the matching slot of the level above is redistributed
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+                return;
+            }
+            int slot = (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+            Timeout timeout = wheels[level][slot];
+            wheels[level][slot] = null;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                timeout.next = null;
+                if (timeout.state.get() == Timeout.PENDING) {
+                    place(timeout);
+                }
+                timeout = next;
+            }
+        }
+    }
+
+    private void expire(int level, int slot) {
+        Timeout timeout = wheels[level][slot];
+        wheels[level][slot] = null;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            timeout.next = null;
+            if (timeout.state.compareAndSet(Timeout.PENDING, Timeout.EXPIRED)) {
+                try {
+                    timeout.task.run();
+                } catch (RuntimeException e) {
+                    EventLog.global().warn("Timing wheel task failed: " + e);
+                }
+            }
+            timeout = next;
+        }
+    }
+
+    public static final class Timeout {
+
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadlineNanos;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        // Returns false if the task has already run (or is running) or was cancelled before
+        public boolean cancel() {
+            return state.compareAndSet(PENDING, CANCELLED);
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+}
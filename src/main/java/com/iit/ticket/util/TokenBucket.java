@@ -0,0 +1,115 @@
+package com.iit.ticket.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Token bucket that paces one entity at a fractional or very high rate with nanosecond precision.
+ * Tokens accrue continuously at the rate and are capped at 10 ms worth of operations (at least
+ * one), so an entity that falls behind catches up in a short burst rather than a flood. The same
+ * bucket serves a dedicated thread, which parks in acquire(), and the shared RateScheduler, which
+ * takes whole tokens in batches; a rate change wakes either one straight away.
+ */
+public class TokenBucket {
+
+    // A rate of 0 (or less) keeps the simulation's old meaning: the default of one operation a second
+    public static final double DEFAULT_RATE = 1.0;
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    private static final long BURST_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private double rate;
+    private double tokens = 1;
+    private long lastRefillNanos = System.nanoTime();
+    private volatile Thread waiter;
+    private volatile Runnable rateListener;
+
+    public TokenBucket(double rate) {
+        this.rate = effectiveRate(rate);
+    }
+
+    public void setRate(double rate) {
+        synchronized (this) {
+            refill(System.nanoTime());
+            this.rate = effectiveRate(rate);
+            tokens = Math.min(tokens, capacity());
+        }
+        Thread parked = waiter;
+        if (parked != null) {
+            LockSupport.unpark(parked);
+        }
+        Runnable listener = rateListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    // Called whenever the rate changes; RateScheduler uses it to move the entity's next turn
+    public void setRateListener(Runnable rateListener) {
+        this.rateListener = rateListener;
+    }
+
+    // Blocks the calling thread until a token is available and takes it
+    public void acquire() throws InterruptedException {
+        waiter = Thread.currentThread();
+        try {
+            while (true) {
+                long waitNanos;
+                synchronized (this) {
+                    refill(System.nanoTime());
+                    if (tokens >= 1) {
+                        tokens -= 1;
+                        return;
+                    }
+                    waitNanos = nanosUntilToken();
+                }
+                LockSupport.parkNanos(this, waitNanos);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            waiter = null;
+        }
+    }
+
+    // Takes as many whole tokens as are available, up to maxTokens, and returns how many it took
+    public synchronized int tryAcquire(int maxTokens, long nowNanos) {
+        refill(nowNanos);
+        int taken = (int) Math.min(maxTokens, Math.floor(tokens));
+        tokens -= taken;
+        return taken;
+    }
+
+    public synchronized long nanosUntilToken(long nowNanos) {
+        refill(nowNanos);
+        return nanosUntilToken();
+    }
+
+    private long nanosUntilToken() {
+        if (tokens >= 1) {
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) * NANOS_PER_SECOND / rate);
+    }
+
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity(), tokens + elapsed * rate / NANOS_PER_SECOND);
+            lastRefillNanos = nowNanos;
+        }
+    }
+
+    private double capacity() {
+        return Math.max(1, rate * BURST_NANOS / NANOS_PER_SECOND);
+    }
+
+    private static double effectiveRate(double rate) {
+        return rate > 0 ? rate : DEFAULT_RATE;
+    }
+}
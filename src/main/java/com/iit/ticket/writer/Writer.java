@@ -1,18 +1,20 @@
 package com.iit.ticket.writer;
 
-import com.iit.ticket.model.Ticket;
 import com.iit.ticket.pool.TicketPool;
+import com.iit.ticket.util.EventLog;
 import com.iit.ticket.util.PoolEntity;
+import com.iit.ticket.util.TokenBucket;
 
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class Writer implements PoolEntity {
 
     private final TicketPool ticketPool;
     private final int writerId;
-    private final Random random = new Random();
-    private final boolean running;
-    private int rate;
+    private final TokenBucket pacer = new TokenBucket(0);
+    private volatile double rate;
+    private volatile boolean running;
+    private volatile long updatedTickets;
 
     public Writer(TicketPool ticketPool, int writerId) {
         this.ticketPool = ticketPool;
@@ -24,42 +26,54 @@ public class Writer implements PoolEntity {
     public void run() {
         try {
             while (running) {
-
-                Ticket ticket = ticketPool.purchaseTicket();
-                if (ticket != null) {
-                    // chnage the price
-                    ticket.setTicketPrice(random.nextDouble());
-                    ticketPool.addTicket(ticket);
-                }
-
-                if (rate > 0) {
-                    Thread.sleep(1000 / rate);
-                } else {
-                    Thread.sleep(1000);
-                }
+                pacer.acquire();
+                step();
             }
         } catch (InterruptedException e) {
-            System.out.println("Writer " + writerId + " interrupted.");
+            EventLog.global().entityInterrupted("Writer", writerId);
+        }
+    }
+
+    @Override
+    public boolean step() {
+        if (!running) {
+            return false;
         }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // Reprice a seat in place, drawn from the same id and price ranges producers use
+        if (ticketPool.updateTicketPrice(random.nextInt(1000), random.nextDouble(5000.00))) {
+            updatedTickets++;
+        }
+        return running;
+    }
+
+    public long getUpdatedTickets() {
+        return this.updatedTickets;
     }
 
     @Override
-    public int getRate() {
-        return 0;
+    public double getRate() {
+        return this.rate;
     }
 
     @Override
-    public void setRate(int rate) {
+    public void setRate(double rate) {
+        this.rate = rate;
+        pacer.setRate(rate);
+    }
 
+    @Override
+    public TokenBucket getPacer() {
+        return this.pacer;
     }
 
     @Override
     public String getName() {
-        return "";
+        return writerId + "";
     }
 
     @Override
     public void stop() {
-
+        this.running = false;
     }
 }
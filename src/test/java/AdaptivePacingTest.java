@@ -0,0 +1,192 @@
+import com.iit.ticket.consumer.Consumer;
+import com.iit.ticket.pool.BlockingQueueTicketPool;
+import com.iit.ticket.pool.ReentrantLockTicketPool;
+import com.iit.ticket.pool.TicketPool;
+import com.iit.ticket.producer.AdaptivePacing;
+import com.iit.ticket.producer.Producer;
+import com.iit.ticket.util.EventLog;
+import com.iit.ticket.util.RateScheduler;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptivePacingTest {
+
+    private static final int CAPACITY = 100;
+    private static final double CONSUMER_RATE = 200.0;
+    private static final double MAX_RATE = 5000.0;
+    private static final long SETTLE_MILLIS = 2000;
+    private static final long MEASURE_MILLIS = 2000;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== Adaptive Pacing Test ===");
+        EventLog.global().setLevel(EventLog.Level.OFF);
+
+        testControlLaw();
+        testTracksConsumersOnThread();
+        testTracksConsumersOnScheduler();
+        testFixedRateRestored();
+
+        System.out.println("\nAll adaptive pacing tests passed!");
+    }
+
+    private static void testControlLaw() {
+        System.out.println("\nTesting additive increase and multiplicative decrease:");
+
+        AdaptivePacing pacing = new AdaptivePacing(CAPACITY, 10, 110);
+        pacing.setIncreaseStep(10);
+        long now = System.nanoTime();
+        assertEquals(10.0, pacing.reset(0), 0.0);
+
+        // Within a period nothing changes, however the pool looks
+        assertFalse(pacing.update(now, 0, true, 0));
+
+        // An empty pool adds one step per period, up to the maximum
+        for (int period = 1; period <= 12; period++) {
+            now += TimeUnit.MILLISECONDS.toNanos(20);
+            pacing.update(now, 0, true, 0);
+        }
+        assertEquals(110.0, pacing.getRate(), 0.0);
+
+        // Inside the band the rate holds
+        now += TimeUnit.MILLISECONDS.toNanos(20);
+        assertFalse(pacing.update(now, 0, true, 50));
+        assertEquals(110.0, pacing.getRate(), 0.0);
+
+        // Any congestion during a period halves the rate at its end, even if the pool drained since
+        now += TimeUnit.MILLISECONDS.toNanos(10);
+        pacing.update(now, 0, false, 50);
+        now += TimeUnit.MILLISECONDS.toNanos(10);
+        assertTrue(pacing.update(now, 0, true, 0));
+        assertEquals(55.0, pacing.getRate(), 0.0);
+
+        now += TimeUnit.MILLISECONDS.toNanos(20);
+        assertTrue(pacing.update(now, TimeUnit.MILLISECONDS.toNanos(5), true, 10));
+        assertEquals(27.5, pacing.getRate(), 0.0);
+        now += TimeUnit.MILLISECONDS.toNanos(20);
+        assertTrue(pacing.update(now, 0, true, 90));
+        assertEquals(13.75, pacing.getRate(), 0.0);
+        now += TimeUnit.MILLISECONDS.toNanos(20);
+        assertTrue(pacing.update(now, 0, true, 90));
+        assertEquals(10.0, pacing.getRate(), 0.0);
+        assertEquals(4, pacing.getDecreases());
+        System.out.println("Control law passed!");
+    }
+
+    private static void testTracksConsumersOnThread() throws Exception {
+        System.out.println("\nTesting an adaptive producer on its own thread:");
+
+        TicketPool pool = new ReentrantLockTicketPool(CAPACITY);
+        pool.getMetrics().setSamplingInterval(1);
+        Producer producer = new Producer(pool, 1);
+        producer.setAdaptivePacing(new AdaptivePacing(CAPACITY, 10, MAX_RATE));
+        Consumer consumer = new Consumer(pool, 1);
+        consumer.setRate(CONSUMER_RATE);
+
+        Thread producerThread = new Thread(producer, "Producer-1");
+        Thread consumerThread = new Thread(consumer, "Consumer-1");
+        producerThread.start();
+        consumerThread.start();
+        try {
+            checkTracking(pool, producer);
+        } finally {
+            producer.stop();
+            consumer.stop();
+            producerThread.interrupt();
+            consumerThread.interrupt();
+            producerThread.join();
+            consumerThread.join();
+        }
+        System.out.println("Dedicated thread passed!");
+    }
+
+    // On the scheduler a full BlockingQueue pool turns tickets away; adapting keeps that rare
+    private static void testTracksConsumersOnScheduler() throws Exception {
+        System.out.println("\nTesting an adaptive producer on the rate scheduler:");
+
+        TicketPool pool = new BlockingQueueTicketPool(CAPACITY);
+        RateScheduler scheduler = new RateScheduler(2);
+        Producer producer = new Producer(pool, 1);
+        producer.setAdaptivePacing(new AdaptivePacing(CAPACITY, 10, MAX_RATE));
+        Consumer consumer = new Consumer(pool, 1);
+        consumer.setRate(CONSUMER_RATE);
+        scheduler.schedule(producer);
+        scheduler.schedule(consumer);
+        try {
+            checkTracking(pool, producer);
+        } finally {
+            producer.stop();
+            consumer.stop();
+            scheduler.shutdown();
+        }
+
+        // The same producer at a fixed maximum rate mostly gets turned away
+        TicketPool fixedPool = new BlockingQueueTicketPool(CAPACITY);
+        RateScheduler fixedScheduler = new RateScheduler(2);
+        Producer fixed = new Producer(fixedPool, 2);
+        fixed.setRate(MAX_RATE);
+        Consumer fixedConsumer = new Consumer(fixedPool, 2);
+        fixedConsumer.setRate(CONSUMER_RATE);
+        fixedScheduler.schedule(fixed);
+        fixedScheduler.schedule(fixedConsumer);
+        Thread.sleep(MEASURE_MILLIS);
+        fixed.stop();
+        fixedConsumer.stop();
+        fixedScheduler.shutdown();
+        System.out.println("  - fixed rate " + MAX_RATE + ": pool " + fixedPool.getAvailableTickets()
+                + "/" + CAPACITY + " full, " + fixedScheduler.getExecutedSteps() + " steps");
+        assertTrue(fixedPool.getAvailableTickets() > CAPACITY * 0.9);
+        System.out.println("Scheduler passed!");
+    }
+
+    private static void checkTracking(TicketPool pool, Producer producer) throws InterruptedException {
+        Thread.sleep(SETTLE_MILLIS);
+        pool.getMetrics().reset();
+        long fullWaitsBefore = pool.getMetrics().getFullWaitCount();
+        int soldBefore = pool.getSoldTickets();
+        int samples = 0;
+        double occupancy = 0;
+        double rate = 0;
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MEASURE_MILLIS);
+        while (System.nanoTime() < end) {
+            Thread.sleep(10);
+            occupancy += (double) pool.getAvailableTickets() / CAPACITY;
+            rate += producer.getRate();
+            samples++;
+        }
+        occupancy /= samples;
+        rate /= samples;
+        double soldPerSecond = (pool.getSoldTickets() - soldBefore) * 1000.0 / MEASURE_MILLIS;
+        System.out.println(String.format("  - mean occupancy %.2f, mean producer rate %.1f, sold %.1f/s, "
+                + "%d full waits, %d decreases", occupancy, rate, soldPerSecond,
+                pool.getMetrics().getFullWaitCount() - fullWaitsBefore, producer.getAdaptivePacing().getDecreases()));
+
+        // The producer settles near what the consumer buys instead of its maximum
+        assertTrue(occupancy > 0.05 && occupancy < 0.95);
+        assertTrue(rate > CONSUMER_RATE / 4 && rate < CONSUMER_RATE * 4);
+        assertTrue(soldPerSecond > CONSUMER_RATE * 0.7);
+        assertTrue(producer.getAdaptivePacing().getDecreases() > 0);
+    }
+
+    private static void testFixedRateRestored() {
+        System.out.println("\nTesting switching between fixed and adaptive rates:");
+
+        Producer producer = new Producer(new ReentrantLockTicketPool(CAPACITY), 1);
+        producer.setRate(50);
+        producer.setAdaptivePacing(new AdaptivePacing(CAPACITY, 100, 1000));
+        assertEquals(100.0, producer.getRate(), 0.0);
+        assertEquals(100.0, producer.getPacer().getRate(), 0.0);
+
+        // A rate set while adapting restarts control from there, within the limits
+        producer.setRate(5000);
+        assertEquals(1000.0, producer.getRate(), 0.0);
+
+        producer.setAdaptivePacing(null);
+        producer.setRate(20);
+        assertEquals(20.0, producer.getPacer().getRate(), 0.0);
+        System.out.println("Switching passed!");
+    }
+}
@@ -0,0 +1,188 @@
+import com.iit.ticket.consumer.Consumer;
+import com.iit.ticket.pool.ReentrantLockTicketPool;
+import com.iit.ticket.pool.TicketPool;
+import com.iit.ticket.producer.Producer;
+import com.iit.ticket.scaling.AutoScaler;
+import com.iit.ticket.scaling.ScalingSample;
+import com.iit.ticket.scaling.ScalingTarget;
+import com.iit.ticket.util.EventLog;
+import com.iit.ticket.util.PoolEntity;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AutoScalerTest {
+
+    private static final int CAPACITY = 100;
+    private static final double ENTITY_RATE = 50.0;
+    private static final long INTERVAL_MILLIS = 250;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== Auto-Scaler Test ===");
+        EventLog.global().setLevel(EventLog.Level.OFF);
+
+        testReachesTarget();
+        testFindsKnee();
+
+        System.out.println("\nAll auto-scaler tests passed!");
+    }
+
+    private static void testReachesTarget() throws Exception {
+        System.out.println("\nTesting scaling up to a sales target:");
+
+        double targetRate = 200.0;
+        TicketPool pool = new ReentrantLockTicketPool(CAPACITY);
+        Entities entities = new Entities(pool);
+        entities.addProducer();
+        entities.addConsumer();
+        AutoScaler scaler = new AutoScaler(pool, CAPACITY, entities);
+        scaler.setTargetRate(targetRate);
+        scaler.setIntervalMillis(INTERVAL_MILLIS);
+        scaler.setTolerance(0.1);
+        StringWriter series = new StringWriter();
+        scaler.setSeries(series);
+        scaler.start();
+        try {
+            Thread.sleep(8000);
+        } finally {
+            scaler.stop();
+            entities.stopAll();
+        }
+
+        List<ScalingSample> history = scaler.getHistory();
+        for (ScalingSample sample : history) {
+            System.out.println("  " + sample);
+        }
+
+        // Four consumers at 50/s make 200/s, and the producers keep up with them
+        ScalingSample last = history.get(history.size() - 1);
+        assertTrue(last.getConsumers() >= 4 && last.getConsumers() <= 5);
+        assertTrue(last.getProducers() >= 4);
+        double sold = 0;
+        for (ScalingSample sample : history.subList(history.size() - 8, history.size())) {
+            sold += sample.getSoldPerSecond();
+        }
+        sold /= 8;
+        System.out.println("  - mean sales over the last two seconds: " + sold + "/s");
+        assertTrue(sold > targetRate * 0.8 && sold < targetRate * 1.2);
+
+        // The CSV holds a header and one line per sample, and adds show their effect a sample later
+        String[] lines = series.toString().split(System.lineSeparator());
+        assertEquals(ScalingSample.CSV_HEADER, lines[0]);
+        assertEquals(history.size() + 1, lines.length);
+        for (int i = 1; i < history.size(); i++) {
+            assertEquals(history.get(i - 1).getAction() == AutoScaler.Action.NONE, Double.isNaN(history.get(i).getEffect()));
+        }
+        System.out.println("Sales target passed!");
+    }
+
+    // Two producers cap supply at 100/s, so past two consumers another one only adds waiting
+    private static void testFindsKnee() throws Exception {
+        System.out.println("\nTesting the search for the knee:");
+
+        TicketPool pool = new ReentrantLockTicketPool(CAPACITY);
+        Entities entities = new Entities(pool);
+        entities.addProducer();
+        entities.addConsumer();
+        AutoScaler scaler = new AutoScaler(pool, CAPACITY, entities);
+        scaler.setIntervalMillis(INTERVAL_MILLIS);
+        scaler.setTolerance(0.1);
+        scaler.setLimits(2, 10);
+        scaler.start();
+        try {
+            Thread.sleep(6000);
+        } finally {
+            scaler.stop();
+            entities.stopAll();
+        }
+
+        boolean kneeLogged = false;
+        for (ScalingSample sample : scaler.getHistory()) {
+            System.out.println("  " + sample);
+            kneeLogged |= sample.getReason().startsWith("knee");
+        }
+        System.out.println("  - consumer ceiling " + scaler.getConsumerCeiling());
+        assertTrue(kneeLogged);
+        assertTrue(scaler.getConsumerCeiling() >= 2 && scaler.getConsumerCeiling() <= 3);
+        assertTrue(entities.getConsumers() <= scaler.getConsumerCeiling());
+        assertEquals(2, entities.getProducers());
+        System.out.println("Knee passed!");
+    }
+
+    private static final class Entities implements ScalingTarget {
+
+        private final TicketPool pool;
+        private final List<PoolEntity> producers = new ArrayList<>();
+        private final List<PoolEntity> consumers = new ArrayList<>();
+        private final List<Thread> threads = new ArrayList<>();
+        private int nextId = 1;
+
+        Entities(TicketPool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public synchronized int getProducers() {
+            return producers.size();
+        }
+
+        @Override
+        public synchronized int getConsumers() {
+            return consumers.size();
+        }
+
+        @Override
+        public synchronized void addProducer() {
+            start(producers, new Producer(pool, nextId++));
+        }
+
+        @Override
+        public synchronized void removeProducer() {
+            stop(producers.remove(producers.size() - 1));
+        }
+
+        @Override
+        public synchronized void addConsumer() {
+            start(consumers, new Consumer(pool, nextId++));
+        }
+
+        @Override
+        public synchronized void removeConsumer() {
+            stop(consumers.remove(consumers.size() - 1));
+        }
+
+        private void start(List<PoolEntity> entities, PoolEntity entity) {
+            entity.setRate(ENTITY_RATE);
+            entities.add(entity);
+            Thread thread = new Thread(entity, "Entity-" + entity.getName());
+            threads.add(thread);
+            thread.start();
+        }
+
+        private void stop(PoolEntity entity) {
+            entity.stop();
+            for (Thread thread : threads) {
+                if (thread.getName().equals("Entity-" + entity.getName())) {
+                    thread.interrupt();
+                }
+            }
+        }
+
+        synchronized void stopAll() throws InterruptedException {
+            for (PoolEntity entity : producers) {
+                entity.stop();
+            }
+            for (PoolEntity entity : consumers) {
+                entity.stop();
+            }
+            for (Thread thread : threads) {
+                thread.interrupt();
+                thread.join();
+            }
+        }
+    }
+}
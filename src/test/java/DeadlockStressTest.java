@@ -3,6 +3,7 @@ import com.iit.ticket.pool.BlockingQueueTicketPool;
 import com.iit.ticket.pool.ReentrantLockTicketPool;
 import com.iit.ticket.pool.SynchronizedTicketPool;
 import com.iit.ticket.pool.TicketPool;
+import com.iit.ticket.pool.TwoLockTicketPool;
 
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
@@ -31,11 +32,15 @@ public class DeadlockStressTest {
         // Test BlockingQueueTicketPool
         boolean blockingQueueSuccess = testDeadlockResistance(new BlockingQueueTicketPool(POOL_CAPACITY), "BlockingQueue");
 
+        // Test TwoLockTicketPool
+        boolean twoLockSuccess = testDeadlockResistance(new TwoLockTicketPool(POOL_CAPACITY), "TwoLock");
+
         // Print summary
         System.out.println("\n=== Summary ===");
         System.out.println("SynchronizedTicketPool: " + (syncSuccess ? "PASSED" : "FAILED"));
         System.out.println("ReentrantLockTicketPool: " + (reentrantSuccess ? "PASSED" : "FAILED"));
         System.out.println("BlockingQueueTicketPool: " + (blockingQueueSuccess ? "PASSED" : "FAILED"));
+        System.out.println("TwoLockTicketPool: " + (twoLockSuccess ? "PASSED" : "FAILED"));
     }
 
     private static boolean testDeadlockResistance(TicketPool pool, String name) throws Exception {
@@ -0,0 +1,178 @@
+import com.iit.ticket.util.EventLog;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EventLogTest {
+
+    private static final int NUM_PUBLISHERS = 8;
+    private static final int EVENTS_PER_PUBLISHER = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== Event Log Test ===");
+
+        testFormatAndOrder();
+        testVerbosity();
+        testDropWhenFull();
+        testBlockWhenFull();
+        testPublishThroughput();
+
+        System.out.println("\nAll event log tests passed!");
+    }
+
+    private static void testFormatAndOrder() {
+        System.out.println("\nTesting event formatting and order:");
+
+        StringBuffer output = new StringBuffer();
+        EventLog log = new EventLog(16, output::append);
+        log.purchase(3, 42);
+        log.interrupted("addTicket");
+        log.entityInterrupted("Producer", 7);
+        log.warn("Timing wheel task failed");
+        log.flush();
+
+        System.out.print(output);
+        assertEquals("3 Consumer has purchase the ticket 42\n"
+                + "interrupted (addTicket)\n"
+                + "Producer 7 thread interrupted\n"
+                + "Timing wheel task failed\n", output.toString());
+        System.out.println("Formatting and order passed!");
+    }
+
+    private static void testVerbosity() {
+        System.out.println("\nTesting runtime verbosity changes:");
+
+        StringBuffer output = new StringBuffer();
+        EventLog log = new EventLog(16, output::append);
+        log.setLevel(EventLog.Level.WARN);
+        log.purchase(1, 1);
+        log.entityInterrupted("Reader", 1);
+        log.interrupted("purchaseTicket");
+        log.setLevel(EventLog.Level.OFF);
+        log.interrupted("purchaseTickets");
+        log.setLevel(EventLog.Level.INFO);
+        log.purchase(2, 2);
+        log.entityInterrupted("Writer", 2);
+        log.flush();
+
+        assertEquals("interrupted (purchaseTicket)\nWriter 2 thread interrupted\n", output.toString());
+        assertEquals(2, log.getPublishedEvents());
+        System.out.println("Verbosity passed!");
+    }
+
+    private static void testDropWhenFull() throws Exception {
+        System.out.println("\nTesting the drop policy with a stalled writer:");
+
+        // The first batch blocks the writer thread, so the ring fills behind it
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> batches = new ArrayList<>();
+        EventLog log = new EventLog(8, batch -> {
+            stalled.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (batches) {
+                batches.add(batch);
+            }
+        });
+        log.purchase(0, 0);
+        assertTrue(stalled.await(5, TimeUnit.SECONDS));
+
+        for (int i = 1; i <= 20; i++) {
+            log.purchase(0, i);
+        }
+        assertEquals(12, log.getDroppedEvents());
+        release.countDown();
+        log.flush();
+
+        String output = String.join("", batches);
+        System.out.print(output);
+        assertTrue(output.contains("the ticket 8\n"));
+        assertTrue(!output.contains("the ticket 9\n"));
+        assertTrue(output.contains("Event log full: 12 events dropped\n"));
+        System.out.println("Drop policy passed!");
+    }
+
+    private static void testBlockWhenFull() throws Exception {
+        System.out.println("\nTesting the blocking policy with " + NUM_PUBLISHERS + " publishers:");
+
+        // A tiny ring forces publishers to wait on the writer all the time; nothing may be lost
+        long[] counts = new long[NUM_PUBLISHERS];
+        EventLog log = new EventLog(64, batch -> {
+            int start = 0;
+            while (start < batch.length()) {
+                int end = batch.indexOf('\n', start);
+                counts[Integer.parseInt(batch.substring(start, batch.indexOf(' ', start)))]++;
+                start = end + 1;
+            }
+        });
+        log.setOverflowPolicy(EventLog.OverflowPolicy.BLOCK);
+        publishConcurrently(log);
+        log.flush();
+
+        for (int i = 0; i < NUM_PUBLISHERS; i++) {
+            assertEquals(EVENTS_PER_PUBLISHER, counts[i]);
+        }
+        assertEquals(0, log.getDroppedEvents());
+        System.out.println("Blocking policy passed!");
+    }
+
+    private static void testPublishThroughput() throws Exception {
+        System.out.println("\nComparing publishing with synchronous println:");
+
+        EventLog log = new EventLog(1 << 16, batch -> { });
+        long asyncNanos = publishConcurrently(log);
+        log.flush();
+
+        ExecutorService executor = Executors.newFixedThreadPool(NUM_PUBLISHERS);
+        PrintStream nullOut = new PrintStream(OutputStream.nullOutputStream());
+        long start = System.nanoTime();
+        for (int p = 0; p < NUM_PUBLISHERS; p++) {
+            final int publisher = p;
+            executor.submit(() -> {
+                for (int i = 0; i < EVENTS_PER_PUBLISHER; i++) {
+                    nullOut.println(publisher + " Consumer has purchase the ticket " + i);
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(60, TimeUnit.SECONDS);
+        long printNanos = System.nanoTime() - start;
+
+        long events = (long) NUM_PUBLISHERS * EVENTS_PER_PUBLISHER;
+        System.out.println("  - EventLog: " + asyncNanos / events + " ns/event (" + log.getDroppedEvents() + " dropped)");
+        System.out.println("  - println:  " + printNanos / events + " ns/event");
+    }
+
+    private static long publishConcurrently(EventLog log) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(NUM_PUBLISHERS);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        for (int p = 0; p < NUM_PUBLISHERS; p++) {
+            final int publisher = p;
+            executor.submit(() -> {
+                startLatch.await();
+                for (int i = 0; i < EVENTS_PER_PUBLISHER; i++) {
+                    log.purchase(publisher, i);
+                }
+                return null;
+            });
+        }
+        long start = System.nanoTime();
+        startLatch.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,238 @@
+import com.iit.ticket.consumer.Consumer;
+import com.iit.ticket.model.PoolStats;
+import com.iit.ticket.model.Ticket;
+import com.iit.ticket.pool.PoolType;
+import com.iit.ticket.pool.TicketPool;
+import com.iit.ticket.pool.TicketPoolRegistry;
+import com.iit.ticket.producer.Producer;
+import com.iit.ticket.util.EventLog;
+import com.iit.ticket.util.PoolEntity;
+import com.iit.ticket.util.RateScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class EventRegistryTest {
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== Event Registry Test ===");
+        EventLog.global().setLevel(EventLog.Level.OFF);
+
+        testLazyCreation();
+        testSpread();
+        testSpreadWaits();
+        testSpreadBuysWithoutCreating();
+        testIdleFootprint();
+        testSharedWorkers();
+
+        System.out.println("\nAll event registry tests passed!");
+    }
+
+    private static void testLazyCreation() {
+        System.out.println("\nTesting lazy creation:");
+
+        TicketPoolRegistry registry = new TicketPoolRegistry(PoolType.REENTRANT_LOCK, 10);
+        assertNull(registry.get(7));
+        assertEquals(0, registry.size());
+
+        TicketPool pool = registry.pool(7);
+        assertSame(pool, registry.pool(7));
+        assertSame(pool, registry.get(7));
+        pool.addTicket(new Ticket(1, 10.0));
+        pool.addTicket(new Ticket(2, 10.0));
+        registry.pool(9).addTicket(new Ticket(1, 20.0));
+        assertNotNull(registry.pool(9).purchaseTicket());
+
+        PoolStats stats = registry.getStats();
+        assertEquals(2, registry.size());
+        assertEquals(2, stats.getAvailableTickets());
+        assertEquals(1, stats.getSoldTickets());
+        assertEquals(3, stats.getTotalTickets());
+        Map<Integer, PoolStats> eventStats = registry.getEventStats();
+        assertEquals(2, eventStats.get(7).getAvailableTickets());
+        assertEquals(1, eventStats.get(9).getSoldTickets());
+
+        assertSame(pool, registry.remove(7));
+        assertNull(registry.get(7));
+        assertEquals(1, registry.size());
+        System.out.println("Lazy creation passed!");
+    }
+
+    private static void testSpread() {
+        System.out.println("\nTesting spread routing:");
+
+        int events = 8;
+        TicketPoolRegistry registry = new TicketPoolRegistry(PoolType.REENTRANT_LOCK, 1000);
+        TicketPool spread = registry.spreadRange(0, events);
+        for (int i = 0; i < 800; i++) {
+            spread.addTicket(new Ticket(i, 10.0));
+        }
+
+        // Uniform routing reaches every event, with none far from its share of 100
+        assertEquals(events, registry.size());
+        for (int event = 0; event < events; event++) {
+            int available = registry.get(event).getAvailableTickets();
+            System.out.println("  - event " + event + ": " + available + " tickets");
+            assertTrue(available > 40 && available < 160);
+        }
+        assertEquals(800, spread.getAvailableTickets());
+
+        int bought = 0;
+        for (int i = 0; i < 800; i++) {
+            if (spread.tryPurchaseTicket() != null) {
+                bought++;
+            }
+        }
+        assertTrue(bought > 0);
+        assertEquals(bought, spread.getSoldTickets());
+        assertEquals(bought, registry.getStats().getSoldTickets());
+        assertEquals(800 - bought, spread.getAvailableTickets());
+        System.out.println("Spread routing passed!");
+    }
+
+    // A blocking purchase finds the one event with stock, and the view's metrics sum the events'
+    private static void testSpreadWaits() throws Exception {
+        System.out.println("\nTesting spread waits and metrics:");
+
+        TicketPoolRegistry registry = new TicketPoolRegistry(PoolType.REENTRANT_LOCK, 10);
+        TicketPool spread = registry.spreadRange(0, 50);
+        registry.pool(3);
+        registry.pool(5);
+        registry.pool(37);
+        spread.getMetrics().setSamplingInterval(1);
+        assertEquals(1, registry.pool(37).getMetrics().getSamplingInterval());
+        registry.pool(37).addTicket(new Ticket(1, 10.0));
+        Thread buyer = new Thread(() -> {
+            Ticket ticket = spread.purchaseTicket();
+            assertNotNull(ticket);
+        });
+        buyer.start();
+        buyer.join(5000);
+        assertTrue("a spread purchase waited on a sold-out event", !buyer.isAlive());
+        assertEquals(1, registry.pool(37).getSoldTickets());
+
+        // Nothing anywhere: the purchase waits until any event gets a ticket
+        Thread waiting = new Thread(() -> assertNotNull(spread.purchaseTicket()));
+        waiting.start();
+        Thread.sleep(100);
+        assertTrue(waiting.isAlive());
+        registry.pool(3).addTicket(new Ticket(2, 10.0));
+        waiting.join(5000);
+        assertTrue(!waiting.isAlive());
+
+        registry.pool(5).addTicket(new Ticket(3, 10.0));
+        assertNotNull(registry.pool(5).purchaseTicket());
+        long adds = registry.pool(3).getMetrics().getAddCount() + registry.pool(5).getMetrics().getAddCount()
+                + registry.pool(37).getMetrics().getAddCount();
+        assertEquals(3, adds);
+        assertEquals(adds, spread.getMetrics().getAddCount());
+        assertEquals(1, registry.pool(5).getMetrics().getPurchaseCount());
+        assertTrue(spread.getMetrics().getAddLatency().snapshot().getCount() > 0);
+        spread.getMetrics().reset();
+        assertEquals(0, registry.pool(37).getMetrics().getAddCount());
+        System.out.println("Spread waits and metrics passed!");
+    }
+
+    // Buying through a spread only looks at events that exist, and still finds a lone ticket
+    // among many events by sweeping them a few at a time
+    private static void testSpreadBuysWithoutCreating() throws Exception {
+        System.out.println("\nTesting spread purchases on unstocked events:");
+
+        TicketPoolRegistry registry = new TicketPoolRegistry(PoolType.REENTRANT_LOCK, 10);
+        TicketPool spread = registry.spreadRange(0, 1000);
+        assertNull(spread.tryPurchaseTicket());
+        assertNull(spread.tryPurchaseTicket(20, TimeUnit.MILLISECONDS));
+        assertFalse(spread.updateTicketPrice(1, 20.0));
+        assertEquals(0, spread.updateTicketPrices(ticket -> true, price -> price * 2));
+        assertEquals(0, spread.getAvailableTickets());
+        assertEquals(0, registry.size());
+
+        registry.pool(999).addTicket(new Ticket(1, 10.0));
+        Ticket ticket = spread.tryPurchaseTicket(5, TimeUnit.SECONDS);
+        assertNotNull(ticket);
+        assertEquals(1, ticket.getTicketId());
+        assertEquals(1, registry.size());
+        System.out.println("Spread purchases on unstocked events passed!");
+    }
+
+    private static void testIdleFootprint() {
+        System.out.println("\nTesting idle footprint per event:");
+
+        int events = 1000;
+        int capacity = 1000;
+        long listFootprint = 0;
+        for (PoolType type : PoolType.values()) {
+            TicketPoolRegistry registry = new TicketPoolRegistry(type, capacity);
+            long before = usedHeap();
+            for (int event = 0; event < events; event++) {
+                registry.pool(event);
+            }
+            long footprint = Math.max(0, usedHeap() - before) / events;
+            System.out.println("  - " + type.getLabel() + ": about " + footprint + " bytes per idle event");
+            if (type == PoolType.REENTRANT_LOCK) {
+                listFootprint = footprint;
+            }
+            assertEquals(events, registry.size());
+        }
+
+        // Metrics are only allocated on first use, so an idle list-backed event stays well under 8 KB
+        assertTrue(listFootprint < 8 * 1024);
+        System.out.println("Idle footprint passed!");
+    }
+
+    // Two workers pace a producer and a consumer for each of 2000 events; every event must sell
+    private static void testSharedWorkers() throws Exception {
+        System.out.println("\nTesting a shared thread budget across events:");
+
+        int events = 2000;
+        TicketPoolRegistry registry = new TicketPoolRegistry(PoolType.REENTRANT_LOCK, 20);
+        RateScheduler scheduler = new RateScheduler(2);
+        List<PoolEntity> entities = new ArrayList<>();
+        int id = 1;
+        for (int event = 0; event < events; event++) {
+            TicketPool pool = registry.pool(event);
+            entities.add(new Producer(pool, id++));
+            entities.add(new Consumer(pool, id++));
+        }
+        for (PoolEntity entity : entities) {
+            entity.setRate(5.0);
+            scheduler.schedule(entity);
+        }
+        try {
+            Thread.sleep(3000);
+        } finally {
+            for (PoolEntity entity : entities) {
+                entity.stop();
+            }
+            scheduler.shutdown();
+        }
+
+        int starved = 0;
+        int minSold = Integer.MAX_VALUE;
+        for (PoolStats stats : registry.getEventStats().values()) {
+            minSold = Math.min(minSold, stats.getSoldTickets());
+            if (stats.getSoldTickets() == 0) {
+                starved++;
+            }
+        }
+        System.out.println("  - sold " + registry.getStats().getSoldTickets() + " over " + events
+                + " events, fewest per event " + minSold + ", steps " + scheduler.getExecutedSteps());
+        assertEquals(0, starved);
+        System.out.println("Shared thread budget passed!");
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -1,8 +1,13 @@
 import com.iit.ticket.model.Ticket;
 import com.iit.ticket.pool.BlockingQueueTicketPool;
+import com.iit.ticket.pool.PriceOrderedTicketPool;
 import com.iit.ticket.pool.ReentrantLockTicketPool;
+import com.iit.ticket.pool.RingBufferTicketPool;
+import com.iit.ticket.pool.ShardedTicketPool;
+import com.iit.ticket.pool.StampedLockTicketPool;
 import com.iit.ticket.pool.SynchronizedTicketPool;
 import com.iit.ticket.pool.TicketPool;
+import com.iit.ticket.pool.TwoLockTicketPool;
 
 import java.util.Random;
 import java.util.concurrent.CountDownLatch;
@@ -31,6 +36,21 @@ public class HighConcurrencyTest {
         // Test BlockingQueueTicketPool
         TestResult blockingQueueResult = testHighConcurrency(new BlockingQueueTicketPool(POOL_CAPACITY), "BlockingQueue");
 
+        // Test RingBufferTicketPool
+        TestResult ringBufferResult = testHighConcurrency(new RingBufferTicketPool(POOL_CAPACITY), "RingBuffer");
+
+        // Test ShardedTicketPool
+        TestResult shardedResult = testHighConcurrency(new ShardedTicketPool(POOL_CAPACITY), "Sharded");
+
+        // Test TwoLockTicketPool
+        TestResult twoLockResult = testHighConcurrency(new TwoLockTicketPool(POOL_CAPACITY), "TwoLock");
+
+        // Test PriceOrderedTicketPool
+        TestResult priceOrderedResult = testHighConcurrency(new PriceOrderedTicketPool(POOL_CAPACITY), "PriceOrdered");
+
+        // Test StampedLockTicketPool
+        TestResult stampedLockResult = testHighConcurrency(new StampedLockTicketPool(POOL_CAPACITY), "StampedLock");
+
         // Print summary
         System.out.println("\n=== Summary ===");
         System.out.println("SynchronizedTicketPool:");
@@ -47,6 +67,31 @@ public class HighConcurrencyTest {
         System.out.println("  - Throughput: " + blockingQueueResult.operationsPerSecond + " ops/sec");
         System.out.println("  - Tickets produced: " + blockingQueueResult.ticketsProduced);
         System.out.println("  - Tickets consumed: " + blockingQueueResult.ticketsConsumed);
+
+        System.out.println("\nRingBufferTicketPool:");
+        System.out.println("  - Throughput: " + ringBufferResult.operationsPerSecond + " ops/sec");
+        System.out.println("  - Tickets produced: " + ringBufferResult.ticketsProduced);
+        System.out.println("  - Tickets consumed: " + ringBufferResult.ticketsConsumed);
+
+        System.out.println("\nShardedTicketPool:");
+        System.out.println("  - Throughput: " + shardedResult.operationsPerSecond + " ops/sec");
+        System.out.println("  - Tickets produced: " + shardedResult.ticketsProduced);
+        System.out.println("  - Tickets consumed: " + shardedResult.ticketsConsumed);
+
+        System.out.println("\nTwoLockTicketPool:");
+        System.out.println("  - Throughput: " + twoLockResult.operationsPerSecond + " ops/sec");
+        System.out.println("  - Tickets produced: " + twoLockResult.ticketsProduced);
+        System.out.println("  - Tickets consumed: " + twoLockResult.ticketsConsumed);
+
+        System.out.println("\nPriceOrderedTicketPool:");
+        System.out.println("  - Throughput: " + priceOrderedResult.operationsPerSecond + " ops/sec");
+        System.out.println("  - Tickets produced: " + priceOrderedResult.ticketsProduced);
+        System.out.println("  - Tickets consumed: " + priceOrderedResult.ticketsConsumed);
+
+        System.out.println("\nStampedLockTicketPool:");
+        System.out.println("  - Throughput: " + stampedLockResult.operationsPerSecond + " ops/sec");
+        System.out.println("  - Tickets produced: " + stampedLockResult.ticketsProduced);
+        System.out.println("  - Tickets consumed: " + stampedLockResult.ticketsConsumed);
     }
 
     private static TestResult testHighConcurrency(TicketPool pool, String name) throws Exception {
@@ -0,0 +1,225 @@
+import com.iit.ticket.metrics.LatencyHistogram;
+import com.iit.ticket.metrics.PoolMetrics;
+import com.iit.ticket.model.Ticket;
+import com.iit.ticket.pool.BlockingQueueTicketPool;
+import com.iit.ticket.pool.JournaledTicketPool;
+import com.iit.ticket.pool.OffHeapTicketPool;
+import com.iit.ticket.pool.PriceOrderedTicketPool;
+import com.iit.ticket.pool.ReentrantLockTicketPool;
+import com.iit.ticket.pool.ReservableTicketPool;
+import com.iit.ticket.pool.RingBufferTicketPool;
+import com.iit.ticket.pool.ShardedTicketPool;
+import com.iit.ticket.pool.StampedLockTicketPool;
+import com.iit.ticket.pool.SynchronizedTicketPool;
+import com.iit.ticket.pool.TicketPool;
+import com.iit.ticket.pool.TwoLockTicketPool;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsTest {
+
+    private static final long WAIT_MILLIS = 50;
+    private static final int NUM_THREADS = 4;
+    private static final int OPERATIONS_PER_THREAD = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== Pool Metrics Test ===");
+
+        testHistogramAccuracy();
+        testWaitsRecorded();
+        testLockContention();
+        testMBean();
+
+        System.out.println("\nAll metrics tests passed!");
+    }
+
+    private static void testHistogramAccuracy() {
+        System.out.println("\nTesting histogram percentiles against exact values:");
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1_000_000; value++) {
+            histogram.record(value);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1_000_000, snapshot.getCount());
+        assertEquals(500_000.5, snapshot.getMeanNanos(), 0.001);
+        for (double percentile : new double[] {50, 90, 99, 99.9}) {
+            long exact = (long) (percentile * 10_000);
+            long reported = snapshot.getValueAtPercentile(percentile);
+            System.out.println("  - p" + percentile + ": exact " + exact + ", reported " + reported);
+            assertTrue(reported >= exact && reported <= exact * 1.016);
+        }
+        assertTrue(snapshot.getMaxNanos() >= 1_000_000 && snapshot.getMaxNanos() <= 1_016_000);
+
+        // Small values are exact, and one enormous value does not disturb the rest
+        histogram.reset();
+        histogram.record(5);
+        histogram.record(TimeUnit.HOURS.toNanos(1));
+        snapshot = histogram.snapshot();
+        assertEquals(5, snapshot.getValueAtPercentile(50));
+        assertTrue(snapshot.getMaxNanos() >= TimeUnit.HOURS.toNanos(1));
+        System.out.println("Histogram accuracy passed!");
+    }
+
+    private static void testWaitsRecorded() throws Exception {
+        System.out.println("\nTesting full and empty waits in every pool:");
+
+        Path journal = Files.createTempFile("metrics", ".journal");
+        Files.delete(journal);
+        TicketPool[] pools = {
+                new SynchronizedTicketPool(1),
+                new ReentrantLockTicketPool(1),
+                new BlockingQueueTicketPool(1),
+                new RingBufferTicketPool(1),
+                new ShardedTicketPool(1),
+                new OffHeapTicketPool(1),
+                new TwoLockTicketPool(1),
+                new PriceOrderedTicketPool(1),
+                new StampedLockTicketPool(1),
+                new ReservableTicketPool(new SynchronizedTicketPool(1), 1),
+                JournaledTicketPool.open(new ReentrantLockTicketPool(1), journal)
+        };
+        try {
+            for (TicketPool pool : pools) {
+                checkWaits(pool);
+            }
+        } finally {
+            ((ReservableTicketPool) pools[9]).shutdown();
+            ((JournaledTicketPool) pools[10]).close();
+            Files.deleteIfExists(journal);
+        }
+        System.out.println("Waits passed!");
+    }
+
+    private static void checkWaits(TicketPool pool) throws Exception {
+        PoolMetrics metrics = pool.getMetrics();
+        metrics.setSamplingInterval(1);
+        pool.addTicket(new Ticket(1, 10.0));
+        assertEquals(0, metrics.getFullWaits().snapshot().getCount());
+
+        // The second add has to wait until the first ticket is bought
+        Thread producer = new Thread(() -> pool.addTicket(new Ticket(2, 20.0)));
+        producer.start();
+        Thread.sleep(WAIT_MILLIS);
+        assertEquals(1, pool.purchaseTicket().getTicketId());
+        producer.join();
+
+        assertEquals(2, pool.purchaseTicket().getTicketId());
+        Thread consumer = new Thread(pool::purchaseTicket);
+        consumer.start();
+        Thread.sleep(WAIT_MILLIS);
+        pool.addTicket(new Ticket(3, 30.0));
+        consumer.join();
+
+        LatencyHistogram.Snapshot fullWaits = metrics.getFullWaits().snapshot();
+        LatencyHistogram.Snapshot emptyWaits = metrics.getEmptyWaits().snapshot();
+        System.out.println("  - " + pool.getClass().getSimpleName() + ": full wait "
+                + TimeUnit.NANOSECONDS.toMillis(fullWaits.getTotalNanos()) + " ms, empty wait "
+                + TimeUnit.NANOSECONDS.toMillis(emptyWaits.getTotalNanos()) + " ms");
+        assertEquals(1, fullWaits.getCount());
+        assertEquals(1, emptyWaits.getCount());
+        assertTrue(fullWaits.getTotalNanos() >= TimeUnit.MILLISECONDS.toNanos(WAIT_MILLIS / 2));
+        assertTrue(emptyWaits.getTotalNanos() >= TimeUnit.MILLISECONDS.toNanos(WAIT_MILLIS / 2));
+        assertEquals(3, metrics.getAddCount());
+        assertEquals(3, metrics.getPurchaseCount());
+        assertTrue(metrics.getAddMaxMicros() >= WAIT_MILLIS * 500);
+    }
+
+    private static void testLockContention() throws Exception {
+        System.out.println("\nTesting lock contention counts:");
+
+        // A lock held by another thread is always counted
+        PoolMetrics metrics = new PoolMetrics();
+        ReentrantLock lock = new ReentrantLock();
+        CountDownLatch locked = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            lock.lock();
+            locked.countDown();
+            try {
+                Thread.sleep(WAIT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+        });
+        holder.start();
+        locked.await();
+        metrics.acquire(lock);
+        lock.unlock();
+        holder.join();
+        metrics.acquire(lock);
+        lock.unlock();
+        assertEquals(1, metrics.getLockContentions());
+
+        // Busy pools: report how often each one found its lock taken
+        for (TicketPool pool : new TicketPool[] {new ReentrantLockTicketPool(100), new TwoLockTicketPool(100),
+                new ShardedTicketPool(100), new StampedLockTicketPool(100), new RingBufferTicketPool(100)}) {
+            ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+            for (int t = 0; t < NUM_THREADS; t++) {
+                final boolean producer = t % 2 == 0;
+                executor.submit(() -> {
+                    for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                        if (producer) {
+                            pool.addTicket(new Ticket(i, ThreadLocalRandom.current().nextDouble(100)));
+                        } else {
+                            pool.purchaseTicket();
+                        }
+                    }
+                });
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+            PoolMetrics poolMetrics = pool.getMetrics();
+            System.out.println("  - " + pool.getClass().getSimpleName() + ": " + poolMetrics.getLockContentions()
+                    + " contentions, purchase p99 " + poolMetrics.getPurchaseP99Micros() + " us");
+            assertEquals(NUM_THREADS / 2 * OPERATIONS_PER_THREAD, poolMetrics.getPurchaseCount());
+            long timed = poolMetrics.getPurchaseLatency().snapshot().getCount();
+            assertTrue(timed > 0 && timed < poolMetrics.getPurchaseCount());
+        }
+        System.out.println("Lock contention passed!");
+    }
+
+    private static void testMBean() throws Exception {
+        System.out.println("\nTesting the JMX view:");
+
+        TicketPool pool = new ReentrantLockTicketPool(10);
+        ObjectName name = pool.getMetrics().register("MetricsTest");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.setAttribute(name, new Attribute("SamplingInterval", 1));
+        assertEquals(1, pool.getMetrics().getSamplingInterval());
+        for (int i = 0; i < 5; i++) {
+            pool.addTicket(new Ticket(i, 10.0));
+        }
+        pool.purchaseTicket();
+
+        assertEquals(5L, server.getAttribute(name, "AddCount"));
+        assertEquals(1L, server.getAttribute(name, "PurchaseCount"));
+        assertTrue((Double) server.getAttribute(name, "PurchaseP99Micros") > 0);
+        System.out.println("  - " + name + ": AddP50Micros = " + server.getAttribute(name, "AddP50Micros"));
+
+        // Registering again under the same name replaces the old bean
+        TicketPool replacement = new ReentrantLockTicketPool(10);
+        replacement.getMetrics().register("MetricsTest");
+        assertEquals(0L, server.getAttribute(name, "AddCount"));
+
+        pool.getMetrics().reset();
+        assertEquals(0, pool.getMetrics().getAddCount());
+        server.unregisterMBean(name);
+        System.out.println("JMX view passed!");
+    }
+}
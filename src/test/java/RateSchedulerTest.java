@@ -0,0 +1,302 @@
+import com.iit.ticket.consumer.Consumer;
+import com.iit.ticket.pool.RingBufferTicketPool;
+import com.iit.ticket.pool.TicketPool;
+import com.iit.ticket.producer.Producer;
+import com.iit.ticket.util.PoolEntity;
+import com.iit.ticket.util.RateScheduler;
+import com.iit.ticket.util.TokenBucket;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RateSchedulerTest {
+
+    private static final int WORKERS = 2;
+    private static final int NUM_ENTITIES = 5000;
+    private static final double ENTITY_RATE = 20.0;
+    private static final double HIGH_RATE = 100_000.0;
+    private static final double TOLERANCE = 0.15;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== Rate Scheduler Test ===");
+
+        testManyEntities();
+        testFractionalRate();
+        testHighRate();
+        testRateChangeTakesEffect();
+        testStoppedEntityIsDropped();
+        testUnscheduleSlowEntity();
+        testDedicatedThreadPacing();
+        testPoolEntitiesNeverBlock();
+
+        System.out.println("\nAll rate scheduler tests passed!");
+    }
+
+    private static void testManyEntities() throws Exception {
+        System.out.println("\nTesting " + NUM_ENTITIES + " entities at " + ENTITY_RATE + " ops/sec on "
+                + WORKERS + " workers:");
+
+        RateScheduler scheduler = new RateScheduler(WORKERS);
+        List<CountingEntity> entities = new ArrayList<>();
+        for (int i = 0; i < NUM_ENTITIES; i++) {
+            CountingEntity entity = new CountingEntity(i);
+            entity.setRate(ENTITY_RATE);
+            entities.add(entity);
+            scheduler.schedule(entity);
+        }
+        long start = System.nanoTime();
+        Thread.sleep(2000);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long steps = scheduler.getExecutedSteps();
+        scheduler.shutdown();
+
+        // Every bucket starts with one token
+        double expected = NUM_ENTITIES * (1 + ENTITY_RATE * seconds);
+        System.out.println("  - Steps: " + steps + " (expected about " + (long) expected + ")");
+        assertWithinTolerance(expected, steps);
+        for (CountingEntity entity : entities) {
+            assertTrue("Entity " + entity.getName() + " was starved", entity.steps.get() >= ENTITY_RATE);
+        }
+        System.out.println("Many entities passed!");
+    }
+
+    private static void testFractionalRate() throws Exception {
+        System.out.println("\nTesting a fractional rate of 0.5 ops/sec:");
+
+        RateScheduler scheduler = new RateScheduler(1);
+        CountingEntity entity = new CountingEntity(0);
+        entity.setRate(0.5);
+        scheduler.schedule(entity);
+        Thread.sleep(3100);
+        scheduler.shutdown();
+
+        // One step straight away, then one every two seconds
+        System.out.println("  - Steps in 3.1s: " + entity.steps.get());
+        assertEquals(2, entity.steps.get());
+        System.out.println("Fractional rate passed!");
+    }
+
+    private static void testHighRate() throws Exception {
+        System.out.println("\nTesting a single entity at " + (long) HIGH_RATE + " ops/sec:");
+
+        RateScheduler scheduler = new RateScheduler(1);
+        CountingEntity entity = new CountingEntity(0);
+        entity.setRate(HIGH_RATE);
+        long start = System.nanoTime();
+        scheduler.schedule(entity);
+        Thread.sleep(1000);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long steps = entity.steps.get();
+        scheduler.shutdown();
+
+        System.out.println("  - Steps: " + steps + " (expected about " + (long) (HIGH_RATE * seconds) + ")");
+        assertWithinTolerance(HIGH_RATE * seconds, steps);
+        System.out.println("High rate passed!");
+    }
+
+    private static void testRateChangeTakesEffect() throws Exception {
+        System.out.println("\nTesting that setRate takes effect immediately:");
+
+        RateScheduler scheduler = new RateScheduler(1);
+        CountingEntity entity = new CountingEntity(0);
+        // The next token is 100 seconds away once the first step has run
+        entity.setRate(0.01);
+        scheduler.schedule(entity);
+        Thread.sleep(200);
+        assertEquals(1, entity.steps.get());
+
+        entity.setRate(1000);
+        Thread.sleep(500);
+        long steps = entity.steps.get();
+        scheduler.shutdown();
+
+        System.out.println("  - Steps 500 ms after raising the rate to 1000: " + steps);
+        assertTrue("Rate change did not wake the entity", steps > 300);
+        System.out.println("Rate change passed!");
+    }
+
+    private static void testStoppedEntityIsDropped() throws Exception {
+        System.out.println("\nTesting that a stopped entity leaves the scheduler:");
+
+        RateScheduler scheduler = new RateScheduler(1);
+        CountingEntity entity = new CountingEntity(0);
+        entity.setRate(100);
+        scheduler.schedule(entity);
+        Thread.sleep(100);
+        entity.stop();
+        Thread.sleep(100);
+        long steps = entity.steps.get();
+        Thread.sleep(200);
+        scheduler.shutdown();
+
+        assertEquals(0, scheduler.getScheduledEntities());
+        assertEquals(steps, entity.steps.get());
+        System.out.println("Stopped entity passed!");
+    }
+
+    // At 0.01 ops/sec the next turn is 100s away; unschedule() drops the entity without waiting for it
+    private static void testUnscheduleSlowEntity() throws Exception {
+        System.out.println("\nTesting unschedule of a slow entity:");
+
+        RateScheduler scheduler = new RateScheduler(1);
+        CountingEntity slow = new CountingEntity(0);
+        slow.setRate(0.01);
+        CountingEntity fast = new CountingEntity(1);
+        fast.setRate(100);
+        scheduler.schedule(slow);
+        scheduler.schedule(fast);
+        Thread.sleep(100);
+        assertEquals(2, scheduler.getScheduledEntities());
+
+        slow.stop();
+        assertTrue(scheduler.unschedule(slow));
+        assertEquals(1, scheduler.getScheduledEntities());
+        assertTrue(!scheduler.unschedule(slow));
+
+        // One that a worker may be running at the time still leaves exactly once
+        fast.stop();
+        scheduler.unschedule(fast);
+        Thread.sleep(100);
+        assertEquals(0, scheduler.getScheduledEntities());
+        assertEquals(1, slow.steps.get());
+        scheduler.shutdown();
+        System.out.println("Unschedule passed!");
+    }
+
+    private static void testDedicatedThreadPacing() throws Exception {
+        System.out.println("\nTesting token bucket pacing on a dedicated thread:");
+
+        TokenBucket pacer = new TokenBucket(0.01);
+        AtomicLong acquired = new AtomicLong();
+        Thread thread = new Thread(() -> {
+            try {
+                while (true) {
+                    pacer.acquire();
+                    acquired.incrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                // stopped by the test
+            }
+        });
+        thread.start();
+        Thread.sleep(200);
+        assertEquals(1, acquired.get());
+
+        // Raising the rate wakes the parked thread instead of leaving it asleep for 100 seconds
+        pacer.setRate(2000);
+        long start = System.nanoTime();
+        Thread.sleep(500);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long count = acquired.get() - 1;
+        thread.interrupt();
+        thread.join();
+
+        System.out.println("  - Tokens at 2000 ops/sec: " + count + " (expected about " + (long) (2000 * seconds) + ")");
+        assertWithinTolerance(2000 * seconds, count);
+        System.out.println("Dedicated thread pacing passed!");
+    }
+
+    private static void testPoolEntitiesNeverBlock() throws Exception {
+        System.out.println("\nTesting producers and consumers on one shared worker:");
+
+        // A consumer on an empty pool and a producer on a full one would each block a worker for
+        // good if their steps waited; with a single worker either one would stall the other
+        TicketPool pool = new RingBufferTicketPool(10);
+        RateScheduler scheduler = new RateScheduler(1);
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Consumer consumer = new Consumer(pool, 1);
+        Producer producer = new Producer(pool, 1);
+        try {
+            consumer.setRate(100);
+            scheduler.schedule(consumer);
+            Thread.sleep(200);
+            producer.setRate(500);
+            scheduler.schedule(producer);
+            Thread.sleep(1000);
+            consumer.stop();
+            Thread.sleep(200);
+            producer.stop();
+            Thread.sleep(100);
+        } finally {
+            System.setOut(console);
+            scheduler.shutdown();
+        }
+
+        System.out.println("  - Sold: " + pool.getSoldTickets() + ", available: " + pool.getAvailableTickets());
+        assertTrue(pool.getSoldTickets() >= 50);
+        assertEquals(10, pool.getAvailableTickets());
+        System.out.println("Pool entities passed!");
+    }
+
+    private static void assertWithinTolerance(double expected, long actual) {
+        assertTrue("Expected about " + (long) expected + " but got " + actual,
+                Math.abs(actual - expected) <= expected * TOLERANCE);
+    }
+
+    private static final class CountingEntity implements PoolEntity {
+
+        private final int id;
+        private final TokenBucket pacer = new TokenBucket(0);
+        private final AtomicLong steps = new AtomicLong();
+        private volatile double rate;
+        private volatile boolean running = true;
+
+        CountingEntity(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    pacer.acquire();
+                    step();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public boolean step() {
+            if (!running) {
+                return false;
+            }
+            steps.incrementAndGet();
+            return true;
+        }
+
+        @Override
+        public double getRate() {
+            return rate;
+        }
+
+        @Override
+        public void setRate(double rate) {
+            this.rate = rate;
+            pacer.setRate(rate);
+        }
+
+        @Override
+        public TokenBucket getPacer() {
+            return pacer;
+        }
+
+        @Override
+        public String getName() {
+            return id + "";
+        }
+
+        @Override
+        public void stop() {
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+import com.iit.ticket.pool.PoolType;
+import com.iit.ticket.scenario.EntityKind;
+import com.iit.ticket.scenario.Scenario;
+import com.iit.ticket.scenario.ScenarioRunner;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ScenarioTest {
+
+    private static final String SCENARIO =
+            "name=test \"run\"\n"
+            + "pools=ReentrantLock, stampedlock\n"
+            + "capacity=50\n"
+            + "samplingInterval=1\n"
+            + "phases=load,reads\n"
+            + "load.duration=600ms\n"
+            + "load.rampUp=200ms\n"
+            + "load.producers=2\n"
+            + "load.producerRate=500\n"
+            + "load.consumers=2\n"
+            + "load.consumerRate=500\n"
+            + "reads.duration=0.5s\n"
+            + "reads.consumers=1\n"
+            + "reads.readers=2\n"
+            + "reads.readerRate=200\n"
+            + "reads.writers=1\n"
+            + "reads.writerRate=20\n";
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== Scenario Runner Test ===");
+
+        testParsing();
+        testInvalidScenarios();
+        testRun("platform");
+        testRun("virtual");
+        testRun("scheduled");
+
+        System.out.println("\nAll scenario tests passed!");
+    }
+
+    private static void testParsing() throws Exception {
+        System.out.println("\nTesting scenario parsing:");
+
+        Scenario scenario = Scenario.load(new StringReader(SCENARIO));
+        assertEquals(List.of(PoolType.REENTRANT_LOCK, PoolType.STAMPED_LOCK), scenario.getPools());
+        assertEquals(50, scenario.getCapacity());
+        assertEquals(Scenario.ThreadMode.PLATFORM, scenario.getThreadMode());
+        assertEquals(2, scenario.getPhases().size());
+
+        Scenario.Phase load = scenario.getPhases().get(0);
+        Scenario.Phase reads = scenario.getPhases().get(1);
+        assertEquals(600, load.getDurationMillis());
+        assertEquals(200, load.getRampUpMillis());
+        assertEquals(500, reads.getDurationMillis());
+        assertEquals(0, reads.getRampUpMillis());
+
+        // Counts and rates carry over unless the phase changes them
+        assertEquals(2, reads.getCount(EntityKind.PRODUCER));
+        assertEquals(500.0, reads.getRate(EntityKind.PRODUCER), 0.0);
+        assertEquals(1, reads.getCount(EntityKind.CONSUMER));
+        assertEquals(0, load.getCount(EntityKind.READER));
+        assertEquals(2, reads.getCount(EntityKind.READER));
+
+        Scenario all = Scenario.load(new StringReader("phases=only\nonly.duration=2m\nonly.rampUp=5m\n"));
+        assertEquals(PoolType.values().length, all.getPools().size());
+        assertEquals(120_000, all.getPhases().get(0).getDurationMillis());
+        assertEquals(120_000, all.getPhases().get(0).getRampUpMillis());
+
+        // Comments only work on lines of their own; the shipped scenario must parse as written
+        Scenario commented = Scenario.load(new StringReader("# platform, virtual or scheduled\n"
+                + "threadMode=virtual\nphases=only\nonly.duration=1s\n"));
+        assertEquals(Scenario.ThreadMode.VIRTUAL, commented.getThreadMode());
+        Scenario nightly = Scenario.load(Paths.get("scenarios", "nightly.properties"));
+        assertEquals(4, nightly.getPhases().size());
+        System.out.println("Parsing passed!");
+    }
+
+    private static void testInvalidScenarios() throws Exception {
+        System.out.println("\nTesting invalid scenarios are rejected:");
+
+        for (String text : new String[] {
+                "capacity=10\n",
+                "phases=a\n",
+                "pools=NoSuchPool\nphases=a\na.duration=1s\n",
+                "phases=a\na.duration=1s\na.producers=-1\n",
+                "threadMode=fibers\nphases=a\na.duration=1s\n"}) {
+            try {
+                Scenario.load(new StringReader(text));
+                fail("Accepted an invalid scenario: " + text.replace('\n', ' '));
+            } catch (IllegalArgumentException expected) {
+                System.out.println("  - rejected: " + expected.getMessage());
+            }
+        }
+        System.out.println("Invalid scenarios passed!");
+    }
+
+    private static void testRun(String threadMode) throws Exception {
+        System.out.println("\nTesting a two-phase run with " + threadMode + " threads:");
+
+        Scenario scenario = Scenario.load(new StringReader(SCENARIO + "threadMode=" + threadMode + "\n"));
+        PrintStream silent = new PrintStream(OutputStream.nullOutputStream());
+        String report = new ScenarioRunner(scenario, silent).run();
+        System.out.print(report);
+
+        assertTrue(report.startsWith("{\"scenario\":\"test \\\"run\\\"\""));
+        assertTrue(report.contains("\"threadMode\":\"" + threadMode + "\""));
+        assertTrue(report.contains("\"pool\":\"ReentrantLock\""));
+        assertTrue(report.contains("\"pool\":\"StampedLock\""));
+        assertEquals(2, count(report, "\"final\":"));
+        assertEquals(4, count(report, "\"phase\":"));
+        assertEquals(count(report, "{"), count(report, "}"));
+        assertEquals(count(report, "["), count(report, "]"));
+
+        // Producers and consumers ran in both phases, readers and writers only in the second
+        List<Double> adds = values(report, "addsPerSecond");
+        List<Double> purchases = values(report, "purchasesPerSecond");
+        List<Double> reads = values(report, "readsPerSecond");
+        List<Double> updates = values(report, "priceUpdatesPerSecond");
+        for (int phase = 0; phase < 4; phase++) {
+            assertTrue(adds.get(phase) > 0);
+            assertTrue(purchases.get(phase) > 0);
+            assertEquals(phase % 2 == 1, reads.get(phase) > 0);
+        }
+        assertEquals(0.0, updates.get(0), 0.0);
+        assertEquals(0.0, updates.get(2), 0.0);
+
+        // Entity counts follow the phases
+        assertEquals(List.of(2.0, 1.0, 2.0, 1.0), values(report, "consumers"));
+        assertEquals(List.of(0.0, 2.0, 0.0, 2.0), values(report, "readers"));
+
+        // Every call was sampled, so the histograms saw them all bar the few in flight when read;
+        // scheduled entities only use the non-blocking operations, which are not timed
+        List<Double> calls = values(report, "calls");
+        List<Double> timed = values(report, "timed");
+        assertEquals(8, calls.size());
+        for (int i = 0; i < calls.size(); i++) {
+            assertEquals(!threadMode.equals("scheduled"), calls.get(i) > 0);
+            assertEquals(calls.get(i), timed.get(i), 4.0);
+        }
+        for (double p99 : values(report, "p99Micros")) {
+            assertTrue(p99 >= 0);
+        }
+
+        // The final counters agree with each other
+        List<Double> available = values(report, "available");
+        List<Double> sold = values(report, "sold");
+        List<Double> total = values(report, "total");
+        for (int pool = 0; pool < 2; pool++) {
+            // Each pool reports available after both phases and once more in its final counters
+            double finalAvailable = available.get(pool * 3 + 2);
+            assertEquals(total.get(pool), sold.get(pool) + finalAvailable, 0.0);
+            assertTrue(finalAvailable <= 50);
+        }
+        System.out.println("Run with " + threadMode + " threads passed!");
+    }
+
+    private static int count(String text, String token) {
+        int count = 0;
+        for (int at = text.indexOf(token); at >= 0; at = text.indexOf(token, at + token.length())) {
+            count++;
+        }
+        return count;
+    }
+
+    private static List<Double> values(String report, String key) {
+        List<Double> values = new ArrayList<>();
+        Matcher matcher = Pattern.compile("\"" + key + "\":(-?[0-9.]+)").matcher(report);
+        while (matcher.find()) {
+            values.add(Double.parseDouble(matcher.group(1)));
+        }
+        return values;
+    }
+}
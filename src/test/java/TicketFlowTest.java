@@ -0,0 +1,202 @@
+import com.iit.ticket.flow.TicketPublisher;
+import com.iit.ticket.flow.TicketSubscriber;
+import com.iit.ticket.model.Ticket;
+import com.iit.ticket.pool.ReentrantLockTicketPool;
+import com.iit.ticket.pool.TicketPool;
+import com.iit.ticket.util.EventLog;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TicketFlowTest {
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== Ticket Flow Test ===");
+        EventLog.global().setLevel(EventLog.Level.OFF);
+
+        testDemand();
+        testWakeOnAdd();
+        testPipeline();
+        testInvalidRequestAndClose();
+
+        System.out.println("\nAll ticket flow tests passed!");
+    }
+
+    // Only what was requested leaves the pool
+    private static void testDemand() throws Exception {
+        System.out.println("\nTesting demand-driven delivery:");
+
+        TicketPool pool = new ReentrantLockTicketPool(20);
+        for (int i = 0; i < 10; i++) {
+            pool.addTicket(new Ticket(i, 10.0));
+        }
+        TicketPublisher publisher = new TicketPublisher(pool);
+        Recorder recorder = new Recorder(0);
+        publisher.subscribe(recorder);
+        assertTrue(recorder.subscribed.await(5, TimeUnit.SECONDS));
+
+        recorder.request(3);
+        recorder.awaitReceived(3);
+        Thread.sleep(100);
+        assertEquals(3, recorder.received.get());
+        assertEquals(7, pool.getAvailableTickets());
+
+        recorder.request(2);
+        recorder.awaitReceived(5);
+        Thread.sleep(100);
+        assertEquals(5, recorder.received.get());
+        assertEquals(5, pool.getAvailableTickets());
+        assertEquals(5, publisher.getDeliveredTickets());
+        publisher.close();
+        System.out.println("Demand passed!");
+    }
+
+    // A subscription waiting on an empty pool picks up tickets added directly, by retry or by wake-up
+    private static void testWakeOnAdd() throws Exception {
+        System.out.println("\nTesting delivery after an empty pool:");
+
+        TicketPool pool = new ReentrantLockTicketPool(20);
+        TicketPublisher publisher = new TicketPublisher(pool);
+        Recorder recorder = new Recorder(10);
+        publisher.subscribe(recorder);
+        Thread.sleep(200);
+        assertEquals(0, recorder.received.get());
+
+        for (int i = 0; i < 5; i++) {
+            pool.addTicket(new Ticket(i, 10.0));
+        }
+        recorder.awaitReceived(5);
+        for (int i = 5; i < 10; i++) {
+            pool.addTicket(new Ticket(i, 10.0));
+        }
+        publisher.ticketsAdded();
+        recorder.awaitReceived(10);
+        assertEquals(0, pool.getAvailableTickets());
+        publisher.close();
+        System.out.println("Wake on add passed!");
+    }
+
+    // Upstream producers feed a small pool that a slow subscriber drains; nothing is lost or overfills
+    private static void testPipeline() throws Exception {
+        System.out.println("\nTesting a producer-to-consumer pipeline:");
+
+        int tickets = 2000;
+        int capacity = 16;
+        TicketPool pool = new ReentrantLockTicketPool(capacity);
+        TicketPublisher publisher = new TicketPublisher(pool);
+        TicketSubscriber feeder = publisher.feeder(8);
+        Recorder recorder = new Recorder(4);
+        publisher.subscribe(recorder);
+
+        AtomicInteger maxAvailable = new AtomicInteger();
+        try (SubmissionPublisher<Ticket> producers = new SubmissionPublisher<>()) {
+            producers.subscribe(feeder);
+            for (int i = 0; i < tickets; i++) {
+                producers.submit(new Ticket(i, 10.0));
+                maxAvailable.accumulateAndGet(pool.getAvailableTickets(), Math::max);
+            }
+        }
+        recorder.awaitReceived(tickets);
+
+        System.out.println("  - delivered " + recorder.received.get() + ", most in the pool at once "
+                + maxAvailable.get());
+        assertEquals(tickets, recorder.received.get());
+        assertEquals(tickets, recorder.ids.size());
+        assertEquals(tickets, feeder.getAddedTickets());
+        assertEquals(0, feeder.getPendingTickets());
+        assertTrue(maxAvailable.get() <= capacity);
+        assertEquals(0, pool.getAvailableTickets());
+        publisher.close();
+        System.out.println("Pipeline passed!");
+    }
+
+    private static void testInvalidRequestAndClose() throws Exception {
+        System.out.println("\nTesting invalid demand and close:");
+
+        TicketPool pool = new ReentrantLockTicketPool(10);
+        TicketPublisher publisher = new TicketPublisher(pool);
+        Recorder invalid = new Recorder(0);
+        publisher.subscribe(invalid);
+        assertTrue(invalid.subscribed.await(5, TimeUnit.SECONDS));
+        invalid.request(0);
+        assertTrue(invalid.finished.await(5, TimeUnit.SECONDS));
+        assertTrue(invalid.error.get() instanceof IllegalArgumentException);
+
+        Recorder open = new Recorder(5);
+        publisher.subscribe(open);
+        assertTrue(open.subscribed.await(5, TimeUnit.SECONDS));
+        publisher.close();
+        assertTrue(open.finished.await(5, TimeUnit.SECONDS));
+        assertEquals(null, open.error.get());
+        assertEquals(0, publisher.getSubscriberCount());
+        System.out.println("Invalid demand and close passed!");
+    }
+
+    // Requests the given window up front and one more per ticket, like a fulfilment stage
+    private static final class Recorder implements Flow.Subscriber<Ticket> {
+
+        private final int window;
+        private final CountDownLatch subscribed = new CountDownLatch(1);
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private final AtomicInteger received = new AtomicInteger();
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+        private final Set<Integer> ids = new HashSet<>();
+        private volatile Flow.Subscription subscription;
+
+        Recorder(int window) {
+            this.window = window;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (window > 0) {
+                subscription.request(window);
+            }
+            subscribed.countDown();
+        }
+
+        @Override
+        public void onNext(Ticket ticket) {
+            synchronized (ids) {
+                ids.add(ticket.getTicketId());
+            }
+            received.incrementAndGet();
+            if (window > 0) {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error.set(throwable);
+            finished.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            finished.countDown();
+        }
+
+        void request(long n) {
+            subscription.request(n);
+        }
+
+        void awaitReceived(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (received.get() < count && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(count, received.get());
+        }
+    }
+}
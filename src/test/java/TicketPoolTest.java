@@ -1,14 +1,34 @@
+import com.iit.ticket.model.PoolStats;
 import com.iit.ticket.model.Ticket;
+import com.iit.ticket.model.TicketRecord;
 import com.iit.ticket.pool.BlockingQueueTicketPool;
+import com.iit.ticket.pool.JournaledTicketPool;
+import com.iit.ticket.pool.OffHeapTicketPool;
+import com.iit.ticket.pool.PriceOrderedTicketPool;
 import com.iit.ticket.pool.ReentrantLockTicketPool;
+import com.iit.ticket.pool.ReservableTicketPool;
+import com.iit.ticket.pool.RingBufferTicketPool;
+import com.iit.ticket.pool.SeatSelectable;
+import com.iit.ticket.pool.ShardedTicketPool;
+import com.iit.ticket.pool.StampedLockTicketPool;
 import com.iit.ticket.pool.SynchronizedTicketPool;
 import com.iit.ticket.pool.TicketPool;
+import com.iit.ticket.pool.TwoLockTicketPool;
+import com.iit.ticket.util.TicketRecycler;
 import org.junit.Assert;
 
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class TicketPoolTest {
@@ -24,6 +44,27 @@ public class TicketPoolTest {
         // Run basic functionality tests
         testBasicFunctionality();
 
+        // Run batch operation tests
+        testBatchOperations();
+
+        // Run timed and non-blocking operation tests
+        testTimedOperations();
+
+        // Run purchase-by-id tests
+        testPurchaseById();
+
+        // Run in-place price update tests
+        testPriceUpdates();
+
+        // Run reserve/confirm tests
+        testReservations();
+
+        // Run journal and recovery tests
+        testJournal();
+
+        // Run snapshot and restore tests
+        testSnapshot();
+
         // Run thread safety tests
         testThreadSafety();
 
@@ -34,7 +75,7 @@ public class TicketPoolTest {
         testEdgeCases();
     }
 
-    private static void testBasicFunctionality() {
+    private static void testBasicFunctionality() throws Exception {
         System.out.println("=== Basic Functionality Tests ===");
 
         // Test SynchronizedTicketPool
@@ -45,6 +86,152 @@ public class TicketPoolTest {
 
         // Test BlockingQueueTicketPool
         testPoolBasicOperations(new BlockingQueueTicketPool(POOL_CAPACITY), "BlockingQueue");
+
+        // Test TwoLockTicketPool
+        testPoolBasicOperations(new TwoLockTicketPool(POOL_CAPACITY), "TwoLock");
+
+        // Test PriceOrderedTicketPool
+        testPoolBasicOperations(new PriceOrderedTicketPool(POOL_CAPACITY), "PriceOrdered");
+        testPriceOrderedOperations();
+
+        // Test StampedLockTicketPool
+        testPoolBasicOperations(new StampedLockTicketPool(POOL_CAPACITY), "StampedLock");
+        testStampedLockBrowsing();
+
+        // Test OffHeapTicketPool
+        testPoolBasicOperations(new OffHeapTicketPool(POOL_CAPACITY), "OffHeap");
+        testOffHeapPrimitiveOperations();
+    }
+
+    private static void testOffHeapPrimitiveOperations() {
+        System.out.println("\nTesting OffHeap Pool primitive operations:");
+
+        OffHeapTicketPool pool = new OffHeapTicketPool(3);
+        TicketRecord record = new TicketRecord();
+
+        // Wrap around the ring twice using only the primitive path
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < 3; i++) {
+                pool.addTicket(round * 10 + i, 1999L + i);
+            }
+            Assert.assertFalse(pool.tryAddTicket(99, 1L));
+            for (int i = 0; i < 3; i++) {
+                Assert.assertTrue(pool.tryPurchaseTicket(record));
+                Assert.assertEquals(round * 10 + i, record.getTicketId());
+                Assert.assertEquals(1999L + i, record.getPriceCents());
+            }
+            Assert.assertFalse(pool.tryPurchaseTicket(record));
+        }
+
+        // Ticket objects round-trip through the packed representation
+        pool.addTicket(new Ticket(7, 49.99));
+        Ticket ticket = pool.purchaseTicket();
+        System.out.println("Purchased: " + ticket);
+        Assert.assertEquals(7, ticket.getTicketId());
+        Assert.assertEquals(49.99, ticket.getTicketPrice(), 0.0001);
+
+        Assert.assertEquals(7, pool.getSoldTickets());
+        Assert.assertEquals(7, pool.getTotalTickets());
+        Assert.assertEquals(0, pool.getAvailableTickets());
+
+        System.out.println("OffHeap Pool primitive operations passed!");
+    }
+
+    private static void testPriceOrderedOperations() {
+        System.out.println("\nTesting PriceOrdered Pool price-aware purchases:");
+
+        PriceOrderedTicketPool pool = new PriceOrderedTicketPool(POOL_CAPACITY);
+        double[] prices = {45.0, 12.5, 80.0, 12.5, 30.0, 99.9};
+        for (int i = 0; i < prices.length; i++) {
+            pool.addTicket(new Ticket(i, prices[i]));
+        }
+
+        // Equal prices leave in arrival order
+        Assert.assertEquals(1, pool.purchaseCheapestTicket().getTicketId());
+        Assert.assertEquals(3, pool.purchaseCheapestTicket().getTicketId());
+        Assert.assertEquals(5, pool.purchaseMostExpensiveTicket().getTicketId());
+
+        // The best ticket under budget is the most expensive one that still fits
+        Assert.assertEquals(0, pool.purchaseBestTicketUnder(50.0).getTicketId());
+        Assert.assertEquals(4, pool.purchaseBestTicketUnder(30.0).getTicketId());
+        Assert.assertNull(pool.purchaseBestTicketUnder(20.0));
+        Assert.assertEquals(1, pool.getAvailableTickets());
+
+        // A failed budget search does not consume the remaining ticket
+        Assert.assertEquals(2, pool.purchaseTicket().getTicketId());
+        Assert.assertNull(pool.purchaseCheapestTicket());
+        Assert.assertNull(pool.purchaseMostExpensiveTicket());
+
+        PoolStats stats = pool.getStats();
+        Assert.assertEquals(0, stats.getAvailableTickets());
+        Assert.assertEquals(6, stats.getSoldTickets());
+        Assert.assertEquals(6, stats.getTotalTickets());
+
+        System.out.println("PriceOrdered Pool price-aware purchases passed!");
+    }
+
+    private static void testStampedLockBrowsing() throws Exception {
+        System.out.println("\nTesting StampedLock Pool browsing:");
+
+        // Browsing wraps around the ring in purchase order and takes nothing
+        StampedLockTicketPool pool = new StampedLockTicketPool(4);
+        for (int i = 0; i < 4; i++) {
+            pool.addTicket(new Ticket(i, 10.0));
+        }
+        pool.purchaseTickets(3);
+        pool.addTicket(new Ticket(4, 10.0));
+        pool.addTicket(new Ticket(5, 10.0));
+        List<Ticket> browsed = pool.browseTickets(10);
+        System.out.println("Browsed: " + browsed);
+        Assert.assertEquals(3, browsed.size());
+        Assert.assertEquals(3, browsed.get(0).getTicketId());
+        Assert.assertEquals(5, browsed.get(2).getTicketId());
+        Assert.assertEquals(2, pool.browseTickets(2).size());
+        Assert.assertEquals(3, pool.getAvailableTickets());
+
+        // Readers racing buyers and sellers must only ever see consistent views
+        StampedLockTicketPool busyPool = new StampedLockTicketPool(POOL_CAPACITY);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger badViews = new AtomicInteger();
+        AtomicInteger nextId = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(NUM_READERS + 2);
+        for (int i = 0; i < NUM_READERS; i++) {
+            executor.submit(() -> {
+                while (running.get()) {
+                    PoolStats stats = busyPool.getStats();
+                    if (stats.getAvailableTickets() + stats.getSoldTickets() != stats.getTotalTickets()) {
+                        badViews.incrementAndGet();
+                    }
+                    List<Ticket> view = busyPool.browseTickets(POOL_CAPACITY);
+                    for (int j = 1; j < view.size(); j++) {
+                        if (view.get(j).getTicketId() != view.get(j - 1).getTicketId() + 1) {
+                            badViews.incrementAndGet();
+                        }
+                    }
+                }
+            });
+        }
+        executor.submit(() -> {
+            for (int j = 0; j < 20 * OPERATIONS_PER_THREAD; j++) {
+                busyPool.addTicket(new Ticket(nextId.getAndIncrement(), 10.0));
+            }
+        });
+        executor.submit(() -> {
+            for (int j = 0; j < 20 * OPERATIONS_PER_THREAD; j++) {
+                busyPool.purchaseTicket();
+            }
+        });
+        Thread.sleep(100);
+        while (busyPool.getSoldTickets() < 20 * OPERATIONS_PER_THREAD) {
+            Thread.sleep(10);
+        }
+        running.set(false);
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        Assert.assertEquals(0, badViews.get());
+        Assert.assertEquals(0, busyPool.browseTickets(POOL_CAPACITY).size());
+
+        System.out.println("StampedLock Pool browsing passed!");
     }
 
     private static void testPoolBasicOperations(TicketPool pool, String name) {
@@ -75,9 +262,719 @@ public class TicketPoolTest {
         Assert.assertEquals(3, pool.getSoldTickets());
         Assert.assertEquals(5, pool.getTotalTickets());
 
+        // Verify the single-call snapshot agrees with the individual counters
+        PoolStats stats = pool.getStats();
+        System.out.println("Stats snapshot: " + stats);
+        Assert.assertEquals(2, stats.getAvailableTickets());
+        Assert.assertEquals(3, stats.getSoldTickets());
+        Assert.assertEquals(5, stats.getTotalTickets());
+
         System.out.println(name + " Pool basic operations passed!");
     }
 
+    private static void testBatchOperations() {
+        System.out.println("\n=== Batch Operation Tests ===");
+
+        // Test SynchronizedTicketPool
+        testPoolBatchOperations(new SynchronizedTicketPool(POOL_CAPACITY), "Synchronized");
+
+        // Test ReentrantLockTicketPool
+        testPoolBatchOperations(new ReentrantLockTicketPool(POOL_CAPACITY), "ReentrantLock");
+
+        // Test BlockingQueueTicketPool
+        testPoolBatchOperations(new BlockingQueueTicketPool(POOL_CAPACITY), "BlockingQueue");
+
+        // Test TwoLockTicketPool
+        testPoolBatchOperations(new TwoLockTicketPool(POOL_CAPACITY), "TwoLock");
+
+        // Test PriceOrderedTicketPool
+        testPoolBatchOperations(new PriceOrderedTicketPool(POOL_CAPACITY), "PriceOrdered");
+
+        // Test StampedLockTicketPool
+        testPoolBatchOperations(new StampedLockTicketPool(POOL_CAPACITY), "StampedLock");
+    }
+
+    private static void testPoolBatchOperations(TicketPool pool, String name) {
+        System.out.println("\nTesting " + name + " Pool batch operations:");
+
+        // Add a block of tickets in one call
+        List<Ticket> block = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            block.add(new Ticket(i, 10.0 * i));
+        }
+        int added = pool.addTickets(block);
+        System.out.println("Tickets added in one batch: " + added);
+
+        // Purchase a group booking in one call
+        List<Ticket> purchased = pool.purchaseTickets(4);
+        System.out.println("Purchased in one batch: " + purchased);
+
+        Assert.assertEquals(10, added);
+        Assert.assertEquals(4, purchased.size());
+        Assert.assertEquals(0, purchased.get(0).getTicketId());
+        Assert.assertEquals(6, pool.getAvailableTickets());
+        Assert.assertEquals(4, pool.getSoldTickets());
+        Assert.assertEquals(10, pool.getTotalTickets());
+
+        // A request larger than the inventory returns what is available
+        Assert.assertEquals(6, pool.purchaseTickets(50).size());
+        Assert.assertEquals(0, pool.getAvailableTickets());
+
+        System.out.println(name + " Pool batch operations passed!");
+    }
+
+    private static void testTimedOperations() throws Exception {
+        System.out.println("\n=== Timed Operation Tests ===");
+
+        // Test SynchronizedTicketPool
+        testPoolTimedOperations(new SynchronizedTicketPool(2), "Synchronized");
+
+        // Test ReentrantLockTicketPool
+        testPoolTimedOperations(new ReentrantLockTicketPool(2), "ReentrantLock");
+
+        // Test BlockingQueueTicketPool
+        testPoolTimedOperations(new BlockingQueueTicketPool(2), "BlockingQueue");
+
+        // Test TwoLockTicketPool
+        testPoolTimedOperations(new TwoLockTicketPool(2), "TwoLock");
+
+        // Test PriceOrderedTicketPool
+        testPoolTimedOperations(new PriceOrderedTicketPool(2), "PriceOrdered");
+
+        // Test StampedLockTicketPool
+        testPoolTimedOperations(new StampedLockTicketPool(2), "StampedLock");
+    }
+
+    private static void testPoolTimedOperations(TicketPool pool, String name) throws Exception {
+        System.out.println("\nTesting " + name + " Pool timed operations:");
+
+        // Empty pool: non-blocking and timed purchases give up instead of parking
+        Assert.assertNull(pool.tryPurchaseTicket());
+        long start = System.nanoTime();
+        Assert.assertNull(pool.tryPurchaseTicket(50, TimeUnit.MILLISECONDS));
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        System.out.println("Timed purchase on empty pool returned after " + waitedMs + " ms");
+        Assert.assertTrue(waitedMs >= 40 && waitedMs < 1000);
+
+        // Full pool: non-blocking and timed adds are rejected without dropping counts
+        Assert.assertTrue(pool.tryAddTicket(new Ticket(1, 10.0)));
+        Assert.assertTrue(pool.tryAddTicket(new Ticket(2, 10.0), 50, TimeUnit.MILLISECONDS));
+        Assert.assertFalse(pool.tryAddTicket(new Ticket(3, 10.0)));
+        Assert.assertFalse(pool.tryAddTicket(new Ticket(4, 10.0), 50, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(2, pool.getTotalTickets());
+
+        // A waiting purchase is satisfied as soon as a ticket arrives
+        Assert.assertEquals(1, pool.tryPurchaseTicket().getTicketId());
+        Assert.assertEquals(2, pool.tryPurchaseTicket(50, TimeUnit.MILLISECONDS).getTicketId());
+        Assert.assertEquals(2, pool.getSoldTickets());
+
+        // An interrupted caller gets an InterruptedException instead of a silent retry
+        Thread.currentThread().interrupt();
+        try {
+            pool.tryPurchaseTicket(1, TimeUnit.SECONDS);
+            Assert.fail("Expected InterruptedException");
+        } catch (InterruptedException e) {
+            System.out.println("Interrupted timed purchase rejected correctly");
+        }
+
+        System.out.println(name + " Pool timed operations passed!");
+    }
+
+    private static void testPurchaseById() {
+        System.out.println("\n=== Purchase By Id Tests ===");
+
+        // Test SynchronizedTicketPool
+        testPoolPurchaseById(new SynchronizedTicketPool(POOL_CAPACITY), "Synchronized");
+
+        // Test ReentrantLockTicketPool
+        testPoolPurchaseById(new ReentrantLockTicketPool(POOL_CAPACITY), "ReentrantLock");
+
+        // Test ShardedTicketPool with a single shard so FIFO order is observable
+        testPoolPurchaseById(new ShardedTicketPool(POOL_CAPACITY, 1), "Sharded");
+
+        // Test TwoLockTicketPool
+        testPoolPurchaseById(new TwoLockTicketPool(POOL_CAPACITY), "Two-Lock");
+
+        // Test PriceOrderedTicketPool; prices rise with the seat number, so price order is FIFO order
+        testPoolPurchaseById(new PriceOrderedTicketPool(POOL_CAPACITY), "Price-Ordered");
+
+        // Test OffHeapTicketPool
+        testPoolPurchaseById(new OffHeapTicketPool(POOL_CAPACITY), "Off-Heap");
+
+        // Test StampedLockTicketPool
+        testPoolPurchaseById(new StampedLockTicketPool(POOL_CAPACITY), "StampedLock");
+
+        // The ring-backed pools leave holes behind and close them up once the ring is full
+        testPoolSeatHoles(new OffHeapTicketPool(4), "Off-Heap");
+        testPoolSeatHoles(new StampedLockTicketPool(4), "StampedLock");
+        testPoolSeatHoles(new TwoLockTicketPool(4), "Two-Lock");
+
+        // The lock-free pools have no index and do not offer it
+        Assert.assertFalse(new BlockingQueueTicketPool(POOL_CAPACITY) instanceof SeatSelectable);
+        Assert.assertFalse(new RingBufferTicketPool(POOL_CAPACITY) instanceof SeatSelectable);
+    }
+
+    private static void testPoolPurchaseById(TicketPool pool, String name) {
+        System.out.println("\nTesting " + name + " Pool purchase by id:");
+        SeatSelectable seats = (SeatSelectable) pool;
+
+        // Seats 0..49, plus a second ticket for seat 7 that arrives later
+        for (int i = 0; i < 50; i++) {
+            pool.addTicket(new Ticket(i, 10.0 + i));
+        }
+        pool.addTicket(new Ticket(7, 99.0));
+
+        // Pick seats out of the middle of the queue
+        Assert.assertEquals(25, seats.purchaseTicketById(25).getTicketId());
+        Assert.assertNull(seats.purchaseTicketById(25));
+        Assert.assertNull(seats.purchaseTicketById(1000));
+
+        // Duplicates are bought oldest first
+        Assert.assertEquals(17.0, seats.purchaseTicketById(7).getTicketPrice(), 0.0);
+        Assert.assertEquals(99.0, seats.purchaseTicketById(7).getTicketPrice(), 0.0);
+        Assert.assertNull(seats.purchaseTicketById(7));
+
+        // FIFO purchases skip the seats already taken and drop them from the index
+        Assert.assertEquals(0, pool.purchaseTicket().getTicketId());
+        Assert.assertNull(seats.purchaseTicketById(0));
+        for (int expected = 1; expected < 50; expected++) {
+            if (expected == 7 || expected == 25) {
+                continue;
+            }
+            Assert.assertEquals(expected, pool.tryPurchaseTicket().getTicketId());
+        }
+        Assert.assertNull(pool.tryPurchaseTicket());
+
+        // A price change done by re-adding the ticket is visible through the index
+        pool.addTicket(new Ticket(3, 10.0));
+        Ticket repriced = seats.purchaseTicketById(3);
+        repriced.setTicketPrice(12.5);
+        pool.addTicket(repriced);
+        Assert.assertEquals(12.5, seats.purchaseTicketById(3).getTicketPrice(), 0.0);
+
+        PoolStats stats = pool.getStats();
+        Assert.assertEquals(0, stats.getAvailableTickets());
+        Assert.assertEquals(53, stats.getSoldTickets());
+        Assert.assertEquals(53, stats.getTotalTickets());
+
+        System.out.println(name + " Pool purchase by id passed!");
+    }
+
+    private static void testPoolSeatHoles(TicketPool pool, String name) {
+        System.out.println("\nTesting " + name + " Pool seats bought out of order:");
+        SeatSelectable seats = (SeatSelectable) pool;
+
+        // Holes in the middle, then at both ends
+        for (int i = 1; i <= 4; i++) {
+            pool.addTicket(new Ticket(i, i));
+        }
+        Assert.assertEquals(2, seats.purchaseTicketById(2).getTicketId());
+        Assert.assertEquals(3, seats.purchaseTicketById(3).getTicketId());
+
+        // The ring is spanned from 1 to 4, so these two only fit once the holes are closed up
+        Assert.assertTrue(pool.tryAddTicket(new Ticket(5, 5)));
+        Assert.assertTrue(pool.tryAddTicket(new Ticket(6, 6)));
+        Assert.assertFalse(pool.tryAddTicket(new Ticket(7, 7)));
+        Assert.assertEquals(6, seats.purchaseTicketById(6).getTicketId());
+        Assert.assertEquals(1, seats.purchaseTicketById(1).getTicketId());
+        Assert.assertEquals(4, pool.purchaseTicket().getTicketId());
+        Assert.assertEquals(5, seats.purchaseTicketById(5).getTicketId());
+        Assert.assertNull(pool.tryPurchaseTicket());
+
+        // Emptied through holes at both ends, the ring wraps as usual
+        for (int i = 10; i < 14; i++) {
+            Assert.assertTrue(pool.tryAddTicket(new Ticket(i, i)));
+        }
+        for (int i = 10; i < 14; i++) {
+            Assert.assertEquals(i, pool.tryPurchaseTicket().getTicketId());
+        }
+        assertStats(pool.getStats(), 0, 10, 10, 0);
+
+        System.out.println(name + " Pool seats bought out of order passed!");
+    }
+
+    private static void testPriceUpdates() throws Exception {
+        System.out.println("\n=== Price Update Tests ===");
+
+        testPoolPriceUpdates(new SynchronizedTicketPool(POOL_CAPACITY), "Synchronized", true);
+        testPoolPriceUpdates(new ReentrantLockTicketPool(POOL_CAPACITY), "ReentrantLock", true);
+        testPoolPriceUpdates(new BlockingQueueTicketPool(POOL_CAPACITY), "BlockingQueue", true);
+        testPoolPriceUpdates(new RingBufferTicketPool(POOL_CAPACITY), "RingBuffer", true);
+        testPoolPriceUpdates(new ShardedTicketPool(POOL_CAPACITY, 1), "Sharded", true);
+        testPoolPriceUpdates(new OffHeapTicketPool(POOL_CAPACITY), "OffHeap", true);
+        testPoolPriceUpdates(new TwoLockTicketPool(POOL_CAPACITY), "TwoLock", true);
+        testPoolPriceUpdates(new PriceOrderedTicketPool(POOL_CAPACITY), "PriceOrdered", false);
+        testPoolPriceUpdates(new StampedLockTicketPool(POOL_CAPACITY), "StampedLock", true);
+
+        // Writers repricing at full speed must not disturb buyers or the counts
+        testConcurrentPriceUpdates(new ShardedTicketPool(POOL_CAPACITY), "Sharded");
+        testConcurrentPriceUpdates(new RingBufferTicketPool(POOL_CAPACITY), "RingBuffer");
+        testConcurrentPriceUpdates(new TwoLockTicketPool(POOL_CAPACITY), "TwoLock");
+        testConcurrentPriceUpdates(new PriceOrderedTicketPool(POOL_CAPACITY), "PriceOrdered");
+        testConcurrentPriceUpdates(new StampedLockTicketPool(POOL_CAPACITY), "StampedLock");
+
+        // The lock-free pools reprice without holding off buyers, so a ticket may be bought and
+        // recycled as another seat between being matched and being repriced
+        testRecycledPriceUpdates(new RingBufferTicketPool(16), "RingBuffer");
+        testRecycledPriceUpdates(new BlockingQueueTicketPool(16), "BlockingQueue");
+    }
+
+    private static void testPoolPriceUpdates(TicketPool pool, String name, boolean fifo) {
+        System.out.println("\nTesting " + name + " Pool price updates:");
+
+        for (int i = 0; i < 10; i++) {
+            pool.addTicket(new Ticket(i, 10.0));
+        }
+
+        // Repricing neither sells nor re-adds anything
+        Assert.assertTrue(pool.updateTicketPrice(5, 50.0));
+        Assert.assertFalse(pool.updateTicketPrice(42, 1.0));
+        Assert.assertEquals(5, pool.updateTicketPrices(ticket -> ticket.getTicketId() % 2 == 0, price -> price * 2));
+        assertStats(pool.getStats(), 10, 0, 10, 0);
+
+        // Every ticket keeps its place in the queue
+        double[] prices = new double[10];
+        for (int i = 0; i < 10; i++) {
+            Ticket ticket = pool.tryPurchaseTicket();
+            if (fifo) {
+                Assert.assertEquals(i, ticket.getTicketId());
+            }
+            prices[ticket.getTicketId()] = ticket.getTicketPrice();
+        }
+        for (int i = 0; i < 10; i++) {
+            double expected = i == 5 ? 50.0 : i % 2 == 0 ? 20.0 : 10.0;
+            Assert.assertEquals(expected, prices[i], 0.0);
+        }
+        Assert.assertNull(pool.tryPurchaseTicket());
+        System.out.println(name + " Pool price updates passed!");
+    }
+
+    private static void testConcurrentPriceUpdates(TicketPool pool, String name) throws Exception {
+        System.out.println("\nTesting " + name + " Pool price updates under load:");
+
+        int writers = 2;
+        ExecutorService executor = Executors.newFixedThreadPool(NUM_PRODUCERS + NUM_CONSUMERS + writers);
+        CountDownLatch buyersDone = new CountDownLatch(NUM_PRODUCERS + NUM_CONSUMERS);
+        AtomicBoolean buying = new AtomicBoolean(true);
+        AtomicInteger purchased = new AtomicInteger();
+        AtomicInteger updates = new AtomicInteger();
+
+        for (int i = 0; i < NUM_PRODUCERS; i++) {
+            int producerId = i;
+            executor.submit(() -> {
+                try {
+                    for (int j = 0; j < OPERATIONS_PER_THREAD; j++) {
+                        pool.addTicket(new Ticket(producerId * OPERATIONS_PER_THREAD + j, 10.0));
+                    }
+                } finally {
+                    buyersDone.countDown();
+                }
+            });
+        }
+        for (int i = 0; i < NUM_CONSUMERS; i++) {
+            executor.submit(() -> {
+                try {
+                    for (int j = 0; j < OPERATIONS_PER_THREAD; j++) {
+                        Assert.assertNotNull(pool.tryPurchaseTicket(5, TimeUnit.SECONDS));
+                        purchased.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    buyersDone.countDown();
+                }
+            });
+        }
+        for (int i = 0; i < writers; i++) {
+            executor.submit(() -> {
+                int ticketId = 0;
+                while (buying.get()) {
+                    ticketId = (ticketId + 7) % (NUM_PRODUCERS * OPERATIONS_PER_THREAD);
+                    pool.updateTicketPrice(ticketId, ticketId);
+                    pool.updateTicketPrices(ticket -> ticket.getTicketId() % 97 == 0, price -> price + 1);
+                    updates.incrementAndGet();
+                }
+            });
+        }
+
+        Assert.assertTrue(buyersDone.await(60, TimeUnit.SECONDS));
+        buying.set(false);
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        int total = NUM_PRODUCERS * OPERATIONS_PER_THREAD;
+        System.out.println(updates.get() + " update rounds while " + purchased.get() + " tickets were sold");
+        assertStats(pool.getStats(), total - purchased.get(), purchased.get(), total, 0);
+        System.out.println(name + " Pool price updates under load passed!");
+    }
+
+    private static void testRecycledPriceUpdates(TicketPool pool, String name) throws Exception {
+        System.out.println("\nTesting " + name + " Pool price updates on recycled tickets:");
+
+        // Every ticket is issued at its id as price. Writers only ever move a price up by a
+        // quarter for its own id, or to half above it for even ids, so any other difference
+        // is a price meant for the seat the ticket was before it was recycled.
+        int seats = 64;
+        int tickets = 200_000;
+        TicketRecycler recycler = new TicketRecycler(64);
+        AtomicInteger issued = new AtomicInteger();
+        AtomicInteger bought = new AtomicInteger();
+        AtomicInteger misprices = new AtomicInteger();
+        AtomicBoolean buying = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        CountDownLatch buyersDone = new CountDownLatch(4);
+
+        for (int i = 0; i < 2; i++) {
+            executor.submit(() -> {
+                try {
+                    int n;
+                    while ((n = issued.getAndIncrement()) < tickets) {
+                        int seat = n % seats;
+                        pool.addTicket(recycler.acquire(seat, seat));
+                    }
+                } finally {
+                    buyersDone.countDown();
+                }
+            });
+            executor.submit(() -> {
+                try {
+                    while (bought.get() < tickets) {
+                        Ticket ticket = pool.tryPurchaseTicket(10, TimeUnit.MILLISECONDS);
+                        if (ticket == null) {
+                            continue;
+                        }
+                        bought.incrementAndGet();
+                        double extra = ticket.getTicketPrice() - ticket.getTicketId();
+                        if (extra != 0 && extra != 0.25 && (extra != 0.5 || ticket.getTicketId() % 2 != 0)) {
+                            misprices.incrementAndGet();
+                        }
+                        recycler.release(ticket);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    buyersDone.countDown();
+                }
+            });
+        }
+        executor.submit(() -> {
+            int seat = 0;
+            while (buying.get()) {
+                seat = (seat + 1) % seats;
+                pool.updateTicketPrice(seat, seat + 0.25);
+            }
+        });
+        executor.submit(() -> {
+            while (buying.get()) {
+                pool.updateTicketPrices(ticket -> ticket.getTicketId() % 2 == 0, price -> Math.floor(price) + 0.5);
+            }
+        });
+
+        Assert.assertTrue(buyersDone.await(60, TimeUnit.SECONDS));
+        buying.set(false);
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        System.out.println(bought.get() + " tickets bought, " + recycler.getReusedTickets() + " of them reused, "
+                + misprices.get() + " mispriced");
+        Assert.assertEquals(0, misprices.get());
+        System.out.println(name + " Pool price updates on recycled tickets passed!");
+    }
+
+    private static void testReservations() throws Exception {
+        System.out.println("\n=== Reservation Tests ===");
+
+        // Test ReservableTicketPool over an indexed pool
+        testPoolReservations(new ReservableTicketPool(new ReentrantLockTicketPool(POOL_CAPACITY), POOL_CAPACITY), "Reservable ReentrantLock");
+
+        // Test expiry of a large number of concurrent holds
+        testHoldExpiryAtScale();
+    }
+
+    private static void testPoolReservations(ReservableTicketPool pool, String name) throws Exception {
+        System.out.println("\nTesting " + name + " Pool reservations:");
+
+        for (int i = 0; i < 5; i++) {
+            pool.addTicket(new Ticket(i, 10.0));
+        }
+
+        // Held tickets are neither available nor sold
+        ReservableTicketPool.Hold confirmed = pool.reserveTicket(10, TimeUnit.SECONDS);
+        ReservableTicketPool.Hold released = pool.reserveTicket(10, TimeUnit.SECONDS);
+        ReservableTicketPool.Hold seat = pool.reserveTicketById(4, 10, TimeUnit.SECONDS);
+        Assert.assertEquals(0, confirmed.getTicket().getTicketId());
+        Assert.assertEquals(4, seat.getTicket().getTicketId());
+        Assert.assertNull(pool.reserveTicketById(4, 10, TimeUnit.SECONDS));
+        assertStats(pool.getStats(), 2, 0, 5, 3);
+
+        // Confirming sells the ticket, releasing puts it back
+        Assert.assertTrue(confirmed.confirm());
+        Assert.assertTrue(released.release());
+        Assert.assertFalse(confirmed.release());
+        Assert.assertFalse(released.confirm());
+        assertStats(pool.getStats(), 3, 1, 5, 1);
+
+        // An abandoned hold comes back on its own once the TTL passes
+        ReservableTicketPool.Hold abandoned = pool.reserveTicket(50, TimeUnit.MILLISECONDS);
+        assertStats(pool.getStats(), 2, 1, 5, 2);
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!abandoned.isExpired() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(abandoned.isExpired());
+        Assert.assertFalse(abandoned.confirm());
+        assertStats(pool.getStats(), 3, 1, 5, 1);
+
+        // Plain purchases still count as sales
+        Assert.assertTrue(seat.confirm());
+        Assert.assertEquals(3, pool.purchaseTickets(10).size());
+        assertStats(pool.getStats(), 0, 5, 5, 0);
+
+        pool.shutdown();
+        System.out.println(name + " Pool reservations passed!");
+    }
+
+    private static void testHoldExpiryAtScale() throws Exception {
+        int holds = 200_000;
+        System.out.println("\nTesting expiry of " + holds + " concurrent holds:");
+
+        ReservableTicketPool pool = new ReservableTicketPool(new RingBufferTicketPool(holds), holds);
+        for (int i = 0; i < holds; i++) {
+            pool.addTicket(new Ticket(i, 10.0));
+        }
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < holds; i++) {
+            Assert.assertNotNull(pool.reserveTicket(2000 + i % 1000, TimeUnit.MILLISECONDS));
+        }
+        System.out.println("Reserved " + holds + " tickets in " + (System.currentTimeMillis() - start) + " ms");
+        Assert.assertEquals(holds, pool.getHeldTickets());
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (pool.getHeldTickets() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        System.out.println("All holds returned after " + (System.currentTimeMillis() - start) + " ms");
+        assertStats(pool.getStats(), holds, 0, holds, 0);
+
+        pool.shutdown();
+        System.out.println("Hold expiry at scale passed!");
+    }
+
+    private static void testJournal() throws Exception {
+        System.out.println("\n=== Journal Tests ===");
+        Path dir = Files.createTempDirectory("ticket-journal");
+        try {
+            testJournalRecovery(dir.resolve("recovery.journal"));
+            testJournalTornTail(dir.resolve("torn.journal"));
+            testJournalGroupCommit(dir.resolve("group.journal"));
+        } finally {
+            try (var files = Files.list(dir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(dir);
+        }
+    }
+
+    private static void testJournalRecovery(Path file) throws Exception {
+        System.out.println("\nTesting journal recovery:");
+
+        JournaledTicketPool pool = JournaledTicketPool.open(new ReentrantLockTicketPool(10), file);
+        Assert.assertEquals(0, pool.getRecoveredTickets());
+        for (int i = 0; i < 10; i++) {
+            pool.addTicket(new Ticket(i, i));
+        }
+        Assert.assertEquals(3, pool.purchaseTickets(3).size());
+        Assert.assertEquals(5, pool.purchaseTicketById(5).getTicketId());
+        Assert.assertTrue(pool.updateTicketPrice(7, 99.0));
+        for (int i = 10; i < 14; i++) {
+            pool.addTicket(new Ticket(i, i));
+        }
+        // A rejected add is journaled too and must not come back after recovery
+        Assert.assertFalse(pool.tryAddTicket(new Ticket(99, 1.0)));
+        PoolStats before = pool.getStats();
+        pool.close();
+
+        // Recovery rebuilds the inventory, prices and counts into a fresh pool
+        JournaledTicketPool recovered = JournaledTicketPool.open(new ReentrantLockTicketPool(10), file);
+        Assert.assertEquals(10, recovered.getRecoveredTickets());
+        Assert.assertEquals(-1, recovered.getTornRecordOffset());
+        assertStats(recovered.getStats(), before.getAvailableTickets(), before.getSoldTickets(), before.getTotalTickets(), 0);
+        Assert.assertNull(recovered.purchaseTicketById(5));
+        Assert.assertNull(recovered.purchaseTicketById(99));
+        Assert.assertEquals(99.0, recovered.purchaseTicketById(7).getTicketPrice(), 0.0);
+        Assert.assertEquals(3, recovered.purchaseTicket().getTicketId());
+        recovered.close();
+
+        // The purchases made after the first recovery survive a second one
+        JournaledTicketPool again = JournaledTicketPool.open(new ReentrantLockTicketPool(10), file);
+        assertStats(again.getStats(), 8, 6, 14, 0);
+        again.close();
+        System.out.println("Journal recovery passed!");
+    }
+
+    private static void testJournalTornTail(Path file) throws Exception {
+        System.out.println("\nTesting journal recovery from a torn write:");
+
+        JournaledTicketPool pool = JournaledTicketPool.open(new RingBufferTicketPool(10), file);
+        for (int i = 0; i < 5; i++) {
+            pool.addTicket(new Ticket(i, 10.0));
+        }
+        pool.close();
+        long intact = Files.size(file);
+
+        // Simulate a crash halfway through a record, followed by garbage
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{2, 0, 0, 0, 1, 42, 42, 42, 42, 42, 42, 42, 42, 42, 42, 42, 42, 7, 7}));
+        }
+
+        JournaledTicketPool recovered = JournaledTicketPool.open(new RingBufferTicketPool(10), file);
+        Assert.assertEquals(5, recovered.getRecoveredTickets());
+        Assert.assertTrue(recovered.getTornRecordOffset() > 0);
+        assertStats(recovered.getStats(), 5, 0, 5, 0);
+        Assert.assertTrue(Files.size(file) <= intact);
+
+        // Appends after recovery land on a clean record boundary
+        recovered.purchaseTicket();
+        recovered.close();
+        JournaledTicketPool again = JournaledTicketPool.open(new RingBufferTicketPool(10), file);
+        assertStats(again.getStats(), 4, 1, 5, 0);
+        again.close();
+        System.out.println("Journal torn-tail recovery passed!");
+    }
+
+    private static void testJournalGroupCommit(Path file) throws Exception {
+        int threads = 16;
+        int operations = 500;
+        System.out.println("\nTesting journal group commit with " + threads + " threads:");
+
+        JournaledTicketPool pool = JournaledTicketPool.open(new RingBufferTicketPool(POOL_CAPACITY), file);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(threads);
+        AtomicInteger purchased = new AtomicInteger();
+        long start = System.currentTimeMillis();
+        for (int t = 0; t < threads; t++) {
+            int base = t * operations;
+            executor.submit(() -> {
+                try {
+                    for (int i = 0; i < operations; i++) {
+                        pool.addTicket(new Ticket(base + i, 10.0));
+                        if (pool.tryPurchaseTicket() != null) {
+                            purchased.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        Assert.assertTrue(latch.await(60, TimeUnit.SECONDS));
+        executor.shutdown();
+        long records = pool.getJournaledRecords();
+        long commits = pool.getGroupCommits();
+        System.out.println(records + " records in " + commits + " fsyncs ("
+                + String.format("%.1f", (double) records / commits) + " per fsync) in "
+                + (System.currentTimeMillis() - start) + " ms");
+        Assert.assertTrue("concurrent operations should share fsyncs", commits < records);
+        PoolStats before = pool.getStats();
+        pool.close();
+
+        JournaledTicketPool recovered = JournaledTicketPool.open(new RingBufferTicketPool(POOL_CAPACITY), file);
+        assertStats(recovered.getStats(), before.getAvailableTickets(), purchased.get(), threads * operations, 0);
+        recovered.close();
+        System.out.println("Journal group commit passed!");
+    }
+
+    private static void testSnapshot() throws Exception {
+        System.out.println("\n=== Snapshot Tests ===");
+        int capacity = 100_000;
+        Path file = Files.createTempFile("ticket-pool", ".snapshot");
+        try {
+            // A producer numbers tickets 0, 1, 2, ... and a consumer buys them while the snapshot
+            // is taken, so a consistent snapshot holds exactly the ids sold..total-1 in order
+            OffHeapTicketPool pool = new OffHeapTicketPool(capacity);
+            AtomicBoolean running = new AtomicBoolean(true);
+            Thread producer = new Thread(() -> {
+                int id = 0;
+                while (running.get()) {
+                    if (pool.tryAddTicket(id, id)) {
+                        id++;
+                    }
+                }
+            });
+            Thread consumer = new Thread(() -> {
+                TicketRecord record = new TicketRecord();
+                while (running.get()) {
+                    pool.tryPurchaseTicket(record);
+                }
+            });
+            producer.start();
+            Thread.sleep(50);
+            consumer.start();
+            Thread.sleep(50);
+            long start = System.nanoTime();
+            int saved = pool.snapshot(file);
+            System.out.println("Snapshot of " + saved + " tickets taken during sales in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+            running.set(false);
+            producer.join();
+            consumer.join();
+
+            OffHeapTicketPool restored = OffHeapTicketPool.restore(file, capacity);
+            PoolStats stats = restored.getStats();
+            System.out.println("Restored: " + stats);
+            Assert.assertEquals(saved, stats.getAvailableTickets());
+            Assert.assertEquals(stats.getTotalTickets() - stats.getSoldTickets(), saved);
+            TicketRecord record = new TicketRecord();
+            int expected = stats.getSoldTickets();
+            while (restored.tryPurchaseTicket(record)) {
+                Assert.assertEquals(expected, record.getTicketId());
+                Assert.assertEquals(expected, record.getPriceCents());
+                expected++;
+            }
+            Assert.assertEquals(stats.getTotalTickets(), expected);
+
+            // A snapshot does not fit a pool smaller than its inventory
+            try {
+                OffHeapTicketPool.restore(file, Math.max(1, saved - 1));
+                Assert.fail("Expected restore into a smaller pool to fail");
+            } catch (IllegalArgumentException e) {
+                System.out.println("Caught expected exception: " + e.getMessage());
+            }
+
+            // Seats bought by id are saved as holes and stay gone after a restore
+            OffHeapTicketPool seats = new OffHeapTicketPool(10);
+            for (int i = 0; i < 6; i++) {
+                seats.addTicket(i, i * 100L);
+            }
+            Assert.assertNotNull(seats.purchaseTicketById(2));
+            Assert.assertNotNull(seats.purchaseTicketById(4));
+            Assert.assertEquals(4, seats.snapshot(file));
+            OffHeapTicketPool reopened = OffHeapTicketPool.restore(file, 10);
+            assertStats(reopened.getStats(), 4, 2, 6, 0);
+            Assert.assertNull(reopened.purchaseTicketById(4));
+            Assert.assertEquals(3.0, reopened.purchaseTicketById(3).getTicketPrice(), 0.0);
+            for (int seat : new int[]{0, 1, 5}) {
+                Assert.assertTrue(reopened.tryPurchaseTicket(record));
+                Assert.assertEquals(seat, record.getTicketId());
+            }
+            Assert.assertFalse(reopened.tryPurchaseTicket(record));
+            System.out.println("Snapshot tests passed!");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void assertStats(PoolStats stats, int available, int sold, int total, int held) {
+        System.out.println("Stats snapshot: " + stats);
+        Assert.assertEquals(available, stats.getAvailableTickets());
+        Assert.assertEquals(sold, stats.getSoldTickets());
+        Assert.assertEquals(total, stats.getTotalTickets());
+        Assert.assertEquals(held, stats.getHeldTickets());
+    }
+
     private static void testThreadSafety() throws Exception {
         System.out.println("\n=== Thread Safety Tests ===");
 
@@ -89,6 +986,15 @@ public class TicketPoolTest {
 
         // Test BlockingQueueTicketPool
         testPoolThreadSafety(new BlockingQueueTicketPool(POOL_CAPACITY), "BlockingQueue");
+
+        // Test TwoLockTicketPool
+        testPoolThreadSafety(new TwoLockTicketPool(POOL_CAPACITY), "TwoLock");
+
+        // Test PriceOrderedTicketPool
+        testPoolThreadSafety(new PriceOrderedTicketPool(POOL_CAPACITY), "PriceOrdered");
+
+        // Test StampedLockTicketPool
+        testPoolThreadSafety(new StampedLockTicketPool(POOL_CAPACITY), "StampedLock");
     }
 
     private static void testPoolThreadSafety(TicketPool pool, String name) throws Exception {
@@ -158,6 +1064,7 @@ public class TicketPoolTest {
 
         // Verify that total tickets created equals tickets purchased plus available tickets
         Assert.assertEquals(pool.getSoldTickets() + pool.getAvailableTickets(), pool.getTotalTickets());
+        Assert.assertEquals(ticketsPurchased.get(), pool.getStats().getSoldTickets());
 
         System.out.println(name + " Pool thread safety test passed!");
     }
@@ -235,11 +1142,17 @@ public class TicketPoolTest {
         testEmptyPool(new SynchronizedTicketPool(POOL_CAPACITY), "Synchronized");
         testEmptyPool(new ReentrantLockTicketPool(POOL_CAPACITY), "ReentrantLock");
         testEmptyPool(new BlockingQueueTicketPool(POOL_CAPACITY), "BlockingQueue");
+        testEmptyPool(new TwoLockTicketPool(POOL_CAPACITY), "TwoLock");
+        testEmptyPool(new PriceOrderedTicketPool(POOL_CAPACITY), "PriceOrdered");
+        testEmptyPool(new StampedLockTicketPool(POOL_CAPACITY), "StampedLock");
 
         // Test full pool
         testFullPool(new SynchronizedTicketPool(5), "Synchronized");
         testFullPool(new ReentrantLockTicketPool(5), "ReentrantLock");
         testFullPool(new BlockingQueueTicketPool(5), "BlockingQueue");
+        testFullPool(new TwoLockTicketPool(5), "TwoLock");
+        testFullPool(new PriceOrderedTicketPool(5), "PriceOrdered");
+        testFullPool(new StampedLockTicketPool(5), "StampedLock");
     }
 
     private static void testEmptyPool(TicketPool pool, String name) {
@@ -299,8 +1212,11 @@ public class TicketPoolTest {
                 System.out.println(name + " Pool correctly blocks when full.");
             }
         } catch (Exception e) {
-            // Expected timeout exception
+            // Expected timeout exception; the waiting producer's ticket is not stock yet
             System.out.println(name + " Pool correctly blocks when full.");
+            PoolStats stats = pool.getStats();
+            Assert.assertEquals(5, stats.getAvailableTickets());
+            Assert.assertEquals(5, stats.getTotalTickets());
         } finally {
             executor.shutdownNow();
         }
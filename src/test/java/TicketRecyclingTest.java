@@ -0,0 +1,154 @@
+import com.iit.ticket.consumer.Consumer;
+import com.iit.ticket.pool.RingBufferTicketPool;
+import com.iit.ticket.pool.TicketPool;
+import com.iit.ticket.producer.Producer;
+import com.iit.ticket.util.EventLog;
+import com.iit.ticket.util.TicketRecycler;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+public class TicketRecyclingTest {
+
+    private static final int POOL_CAPACITY = 1000;
+    private static final int NUM_PRODUCERS = 4;
+    private static final int NUM_CONSUMERS = 4;
+    private static final int RATE = 1000;
+    private static final int WARMUP_SECONDS = 2;
+    private static final int TEST_DURATION_SECONDS = 5;
+    // A recycled producer allocates nothing per ticket; this leaves room for the odd timer or lock node
+    private static final double MAX_RECYCLED_BYTES_PER_TICKET = 2.0;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== Ticket Recycling Allocation Test ===");
+        EventLog.global().setLevel(EventLog.Level.OFF);
+        System.out.println("Testing with " + NUM_PRODUCERS + " producers and " + NUM_CONSUMERS
+                + " consumers at " + RATE + " ops/sec each for " + TEST_DURATION_SECONDS + " seconds");
+
+        AllocationResult plain = measureAllocation(null, "Without recycling");
+        AllocationResult recycled = measureAllocation(new TicketRecycler(POOL_CAPACITY), "With recycling");
+
+        // Print summary
+        System.out.println("\n=== Summary ===");
+        printResult("Without recycling", plain);
+        printResult("With recycling", recycled);
+
+        assertTrue(plain.ticketsProduced > 0 && recycled.ticketsProduced > 0);
+        assertTrue(recycled.ticketsReused > 0);
+        assertTrue("Recycled producers allocate " + recycled.producerBytesPerTicket() + " bytes/ticket",
+                recycled.producerBytesPerTicket() < MAX_RECYCLED_BYTES_PER_TICKET);
+        assertTrue("Recycling barely changes producer allocation",
+                recycled.producerBytesPerTicket() * 10 < plain.producerBytesPerTicket());
+        System.out.println("\nAll ticket recycling tests passed!");
+    }
+
+    private static AllocationResult measureAllocation(TicketRecycler recycler, String name) throws Exception {
+        System.out.println("\nTesting " + name + ":");
+
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        // A ring buffer pool stores tickets without allocating nodes, so only the entities allocate
+        TicketPool pool = new RingBufferTicketPool(POOL_CAPACITY);
+        List<Producer> producers = new ArrayList<>();
+        List<Consumer> consumers = new ArrayList<>();
+        List<Thread> producerThreads = new ArrayList<>();
+        List<Thread> consumerThreads = new ArrayList<>();
+
+        for (int i = 0; i < NUM_PRODUCERS; i++) {
+            Producer producer = new Producer(pool, i);
+            producer.setRate(RATE);
+            producer.setRecycler(recycler);
+            producers.add(producer);
+            Thread thread = new Thread(producer, "Producer-" + i);
+            producerThreads.add(thread);
+            thread.start();
+        }
+        for (int i = 0; i < NUM_CONSUMERS; i++) {
+            Consumer consumer = new Consumer(pool, i);
+            consumer.setRate(RATE);
+            consumer.setRecycler(recycler);
+            consumers.add(consumer);
+            Thread thread = new Thread(consumer, "Consumer-" + i);
+            consumerThreads.add(thread);
+            thread.start();
+        }
+
+        // Let the free list fill and the JIT settle before measuring
+        Thread.sleep(WARMUP_SECONDS * 1000);
+
+        long producerBytesBefore = allocatedBytes(threadBean, producerThreads);
+        long consumerBytesBefore = allocatedBytes(threadBean, consumerThreads);
+        int totalBefore = pool.getTotalTickets();
+        long startTime = System.nanoTime();
+
+        Thread.sleep(TEST_DURATION_SECONDS * 1000);
+
+        long producerBytes = allocatedBytes(threadBean, producerThreads) - producerBytesBefore;
+        long consumerBytes = allocatedBytes(threadBean, consumerThreads) - consumerBytesBefore;
+        int ticketsProduced = pool.getTotalTickets() - totalBefore;
+        double seconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+
+        for (Producer producer : producers) {
+            producer.stop();
+        }
+        for (Consumer consumer : consumers) {
+            consumer.stop();
+        }
+        for (Thread thread : producerThreads) {
+            thread.interrupt();
+            thread.join();
+        }
+        for (Thread thread : consumerThreads) {
+            thread.interrupt();
+            thread.join();
+        }
+
+        return new AllocationResult(ticketsProduced, seconds, producerBytes, consumerBytes,
+                recycler == null ? 0 : recycler.getReusedTickets());
+    }
+
+    private static long allocatedBytes(com.sun.management.ThreadMXBean threadBean, List<Thread> threads) {
+        long total = 0;
+        for (Thread thread : threads) {
+            total += threadBean.getThreadAllocatedBytes(thread.threadId());
+        }
+        return total;
+    }
+
+    private static void printResult(String name, AllocationResult result) {
+        System.out.println(name + ":");
+        System.out.println("  - Tickets produced: " + result.ticketsProduced);
+        System.out.println("  - Tickets reused: " + result.ticketsReused);
+        System.out.println("  - Producer allocation rate: "
+                + String.format("%.2f", result.producerBytes / result.seconds / 1024) + " KB/sec ("
+                + String.format("%.1f", result.producerBytesPerTicket()) + " bytes/ticket)");
+        System.out.println("  - Consumer allocation rate: "
+                + String.format("%.2f", result.consumerBytes / result.seconds / 1024) + " KB/sec (purchase logging is formatted on the event log thread)");
+    }
+
+    private static class AllocationResult {
+        final int ticketsProduced;
+        final double seconds;
+        final long producerBytes;
+        final long consumerBytes;
+        final long ticketsReused;
+
+        AllocationResult(int ticketsProduced, double seconds, long producerBytes, long consumerBytes, long ticketsReused) {
+            this.ticketsProduced = ticketsProduced;
+            this.seconds = seconds;
+            this.producerBytes = producerBytes;
+            this.consumerBytes = consumerBytes;
+            this.ticketsReused = ticketsReused;
+        }
+
+        double producerBytesPerTicket() {
+            return (double) producerBytes / Math.max(1, ticketsProduced);
+        }
+    }
+
+}